@@ -39,6 +39,7 @@ import java.util.Random;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -68,6 +69,7 @@ import com.serotonin.bacnet4j.npdu.NetworkIdentifier;
 import com.serotonin.bacnet4j.obj.BACnetObject;
 import com.serotonin.bacnet4j.obj.DeviceObject;
 import com.serotonin.bacnet4j.obj.mixin.CovContext;
+import com.serotonin.bacnet4j.obj.mixin.event.EventStateIndex;
 import com.serotonin.bacnet4j.persistence.IPersistence;
 import com.serotonin.bacnet4j.persistence.NullPersistence;
 import com.serotonin.bacnet4j.service.VendorServiceKey;
@@ -93,6 +95,12 @@ import com.serotonin.bacnet4j.type.enumerated.Segmentation;
 import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.DiscoveryEngine;
+import com.serotonin.bacnet4j.util.LaneScheduler;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
+import com.serotonin.bacnet4j.util.PointSubscriptionService;
+import com.serotonin.bacnet4j.util.PollingEngine;
+import com.serotonin.bacnet4j.util.RecipientResolver;
 import com.serotonin.bacnet4j.util.RemoteDeviceDiscoverer;
 import com.serotonin.bacnet4j.util.RemoteDeviceFinder;
 import com.serotonin.bacnet4j.util.RemoteDeviceFinder.RemoteDeviceFuture;
@@ -117,6 +125,12 @@ public class LocalDevice {
      */
     private final List<BACnetObject> localObjects = new CopyOnWriteArrayList<>();
 
+    /**
+     * The local objects that do event reporting, and those that currently have active events. Used by the alarm and
+     * event summary services.
+     */
+    private final EventStateIndex eventStateIndex = new EventStateIndex();
+
     /**
      * The policies used for caching of devices, objects, and properties.
      */
@@ -127,6 +141,18 @@ public class LocalDevice {
      */
     private final RemoteEntityCache<Integer, RemoteDevice> remoteDeviceCache = new RemoteEntityCache<>(this);
 
+    /**
+     * Discovers the extended information of devices that send IAms.
+     */
+    private final DiscoveryEngine discoveryEngine = new DiscoveryEngine(this);
+
+    /**
+     * Resolves the addresses of notification recipients without blocking.
+     */
+    private final RecipientResolver recipientResolver = new RecipientResolver(this);
+    private final PollingEngine pollingEngine = new PollingEngine(this);
+    private final PointSubscriptionService pointSubscriptionService = new PointSubscriptionService(this);
+
     /**
      * The amount of time to remember that a device lookup timed out in milliseconds. Default to 30 seconds.
      */
@@ -173,6 +199,10 @@ public class LocalDevice {
     private ReinitializeDeviceHandler reinitializeDeviceHandler = new DefaultReinitializeDeviceHandler();
 
     private ScheduledExecutorService timer;
+    private LaneScheduler scheduler;
+
+    // The executor of incoming requests that may block. Defaults to the IO lane of the scheduler.
+    private Executor requestExecutor;
 
     /**
      * Useful when objects want to make COV subscriptions, in that it will provide a device-unique id.
@@ -217,6 +247,10 @@ public class LocalDevice {
         return deviceObject;
     }
 
+    public Transport getTransport() {
+        return transport;
+    }
+
     public Network getNetwork() {
         return transport.getNetwork();
     }
@@ -310,6 +344,7 @@ public class LocalDevice {
         deviceObject.writePropertyInternal(PropertyIdentifier.lastRestartReason, lastRestartReason);
 
         timer = new WarpScheduledExecutorService(clock);
+        scheduler = new LaneScheduler(clock, timer);
         transport.initialize();
         initialized = true;
 
@@ -381,19 +416,25 @@ public class LocalDevice {
                         new PropertyValue(PropertyIdentifier.lastRestartReason,
                                 deviceObject.get(PropertyIdentifier.lastRestartReason))));
         for (final Recipient recipient : restartNotificationRecipients) {
-            final Address address = recipient.toAddress(this);
-            send(address, restartNotif);
+            recipientResolver.send(recipient, (address) -> send(address, restartNotif));
         }
 
         return this;
     }
 
     public synchronized void terminate() {
+        discoveryEngine.clear();
+        recipientResolver.clear();
+        pointSubscriptionService.clear();
+        pollingEngine.clear();
         if (timer != null) {
             timer.shutdown();
             try {
                 if (!timer.awaitTermination(10, TimeUnit.SECONDS))
                     LOG.warn("BACnet4J timer did not shutdown within 10 seconds");
+                scheduler.shutdown();
+                if (!scheduler.awaitTermination(10, TimeUnit.SECONDS))
+                    LOG.warn("BACnet4J timer lanes did not shutdown within 10 seconds");
             } catch (final InterruptedException e) {
                 LOG.warn("Interrupted while waiting for shutdown of executors", e);
             }
@@ -413,26 +454,60 @@ public class LocalDevice {
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////
 
     /**
-     * Schedules the given command for later execution.
+     * Schedules the given command for later execution in the IO lane.
      */
     public ScheduledFuture<?> schedule(final Runnable command, final long period, final TimeUnit unit) {
-        return timer.schedule(command, period, unit);
+        return schedule(Lane.IO, null, command, period, unit);
     }
 
     /**
-     * Schedules the given command for later execution.
+     * Schedules the given command for later execution in the IO lane.
      */
     public ScheduledFuture<?> scheduleAtFixedRate(final Runnable command, final long initialDelay, final long period,
             final TimeUnit unit) {
-        return timer.scheduleAtFixedRate(command, initialDelay, period, unit);
+        return scheduleAtFixedRate(Lane.IO, null, command, initialDelay, period, unit);
     }
 
     /**
-     * Schedules the given command for later execution.
+     * Schedules the given command for later execution in the IO lane.
      */
     public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable command, final long initialDelay, final long delay,
             final TimeUnit unit) {
-        return timer.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+        return scheduleWithFixedDelay(Lane.IO, null, command, initialDelay, delay, unit);
+    }
+
+    /**
+     * Schedules the given command for later execution in the given lane.
+     *
+     * @param key
+     *            TIMER lane commands with equal keys, such as the id of the object that schedules them, run in order.
+     */
+    public ScheduledFuture<?> schedule(final Lane lane, final Object key, final Runnable command, final long period,
+            final TimeUnit unit) {
+        return scheduler.schedule(lane, key, command, period, unit);
+    }
+
+    /**
+     * Schedules the given command for later execution in the given lane.
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(final Lane lane, final Object key, final Runnable command,
+            final long initialDelay, final long period, final TimeUnit unit) {
+        return scheduler.scheduleAtFixedRate(lane, key, command, initialDelay, period, unit);
+    }
+
+    /**
+     * Schedules the given command for later execution in the given lane.
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(final Lane lane, final Object key, final Runnable command,
+            final long initialDelay, final long delay, final TimeUnit unit) {
+        return scheduler.scheduleWithFixedDelay(lane, key, command, initialDelay, delay, unit);
+    }
+
+    /**
+     * @return the scheduler of this device, which provides the metrics of its lanes.
+     */
+    public LaneScheduler getScheduler() {
+        return scheduler;
     }
 
     /**
@@ -449,6 +524,20 @@ public class LocalDevice {
         timer.execute(task);
     }
 
+    /**
+     * Sets the executor on which incoming requests that may block, e.g. on file storage, are handled, so that they do
+     * not hold up the transport. By default they are handled in the IO lane of the scheduler, which has a bounded
+     * number of threads of its own.
+     */
+    public LocalDevice withRequestExecutor(final Executor requestExecutor) {
+        this.requestExecutor = requestExecutor;
+        return this;
+    }
+
+    public Executor getRequestExecutor() {
+        return requestExecutor == null ? scheduler.getIoExecutor() : requestExecutor;
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // Device configuration.
@@ -506,6 +595,36 @@ public class LocalDevice {
         return localObjects;
     }
 
+    public EventStateIndex getEventStateIndex() {
+        return eventStateIndex;
+    }
+
+    /**
+     * Changes the properties of local objects. The values of each object are written as one batch with
+     * BACnetObject.writePropertiesInternal, so that each object is evaluated for COV and intrinsic reporting once.
+     *
+     * @param values
+     *            the values to write by object.
+     * @throws BACnetServiceException
+     *             if any of the objects does not exist, in which case nothing is written.
+     */
+    public LocalDevice writePropertiesInternal(
+            final Map<ObjectIdentifier, ? extends Map<PropertyIdentifier, ? extends Encodable>> values)
+            throws BACnetServiceException {
+        // Resolve all of the objects before writing any of them.
+        final List<BACnetObject> objects = new ArrayList<>(values.size());
+        final List<Map<PropertyIdentifier, ? extends Encodable>> objectValues = new ArrayList<>(values.size());
+        for (final Map.Entry<ObjectIdentifier, ? extends Map<PropertyIdentifier, ? extends Encodable>> e : values
+                .entrySet()) {
+            objects.add(getObjectRequired(e.getKey()));
+            objectValues.add(e.getValue());
+        }
+
+        for (int i = 0; i < objects.size(); i++)
+            objects.get(i).writePropertiesInternal(objectValues.get(i));
+        return this;
+    }
+
     public BACnetObject getObject(final ObjectIdentifier id) {
         ObjectIdentifier oidToFind = id;
         // Treat calls for device 0x3FFFFF as calls for the local device object. See 15.5.2.
@@ -538,10 +657,16 @@ public class LocalDevice {
                 throw new BACnetServiceException(ErrorClass.object, ErrorCode.dynamicCreationNotSupported);
             }
         }
-        if (getObject(obj.getId()) != null)
+        if (getObject(obj.getId()) != null) {
+            // The object may have indexed itself during construction if the existing object is not indexed. It never
+            // displaces an indexed object, so this only removes the rejected object.
+            eventStateIndex.remove(obj);
             throw new BACnetServiceException(ErrorClass.object, ErrorCode.objectIdentifierAlreadyExists);
-        if (getObject(obj.getObjectName()) != null)
+        }
+        if (getObject(obj.getObjectName()) != null) {
+            eventStateIndex.remove(obj);
             throw new BACnetServiceException(ErrorClass.object, ErrorCode.duplicateName);
+        }
 
         localObjects.add(obj);
 
@@ -583,6 +708,7 @@ public class LocalDevice {
         final BACnetObject obj = getObject(id);
         if (obj != null) {
             localObjects.remove(obj);
+            eventStateIndex.remove(obj);
 
             // Notify the object that it was removed.
             obj.terminate();
@@ -620,6 +746,22 @@ public class LocalDevice {
         return remoteDeviceCache.removeEntity(instanceNumber);
     }
 
+    public DiscoveryEngine getDiscoveryEngine() {
+        return discoveryEngine;
+    }
+
+    public RecipientResolver getRecipientResolver() {
+        return recipientResolver;
+    }
+
+    public PollingEngine getPollingEngine() {
+        return pollingEngine;
+    }
+
+    public PointSubscriptionService getPointSubscriptionService() {
+        return pointSubscriptionService;
+    }
+
     /**
      * Finds a remote device for the given instanceNumber by notifying a given callback. If a cached instance is found
      * the callback is called by the calling thread. Otherwise, a finder will be used to try to find it. If this is
@@ -856,7 +998,8 @@ public class LocalDevice {
 
     /**
      * Updates the remote device with the given number with the given address, but only if the
-     * remote device is cached. Otherwise, nothing happens.
+     * remote device is cached. Also updates the address of the device if it is a notification
+     * recipient, and sends the notifications that are waiting for its address.
      *
      * @param instanceNumber
      * @param address
@@ -869,6 +1012,7 @@ public class LocalDevice {
         if (d != null) {
             d.setAddress(address);
         }
+        recipientResolver.update(instanceNumber, address);
     }
 
     /**
@@ -42,6 +42,7 @@ import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
 import com.serotonin.bacnet4j.type.primitive.CharacterString;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.ReadPropertyMultiplePacker;
 
 public class RemoteDevice implements Serializable {
     private static final long serialVersionUID = 6338537708566242078L;
@@ -51,6 +52,9 @@ public class RemoteDevice implements Serializable {
     private Address address;
     private Object userData;
     private int maxReadMultipleReferences = -1;
+    // The number of references at which a request last failed, which the max references does not grow back to.
+    private int maxReadMultipleReferencesCeiling = Integer.MAX_VALUE;
+    private final ReadPropertyMultiplePacker readPropertyMultiplePacker = new ReadPropertyMultiplePacker();
     private final RemoteEntityCache<ObjectIdentifier, RemoteObject> remoteObjectCache;
 
     public RemoteDevice(final LocalDevice localDevice, final int instanceNumber) {
@@ -279,19 +283,56 @@ public class RemoteDevice implements Serializable {
 
     public int getMaxReadMultipleReferences() {
         if (maxReadMultipleReferences == -1)
-            maxReadMultipleReferences = getSegmentationSupported().hasTransmitSegmentation() ? 200 : 20;
+            maxReadMultipleReferences = getDefaultMaxReadMultipleReferences();
         return maxReadMultipleReferences;
     }
 
+    private int getDefaultMaxReadMultipleReferences() {
+        return getSegmentationSupported().hasTransmitSegmentation() ? 200 : 20;
+    }
+
     public void reduceMaxReadMultipleReferences(final int from) {
         int current = getMaxReadMultipleReferences();
         if (current > from)
             current = from;
         if (current > 1) {
             maxReadMultipleReferences = (int) (current * 0.75);
+            maxReadMultipleReferencesCeiling = Math.min(maxReadMultipleReferencesCeiling, from - 1);
         }
     }
 
+    /**
+     * Allows the max references to grow back after a request with the given number of references succeeded, up to
+     * the default, or just below the number at which a request last failed.
+     */
+    public void increaseMaxReadMultipleReferences(final int from) {
+        final int current = getMaxReadMultipleReferences();
+        if (from >= current && current < maxReadMultipleReferencesCeiling
+                && current < getDefaultMaxReadMultipleReferences())
+            maxReadMultipleReferences = current + 1;
+    }
+
+    /**
+     * @return the max size of a ReadPropertyMultiple response from this device, or Integer.MAX_VALUE if the device can
+     *         send segmented responses.
+     */
+    public int getMaxReadMultipleResponseSize() {
+        final Segmentation segmentation = getSegmentationSupported();
+        if (segmentation == null || segmentation.hasTransmitSegmentation())
+            return Integer.MAX_VALUE;
+
+        int max = getMaxAPDULengthAccepted();
+        if (max <= 0)
+            return Integer.MAX_VALUE;
+        if (localDevice.getNetwork() != null)
+            max = Math.min(max, localDevice.getNetwork().getMaxApduLength().getMaxLengthInt());
+        return max;
+    }
+
+    public ReadPropertyMultiplePacker getReadPropertyMultiplePacker() {
+        return readPropertyMultiplePacker;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
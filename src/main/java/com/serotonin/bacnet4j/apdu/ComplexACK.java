@@ -154,6 +154,11 @@ public class ComplexACK extends AckAPDU implements Segmentable {
         this.serviceData.push(data);
     }
 
+    @Override
+    public void setServiceData(final ByteQueue serviceData) {
+        this.serviceData = serviceData;
+    }
+
     @Override
     public ByteQueue getServiceData() {
         return serviceData;
@@ -232,6 +232,11 @@ public class ConfirmedRequest extends APDU implements Segmentable {
         this.serviceData.push(data);
     }
 
+    @Override
+    public void setServiceData(final ByteQueue serviceData) {
+        this.serviceData = serviceData;
+    }
+
     @Override
     public ByteQueue getServiceData() {
         return serviceData;
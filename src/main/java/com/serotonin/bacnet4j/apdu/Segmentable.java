@@ -44,6 +44,11 @@ public interface Segmentable {
 
     void appendServiceData(ByteQueue segmentable);
 
+    /**
+     * Replaces the service data, e.g. with the reassembled data of all of the segments of a message.
+     */
+    void setServiceData(ByteQueue serviceData);
+
     void parseServiceData() throws BACnetException;
 
     ByteQueue getServiceData();
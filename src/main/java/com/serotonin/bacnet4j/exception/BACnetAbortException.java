@@ -0,0 +1,26 @@
+package com.serotonin.bacnet4j.exception;
+
+import com.serotonin.bacnet4j.type.enumerated.AbortReason;
+
+/**
+ * Thrown while handling a request that is to be answered with an abort, e.g. because the response is too big for the
+ * requester.
+ */
+public class BACnetAbortException extends BACnetException {
+    private static final long serialVersionUID = -1;
+
+    private final AbortReason abortReason;
+
+    public BACnetAbortException(final AbortReason abortReason) {
+        this.abortReason = abortReason;
+    }
+
+    public BACnetAbortException(final AbortReason abortReason, final String message) {
+        super(message);
+        this.abortReason = abortReason;
+    }
+
+    public AbortReason getAbortReason() {
+        return abortReason;
+    }
+}
@@ -30,6 +30,17 @@ package com.serotonin.bacnet4j.npdu.mstp;
 
 public class DataCRC {
     public static final int CHECK_VALUE = 0xF0B8;
+
+    /**
+     * The CRC terms for each value of the low byte of the accumulator XOR the data byte, so that the CRC takes a
+     * single table lookup per byte.
+     */
+    private static final int[] TABLE = new int[256];
+    static {
+        for (int i = 0; i < 256; i++)
+            TABLE[i] = calcDataCRC(i, 0);
+    }
+
     private int value = 0xffff;
 
     public void reset() {
@@ -37,7 +48,15 @@ public class DataCRC {
     }
 
     public void accumulate(int data) {
-        value = calcDataCRC(data, value);
+        value = value >> 8 ^ TABLE[(value ^ data) & 0xff];
+    }
+
+    public void accumulate(byte[] data, int offset, int length) {
+        int crc = value;
+        int end = offset + length;
+        for (int i = offset; i < end; i++)
+            crc = crc >> 8 ^ TABLE[(crc ^ data[i]) & 0xff];
+        value = crc;
     }
 
     public void accumulate(byte data) {
@@ -49,9 +68,15 @@ public class DataCRC {
     }
 
     public int getCrc(Frame frame) {
+        return getCrc(frame.getData(), 0, frame.getLength());
+    }
+
+    /**
+     * @return the CRC of the given data, as it is to be sent, i.e. least significant octet first.
+     */
+    public int getCrc(byte[] data, int offset, int length) {
         reset();
-        for (byte b : frame.getData())
-            accumulate(b);
+        accumulate(data, offset, length);
         return onesComplement(value);
     }
 
@@ -30,6 +30,17 @@ package com.serotonin.bacnet4j.npdu.mstp;
 
 public class HeaderCRC {
     public static final byte CHECK_VALUE = 0x55;
+
+    /**
+     * The CRC for each value of the accumulator XOR the data byte, so that the CRC takes a single table lookup per
+     * byte.
+     */
+    private static final int[] TABLE = new int[256];
+    static {
+        for (int i = 0; i < 256; i++)
+            TABLE[i] = calcHeaderCRCBitwise(i, 0);
+    }
+
     private int value = 0xff;
 
     public void reset() {
@@ -58,7 +69,23 @@ public class HeaderCRC {
         return onesComplement(value);
     }
 
+    /**
+     * @return the CRC of the given header octets, i.e. the frame type, addresses and length.
+     */
+    public int getCrc(byte[] header, int offset, int length) {
+        int crc = 0xff;
+        int end = offset + length;
+        for (int i = offset; i < end; i++)
+            crc = TABLE[(crc ^ header[i]) & 0xff];
+        value = crc;
+        return onesComplement(crc);
+    }
+
     public static int calcHeaderCRC(int dataValue, int crcValue) {
+        return TABLE[(crcValue ^ dataValue) & 0xff];
+    }
+
+    private static int calcHeaderCRCBitwise(int dataValue, int crcValue) {
         int crc = crcValue ^ dataValue;
         /* Exclusive OR the terms in the table (top down) */
         crc = crc ^ (crc << 1) ^ (crc << 2) ^ (crc << 3) ^ (crc << 4) ^ (crc << 5) ^ (crc << 6) ^ (crc << 7);
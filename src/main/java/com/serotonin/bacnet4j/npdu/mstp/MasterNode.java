@@ -30,8 +30,6 @@ package com.serotonin.bacnet4j.npdu.mstp;
 
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.ArrayList;
-import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,7 +46,7 @@ public class MasterNode extends MstpNode {
         idle, useToken, waitForReply, doneWithToken, passToken, noToken, pollForMaster, answerDataRequest
     }
 
-    private final List<Frame> framesToSend = new ArrayList<>();
+    private final TransmitQueue framesToSend = new TransmitQueue();
 
     /**
      * The MAC address of the node to which This Station passes the token. If the Next
@@ -153,6 +151,14 @@ public class MasterNode extends MstpNode {
         return receivedToken;
     }
 
+    /**
+     * @return the queue of the frames to send when this node holds the token, which also provides the queue depth and
+     *         wait time metrics of each network priority.
+     */
+    public TransmitQueue getTransmitQueue() {
+        return framesToSend;
+    }
+
     @Override
     public void initialize(final Transport transport) throws Exception {
         super.initialize(transport);
@@ -168,19 +174,17 @@ public class MasterNode extends MstpNode {
                 FrameType.testRequest))
             throw new RuntimeException("Cannot send frame of type: " + type);
 
-        final Frame frame = new Frame(type, destination, thisStation, data);
-        synchronized (framesToSend) {
-            framesToSend.add(frame);
-        }
+        framesToSend.add(new Frame(type, destination, thisStation, data), now());
     }
 
     @Override
     public void setReplyFrame(final FrameType type, final byte destination, final byte[] data) {
         synchronized (this) {
-            if (state == MasterNodeState.answerDataRequest)
+            if (state == MasterNodeState.answerDataRequest) {
                 // If there is still time to reply immediately...
                 replyFrame = new Frame(type, destination, thisStation, data);
-            else
+                wakeUp();
+            } else
                 // The response has already exceeded the timeout, so just queue it.
                 queueFrame(type, destination, data);
         }
@@ -215,6 +219,37 @@ public class MasterNode extends MstpNode {
             answerDataRequest();
     }
 
+    @Override
+    protected long getWaitTimeout() {
+        final long timeout;
+        switch (state) {
+        case idle:
+            timeout = silenceRemaining(Constants.NO_TOKEN);
+            break;
+        case waitForReply:
+            timeout = silenceRemaining(Constants.REPLY_TIMEOUT + 1);
+            break;
+        case passToken:
+        case pollForMaster:
+            timeout = silenceRemaining(usageTimeout);
+            break;
+        case noToken:
+            final long delay = Constants.NO_TOKEN + Constants.SLOT * (thisStation & 0xff);
+            if (silence() < delay)
+                timeout = silenceRemaining(delay);
+            else
+                timeout = silenceRemaining(Constants.NO_TOKEN + Constants.SLOT * (maxMaster + 1) + 1);
+            break;
+        case answerDataRequest:
+            timeout = Math.max(0, replyDeadline - clock.millis() + 1);
+            break;
+        default:
+            // The remaining states always make a transition.
+            timeout = 0;
+        }
+        return Math.min(timeout, super.getWaitTimeout());
+    }
+
     private void idle() {
         if (silence() >= Constants.NO_TOKEN) {
             // LostToken
@@ -297,11 +332,8 @@ public class MasterNode extends MstpNode {
     }
 
     private void useToken() {
-        Frame frameToSend = null;
-        synchronized (framesToSend) {
-            if (!framesToSend.isEmpty())
-                frameToSend = framesToSend.remove(0);
-        }
+        // The highest priority frames are sent first, so they get the Max_Info_Frames of the token.
+        final Frame frameToSend = framesToSend.poll(now());
 
         if (frameToSend == null) {
             // NothingToSend
@@ -332,6 +364,11 @@ public class MasterNode extends MstpNode {
         }
     }
 
+    private long now() {
+        // The clock is only available once the node is initialized.
+        return clock == null ? 0 : clock.millis();
+    }
+
     private void waitForReply() {
         if (silence() > Constants.REPLY_TIMEOUT) {
             // ReplyTimeout - assume that the request has failed
@@ -458,13 +495,13 @@ public class MasterNode extends MstpNode {
      * The PASS_TOKEN state listens for a successor to begin using the token that this node has just attempted to pass.
      */
     private void passToken() {
-        activity = true;
         if (silence() < usageTimeout && eventCount > Constants.MIN_OCTETS) {
             // SawTokenUser
             //            debug("passToken:SawTokenUser");
             if (LOG.isDebugEnabled())
                 LOG.debug(thisStation + " passToken:SawTokenUser");
             state = MasterNodeState.idle;
+            activity = true;
         } else if (silence() >= usageTimeout && retryCount < Constants.RETRY_TOKEN) {
             // RetrySendToken
             //            debug("passToken:RetrySendToken to " + nextStation);
@@ -473,6 +510,7 @@ public class MasterNode extends MstpNode {
             retryCount++;
             sendFrame(FrameType.token, nextStation);
             eventCount = 0;
+            activity = true;
         } else if (silence() >= usageTimeout && retryCount >= Constants.RETRY_TOKEN) {
             // FindNewSuccessor
             //            debug("passToken:FindNewSuccessor: trying " + adjacentStation(nextStation));
@@ -485,6 +523,7 @@ public class MasterNode extends MstpNode {
             tokenCount = 0;
             eventCount = 0;
             state = MasterNodeState.pollForMaster;
+            activity = true;
         }
     }
 
@@ -48,6 +48,7 @@ abstract public class MstpNode implements Runnable {
     private static final byte PREAMBLE1 = 0x55;
     private static final byte PREAMBLE2 = (byte) 0xFF;
     private static final int MAX_FRAME_LENGTH = 501;
+    private static final long RECEIVER_JOIN_TIMEOUT = 5000;
 
     private enum ReadFrameState {
         idle, preamble, header, headerCrc, data, dataCrc;
@@ -59,6 +60,14 @@ abstract public class MstpNode implements Runnable {
     // Configuration
     protected int inactivityDelay = 1;
 
+    /**
+     * When true, input is read by a receiver thread using blocking reads, and the node thread waits until either input
+     * arrives or the next timer of the state machine expires, rather than polling the input stream and sleeping for
+     * the inactivity delay. The timers are measured with the local device's clock, so this mode requires a clock that
+     * follows real time.
+     */
+    private boolean blockingRead;
+
     /**
      * The MAC address of this node. TS is generally read from a hardware DIP switch, or from nonvolatile memory. Valid
      * values for TS are 0 to 254. The value 255 is used to denote broadcast when used as a destination address but is
@@ -78,6 +87,10 @@ abstract public class MstpNode implements Runnable {
     private final byte[] readArray = new byte[512];
     private int readCount;
     private final Frame sendFrame = new Frame();
+    /**
+     * Outgoing frames are assembled here so that they can be written to the output stream with a single call.
+     */
+    private final byte[] sendBuffer = new byte[8 + MAX_FRAME_LENGTH + 2];
     private final HeaderCRC sendHeaderCRC = new HeaderCRC();
     private final DataCRC sendDataCRC = new DataCRC();
 
@@ -85,6 +98,13 @@ abstract public class MstpNode implements Runnable {
 
     private volatile boolean running;
 
+    // Shared with the receiver thread when using blocking reads. All are guarded by receiveLock.
+    private final Object receiveLock = new Object();
+    private final ByteQueue receivedBytes = new ByteQueue(MAX_FRAME_LENGTH);
+    private boolean receivedError;
+    private boolean wakeUp;
+    Thread receiverThread;
+
     private ReadFrameState state;
 
     private String lastWriteError;
@@ -117,6 +137,19 @@ abstract public class MstpNode implements Runnable {
         initialize(true);
     }
 
+    /**
+     * Sets whether the node uses blocking reads. Must be called before the node is initialized.
+     */
+    public void setBlockingRead(final boolean blockingRead) {
+        if (running)
+            throw new IllegalStateException("Cannot change the read mode of a running node");
+        this.blockingRead = blockingRead;
+    }
+
+    public boolean isBlockingRead() {
+        return blockingRead;
+    }
+
     public long getBytesOut() {
         return bytesOut;
     }
@@ -136,6 +169,11 @@ abstract public class MstpNode implements Runnable {
             running = true;
             lastNonSilence = clock.millis();
             state = ReadFrameState.idle;
+            if (blockingRead) {
+                receiverThread = new Thread(this::receive, "BACnet4J MS/TP receiver");
+                receiverThread.setDaemon(true);
+                receiverThread.start();
+            }
             if (runInThread) {
                 thread = new Thread(this, "BACnet4J MS/TP node");
                 thread.start();
@@ -145,6 +183,7 @@ abstract public class MstpNode implements Runnable {
 
     public void terminate() {
         running = false;
+        wakeUp();
         if (thread != null) {
             try {
                 thread.join();
@@ -153,10 +192,25 @@ abstract public class MstpNode implements Runnable {
             }
         }
 
-        try {
-            wrapper.close();
-        } catch (final Exception e) {
-            LOG.warn("", e);
+        if (wrapper != null) {
+            try {
+                wrapper.close();
+            } catch (final Exception e) {
+                LOG.warn("", e);
+            }
+        }
+
+        // Closing the port normally ends a blocking read. Streams that were given to the node are not closed here, so
+        // the receiver is also interrupted, and given a bounded time to finish in case the stream ignores interrupts.
+        if (receiverThread != null) {
+            receiverThread.interrupt();
+            try {
+                receiverThread.join(RECEIVER_JOIN_TIMEOUT);
+            } catch (final InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            if (receiverThread.isAlive())
+                LOG.warn("MS/TP receiver thread for port {} did not stop", portId);
         }
     }
 
@@ -249,11 +303,15 @@ abstract public class MstpNode implements Runnable {
 
             doCycle();
 
-            if (!activity && inactivityDelay > 0) {
-                try {
-                    Thread.sleep(inactivityDelay);
-                } catch (final InterruptedException e) {
-                    throw new RuntimeException(e);
+            if (!activity) {
+                if (blockingRead)
+                    awaitEvent();
+                else if (inactivityDelay > 0) {
+                    try {
+                        Thread.sleep(inactivityDelay);
+                    } catch (final InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
                 }
             }
         }
@@ -267,6 +325,83 @@ abstract public class MstpNode implements Runnable {
 
     abstract protected void doCycle();
 
+    /**
+     * Returns the number of milliseconds until the next timer of the state machine expires, i.e. the longest that the
+     * node can wait for input before it needs to run another cycle. Subclasses add the timers of their own states.
+     *
+     * @return the timeout in milliseconds, 0 if the node should not wait, or Long.MAX_VALUE if there is no timer
+     *         running.
+     */
+    protected long getWaitTimeout() {
+        if (state == ReadFrameState.idle)
+            return Long.MAX_VALUE;
+        // The receive states other than idle abort the frame when the silence exceeds Tframe_abort.
+        return silenceRemaining(Constants.FRAME_ABORT + 1);
+    }
+
+    /**
+     * @return the number of milliseconds until the silence timer reaches the given value.
+     */
+    protected long silenceRemaining(final long timeout) {
+        return Math.max(0, timeout - silence());
+    }
+
+    /**
+     * Wakes the node thread if it is waiting for input, so that it runs another cycle. Used when a state transition
+     * is triggered by another thread.
+     */
+    protected void wakeUp() {
+        synchronized (receiveLock) {
+            wakeUp = true;
+            receiveLock.notifyAll();
+        }
+    }
+
+    private void awaitEvent() {
+        final long timeout = getWaitTimeout();
+        synchronized (receiveLock) {
+            if (timeout > 0 && running && !wakeUp && !receivedError && receivedBytes.size() == 0) {
+                try {
+                    if (timeout == Long.MAX_VALUE)
+                        receiveLock.wait();
+                    else
+                        receiveLock.wait(timeout);
+                } catch (final InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            wakeUp = false;
+        }
+    }
+
+    /**
+     * The body of the receiver thread, which reads the input stream with blocking reads, and hands what it reads to
+     * the node thread.
+     */
+    private void receive() {
+        final byte[] buf = new byte[MAX_FRAME_LENGTH];
+        while (running) {
+            try {
+                final int count = in.read(buf);
+                if (count == -1)
+                    break;
+                synchronized (receiveLock) {
+                    receivedBytes.push(buf, 0, count);
+                    receiveLock.notifyAll();
+                }
+            } catch (final IOException e) {
+                if (!running || StringUtils.equals(e.getMessage(), "Stream closed."))
+                    break;
+                if (LOG.isDebugEnabled())
+                    LOG.debug(thisStation + " Input stream listener exception", e);
+                synchronized (receiveLock) {
+                    receivedError = true;
+                    receiveLock.notifyAll();
+                }
+            }
+        }
+    }
+
     abstract public void setReplyFrame(FrameType type, byte destination, byte[] data);
 
     protected void readFrame() {
@@ -306,14 +441,24 @@ abstract public class MstpNode implements Runnable {
     }
 
     private void readInputStream() {
+        if (blockingRead) {
+            synchronized (receiveLock) {
+                if (receivedError) {
+                    receivedError = false;
+                    receiveError = true;
+                }
+                if (receivedBytes.size() > 0) {
+                    readCount = receivedBytes.pop(readArray);
+                    receivedBytes(readArray, readCount);
+                }
+            }
+            return;
+        }
+
         try {
             if (in.available() > 0) {
                 readCount = in.read(readArray);
-                bytesIn += readCount;
-                if (LOG.isTraceEnabled())
-                    LOG.trace(tracePrefix() + "in: " + StreamUtils.dumpArrayHex(readArray, 0, readCount));
-                inputBuffer.push(readArray, 0, readCount);
-                eventCount += readCount;
+                receivedBytes(readArray, readCount);
                 //noise();
             }
         } catch (final IOException e) {
@@ -325,6 +470,14 @@ abstract public class MstpNode implements Runnable {
         }
     }
 
+    private void receivedBytes(final byte[] b, final int count) {
+        bytesIn += count;
+        if (LOG.isTraceEnabled())
+            LOG.trace(tracePrefix() + "in: " + StreamUtils.dumpArrayHex(b, 0, count));
+        inputBuffer.push(b, 0, count);
+        eventCount += count;
+    }
+
     private void idle() {
         byte b;
         while (inputBuffer.size() > 0) {
@@ -468,14 +621,17 @@ abstract public class MstpNode implements Runnable {
             while (inputBuffer.size() > 0) {
                 activity = true;
                 noise();
-                final byte b = inputBuffer.pop();
 
                 if (index < frame.getLength()) {
-                    // DataOctet
-                    dataCRC.accumulate(b);
-                    frame.getData()[index] = b;
-                    index++;
-                } else if (index == frame.getLength()) {
+                    // DataOctet, for as many octets as are available.
+                    final int count = inputBuffer.pop(frame.getData(), index, frame.getLength() - index);
+                    dataCRC.accumulate(frame.getData(), index, count);
+                    index += count;
+                    continue;
+                }
+
+                final byte b = inputBuffer.pop();
+                if (index == frame.getLength()) {
                     // CRC1
                     dataCRC.accumulate(b);
                     index++;
@@ -542,29 +698,34 @@ abstract public class MstpNode implements Runnable {
                 LOG.trace(tracePrefix() + "out: " + frame);
             //LOG.fine("writing frame: " + frame);
 
+            final int length = frame.getLength();
+            final byte[] buf = length <= MAX_FRAME_LENGTH ? sendBuffer : new byte[8 + length + 2];
+
             // Preamble
-            out.write(0x55);
-            out.write(0xFF);
+            buf[0] = PREAMBLE1;
+            buf[1] = PREAMBLE2;
 
             // Header
-            out.write(frame.getFrameType().id & 0xff);
-            out.write(frame.getDestinationAddress() & 0xff);
-            out.write(frame.getSourceAddress() & 0xff);
-            out.write(frame.getLength() >> 8 & 0xff);
-            out.write(frame.getLength() & 0xff);
-            out.write(sendHeaderCRC.getCrc(frame));
-            bytesOut += 8;
-
-            if (frame.getLength() > 0) {
+            buf[2] = frame.getFrameType().id;
+            buf[3] = frame.getDestinationAddress();
+            buf[4] = frame.getSourceAddress();
+            buf[5] = (byte) (length >> 8);
+            buf[6] = (byte) length;
+            buf[7] = (byte) sendHeaderCRC.getCrc(buf, 2, 5);
+            int size = 8;
+
+            if (length > 0) {
                 // Data
-                out.write(frame.getData());
-                final int crc = sendDataCRC.getCrc(frame);
-                out.write(crc & 0xff);
-                out.write(crc >> 8 & 0xff);
-                bytesOut += frame.getLength() + 2;
+                System.arraycopy(frame.getData(), 0, buf, 8, length);
+                final int crc = sendDataCRC.getCrc(buf, 8, length);
+                buf[8 + length] = (byte) crc;
+                buf[9 + length] = (byte) (crc >> 8);
+                size += length + 2;
             }
 
+            out.write(buf, 0, size);
             out.flush();
+            bytesOut += size;
         } catch (final IOException e) {
             // Only write the same error message once. Prevents logs from getting filled up unnecessarily with repeated
             // error messages.
@@ -70,9 +70,11 @@ public class SlaveNode extends MstpNode {
     @Override
     public void setReplyFrame(final FrameType type, final byte destination, final byte[] data) {
         synchronized (this) {
-            if (state == SlaveNodeState.answerDataRequest)
+            if (state == SlaveNodeState.answerDataRequest) {
                 // If there is still time to reply immediately...
                 replyFrame = new Frame(type, frame.getSourceAddress(), thisStation, data);
+                wakeUp();
+            }
         }
     }
 
@@ -87,6 +89,14 @@ public class SlaveNode extends MstpNode {
             answerDataRequest();
     }
 
+    @Override
+    protected long getWaitTimeout() {
+        long timeout = super.getWaitTimeout();
+        if (state == SlaveNodeState.answerDataRequest)
+            timeout = Math.min(timeout, Math.max(0, replyDeadline - clock.millis() + 1));
+        return timeout;
+    }
+
     /**
      * In the IDLE state, the node waits for a frame.
      */
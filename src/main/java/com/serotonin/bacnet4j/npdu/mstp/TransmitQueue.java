@@ -0,0 +1,205 @@
+package com.serotonin.bacnet4j.npdu.mstp;
+
+import java.util.ArrayDeque;
+
+import com.serotonin.bacnet4j.npdu.NPCI.NetworkPriority;
+
+/**
+ * The frames that a master node sends when it holds the token.
+ *
+ * Frames are queued in classes by the network priority of their NPDU, and the frames of the highest class are always
+ * sent first, so the Max_Info_Frames of a token go to life safety and alarm traffic before anything else. Within a
+ * class the destinations take turns, so that a long transfer to one station does not hold back the frames to other
+ * stations. Queuing and dequeuing take constant time.
+ *
+ * The queue is not bound to a clock. The times that are given are only used for the wait time metrics.
+ */
+public class TransmitQueue {
+    private static final NetworkPriority[] PRIORITIES = new NetworkPriority[4];
+    static {
+        for (final NetworkPriority priority : NetworkPriority.values())
+            PRIORITIES[priority.value] = priority;
+    }
+
+    // Indexed by the priority value.
+    private final PriorityClass[] classes = new PriorityClass[PRIORITIES.length];
+    private int size;
+
+    public TransmitQueue() {
+        for (int i = 0; i < classes.length; i++)
+            classes[i] = new PriorityClass(PRIORITIES[i]);
+    }
+
+    /**
+     * Queues a frame with the network priority that is set in its NPDU.
+     */
+    public void add(final Frame frame, final long now) {
+        add(frame, getPriority(frame.getData()), now);
+    }
+
+    public synchronized void add(final Frame frame, final NetworkPriority priority, final long now) {
+        classes[priority.value].add(new Entry(frame, now));
+        size++;
+    }
+
+    /**
+     * @return the next frame to send, or null if the queue is empty.
+     */
+    public synchronized Frame poll(final long now) {
+        if (size == 0)
+            return null;
+
+        for (int i = classes.length - 1; i >= 0; i--) {
+            final Entry entry = classes[i].poll(now);
+            if (entry != null) {
+                size--;
+                return entry.frame;
+            }
+        }
+        return null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public PriorityStats getStats(final NetworkPriority priority) {
+        return classes[priority.value].stats;
+    }
+
+    /**
+     * @return the network priority in the NPCI at the start of the given NPDU, or normal if there is none.
+     */
+    static NetworkPriority getPriority(final byte[] npdu) {
+        // The priority is in the two low bits of the control octet, which follows the version.
+        if (npdu == null || npdu.length < 2 || npdu[0] != 1)
+            return NetworkPriority.normal;
+        return PRIORITIES[npdu[1] & 3];
+    }
+
+    static class Entry {
+        final Frame frame;
+        final long queued;
+
+        Entry(final Frame frame, final long queued) {
+            this.frame = frame;
+            this.queued = queued;
+        }
+    }
+
+    static class Destination {
+        final ArrayDeque<Entry> frames = new ArrayDeque<>();
+    }
+
+    static class PriorityClass {
+        final PriorityStats stats;
+        // Indexed by the MAC address of the destination.
+        final Destination[] destinations = new Destination[256];
+        // The destinations that have frames, in the order of their turns.
+        final ArrayDeque<Destination> turns = new ArrayDeque<>();
+
+        PriorityClass(final NetworkPriority priority) {
+            stats = new PriorityStats(priority);
+        }
+
+        void add(final Entry entry) {
+            final int address = entry.frame.getDestinationAddress() & 0xff;
+            Destination destination = destinations[address];
+            if (destination == null) {
+                destination = new Destination();
+                destinations[address] = destination;
+            }
+            if (destination.frames.isEmpty())
+                turns.add(destination);
+            destination.frames.add(entry);
+            stats.queued();
+        }
+
+        Entry poll(final long now) {
+            final Destination destination = turns.poll();
+            if (destination == null)
+                return null;
+
+            final Entry entry = destination.frames.poll();
+            if (!destination.frames.isEmpty())
+                // Take another turn after the other destinations.
+                turns.add(destination);
+            stats.sent(now - entry.queued);
+            return entry;
+        }
+    }
+
+    public static class PriorityStats {
+        private final NetworkPriority priority;
+        private int queueDepth;
+        private long sent;
+        private long totalWait;
+        private long maxWait;
+
+        PriorityStats(final NetworkPriority priority) {
+            this.priority = priority;
+        }
+
+        synchronized void queued() {
+            queueDepth++;
+        }
+
+        synchronized void sent(final long wait) {
+            queueDepth--;
+            sent++;
+            if (wait > 0) {
+                totalWait += wait;
+                if (maxWait < wait)
+                    maxWait = wait;
+            }
+        }
+
+        public NetworkPriority getPriority() {
+            return priority;
+        }
+
+        /**
+         * @return the number of frames in the class that have not yet been sent.
+         */
+        public synchronized int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return the number of frames of the class that have been sent.
+         */
+        public synchronized long getSentCount() {
+            return sent;
+        }
+
+        /**
+         * @return the longest time in ms that a sent frame waited in the queue.
+         */
+        public synchronized long getMaxWait() {
+            return maxWait;
+        }
+
+        public synchronized double getAverageWait() {
+            return sent == 0 ? 0 : (double) totalWait / sent;
+        }
+
+        /**
+         * Resets the wait time metrics.
+         */
+        public synchronized void reset() {
+            sent = 0;
+            totalWait = 0;
+            maxWait = 0;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "PriorityStats [priority=" + priority + ", queueDepth=" + queueDepth + ", sent=" + sent
+                    + ", maxWait=" + maxWait + ", averageWait=" + getAverageWait() + "]";
+        }
+    }
+}
@@ -29,6 +29,7 @@
 package com.serotonin.bacnet4j.npdu.test;
 
 import java.util.Queue;
+import java.util.Random;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.slf4j.Logger;
@@ -50,6 +51,9 @@ import com.serotonin.bacnet4j.util.sero.ThreadUtils;
  * A network that is useful for unit tests as it simulates a BACnet network within
  * a single process. The static <code>instances</code> field keeps track of all of
  * the currently available networks,
+ *
+ * Poor links can be simulated with a loss rate, which drops outgoing messages at random, and a latency, which delays
+ * the delivery of outgoing messages without holding up the messages that follow them.
  */
 public class TestNetwork extends Network implements Runnable {
     static final Logger LOG = LoggerFactory.getLogger(TestNetwork.class);
@@ -61,6 +65,10 @@ public class TestNetwork extends Network implements Runnable {
     private final int sendDelay;
     private int timeout = 6000;
     private int segTimeout = 1000;
+    private volatile double lossRate;
+    private Random random = new Random();
+    private int latency;
+    private volatile long dropped;
 
     private volatile boolean running = true;
     private Thread thread;
@@ -92,6 +100,34 @@ public class TestNetwork extends Network implements Runnable {
         return this;
     }
 
+    /**
+     * @param lossRate
+     *            the probability, between 0 and 1, that an outgoing message will be dropped.
+     * @param seed
+     *            the seed of the random number generator that decides which messages are dropped.
+     */
+    public TestNetwork withLoss(final double lossRate, final long seed) {
+        this.lossRate = lossRate;
+        this.random = new Random(seed);
+        return this;
+    }
+
+    /**
+     * @param latency
+     *            the time in ms between a message being sent and its delivery.
+     */
+    public TestNetwork withLatency(final int latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * @return the number of outgoing messages that have been dropped because of the loss rate.
+     */
+    public long getDropped() {
+        return dropped;
+    }
+
     @Override
     public NetworkIdentifier getNetworkIdentifier() {
         return new TestNetworkIdentifier();
@@ -159,6 +195,7 @@ public class TestNetwork extends Network implements Runnable {
         final SendData d = new SendData();
         d.recipient = recipient;
         d.data = npdu.popAll();
+        d.deliveryTime = System.currentTimeMillis() + latency;
 
         queue.add(d);
         ThreadUtils.notifySync(queue);
@@ -168,14 +205,25 @@ public class TestNetwork extends Network implements Runnable {
     public void run() {
         while (running) {
             // Check for a message to send.
-            final SendData d = queue.poll();
+            final SendData d = queue.peek();
 
             if (d == null)
                 ThreadUtils.waitSync(queue, 2);
+            else if (d.deliveryTime > System.currentTimeMillis())
+                // Messages are queued in order of delivery time, so wait for this one.
+                ThreadUtils.waitSync(queue, Math.max(1, d.deliveryTime - System.currentTimeMillis()));
             else {
+                queue.remove();
+
                 // Pause before handing off the message.
                 ThreadUtils.sleep(sendDelay);
 
+                if (lossRate > 0 && random.nextDouble() < lossRate) {
+                    LOG.debug("Dropping data from {} to {}", address, d.recipient);
+                    dropped++;
+                    continue;
+                }
+
                 if (d.recipient.equals(getLocalBroadcastAddress()) || d.recipient.equals(Address.GLOBAL)) {
                     // A broadcast. Send to everyone.
                     for (final TestNetwork network : networkMap)
@@ -210,5 +258,6 @@ public class TestNetwork extends Network implements Runnable {
     static class SendData {
         Address recipient;
         byte[] data;
+        long deliveryTime;
     }
 }
@@ -143,6 +143,22 @@ public class AbstractMixin {
         // no op
     }
 
+    /**
+     * Provides notice to the mixin that a batch of writes to the object is starting. Until the batch ends, the mixin
+     * may collect the changes that it is given in afterWriteProperty and evaluate them together. Batches may be
+     * nested.
+     */
+    protected void beginWrites() {
+        // no op
+    }
+
+    /**
+     * Provides notice to the mixin that a batch of writes to the object has ended.
+     */
+    protected void endWrites() {
+        // no op
+    }
+
     /**
      * Provides notice to the mixin that the object should initialize itself.
      */
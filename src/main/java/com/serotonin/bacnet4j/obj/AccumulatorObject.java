@@ -34,6 +34,7 @@ import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.enumerated.Reliability;
 import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
 
 public class AccumulatorObject extends BACnetObject {
     static final Logger LOG = LoggerFactory.getLogger(AccumulatorObject.class);
@@ -88,7 +89,7 @@ public class AccumulatorObject extends BACnetObject {
                 PropertyIdentifier.limitMonitoringInterval));
 
         // Schedule the job to monitor the pulse rate.
-        limitMonitoringFuture = getLocalDevice().scheduleAtFixedRate(() -> {
+        limitMonitoringFuture = getLocalDevice().scheduleAtFixedRate(Lane.TIMER, getId(), () -> {
             synchronized (lock) {
                 LOG.info("Setting pulse rate to {}", pulseCount);
                 writePropertyInternal(PropertyIdentifier.pulseRate, new UnsignedInteger(pulseCount));
@@ -1,9 +1,6 @@
 package com.serotonin.bacnet4j.obj;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
@@ -11,7 +8,6 @@ import org.slf4j.LoggerFactory;
 
 import com.serotonin.bacnet4j.LocalDevice;
 import com.serotonin.bacnet4j.exception.BACnetServiceException;
-import com.serotonin.bacnet4j.obj.mixin.PollingDelegate;
 import com.serotonin.bacnet4j.obj.mixin.ReadOnlyPropertyMixin;
 import com.serotonin.bacnet4j.type.Encodable;
 import com.serotonin.bacnet4j.type.constructed.DateTime;
@@ -32,15 +28,17 @@ import com.serotonin.bacnet4j.type.primitive.SignedInteger;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
 import com.serotonin.bacnet4j.util.DeviceObjectPropertyReferences;
 import com.serotonin.bacnet4j.util.DeviceObjectPropertyValues;
+import com.serotonin.bacnet4j.util.PollingEngine.Subscription;
 import com.serotonin.bacnet4j.util.PropertyValues;
+import com.serotonin.bacnet4j.util.SlidingWindowStatistics;
 
 public class AveragingObject extends BACnetObject {
     static final Logger LOG = LoggerFactory.getLogger(AveragingObject.class);
 
-    private final List<Sample> buffer = new LinkedList<>();
+    private SlidingWindowStatistics<DateTime> window;
 
-    private PollingDelegate pollingDelegate;
-    private ScheduledFuture<?> pollingFuture;
+    private DeviceObjectPropertyReferences polledReferences;
+    private Subscription pollingSubscription;
 
     public AveragingObject(final LocalDevice localDevice, final int instanceNumber, final String name,
             final DeviceObjectPropertyReference objectPropertyReference, final int windowInterval,
@@ -73,7 +71,8 @@ public class AveragingObject extends BACnetObject {
     }
 
     private void reset() {
-        buffer.clear();
+        // The window is recreated with the current window size on the next poll.
+        window = null;
         writePropertyInternal(PropertyIdentifier.minimumValue, new Real(Float.POSITIVE_INFINITY));
         writePropertyInternal(PropertyIdentifier.minimumValueTimestamp, DateTime.UNSPECIFIED);
         writePropertyInternal(PropertyIdentifier.averageValue, new Real(Float.NaN));
@@ -123,12 +122,14 @@ public class AveragingObject extends BACnetObject {
     @Override
     protected void terminateImpl() {
         super.terminate();
-        cancelFuture(pollingFuture);
+        cancelPolling();
     }
 
-    private static void cancelFuture(final ScheduledFuture<?> future) {
-        if (future != null)
-            future.cancel(false);
+    private void cancelPolling() {
+        if (pollingSubscription != null) {
+            pollingSubscription.cancel();
+            pollingSubscription = null;
+        }
     }
 
     private void updateMonitoredProperty() {
@@ -139,25 +140,26 @@ public class AveragingObject extends BACnetObject {
         refs.addIndex(monitored.getDeviceIdentifier().getInstanceNumber(), monitored.getObjectIdentifier(),
                 monitored.getPropertyIdentifier(), monitored.getPropertyArrayIndex());
 
-        pollingDelegate = new PollingDelegate(getLocalDevice(), refs);
+        polledReferences = refs;
+        if (pollingSubscription != null)
+            pollingSubscription.setReferences(refs);
     }
 
     private void reinitializePolling() {
-        cancelFuture(pollingFuture);
+        cancelPolling();
 
         final UnsignedInteger windowInterval = get(PropertyIdentifier.windowInterval);
         final UnsignedInteger windowSamples = get(PropertyIdentifier.windowSamples);
 
         final long periodMillis = windowInterval.intValue() * 1000 / windowSamples.intValue();
 
-        pollingFuture = getLocalDevice().scheduleAtFixedRate(() -> doPoll(), 0, periodMillis, TimeUnit.MILLISECONDS);
+        // Polls of objects with the same sample period are combined into shared requests.
+        pollingSubscription = getLocalDevice().getPollingEngine().subscribe(polledReferences, 0, periodMillis,
+                TimeUnit.MILLISECONDS, (time, result) -> processPoll(time, result));
     }
 
-    private synchronized void doPoll() {
-        LOG.debug("Starting poll");
-
-        // Call the delegate to perform the poll.
-        final DeviceObjectPropertyValues result = pollingDelegate.doPoll();
+    private synchronized void processPoll(final long time, final DeviceObjectPropertyValues result) {
+        LOG.debug("Processing poll");
 
         // Check the result.
         final DeviceObjectPropertyReference monitored = get(PropertyIdentifier.objectPropertyReference);
@@ -172,69 +174,48 @@ public class AveragingObject extends BACnetObject {
                 || value instanceof Enumerated || value instanceof Real)) {
             LOG.warn("Unsupported data type returned from poll: {}", value);
         } else {
-            newSample = new Sample((Primitive) value, new DateTime(getLocalDevice().getClock().millis()));
+            newSample = new Sample((Primitive) value, new DateTime(time));
         }
 
         final UnsignedInteger windowSamples = get(PropertyIdentifier.windowSamples);
+        if (window == null || window.getWindowSize() != windowSamples.intValue())
+            window = new SlidingWindowStatistics<>(windowSamples.intValue());
 
         //
-        // Update the buffer.
-        // Drop the tail value if we're at the max size.
-        while (buffer.size() >= windowSamples.intValue()) {
-            buffer.remove(0);
-        }
+        // Update the window. This drops the oldest sample if the window is full, and maintains the statistics
+        // incrementally so that the window does not need to be scanned.
+        if (newSample == null)
+            window.addInvalid();
+        else
+            window.add(newSample.getValue(), newSample.timestamp);
 
-        buffer.add(newSample);
-
-        //
-        // Calculate new values. Because the min or max values may have dropped off of the buffer, and the new min or
-        // max could be anywhere in the list, we need to scan the buffer. So, might as well recalculate everything.
-        float minimumValue = Float.POSITIVE_INFINITY;
-        DateTime minimumValueTimestamp = DateTime.UNSPECIFIED;
-        float sum = 0;
-        float maximumValue = Float.NEGATIVE_INFINITY;
-        DateTime maximumValueTimestamp = DateTime.UNSPECIFIED;
-        int validSamples = 0;
-
-        for (final Sample sample : buffer) {
-            if (sample != null) {
-                final float sampleValue = sample.getValue();
-
-                if (sampleValue < minimumValue) {
-                    minimumValue = sampleValue;
-                    minimumValueTimestamp = sample.timestamp;
-                }
-
-                sum += sampleValue;
-
-                if (sampleValue > maximumValue) {
-                    maximumValue = sampleValue;
-                    maximumValueTimestamp = sample.timestamp;
-                }
-
-                validSamples++;
-            }
-        }
+        final float minimumValue = window.getMinimum();
+        final float maximumValue = window.getMaximum();
+        final int validSamples = window.getValidCount();
 
         //
         // Update object values.
         writePropertyInternal(PropertyIdentifier.minimumValue, new Real(minimumValue));
-        writePropertyInternal(PropertyIdentifier.minimumValueTimestamp, minimumValueTimestamp);
+        writePropertyInternal(PropertyIdentifier.minimumValueTimestamp, timestamp(window.getMinimumTimestamp()));
         if (validSamples == 0) {
             writePropertyInternal(PropertyIdentifier.averageValue, new Real(Float.NaN));
             writePropertyInternal(PropertyIdentifier.varianceValue, new Real(Float.NaN));
         } else {
-            writePropertyInternal(PropertyIdentifier.averageValue, new Real(sum / validSamples));
+            writePropertyInternal(PropertyIdentifier.averageValue, new Real(window.getAverage()));
             writePropertyInternal(PropertyIdentifier.varianceValue, new Real(maximumValue - minimumValue));
         }
         writePropertyInternal(PropertyIdentifier.maximumValue, new Real(maximumValue));
-        writePropertyInternal(PropertyIdentifier.maximumValueTimestamp, maximumValueTimestamp);
-        set(PropertyIdentifier.attemptedSamples, new UnsignedInteger(buffer.size()));
+        writePropertyInternal(PropertyIdentifier.maximumValueTimestamp, timestamp(window.getMaximumTimestamp()));
+        set(PropertyIdentifier.attemptedSamples, new UnsignedInteger(window.getSampleCount()));
         writePropertyInternal(PropertyIdentifier.validSamples, new UnsignedInteger(validSamples));
 
         LOG.debug("Finished poll");
     }
 
+    private static DateTime timestamp(final DateTime timestamp) {
+        return timestamp == null ? DateTime.UNSPECIFIED : timestamp;
+    }
+
     static class Sample {
         final Primitive value;
         final DateTime timestamp;
@@ -29,6 +29,8 @@
 package com.serotonin.bacnet4j.obj;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -53,6 +55,7 @@ import com.serotonin.bacnet4j.service.confirmed.GetEnrollmentSummaryRequest.Ackn
 import com.serotonin.bacnet4j.service.confirmed.GetEnrollmentSummaryRequest.EventStateFilter;
 import com.serotonin.bacnet4j.service.confirmed.GetEnrollmentSummaryRequest.PriorityFilter;
 import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.EncodedValue;
 import com.serotonin.bacnet4j.type.constructed.Address;
 import com.serotonin.bacnet4j.type.constructed.BACnetArray;
 import com.serotonin.bacnet4j.type.constructed.PropertyReference;
@@ -67,6 +70,7 @@ import com.serotonin.bacnet4j.type.enumerated.EventState;
 import com.serotonin.bacnet4j.type.enumerated.EventType;
 import com.serotonin.bacnet4j.type.enumerated.ObjectType;
 import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
 import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.CharacterString;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
@@ -81,9 +85,12 @@ public class BACnetObject {
 
     private final LocalDevice localDevice;
     private final ObjectType objectType;
-    protected final Map<PropertyIdentifier, Encodable> properties = new ConcurrentHashMap<>();
+    protected final PropertyStore properties = new PropertyStore();
     private final List<BACnetObjectListener> listeners = new CopyOnWriteArrayList<>();
 
+    // The encodings of the values that have been read, by property.
+    private final Map<PropertyIdentifier, PropertyEncodings> encodings = new ConcurrentHashMap<>();
+
     // Mixins
     private final List<AbstractMixin> mixins = new ArrayList<>();
     private CommandableMixin commandableMixin;
@@ -388,7 +395,11 @@ public class BACnetObject {
      */
     public final Encodable readProperty(final PropertyIdentifier pid, final UnsignedInteger propertyArrayIndex)
             throws BACnetServiceException {
-        final Encodable result = readProperty(pid);
+        return getElement(readProperty(pid), propertyArrayIndex);
+    }
+
+    private static Encodable getElement(final Encodable result, final UnsignedInteger propertyArrayIndex)
+            throws BACnetServiceException {
         if (propertyArrayIndex == null)
             return result;
 
@@ -424,6 +435,126 @@ public class BACnetObject {
         return p;
     }
 
+    /**
+     * Reads the given properties like readPropertyRequired, but takes all of the values from one snapshot of the
+     * properties. The values are therefore consistent with each other, e.g. a present value and the status flags that
+     * were written with it, even while the object is being written concurrently.
+     *
+     * @return the value of each reference, in the same order, or the error class and code if it could not be read.
+     */
+    public final List<Encodable> readProperties(final List<PropertyReference> refs) {
+        // Give the mixins notice of all of the reads before taking the snapshot.
+        final Map<PropertyIdentifier, ErrorClassAndCode> notified = new HashMap<>();
+        for (final PropertyReference ref : refs) {
+            final PropertyIdentifier pid = ref.getPropertyIdentifier();
+            if (notified.containsKey(pid))
+                continue;
+            ErrorClassAndCode error = null;
+            try {
+                for (final AbstractMixin mixin : mixins)
+                    mixin.beforeReadProperty(pid);
+                beforeReadProperty(pid);
+            } catch (final BACnetServiceException e) {
+                error = new ErrorClassAndCode(e);
+            }
+            notified.put(pid, error);
+        }
+
+        final PropertyStore.Snapshot snapshot = properties.snapshot();
+        final Encodable[] results = new Encodable[refs.size()];
+        for (int i = 0; i < results.length; i++) {
+            final PropertyReference ref = refs.get(i);
+            results[i] = notified.get(ref.getPropertyIdentifier());
+            if (results[i] != null)
+                continue;
+            try {
+                final Encodable p = getElement(snapshot.get(ref.getPropertyIdentifier()),
+                        ref.getPropertyArrayIndex());
+                if (p == null)
+                    throw new BACnetServiceException(ErrorClass.property, ErrorCode.unknownProperty);
+                results[i] = p;
+            } catch (final BACnetServiceException e) {
+                results[i] = new ErrorClassAndCode(e);
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Returns the encoding of a value that was read from the given property, so that it can be copied into a
+     * response without being encoded again. Encodings are cached, so values that are read often but seldom change,
+     * e.g. the object name, units and status flags, are only encoded once. A cached encoding is used only for the
+     * same instance of the value, and only if its hash code is unchanged, so that values that are changed in place
+     * are encoded again. The encodings of a property are discarded when it is written.
+     *
+     * @param pid
+     * @param propertyArrayIndex
+     *            the index that was read, or null for the whole value.
+     * @param value
+     *            the value that was read.
+     * @return the encoding, or null if the value cannot be encoded.
+     */
+    public final EncodedValue getEncoded(final PropertyIdentifier pid, final UnsignedInteger propertyArrayIndex,
+            final Encodable value) {
+        final PropertyEncodings propertyEncodings = encodings.computeIfAbsent(pid, k -> new PropertyEncodings());
+        final Encoding cached = propertyEncodings.get(propertyArrayIndex);
+        final int hash = value.hashCode();
+        if (cached != null && cached.value == value && cached.hash == hash)
+            return cached.encoded;
+
+        final EncodedValue encoded;
+        try {
+            encoded = new EncodedValue(value);
+        } catch (@SuppressWarnings("unused") final RuntimeException e) {
+            // Not encodable, e.g. a log buffer. Let the response fail as it would have without the cache.
+            return null;
+        }
+        propertyEncodings.put(propertyArrayIndex, new Encoding(value, hash, encoded));
+        return encoded;
+    }
+
+    private static class Encoding {
+        final Encodable value;
+        final int hash;
+        final EncodedValue encoded;
+
+        Encoding(final Encodable value, final int hash, final EncodedValue encoded) {
+            this.value = value;
+            this.hash = hash;
+            this.encoded = encoded;
+        }
+    }
+
+    /**
+     * The encodings of a property: of the whole value, and of the elements that were read by index.
+     */
+    private static class PropertyEncodings {
+        private volatile Encoding value;
+        private volatile Map<UnsignedInteger, Encoding> elements;
+
+        Encoding get(final UnsignedInteger propertyArrayIndex) {
+            if (propertyArrayIndex == null)
+                return value;
+            final Map<UnsignedInteger, Encoding> elements = this.elements;
+            return elements == null ? null : elements.get(propertyArrayIndex);
+        }
+
+        void put(final UnsignedInteger propertyArrayIndex, final Encoding encoding) {
+            if (propertyArrayIndex == null)
+                value = encoding;
+            else {
+                if (elements == null) {
+                    synchronized (this) {
+                        if (elements == null)
+                            elements = new ConcurrentHashMap<>();
+                    }
+                }
+                elements.put(propertyArrayIndex, encoding);
+            }
+        }
+    }
+
     //
     //
     // Set property
@@ -463,9 +594,21 @@ public class BACnetObject {
      * @return
      * @throws BACnetServiceException
      */
-    @SuppressWarnings("unchecked")
     public BACnetObject writeProperty(final ValueSource valueSource, final PropertyValue value)
             throws BACnetServiceException {
+        // The write and everything that the object and mixins change as a result are one group of writes.
+        properties.begin();
+        try {
+            doWriteProperty(valueSource, value);
+        } finally {
+            properties.end();
+        }
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void doWriteProperty(final ValueSource valueSource, final PropertyValue value)
+            throws BACnetServiceException {
         final PropertyIdentifier pid = value.getPropertyIdentifier();
         final UnsignedInteger pin = value.getPropertyArrayIndex();
         Encodable valueToWrite = value.getValue();
@@ -594,8 +737,6 @@ public class BACnetObject {
                 writePropertyInternal(pid, arr);
             }
         }
-
-        return this;
     }
 
     /**
@@ -608,18 +749,63 @@ public class BACnetObject {
      * @return
      */
     public BACnetObject writePropertyInternal(final PropertyIdentifier pid, final Encodable value) {
-        final Encodable oldValue = properties.get(pid);
-        set(pid, value);
+        properties.begin();
+        try {
+            final Encodable oldValue = properties.get(pid);
+            set(pid, value);
+            if (!encodings.isEmpty())
+                encodings.remove(pid);
+
+            // After writing.
+            for (final AbstractMixin mixin : mixins)
+                mixin.afterWriteProperty(pid, oldValue, value);
+            afterWriteProperty(pid, oldValue, value);
+
+            if (!Objects.equals(value, oldValue)) {
+                // Notify listeners
+                for (final BACnetObjectListener l : listeners)
+                    l.propertyChange(pid, oldValue, value);
+            }
+        } finally {
+            properties.end();
+        }
 
-        // After writing.
-        for (final AbstractMixin mixin : mixins)
-            mixin.afterWriteProperty(pid, oldValue, value);
-        afterWriteProperty(pid, oldValue, value);
+        return this;
+    }
 
-        if (!Objects.equals(value, oldValue)) {
-            // Notify listeners
-            for (final BACnetObjectListener l : listeners)
-                l.propertyChange(pid, oldValue, value);
+    /**
+     * Changes several properties like writePropertyInternal, but as a single change of the object. The mixins and
+     * listeners are told of each property as usual, but COV and intrinsic reporting evaluate the object once after
+     * all of the values have been written. A present value, status flags and reliability that are updated together
+     * therefore result in at most one COV notification per subscription and one run of the fault and event
+     * algorithms.
+     *
+     * @param values
+     *            the values to write, in the order in which they are to be written.
+     * @return
+     */
+    public BACnetObject writePropertiesInternal(final Map<PropertyIdentifier, ? extends Encodable> values) {
+        properties.begin();
+        try {
+            for (final AbstractMixin mixin : mixins)
+                mixin.beginWrites();
+            try {
+                for (final Map.Entry<PropertyIdentifier, ? extends Encodable> e : values.entrySet())
+                    writePropertyInternal(e.getKey(), e.getValue());
+            } finally {
+                // COV reporting goes last, so that its notifications include the changes that the other mixins
+                // make in response, e.g. to the event state.
+                for (final AbstractMixin mixin : mixins) {
+                    if (mixin != changeOfValueMixin)
+                        mixin.endWrites();
+                }
+                for (final AbstractMixin mixin : mixins) {
+                    if (mixin == changeOfValueMixin)
+                        mixin.endWrites();
+                }
+            }
+        } finally {
+            properties.end();
         }
 
         return this;
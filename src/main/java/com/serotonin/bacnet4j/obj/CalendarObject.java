@@ -50,6 +50,7 @@ import com.serotonin.bacnet4j.type.enumerated.ObjectType;
 import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.Date;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
 
 public class CalendarObject extends BACnetObject {
     static final Logger LOG = LoggerFactory.getLogger(CalendarObject.class);
@@ -88,8 +89,8 @@ public class CalendarObject extends BACnetObject {
         final long delay = hour - elapsed + 10; // Add a few milliseconds for fun.
 
         // Delay until the top of the next hour, and then run every hour.
-        presentValueRefresher = getLocalDevice().scheduleAtFixedRate(() -> updatePresentValue(), delay, hour,
-                TimeUnit.MILLISECONDS);
+        presentValueRefresher = getLocalDevice().scheduleAtFixedRate(Lane.TIMER, getId(), () -> updatePresentValue(),
+                delay, hour, TimeUnit.MILLISECONDS);
 
         localDevice.addObject(this);
     }
@@ -0,0 +1,220 @@
+package com.serotonin.bacnet4j.obj;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.exception.BACnetRuntimeException;
+import com.serotonin.bacnet4j.exception.BACnetServiceException;
+import com.serotonin.bacnet4j.obj.mixin.HasStatusFlagsMixin;
+import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.constructed.BACnetArray;
+import com.serotonin.bacnet4j.type.constructed.ChannelValue;
+import com.serotonin.bacnet4j.type.constructed.DeviceObjectPropertyReference;
+import com.serotonin.bacnet4j.type.constructed.DeviceObjectReference;
+import com.serotonin.bacnet4j.type.constructed.PropertyValue;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.constructed.StatusFlags;
+import com.serotonin.bacnet4j.type.constructed.ValueSource;
+import com.serotonin.bacnet4j.type.enumerated.ErrorClass;
+import com.serotonin.bacnet4j.type.enumerated.ErrorCode;
+import com.serotonin.bacnet4j.type.enumerated.ObjectType;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.enumerated.Reliability;
+import com.serotonin.bacnet4j.type.enumerated.WriteStatus;
+import com.serotonin.bacnet4j.type.primitive.Boolean;
+import com.serotonin.bacnet4j.type.primitive.Null;
+import com.serotonin.bacnet4j.type.primitive.Unsigned16;
+import com.serotonin.bacnet4j.type.primitive.Unsigned32;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.PropertyWriteFanOut;
+
+/**
+ * A channel writes the values that are written to its present value, either with WriteProperty or as a member of a
+ * control group with WriteGroup, to all of the properties in its list of object property references. Local members
+ * are written directly, and remote members through a fan out that does not block the writer.
+ *
+ * Execution delays are not supported.
+ */
+public class ChannelObject extends BACnetObject {
+    static final Logger LOG = LoggerFactory.getLogger(ChannelObject.class);
+
+    private static final UnsignedInteger DEFAULT_PRIORITY = new UnsignedInteger(16);
+
+    /**
+     * Writes the present value to the remote property references.
+     */
+    private final PropertyWriteFanOut writeFanOut;
+
+    /**
+     * The number of writes of the present value, so that the completion of a write that has been superseded does not
+     * set the write status.
+     */
+    private int writeCount;
+
+    // CreateObject constructor
+    public static ChannelObject create(final LocalDevice localDevice, final int instanceNumber)
+            throws BACnetServiceException {
+        return new ChannelObject(localDevice, instanceNumber, ObjectType.channel.toString() + " " + instanceNumber, 0,
+                new BACnetArray<>(), new BACnetArray<>(), false);
+    }
+
+    public ChannelObject(final LocalDevice localDevice, final int instanceNumber, final String name,
+            final int channelNumber, final BACnetArray<DeviceObjectPropertyReference> listOfObjectPropertyReferences,
+            final BACnetArray<Unsigned32> controlGroups, final boolean outOfService) throws BACnetServiceException {
+        super(localDevice, ObjectType.channel, instanceNumber, name);
+
+        if (listOfObjectPropertyReferences == null)
+            throw new BACnetRuntimeException("listOfObjectPropertyReferences cannot be null");
+        if (controlGroups == null)
+            throw new BACnetRuntimeException("controlGroups cannot be null");
+
+        writeFanOut = new PropertyWriteFanOut(localDevice);
+
+        writePropertyInternal(PropertyIdentifier.presentValue, new ChannelValue(Null.instance));
+        writePropertyInternal(PropertyIdentifier.lastPriority, DEFAULT_PRIORITY);
+        writePropertyInternal(PropertyIdentifier.writeStatus, WriteStatus.idle);
+        writePropertyInternal(PropertyIdentifier.channelNumber, new Unsigned16(channelNumber));
+        writePropertyInternal(PropertyIdentifier.listOfObjectPropertyReferences, listOfObjectPropertyReferences);
+        writeProperty(null, new PropertyValue(PropertyIdentifier.controlGroups, controlGroups));
+        writePropertyInternal(PropertyIdentifier.reliability, Reliability.noFaultDetected);
+        writePropertyInternal(PropertyIdentifier.outOfService, Boolean.valueOf(outOfService));
+        writePropertyInternal(PropertyIdentifier.statusFlags, new StatusFlags(false, false, false, outOfService));
+
+        addMixin(new HasStatusFlagsMixin(this));
+        addMixin(new ChannelMixin(this));
+
+        localDevice.addObject(this);
+    }
+
+    public int getChannelNumber() {
+        final Unsigned16 channelNumber = get(PropertyIdentifier.channelNumber);
+        return channelNumber.intValue();
+    }
+
+    /**
+     * @return true if the channel is a member of the given control group. Group 0 has no members.
+     */
+    public boolean isInControlGroup(final long groupNumber) {
+        if (groupNumber == 0)
+            return false;
+        final BACnetArray<Unsigned32> controlGroups = get(PropertyIdentifier.controlGroups);
+        for (final Unsigned32 group : controlGroups) {
+            if (group.longValue() == groupNumber)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the fan out that writes the present value to remote property references, e.g. to set the number of
+     *         concurrent write requests.
+     */
+    public PropertyWriteFanOut getWriteFanOut() {
+        return writeFanOut;
+    }
+
+    /**
+     * @return the status of the latest write to each remote property reference.
+     */
+    public Map<DeviceObjectPropertyReference, PropertyWriteFanOut.WriteStatus> getWriteResults() {
+        return writeFanOut.getResults();
+    }
+
+    class ChannelMixin extends AbstractMixin {
+        public ChannelMixin(final BACnetObject bo) {
+            super(bo);
+        }
+
+        @Override
+        protected boolean validateProperty(final ValueSource valueSource, final PropertyValue value)
+                throws BACnetServiceException {
+            if (PropertyIdentifier.presentValue.equals(value.getPropertyIdentifier())) {
+                final UnsignedInteger priority = value.getPriority();
+                if (priority != null && (priority.intValue() < 1 || priority.intValue() > 16))
+                    throw new BACnetServiceException(ErrorClass.property, ErrorCode.valueOutOfRange);
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean writeProperty(final ValueSource valueSource, final PropertyValue value) {
+            if (PropertyIdentifier.presentValue.equals(value.getPropertyIdentifier())) {
+                final UnsignedInteger priority = value.getPriority() == null ? DEFAULT_PRIORITY : value.getPriority();
+                doWrites((ChannelValue) value.getValue(), priority);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    synchronized void doWrites(final ChannelValue value, final UnsignedInteger priority) {
+        final int count = ++writeCount;
+        writePropertyInternal(PropertyIdentifier.writeStatus, WriteStatus.inProgress);
+        writePropertyInternal(PropertyIdentifier.lastPriority, priority);
+        writePropertyInternal(PropertyIdentifier.presentValue, value);
+
+        final Boolean outOfService = get(PropertyIdentifier.outOfService);
+        if (outOfService.booleanValue()) {
+            // The members are not written while the channel is out of service.
+            writePropertyInternal(PropertyIdentifier.writeStatus, WriteStatus.successful);
+            return;
+        }
+
+        // A null value relinquishes the members at the priority.
+        final Encodable memberValue = value.getValue();
+        final BACnetArray<DeviceObjectPropertyReference> listOfObjectPropertyReferences = get(
+                PropertyIdentifier.listOfObjectPropertyReferences);
+
+        // Write to the local objects.
+        boolean failed = false;
+        for (final DeviceObjectPropertyReference dopr : listOfObjectPropertyReferences) {
+            if (dopr.getDeviceIdentifier() == null
+                    || dopr.getDeviceIdentifier().getInstanceNumber() == getLocalDevice().getInstanceNumber()) {
+                LOG.debug("Writing to local {}, value={}, priority={}", dopr.getObjectIdentifier(), memberValue,
+                        priority);
+                final BACnetObject that = getLocalDevice().getObject(dopr.getObjectIdentifier());
+                try {
+                    if (that == null)
+                        throw new BACnetServiceException(ErrorClass.object, ErrorCode.unknownObject);
+                    that.writeProperty(new ValueSource(new DeviceObjectReference(getLocalDevice().getId(), getId())),
+                            new PropertyValue(dopr.getPropertyIdentifier(), dopr.getPropertyArrayIndex(), memberValue,
+                                    priority));
+                } catch (final BACnetServiceException e) {
+                    LOG.warn("Channel failed to write to local object {}", dopr.getObjectIdentifier(), e);
+                    failed = true;
+                }
+            }
+        }
+
+        // Write to the remote objects. The write status stays in progress until they are done. The status of each of
+        // these writes is available from the write results.
+        final SequenceOf<DeviceObjectPropertyReference> remote = new SequenceOf<>();
+        for (final DeviceObjectPropertyReference dopr : listOfObjectPropertyReferences) {
+            if (dopr.getDeviceIdentifier() != null
+                    && dopr.getDeviceIdentifier().getInstanceNumber() != getLocalDevice().getInstanceNumber())
+                remote.add(dopr);
+        }
+        if (remote.getCount() == 0) {
+            writePropertyInternal(PropertyIdentifier.writeStatus, failed ? WriteStatus.failed : WriteStatus.successful);
+            return;
+        }
+
+        final boolean localFailed = failed;
+        // The fan out may call back while it holds its lock, so the status is set from another thread to keep the
+        // channel's lock from being taken after the fan out's.
+        writeFanOut.write(remote.getValues(), memberValue, priority,
+                results -> getLocalDevice().execute(() -> remoteWritesDone(count, localFailed, results)));
+    }
+
+    synchronized void remoteWritesDone(final int count, final boolean localFailed,
+            final Map<DeviceObjectPropertyReference, PropertyWriteFanOut.WriteStatus> results) {
+        if (count != writeCount)
+            // A later write is in progress.
+            return;
+        final boolean failed = localFailed || results.containsValue(PropertyWriteFanOut.WriteStatus.FAILED);
+        writePropertyInternal(PropertyIdentifier.writeStatus, failed ? WriteStatus.failed : WriteStatus.successful);
+    }
+}
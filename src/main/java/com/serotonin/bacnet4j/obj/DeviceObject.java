@@ -109,7 +109,7 @@ public class DeviceObject extends BACnetObject {
         servicesSupported.setLifeSafetyOperation(true);
         servicesSupported.setSubscribeCovProperty(true);
         servicesSupported.setGetEventInformation(true);
-        //        servicesSupported.setWriteGroup(true);
+        servicesSupported.setWriteGroup(true);
         servicesSupported.setSubscribeCovPropertyMultiple(true);
         servicesSupported.setConfirmedCovNotificationMultiple(true);
         servicesSupported.setUnconfirmedCovNotificationMultiple(true);
@@ -171,7 +171,7 @@ public class DeviceObject extends BACnetObject {
         //        objectTypesSupported.set(ObjectType.timeValue, true);
         objectTypesSupported.set(ObjectType.notificationForwarder, true);
         objectTypesSupported.set(ObjectType.alertEnrollment, true);
-        //        objectTypesSupported.set(ObjectType.channel, true);
+        objectTypesSupported.set(ObjectType.channel, true);
         //        objectTypesSupported.set(ObjectType.lightingOutput, true);
         //        objectTypesSupported.set(ObjectType.binaryLightingOutput, true);
         //        objectTypesSupported.set(ObjectType.networkPort, true);
@@ -41,6 +41,7 @@ import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.CharacterString;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
 
 /**
  * TODO
@@ -268,7 +269,8 @@ public class EventLogObject extends BACnetObject {
             final DateTime now = getNow();
             final long diff = startTime.getGC().getTimeInMillis() - now.getGC().getTimeInMillis();
             if (diff > 0) {
-                startTimeFuture = getLocalDevice().schedule(() -> evaluateLogDisabled(), diff, TimeUnit.MILLISECONDS);
+                startTimeFuture = getLocalDevice().schedule(Lane.TIMER, getId(), () -> evaluateLogDisabled(), diff,
+                        TimeUnit.MILLISECONDS);
             }
         }
         evaluateLogDisabled();
@@ -280,7 +282,8 @@ public class EventLogObject extends BACnetObject {
             final DateTime now = getNow();
             final long diff = stopTime.getGC().getTimeInMillis() - now.getGC().getTimeInMillis();
             if (diff > 0) {
-                stopTimeFuture = getLocalDevice().schedule(() -> evaluateLogDisabled(), diff, TimeUnit.MILLISECONDS);
+                stopTimeFuture = getLocalDevice().schedule(Lane.TIMER, getId(), () -> evaluateLogDisabled(), diff,
+                        TimeUnit.MILLISECONDS);
             }
         }
         evaluateLogDisabled();
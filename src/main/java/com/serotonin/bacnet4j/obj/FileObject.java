@@ -28,6 +28,8 @@
  */
 package com.serotonin.bacnet4j.obj;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.Objects;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -94,6 +96,18 @@ public class FileObject extends BACnetObject {
         this.fileAccess = fileAccess;
     }
 
+    @Override
+    protected void terminateImpl() {
+        // Release file accesses that keep the file open.
+        if (fileAccess instanceof Closeable) {
+            try {
+                ((Closeable) fileAccess).close();
+            } catch (final IOException e) {
+                LOG.warn("Failed to close file access {}", fileAccess.getName(), e);
+            }
+        }
+    }
+
     @Override
     protected void beforeReadProperty(final PropertyIdentifier pid) throws BACnetServiceException {
         if (PropertyIdentifier.fileSize.equals(pid)) {
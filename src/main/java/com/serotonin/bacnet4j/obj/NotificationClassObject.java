@@ -37,6 +37,7 @@ import com.serotonin.bacnet4j.exception.BACnetServiceException;
 import com.serotonin.bacnet4j.obj.mixin.HasStatusFlagsMixin;
 import com.serotonin.bacnet4j.obj.mixin.event.IntrinsicReportingMixin;
 import com.serotonin.bacnet4j.obj.mixin.event.eventAlgo.NoneAlgo;
+import com.serotonin.bacnet4j.type.Encodable;
 import com.serotonin.bacnet4j.type.constructed.BACnetArray;
 import com.serotonin.bacnet4j.type.constructed.Destination;
 import com.serotonin.bacnet4j.type.constructed.EventTransitionBits;
@@ -58,6 +59,7 @@ import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.CharacterString;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.RecipientListFilter;
 
 public class NotificationClassObject extends BACnetObject {
     // CreateObject constructor
@@ -70,6 +72,7 @@ public class NotificationClassObject extends BACnetObject {
     }
 
     private final List<NotificationClassListener> eventListeners = new CopyOnWriteArrayList<>();
+    private volatile RecipientListFilter recipientListFilter;
 
     public NotificationClassObject(final LocalDevice localDevice, final int instanceNumber, final String name,
             final int toOffnormalPriority, final int toFaultPriority, final int toNormalPriority,
@@ -122,6 +125,25 @@ public class NotificationClassObject extends BACnetObject {
         return false;
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void afterWriteProperty(final PropertyIdentifier pid, final Encodable oldValue,
+            final Encodable newValue) {
+        // Compile the list when it is written rather than when the first event is sent.
+        if (PropertyIdentifier.recipientList.equals(pid))
+            recipientListFilter = new RecipientListFilter((SequenceOf<Destination>) newValue);
+    }
+
+    /**
+     * @return the recipient list compiled for matching events, which is refreshed when the list changes.
+     */
+    public RecipientListFilter getRecipientListFilter() {
+        final SequenceOf<Destination> recipientList = get(PropertyIdentifier.recipientList);
+        final RecipientListFilter filter = RecipientListFilter.forList(recipientListFilter, recipientList);
+        recipientListFilter = filter;
+        return filter;
+    }
+
     public void addEventListener(final NotificationClassListener l) {
         eventListeners.add(l);
     }
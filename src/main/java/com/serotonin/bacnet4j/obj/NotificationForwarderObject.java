@@ -12,7 +12,6 @@ import org.slf4j.LoggerFactory;
 
 import com.serotonin.bacnet4j.LocalDevice;
 import com.serotonin.bacnet4j.event.DeviceEventAdapter;
-import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.exception.BACnetServiceException;
 import com.serotonin.bacnet4j.obj.mixin.HasStatusFlagsMixin;
 import com.serotonin.bacnet4j.service.confirmed.ConfirmedEventNotificationRequest;
@@ -42,6 +41,7 @@ import com.serotonin.bacnet4j.type.primitive.CharacterString;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.Unsigned32;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.RecipientListFilter;
 
 public class NotificationForwarderObject extends BACnetObject {
     static final Logger LOG = LoggerFactory.getLogger(NotificationForwarderObject.class);
@@ -49,6 +49,7 @@ public class NotificationForwarderObject extends BACnetObject {
     private final AtomicInteger nextSubscriptionId = new AtomicInteger(0);
     private final DeviceEventAdapter eventListener;
     private final List<Subscription> subscriptions = new ArrayList<>();
+    private volatile RecipientListFilter recipientListFilter;
 
     public NotificationForwarderObject(final LocalDevice localDevice, final int instanceNumber, final String name,
             final boolean outOfService, final ProcessIdSelection processIdentifierFilter,
@@ -145,40 +146,28 @@ public class NotificationForwarderObject extends BACnetObject {
                 }
 
                 // Send to recipients
-                final SequenceOf<Destination> recipientList = get(PropertyIdentifier.recipientList);
-                for (final Destination destination : recipientList) {
-                    if (destination.isSuitableForEvent(timeStamp, toState)) {
-                        Address address;
-                        try {
-                            address = destination.getRecipient().toAddress(getLocalDevice());
-                        } catch (final BACnetException e) {
-                            LOG.warn("Unable to get address for recipient {}", destination.getRecipient(), e);
-                            continue;
-                        }
-
-                        LOG.debug("Sending {} to {}", notifyType, destination.getRecipient());
-                        sendNotification(destination.getProcessIdentifier(), initiatingDeviceIdentifier,
-                                eventObjectIdentifier, timeStamp, notificationClass, priority, eventType, messageText,
-                                notifyType, ackRequired, fromState, toState, eventValues, address,
-                                destination.getIssueConfirmedNotifications());
-                    }
+                // The recipient list is only compiled when it changes.
+                final RecipientListFilter recipientList = getRecipientListFilter();
+                for (final RecipientListFilter.Match match : recipientList.match(timeStamp, toState)) {
+                    getLocalDevice().getRecipientResolver().send(match.getRecipient(), (address) -> {
+                        LOG.debug("Sending {} to {}", notifyType, match.getRecipient());
+                        for (final Destination destination : match.getDestinations())
+                            sendNotification(destination.getProcessIdentifier(), initiatingDeviceIdentifier,
+                                    eventObjectIdentifier, timeStamp, notificationClass, priority, eventType,
+                                    messageText, notifyType, ackRequired, fromState, toState, eventValues, address,
+                                    destination.getIssueConfirmedNotifications());
+                    });
                 }
 
                 // Send to subscribers
                 forEachSubscriber((subscription) -> {
-                    Address address;
-                    try {
-                        address = subscription.getRecipient().toAddress(getLocalDevice());
-                    } catch (final BACnetException e) {
-                        LOG.warn("Unable to get address for recipient {}", subscription.getRecipient(), e);
-                        return;
-                    }
-
-                    LOG.debug("Sending {} to {}", notifyType, subscription.getRecipient());
-                    sendNotification(subscription.getProcessIdentifier(), initiatingDeviceIdentifier,
-                            eventObjectIdentifier, timeStamp, notificationClass, priority, eventType, messageText,
-                            notifyType, ackRequired, fromState, toState, eventValues, address,
-                            subscription.getIssueConfirmedNotifications());
+                    getLocalDevice().getRecipientResolver().send(subscription.getRecipient(), (address) -> {
+                        LOG.debug("Sending {} to {}", notifyType, subscription.getRecipient());
+                        sendNotification(subscription.getProcessIdentifier(), initiatingDeviceIdentifier,
+                                eventObjectIdentifier, timeStamp, notificationClass, priority, eventType,
+                                messageText, notifyType, ackRequired, fromState, toState, eventValues, address,
+                                subscription.getIssueConfirmedNotifications());
+                    });
                 });
             }
         };
@@ -187,6 +176,13 @@ public class NotificationForwarderObject extends BACnetObject {
         localDevice.addObject(this);
     }
 
+    RecipientListFilter getRecipientListFilter() {
+        final RecipientListFilter filter = RecipientListFilter.forList(recipientListFilter,
+                get(PropertyIdentifier.recipientList));
+        recipientListFilter = filter;
+        return filter;
+    }
+
     private void sendNotification(final UnsignedInteger processIdentifier,
             final ObjectIdentifier initiatingDeviceIdentifier, final ObjectIdentifier eventObjectIdentifier,
             final TimeStamp timeStamp, final UnsignedInteger notificationClass, final UnsignedInteger priority,
@@ -321,9 +317,12 @@ public class NotificationForwarderObject extends BACnetObject {
             return false;
         }
 
+        @SuppressWarnings("unchecked")
         @Override
         protected void afterWriteProperty(final PropertyIdentifier pid, final Encodable oldValue,
                 final Encodable newValue) {
+            if (PropertyIdentifier.recipientList.equals(pid))
+                recipientListFilter = new RecipientListFilter((SequenceOf<Destination>) newValue);
             if (pid.isOneOf(PropertyIdentifier.recipientList, PropertyIdentifier.subscribedRecipients)) {
                 // Persist the latest written values.
                 getLocalDevice().getPersistence().saveEncodable(getPersistenceKey(pid), newValue);
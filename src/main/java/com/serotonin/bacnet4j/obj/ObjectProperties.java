@@ -29,6 +29,7 @@
 package com.serotonin.bacnet4j.obj;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -188,12 +189,21 @@ public class ObjectProperties {
     private static final Map<PropertyIdentifier, PropertyTypeDefinition> propertyTypes = new HashMap<>();
     private static final Map<ObjectType, Map<PropertyIdentifier, ObjectPropertyTypeDefinition>> objectPropertyTypes = new HashMap<>();
 
+    // The definitions above, compiled once they are complete into arrays that are indexed by object type and
+    // property identifier, so that lookups neither hash nor allocate.
+    private static final PropertyTypeDefinition[] propertyTypesById;
+    private static final ObjectTypeDefinitions[] objectTypesById;
+    private static final boolean[] commandableTypes;
+
     public static ObjectPropertyTypeDefinition getObjectPropertyTypeDefinition(final ObjectType objectType,
             final PropertyIdentifier propertyIdentifier) {
-        final Map<PropertyIdentifier, ObjectPropertyTypeDefinition> props = objectPropertyTypes.get(objectType);
-        if (props == null)
+        final ObjectTypeDefinitions defs = getObjectTypeDefinitions(objectType);
+        if (defs == null || propertyIdentifier == null)
+            return null;
+        final int id = propertyIdentifier.intValue();
+        if (id < 0 || id >= defs.byId.length)
             return null;
-        return props.get(propertyIdentifier);
+        return defs.byId[id];
     }
 
     public static ObjectPropertyTypeDefinition getObjectPropertyTypeDefinitionRequired(final ObjectType objectType,
@@ -205,27 +215,58 @@ public class ObjectProperties {
         return def;
     }
 
+    /**
+     * @return an unmodifiable list of the definitions of the properties of the object type.
+     */
     public static List<ObjectPropertyTypeDefinition> getObjectPropertyTypeDefinitions(final ObjectType objectType) {
-        return getObjectPropertyTypeDefinitions(objectType, 0);
+        final ObjectTypeDefinitions defs = getObjectTypeDefinitions(objectType);
+        return defs == null ? Collections.emptyList() : defs.all;
     }
 
+    /**
+     * @return an unmodifiable list of the definitions of the required properties of the object type.
+     */
     public static List<ObjectPropertyTypeDefinition> getRequiredObjectPropertyTypeDefinitions(
             final ObjectType objectType) {
-        return getObjectPropertyTypeDefinitions(objectType, 1);
+        final ObjectTypeDefinitions defs = getObjectTypeDefinitions(objectType);
+        return defs == null ? Collections.emptyList() : defs.required;
     }
 
+    /**
+     * @return an unmodifiable list of the definitions of the optional properties of the object type.
+     */
     public static List<ObjectPropertyTypeDefinition> getOptionalObjectPropertyTypeDefinitions(
             final ObjectType objectType) {
-        return getObjectPropertyTypeDefinitions(objectType, 2);
+        final ObjectTypeDefinitions defs = getObjectTypeDefinitions(objectType);
+        return defs == null ? Collections.emptyList() : defs.optional;
     }
 
     public static PropertyTypeDefinition getPropertyTypeDefinition(final PropertyIdentifier pid) {
-        return propertyTypes.get(pid);
+        if (pid == null)
+            return null;
+        final int id = pid.intValue();
+        if (id < 0 || id >= propertyTypesById.length)
+            return null;
+        return propertyTypesById[id];
     }
 
     public static boolean isCommandable(final ObjectType type, final PropertyIdentifier pid) {
         if (!pid.equals(PropertyIdentifier.presentValue))
             return false;
+        final int id = type.intValue();
+        return id >= 0 && id < commandableTypes.length && commandableTypes[id];
+    }
+
+    private static ObjectTypeDefinitions getObjectTypeDefinitions(final ObjectType objectType) {
+        if (objectType == null)
+            return null;
+        final int id = objectType.intValue();
+        if (id < 0 || id >= objectTypesById.length)
+            return null;
+        return objectTypesById[id];
+    }
+
+    private static boolean isCommandable(final ObjectType type) {
         return type.isOneOf( //
                 ObjectType.analogOutput, //
                 ObjectType.analogValue, //
@@ -251,22 +292,35 @@ public class ObjectProperties {
     }
 
     /**
-     * @param objectType
-     * @param include
-     *            0 = all, 1 = required, 2 = optional
-     * @return
+     * The property definitions of an object type.
      */
-    private static List<ObjectPropertyTypeDefinition> getObjectPropertyTypeDefinitions(final ObjectType objectType,
-            final int include) {
-        final List<ObjectPropertyTypeDefinition> result = new ArrayList<>();
-        final Map<PropertyIdentifier, ObjectPropertyTypeDefinition> props = objectPropertyTypes.get(objectType);
-        if (props != null) {
+    private static class ObjectTypeDefinitions {
+        final ObjectPropertyTypeDefinition[] byId;
+        final List<ObjectPropertyTypeDefinition> all;
+        final List<ObjectPropertyTypeDefinition> required;
+        final List<ObjectPropertyTypeDefinition> optional;
+
+        ObjectTypeDefinitions(final Map<PropertyIdentifier, ObjectPropertyTypeDefinition> props) {
+            int max = -1;
+            for (final PropertyIdentifier pid : props.keySet())
+                max = Math.max(max, pid.intValue());
+            byId = new ObjectPropertyTypeDefinition[max + 1];
+
+            final List<ObjectPropertyTypeDefinition> all = new ArrayList<>(props.size());
+            final List<ObjectPropertyTypeDefinition> required = new ArrayList<>();
+            final List<ObjectPropertyTypeDefinition> optional = new ArrayList<>();
             for (final ObjectPropertyTypeDefinition def : props.values()) {
-                if (include == 0 || include == 1 && def.isRequired() || include == 2 && def.isOptional())
-                    result.add(def);
+                byId[def.getPropertyTypeDefinition().getPropertyIdentifier().intValue()] = def;
+                all.add(def);
+                if (def.isRequired())
+                    required.add(def);
+                if (def.isOptional())
+                    optional.add(def);
             }
+            this.all = Collections.unmodifiableList(all);
+            this.required = Collections.unmodifiableList(required);
+            this.optional = Collections.unmodifiableList(optional);
         }
-        return result;
     }
 
     /**
@@ -2512,4 +2566,26 @@ public class ObjectProperties {
         add(ObjectType.trendLogMultiple, PropertyIdentifier.profileLocation, CharacterString.class, false);
         add(ObjectType.trendLogMultiple, PropertyIdentifier.profileName, CharacterString.class, false);
     }
+
+    static {
+        int maxPid = -1;
+        for (final PropertyIdentifier pid : propertyTypes.keySet())
+            maxPid = Math.max(maxPid, pid.intValue());
+        propertyTypesById = new PropertyTypeDefinition[maxPid + 1];
+        for (final Map.Entry<PropertyIdentifier, PropertyTypeDefinition> e : propertyTypes.entrySet())
+            propertyTypesById[e.getKey().intValue()] = e.getValue();
+
+        int maxType = -1;
+        for (final ObjectType type : objectPropertyTypes.keySet())
+            maxType = Math.max(maxType, type.intValue());
+        objectTypesById = new ObjectTypeDefinitions[maxType + 1];
+        for (final Map.Entry<ObjectType, Map<PropertyIdentifier, ObjectPropertyTypeDefinition>> e : objectPropertyTypes
+                .entrySet())
+            objectTypesById[e.getKey().intValue()] = new ObjectTypeDefinitions(e.getValue());
+
+        // Object types are 10 bits.
+        commandableTypes = new boolean[1024];
+        for (int i = 0; i < commandableTypes.length; i++)
+            commandableTypes[i] = isCommandable(ObjectType.forId(i));
+    }
 }
@@ -0,0 +1,304 @@
+package com.serotonin.bacnet4j.obj;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+
+/**
+ * The property values of an object.
+ *
+ * Properties in the ASHRAE range are kept in an array indexed by the property identifier, and proprietary properties
+ * in a map. Reads and writes of single properties do not lock.
+ *
+ * Writes can be grouped with begin and end, e.g. a write of the present value together with the status flags that the
+ * object updates as a result. A copy of the values is published as a snapshot, which is never torn by a group of
+ * writes, so reading several properties from one snapshot gives values that belong together. Until a snapshot is
+ * first asked for, writes do not pay for the copy. From then on, the last writer to end publishes a new snapshot
+ * whenever the published one is out of date, so that a snapshot asked for while writes are in progress lacks only
+ * those writes. Readers neither wait for writers nor block them.
+ */
+public class PropertyStore extends AbstractMap<PropertyIdentifier, Encodable> {
+    // The size of the array. Property identifiers from 512 are proprietary.
+    static final int DENSE = 512;
+
+    private final AtomicReferenceArray<Encodable> dense = new AtomicReferenceArray<>(DENSE);
+    private final Map<PropertyIdentifier, Encodable> sparse = new ConcurrentHashMap<>();
+    private final AtomicInteger count = new AtomicInteger();
+    // The highest index in the array that was ever set, so that publishing copies only the used part of the array.
+    private final AtomicInteger high = new AtomicInteger(-1);
+
+    // The number of open groups of writes, and the number of groups ever started.
+    private final AtomicInteger writers = new AtomicInteger();
+    private final AtomicLong starts = new AtomicLong();
+    private final AtomicReference<Snapshot> committed = new AtomicReference<>(
+            new Snapshot(0, new Encodable[0], Collections.emptyMap()));
+    // Whether a snapshot was ever asked for. If so, the writers keep the published snapshot current.
+    private volatile boolean watched;
+
+    /**
+     * Starts a group of writes. Groups may be nested and may overlap, and every call must be followed by a call to
+     * end.
+     */
+    public void begin() {
+        // The writer is counted before the start, so that a publisher that sees the start also sees the writer.
+        writers.incrementAndGet();
+        starts.incrementAndGet();
+    }
+
+    /**
+     * Ends a group of writes. If snapshots are being read and no other writes are in progress, a snapshot is published.
+     */
+    public void end() {
+        // The decrement comes before the read of watched, and snapshot() sets watched before reading the writers, so
+        // either this writer publishes or the reader does.
+        if (writers.decrementAndGet() == 0 && watched)
+            publishCurrent();
+    }
+
+    /**
+     * @return the values after the latest writes that have completed. If writes are in progress, this is the snapshot
+     *         that was published when the writes before them completed. If this is the first snapshot asked for while
+     *         writes are in progress, nothing may have been published yet, and the writers publish when they end.
+     */
+    public Snapshot snapshot() {
+        if (!watched)
+            watched = true;
+        final Snapshot snapshot = committed.get();
+        if (snapshot.version == starts.get())
+            return snapshot;
+        // The snapshot is out of date. Make a new one, unless writes are in progress, in which case the last writer to
+        // end makes it.
+        final Snapshot published = publishCurrent();
+        return published == null ? committed.get() : published;
+    }
+
+    /**
+     * @return the last snapshot that was published, without publishing a new one.
+     */
+    Snapshot getPublished() {
+        return committed.get();
+    }
+
+    /**
+     * Publishes a snapshot of the values, retrying if a group of writes starts and ends during the copy.
+     *
+     * @return the snapshot, or null if writes are in progress. The last of them to end publishes.
+     */
+    private Snapshot publishCurrent() {
+        while (true) {
+            final Snapshot snapshot = publish();
+            if (snapshot != null)
+                return snapshot;
+            if (writers.get() != 0)
+                return null;
+        }
+    }
+
+    private Snapshot publish() {
+        final long version = starts.get();
+        if (writers.get() != 0)
+            return null;
+
+        final Encodable[] values = new Encodable[high.get() + 1];
+        int last = -1;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = dense.get(i);
+            if (values[i] != null)
+                last = i;
+        }
+        final Map<PropertyIdentifier, Encodable> proprietary = sparse.isEmpty() ? Collections.emptyMap()
+                : new HashMap<>(sparse);
+
+        // If another group started while copying, it will publish when it ends.
+        if (starts.get() != version)
+            return null;
+
+        final Encodable[] trimmed = new Encodable[last + 1];
+        System.arraycopy(values, 0, trimmed, 0, trimmed.length);
+        final Snapshot snapshot = new Snapshot(version, trimmed, proprietary);
+        while (true) {
+            final Snapshot current = committed.get();
+            if (current.version >= version)
+                return current;
+            if (committed.compareAndSet(current, snapshot))
+                return snapshot;
+        }
+    }
+
+    @Override
+    public Encodable get(final Object key) {
+        if (!(key instanceof PropertyIdentifier))
+            return null;
+        final int id = ((PropertyIdentifier) key).intValue();
+        if (id >= 0 && id < DENSE)
+            return dense.get(id);
+        return sparse.get(key);
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Encodable put(final PropertyIdentifier key, final Encodable value) {
+        if (value == null)
+            return remove(key);
+
+        begin();
+        try {
+            final Encodable old;
+            final int id = key.intValue();
+            if (id >= 0 && id < DENSE) {
+                if (id > high.get())
+                    high.accumulateAndGet(id, Math::max);
+                old = dense.getAndSet(id, value);
+            } else
+                old = sparse.put(key, value);
+            if (old == null)
+                count.incrementAndGet();
+            return old;
+        } finally {
+            end();
+        }
+    }
+
+    @Override
+    public Encodable remove(final Object key) {
+        if (!(key instanceof PropertyIdentifier))
+            return null;
+
+        begin();
+        try {
+            final Encodable old;
+            final int id = ((PropertyIdentifier) key).intValue();
+            if (id >= 0 && id < DENSE)
+                old = dense.getAndSet(id, null);
+            else
+                old = sparse.remove(key);
+            if (old != null)
+                count.decrementAndGet();
+            return old;
+        } finally {
+            end();
+        }
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public Set<Map.Entry<PropertyIdentifier, Encodable>> entrySet() {
+        return new AbstractSet<Map.Entry<PropertyIdentifier, Encodable>>() {
+            @Override
+            public Iterator<Map.Entry<PropertyIdentifier, Encodable>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return count.get();
+            }
+        };
+    }
+
+    /**
+     * Iterates over the properties in the order of their identifiers, and then over the proprietary properties. Like
+     * the iterators of concurrent maps it does not fail when the properties are changed.
+     */
+    class EntryIterator implements Iterator<Map.Entry<PropertyIdentifier, Encodable>> {
+        private final Iterator<Map.Entry<PropertyIdentifier, Encodable>> sparseIterator = sparse.entrySet()
+                .iterator();
+        private int index = -1;
+        private Map.Entry<PropertyIdentifier, Encodable> next;
+        private PropertyIdentifier lastKey;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (++index < DENSE) {
+                final Encodable value = dense.get(index);
+                if (value != null) {
+                    next = new SimpleImmutableEntry<>(PropertyIdentifier.forId(index), value);
+                    return;
+                }
+            }
+            if (sparseIterator.hasNext()) {
+                final Map.Entry<PropertyIdentifier, Encodable> e = sparseIterator.next();
+                next = new SimpleImmutableEntry<>(e.getKey(), e.getValue());
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<PropertyIdentifier, Encodable> next() {
+            if (next == null)
+                throw new NoSuchElementException();
+            final Map.Entry<PropertyIdentifier, Encodable> e = next;
+            lastKey = e.getKey();
+            advance();
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null)
+                throw new IllegalStateException();
+            PropertyStore.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    /**
+     * The values of the properties at one point in time.
+     */
+    public static class Snapshot {
+        private final long version;
+        private final Encodable[] dense;
+        private final Map<PropertyIdentifier, Encodable> sparse;
+
+        Snapshot(final long version, final Encodable[] dense, final Map<PropertyIdentifier, Encodable> sparse) {
+            this.version = version;
+            this.dense = dense;
+            this.sparse = sparse;
+        }
+
+        /**
+         * @return the number of groups of writes that had started when the snapshot was made. A snapshot with a
+         *         higher version is more recent.
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T extends Encodable> T get(final PropertyIdentifier pid) {
+            final int id = pid.intValue();
+            if (id >= 0 && id < DENSE)
+                return id < dense.length ? (T) dense[id] : null;
+            return (T) sparse.get(pid);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.Real;
 import com.serotonin.bacnet4j.type.primitive.SignedInteger;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
 
 public class PulseConverterObject extends BACnetObject {
     static final Logger LOG = LoggerFactory.getLogger(PulseConverterObject.class);
@@ -116,7 +117,7 @@ public class PulseConverterObject extends BACnetObject {
         Objects.requireNonNull(inputReference);
         writePropertyInternal(PropertyIdentifier.inputReference, inputReference);
 
-        inputMonitoringFuture = getLocalDevice().scheduleWithFixedDelay(() -> {
+        inputMonitoringFuture = getLocalDevice().scheduleWithFixedDelay(Lane.TIMER, getId(), () -> {
             final Boolean outOfService = get(PropertyIdentifier.outOfService);
             if (outOfService.booleanValue()) {
                 // Do no track changes to the input when the value of out-of-service is true.
@@ -30,6 +30,7 @@ package com.serotonin.bacnet4j.obj;
 
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -38,18 +39,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.serotonin.bacnet4j.LocalDevice;
-import com.serotonin.bacnet4j.RemoteDevice;
-import com.serotonin.bacnet4j.ResponseConsumer;
-import com.serotonin.bacnet4j.apdu.AckAPDU;
 import com.serotonin.bacnet4j.enums.DayOfWeek;
-import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.exception.BACnetRuntimeException;
 import com.serotonin.bacnet4j.exception.BACnetServiceException;
 import com.serotonin.bacnet4j.obj.mixin.HasStatusFlagsMixin;
 import com.serotonin.bacnet4j.obj.mixin.event.IntrinsicReportingMixin;
 import com.serotonin.bacnet4j.obj.mixin.event.eventAlgo.NoneAlgo;
-import com.serotonin.bacnet4j.service.acknowledgement.AcknowledgementService;
-import com.serotonin.bacnet4j.service.confirmed.WritePropertyRequest;
 import com.serotonin.bacnet4j.type.Encodable;
 import com.serotonin.bacnet4j.type.constructed.BACnetArray;
 import com.serotonin.bacnet4j.type.constructed.DailySchedule;
@@ -74,9 +69,11 @@ import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.enumerated.Reliability;
 import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.Date;
-import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.Primitive;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
+import com.serotonin.bacnet4j.util.PropertyWriteFanOut;
+import com.serotonin.bacnet4j.util.PropertyWriteFanOut.WriteStatus;
 
 /**
  * TODO
@@ -104,6 +101,11 @@ public class ScheduleObject extends BACnetObject {
      */
     private ScheduledFuture<?> periodicWriter;
 
+    /**
+     * Writes the present value to the remote property references.
+     */
+    private final PropertyWriteFanOut writeFanOut;
+
     public ScheduleObject(final LocalDevice localDevice, final int instanceNumber, final String name,
             final DateRange effectivePeriod, final BACnetArray<DailySchedule> weeklySchedule,
             final SequenceOf<SpecialEvent> exceptionSchedule, final Primitive scheduleDefault,
@@ -111,6 +113,8 @@ public class ScheduleObject extends BACnetObject {
             final int priorityForWriting, final boolean outOfService) throws BACnetServiceException {
         super(localDevice, ObjectType.schedule, instanceNumber, name);
 
+        writeFanOut = new PropertyWriteFanOut(localDevice);
+
         if (effectivePeriod == null)
             throw new BACnetRuntimeException("effectivePeriod cannot be null");
         if (weeklySchedule == null && exceptionSchedule == null)
@@ -228,7 +232,7 @@ public class ScheduleObject extends BACnetObject {
             throw new IllegalArgumentException("period cannot be < 1");
 
         cancelPeriodicWriter();
-        periodicWriter = getLocalDevice().scheduleAtFixedRate(() -> forceWrites(), delay, period,
+        periodicWriter = getLocalDevice().scheduleAtFixedRate(Lane.TIMER, getId(), () -> forceWrites(), delay, period,
                 TimeUnit.MILLISECONDS);
         LOG.debug("Periodic writer started");
     }
@@ -357,8 +361,8 @@ public class ScheduleObject extends BACnetObject {
         writePropertyInternal(PropertyIdentifier.presentValue, newValue);
 
         final java.util.Date nextRuntime = new java.util.Date(nextCheck);
-        presentValueRefersher = getLocalDevice().schedule(() -> updatePresentValue(), nextRuntime.getTime(),
-                TimeUnit.MILLISECONDS);
+        presentValueRefersher = getLocalDevice().schedule(Lane.TIMER, getId(), () -> updatePresentValue(),
+                nextRuntime.getTime(), TimeUnit.MILLISECONDS);
         LOG.debug("Timer scheduled to run at {}", nextRuntime);
     }
 
@@ -421,17 +425,31 @@ public class ScheduleObject extends BACnetObject {
         return weeklySchedule.getBase1(dow.getId());
     }
 
+    /**
+     * @return the fan out that writes the present value to remote property references, e.g. to set the number of
+     *         concurrent write requests.
+     */
+    public PropertyWriteFanOut getWriteFanOut() {
+        return writeFanOut;
+    }
+
+    /**
+     * @return the status of the latest write to each remote property reference.
+     */
+    public Map<DeviceObjectPropertyReference, WriteStatus> getWriteResults() {
+        return writeFanOut.getResults();
+    }
+
     void doWrites(final Encodable value) {
         final SequenceOf<DeviceObjectPropertyReference> listOfObjectPropertyReferences = get(
                 PropertyIdentifier.listOfObjectPropertyReferences);
         final UnsignedInteger priorityForWriting = get(PropertyIdentifier.priorityForWriting);
 
-        // Send the write requests.
+        // Write to the local objects.
         for (final DeviceObjectPropertyReference dopr : listOfObjectPropertyReferences) {
-            LOG.debug("Sending write request to {} in {}, value={}, priority={}", dopr.getObjectIdentifier(),
-                    dopr.getDeviceIdentifier(), value, priorityForWriting);
-
             if (dopr.getDeviceIdentifier() == null) {
+                LOG.debug("Writing to local {}, value={}, priority={}", dopr.getObjectIdentifier(), value,
+                        priorityForWriting);
                 // Local write.
                 final BACnetObject that = getLocalDevice().getObject(dopr.getObjectIdentifier());
                 try {
@@ -441,34 +459,12 @@ public class ScheduleObject extends BACnetObject {
                 } catch (final BACnetServiceException e) {
                     LOG.warn("Schedule failed to write to local object {}", dopr.getObjectIdentifier(), e);
                 }
-            } else {
-                final ObjectIdentifier devId = dopr.getDeviceIdentifier();
-                final ObjectIdentifier oid = dopr.getObjectIdentifier();
-
-                try {
-                    final RemoteDevice d = getLocalDevice().getRemoteDevice(devId.getInstanceNumber()).get();
-                    final WritePropertyRequest req = new WritePropertyRequest(oid, dopr.getPropertyIdentifier(),
-                            dopr.getPropertyArrayIndex(), value, priorityForWriting);
-                    getLocalDevice().send(d, req, new ResponseConsumer() {
-                        @Override
-                        public void success(final AcknowledgementService ack) {
-                            // Whatever.
-                        }
-
-                        @Override
-                        public void fail(final AckAPDU ack) {
-                            LOG.warn("Schedule failed to write to {} in {}, ack={}", oid, devId, ack);
-                        }
-
-                        @Override
-                        public void ex(final BACnetException e) {
-                            LOG.error("Schedule failed to write to {} in {}", oid, devId, e);
-                        }
-                    });
-                } catch (final BACnetException e) {
-                    LOG.warn("Schedule failed to write to unknown remote device {}", devId, e);
-                }
             }
         }
+
+        // Write to the remote objects. This is done asynchronously, so that the schedule is not blocked by remote
+        // devices that are slow or unreachable.
+        LOG.debug("Sending write requests, value={}, priority={}", value, priorityForWriting);
+        writeFanOut.write(listOfObjectPropertyReferences.getValues(), value, priorityForWriting);
     }
 }
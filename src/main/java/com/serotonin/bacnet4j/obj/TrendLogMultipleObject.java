@@ -46,6 +46,8 @@ import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
 import com.serotonin.bacnet4j.util.DeviceObjectPropertyReferences;
 import com.serotonin.bacnet4j.util.DeviceObjectPropertyValues;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
+import com.serotonin.bacnet4j.util.PollingEngine.Subscription;
 import com.serotonin.bacnet4j.util.PropertyValues;
 
 public class TrendLogMultipleObject extends BACnetObject {
@@ -67,8 +69,9 @@ public class TrendLogMultipleObject extends BACnetObject {
     private ScheduledFuture<?> startTimeFuture;
     private ScheduledFuture<?> stopTimeFuture;
 
+    private DeviceObjectPropertyReferences polledReferences;
     private PollingDelegate pollingDelegate;
-    private ScheduledFuture<?> pollingFuture;
+    private Subscription pollingSubscription;
 
     public TrendLogMultipleObject(final LocalDevice localDevice, final int instanceNumber, final String name,
             final LogBuffer<LogMultipleRecord> buffer, final boolean enable, final DateTime startTime,
@@ -337,7 +340,8 @@ public class TrendLogMultipleObject extends BACnetObject {
             final DateTime now = getNow();
             final long diff = startTime.getGC().getTimeInMillis() - now.getGC().getTimeInMillis();
             if (diff > 0) {
-                startTimeFuture = getLocalDevice().schedule(() -> evaluateLogDisabled(), diff, TimeUnit.MILLISECONDS);
+                startTimeFuture = getLocalDevice().schedule(Lane.TIMER, getId(), () -> evaluateLogDisabled(), diff,
+                        TimeUnit.MILLISECONDS);
             }
         }
         evaluateLogDisabled();
@@ -349,7 +353,8 @@ public class TrendLogMultipleObject extends BACnetObject {
             final DateTime now = getNow();
             final long diff = stopTime.getGC().getTimeInMillis() - now.getGC().getTimeInMillis();
             if (diff > 0) {
-                stopTimeFuture = getLocalDevice().schedule(() -> evaluateLogDisabled(), diff, TimeUnit.MILLISECONDS);
+                stopTimeFuture = getLocalDevice().schedule(Lane.TIMER, getId(), () -> evaluateLogDisabled(), diff,
+                        TimeUnit.MILLISECONDS);
             }
         }
         evaluateLogDisabled();
@@ -360,7 +365,7 @@ public class TrendLogMultipleObject extends BACnetObject {
         super.terminate();
         cancelFuture(startTimeFuture);
         cancelFuture(stopTimeFuture);
-        cancelFuture(pollingFuture);
+        cancelPolling();
     }
 
     private static void cancelFuture(final ScheduledFuture<?> future) {
@@ -368,6 +373,13 @@ public class TrendLogMultipleObject extends BACnetObject {
             future.cancel(false);
     }
 
+    private void cancelPolling() {
+        if (pollingSubscription != null) {
+            pollingSubscription.cancel();
+            pollingSubscription = null;
+        }
+    }
+
     private void updateMonitoredProperty() {
         final BACnetArray<DeviceObjectPropertyReference> props = get(PropertyIdentifier.logDeviceObjectProperty);
 
@@ -382,7 +394,10 @@ public class TrendLogMultipleObject extends BACnetObject {
                     prop.getPropertyIdentifier(), prop.getPropertyArrayIndex());
         }
 
+        polledReferences = refs;
         pollingDelegate = new PollingDelegate(getLocalDevice(), refs);
+        if (pollingSubscription != null)
+            pollingSubscription.setReferences(refs);
     }
 
     /**
@@ -391,7 +406,7 @@ public class TrendLogMultipleObject extends BACnetObject {
     private void updateLoggingType() {
         final LoggingType loggingType = get(PropertyIdentifier.loggingType);
 
-        cancelFuture(pollingFuture);
+        cancelPolling();
 
         if (loggingType.equals(LoggingType.polled)) {
             final UnsignedInteger logInterval = get(PropertyIdentifier.logInterval);
@@ -426,8 +441,10 @@ public class TrendLogMultipleObject extends BACnetObject {
             initialDelay += offsetToUse;
             initialDelay %= period;
 
-            pollingFuture = getLocalDevice().scheduleAtFixedRate(() -> doPoll(), initialDelay, period,
-                    TimeUnit.MILLISECONDS);
+            // Polls of logs with the same interval are combined into shared requests.
+            pollingSubscription = getLocalDevice().getPollingEngine().subscribe(polledReferences, initialDelay,
+                    period, TimeUnit.MILLISECONDS, () -> !logDisabled,
+                    (time, result) -> processPoll(new DateTime(time), result));
 
         } else if (loggingType.equals(LoggingType.triggered)) {
             set(PropertyIdentifier.logInterval, UnsignedInteger.ZERO);
@@ -458,7 +475,12 @@ public class TrendLogMultipleObject extends BACnetObject {
         final DateTime now = getNow();
 
         // Call the delegate to perform the poll.
-        final DeviceObjectPropertyValues result = pollingDelegate.doPoll();
+        processPoll(now, pollingDelegate.doPoll());
+    }
+
+    private synchronized void processPoll(final DateTime now, final DeviceObjectPropertyValues result) {
+        if (logDisabled)
+            return;
 
         // Process the results.
         final List<LogDataElement> elements = new ArrayList<>();
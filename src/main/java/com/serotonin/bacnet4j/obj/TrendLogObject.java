@@ -47,6 +47,8 @@ import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
 import com.serotonin.bacnet4j.util.DeviceObjectPropertyReferences;
 import com.serotonin.bacnet4j.util.DeviceObjectPropertyValues;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
+import com.serotonin.bacnet4j.util.PollingEngine.Subscription;
 import com.serotonin.bacnet4j.util.PropertyValues;
 
 /**
@@ -77,8 +79,9 @@ public class TrendLogObject extends BACnetObject {
     private ScheduledFuture<?> startTimeFuture;
     private ScheduledFuture<?> stopTimeFuture;
 
+    private DeviceObjectPropertyReferences polledReferences;
     private PollingDelegate pollingDelegate;
-    private ScheduledFuture<?> pollingFuture;
+    private Subscription pollingSubscription;
     private SubscribeCOVPropertyRequest covSubscription;
     private DeviceEventAdapter covListener;
     private ScheduledFuture<?> resubscriptionFuture;
@@ -375,7 +378,8 @@ public class TrendLogObject extends BACnetObject {
             final DateTime now = getNow();
             final long diff = startTime.getGC().getTimeInMillis() - now.getGC().getTimeInMillis();
             if (diff > 0) {
-                startTimeFuture = getLocalDevice().schedule(() -> evaluateLogDisabled(), diff, TimeUnit.MILLISECONDS);
+                startTimeFuture = getLocalDevice().schedule(Lane.TIMER, getId(), () -> evaluateLogDisabled(), diff,
+                        TimeUnit.MILLISECONDS);
             }
         }
         evaluateLogDisabled();
@@ -387,7 +391,8 @@ public class TrendLogObject extends BACnetObject {
             final DateTime now = getNow();
             final long diff = stopTime.getGC().getTimeInMillis() - now.getGC().getTimeInMillis();
             if (diff > 0) {
-                stopTimeFuture = getLocalDevice().schedule(() -> evaluateLogDisabled(), diff, TimeUnit.MILLISECONDS);
+                stopTimeFuture = getLocalDevice().schedule(Lane.TIMER, getId(), () -> evaluateLogDisabled(), diff,
+                        TimeUnit.MILLISECONDS);
             }
         }
         evaluateLogDisabled();
@@ -398,7 +403,7 @@ public class TrendLogObject extends BACnetObject {
         super.terminate();
         cancelFuture(startTimeFuture);
         cancelFuture(stopTimeFuture);
-        cancelFuture(pollingFuture);
+        cancelPolling();
         cancelCov();
     }
 
@@ -407,6 +412,13 @@ public class TrendLogObject extends BACnetObject {
             future.cancel(false);
     }
 
+    private void cancelPolling() {
+        if (pollingSubscription != null) {
+            pollingSubscription.cancel();
+            pollingSubscription = null;
+        }
+    }
+
     private void cancelCov() {
         if (covSubscription != null) {
             final DeviceObjectPropertyReference monitored = get(PropertyIdentifier.logDeviceObjectProperty);
@@ -458,7 +470,10 @@ public class TrendLogObject extends BACnetObject {
                     PropertyIdentifier.statusFlags);
         }
 
+        polledReferences = refs;
         pollingDelegate = new PollingDelegate(getLocalDevice(), refs);
+        if (pollingSubscription != null)
+            pollingSubscription.setReferences(refs);
     }
 
     /**
@@ -467,7 +482,7 @@ public class TrendLogObject extends BACnetObject {
     private void updateLoggingType() {
         final LoggingType loggingType = get(PropertyIdentifier.loggingType);
 
-        cancelFuture(pollingFuture);
+        cancelPolling();
         cancelCov();
 
         if (loggingType.equals(LoggingType.polled)) {
@@ -503,8 +518,10 @@ public class TrendLogObject extends BACnetObject {
             initialDelay += offsetToUse;
             initialDelay %= period;
 
-            pollingFuture = getLocalDevice().scheduleAtFixedRate(() -> doPoll(), initialDelay, period,
-                    TimeUnit.MILLISECONDS);
+            // Polls of logs with the same interval are combined into shared requests.
+            pollingSubscription = getLocalDevice().getPollingEngine().subscribe(polledReferences, initialDelay,
+                    period, TimeUnit.MILLISECONDS, () -> !logDisabled,
+                    (time, result) -> processPoll(new DateTime(time), result));
 
         } else if (loggingType.equals(LoggingType.cov)) {
             final DeviceObjectPropertyReference monitored = get(PropertyIdentifier.logDeviceObjectProperty);
@@ -628,7 +645,12 @@ public class TrendLogObject extends BACnetObject {
         final DateTime now = getNow();
 
         // Call the delegate to perform the poll.
-        final DeviceObjectPropertyValues result = pollingDelegate.doPoll();
+        processPoll(now, pollingDelegate.doPoll());
+    }
+
+    private synchronized void processPoll(final DateTime now, final DeviceObjectPropertyValues result) {
+        if (logDisabled)
+            return;
 
         // Check the result.
         final DeviceObjectPropertyReference monitored = get(PropertyIdentifier.logDeviceObjectProperty);
@@ -0,0 +1,253 @@
+package com.serotonin.bacnet4j.obj.fileAccess;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.serotonin.bacnet4j.exception.BACnetServiceException;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.enumerated.ErrorClass;
+import com.serotonin.bacnet4j.type.enumerated.ErrorCode;
+import com.serotonin.bacnet4j.type.enumerated.FileAccessMethod;
+import com.serotonin.bacnet4j.type.primitive.OctetString;
+
+/**
+ * A stream access on a file channel that is kept open between requests, for files that are read often or by many
+ * clients, e.g. firmware images or logs.
+ *
+ * Files of at least the map threshold are memory mapped, so that the data of a read is copied once from the mapped
+ * region into the octet string of the response. Smaller files are read from the channel directly into the octet
+ * string. Data that is written is written from the octet string of the request without copying.
+ *
+ * The mapping is kept when the file grows, e.g. when a log is appended to, and data after the end of the mapping is
+ * read from the channel. The file is only mapped again once the part after the mapping is as large as the mapping
+ * itself, or when the file shrinks. Java cannot unmap a file explicitly, so a mapping that is replaced or closed is
+ * only released when it is garbage collected. Until then, it holds on to its memory, and on Windows the file cannot
+ * be deleted or truncated.
+ *
+ * The channel is opened on first use and closed by close, delete, or when the file object is removed from the device.
+ * The file must not be replaced while it is open, although it may be written to.
+ */
+public class ChannelStreamAccess implements FileAccess, Closeable {
+    static final Logger LOG = LoggerFactory.getLogger(ChannelStreamAccess.class);
+
+    public static final long DEFAULT_MAP_THRESHOLD = 64 * 1024;
+
+    private final File file;
+    private final long mapThreshold;
+
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+
+    public ChannelStreamAccess(final File file) {
+        this(file, DEFAULT_MAP_THRESHOLD);
+    }
+
+    /**
+     * @param mapThreshold
+     *            the size from which the file is memory mapped for reading.
+     */
+    public ChannelStreamAccess(final File file, final long mapThreshold) {
+        this.file = file;
+        this.mapThreshold = mapThreshold;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public FileAccessMethod getAccessMethod() {
+        return FileAccessMethod.streamAccess;
+    }
+
+    @Override
+    public long recordCount() {
+        return 0;
+    }
+
+    @Override
+    public String getName() {
+        return file.getName();
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return file.isDirectory();
+    }
+
+    @Override
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public synchronized long length() {
+        if (channel != null) {
+            try {
+                return channel.size();
+            } catch (final IOException e) {
+                LOG.warn("Failed to get the size of {}", file, e);
+            }
+        }
+        return file.length();
+    }
+
+    @Override
+    public long lastModified() {
+        return file.lastModified();
+    }
+
+    @Override
+    public boolean canWrite() {
+        return file.canWrite();
+    }
+
+    @Override
+    public boolean delete() {
+        close();
+        return file.delete();
+    }
+
+    @Override
+    public void validateFileSizeWrite(final long fileSize) throws BACnetServiceException {
+        // Overridden to allow the writing of the file size.
+    }
+
+    @Override
+    public synchronized void writeFileSize(final long fileSize) {
+        try {
+            final FileChannel ch = channel();
+            if (fileSize < ch.size()) {
+                mapped = null;
+                ch.truncate(fileSize);
+            } else if (fileSize > ch.size()) {
+                ch.write(ByteBuffer.allocate(1), fileSize - 1);
+            }
+        } catch (final IOException e) {
+            LOG.error("Failed to write file size {}", fileSize, e);
+        }
+    }
+
+    @Override
+    public void writeRecordCount(final long recordCount) {
+        throw new RuntimeException("not implemented");
+    }
+
+    @Override
+    public boolean supportsStreamAccess() {
+        return true;
+    }
+
+    @Override
+    public synchronized OctetString readData(final long start, final long length) throws IOException {
+        final FileChannel ch = channel();
+        final long size = ch.size();
+        final byte[] data = new byte[(int) Math.max(0, Math.min(length, size - start))];
+
+        if (data.length > 0) {
+            // Copy what is mapped, and read the rest from the channel.
+            int copied = 0;
+            final MappedByteBuffer mapping = mapping(ch, size);
+            if (mapping != null && start < mapping.capacity()) {
+                copied = (int) Math.min(data.length, mapping.capacity() - start);
+                final ByteBuffer view = mapping.duplicate();
+                view.position((int) start);
+                view.get(data, 0, copied);
+            }
+
+            final ByteBuffer buffer = ByteBuffer.wrap(data, copied, data.length - copied);
+            while (buffer.hasRemaining()) {
+                if (ch.read(buffer, start + buffer.position()) == -1)
+                    break;
+            }
+        }
+
+        return new OctetString(data);
+    }
+
+    @Override
+    public synchronized long writeData(final long start, final OctetString data) throws IOException {
+        final FileChannel ch = channel();
+        final long actualStart = start == -1 ? ch.size() : start;
+
+        final ByteBuffer buffer = ByteBuffer.wrap(data.getBytes());
+        while (buffer.hasRemaining())
+            ch.write(buffer, actualStart + buffer.position());
+
+        return actualStart;
+    }
+
+    @Override
+    public boolean supportsRecordAccess() {
+        return false;
+    }
+
+    @Override
+    public SequenceOf<OctetString> readRecords(final long start, final long count)
+            throws IOException, BACnetServiceException {
+        throw new BACnetServiceException(ErrorClass.services, ErrorCode.invalidFileAccessMethod);
+    }
+
+    @Override
+    public long writeRecords(final long start, final SequenceOf<OctetString> data)
+            throws IOException, BACnetServiceException {
+        throw new BACnetServiceException(ErrorClass.services, ErrorCode.invalidFileAccessMethod);
+    }
+
+    /**
+     * Closes the channel. It is opened again if the file is accessed after this.
+     */
+    @Override
+    public synchronized void close() {
+        mapped = null;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                LOG.warn("Failed to close {}", file, e);
+            }
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            mapped = null;
+            if (file.canWrite())
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            else
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
+        return channel;
+    }
+
+    /**
+     * @return the size of the current mapping, or 0 if the file is not mapped.
+     */
+    synchronized long getMappedSize() {
+        return mapped == null ? 0 : mapped.capacity();
+    }
+
+    /**
+     * @return the mapping of the start of the file, or null if the file is not mapped. The mapping never extends
+     *         beyond the end of the file.
+     */
+    private MappedByteBuffer mapping(final FileChannel ch, final long size) throws IOException {
+        if (mapped != null && mapped.capacity() > size)
+            // The file shrank.
+            mapped = null;
+        if (size >= mapThreshold && size <= Integer.MAX_VALUE
+                && (mapped == null || size - mapped.capacity() >= mapped.capacity()))
+            mapped = ch.map(MapMode.READ_ONLY, 0, size);
+        return mapped;
+    }
+}
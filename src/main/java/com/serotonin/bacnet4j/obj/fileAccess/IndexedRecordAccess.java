@@ -0,0 +1,405 @@
+package com.serotonin.bacnet4j.obj.fileAccess;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.serotonin.bacnet4j.exception.BACnetServiceException;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.primitive.OctetString;
+
+/**
+ * A file access for files whose records are line delimited, like CrlfDelimitedFileAccess, that does not keep the
+ * records in memory. Instead, the offset of each record in the file is kept in an index file, so that any range of
+ * records is read with one read of the index and one of the file.
+ *
+ * Records are written with CRLF delimiters, and read with either CRLF or LF delimiters. Records that are appended are
+ * written to the end of the file. Records that are replaced are written in place, followed by the records after them
+ * if the size of the replaced records changed, so that the part of the file before them is not rewritten.
+ *
+ * The index starts with the length and modification time of the file that it was made for, followed by the offset of
+ * each record and the length of the file. It is rebuilt when it does not match the file, e.g. because the file was
+ * changed by something else.
+ */
+public class IndexedRecordAccess implements RecordAccess, Closeable {
+    static final Logger LOG = LoggerFactory.getLogger(IndexedRecordAccess.class);
+
+    private static final byte[] DELIMITER = { '\r', '\n' };
+    private static final int HEADER = 16;
+
+    private final File file;
+    private final File indexFile;
+
+    private FileChannel channel;
+    private FileChannel index;
+    private long count;
+
+    /**
+     * Uses an index file next to the given file, with the extension .idx.
+     */
+    public IndexedRecordAccess(final File file) throws IOException {
+        this(file, new File(file.getPath() + ".idx"));
+    }
+
+    public IndexedRecordAccess(final File file, final File indexFile) throws IOException {
+        this.file = file;
+        this.indexFile = indexFile;
+        open();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public File getIndexFile() {
+        return indexFile;
+    }
+
+    @Override
+    public String getName() {
+        return file.getName();
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return file.isDirectory();
+    }
+
+    @Override
+    public boolean exists() {
+        return file.exists();
+    }
+
+    @Override
+    public synchronized long length() {
+        try {
+            return channel().size();
+        } catch (final IOException e) {
+            LOG.warn("Failed to get the size of {}", file, e);
+            return file.length();
+        }
+    }
+
+    @Override
+    public long lastModified() {
+        return file.lastModified();
+    }
+
+    @Override
+    public boolean canWrite() {
+        return file.canWrite();
+    }
+
+    @Override
+    public synchronized long recordCount() {
+        return count;
+    }
+
+    @Override
+    public boolean delete() {
+        close();
+        indexFile.delete();
+        return file.delete();
+    }
+
+    @Override
+    public void validateFileSizeWrite(final long fileSize) throws BACnetServiceException {
+        // Overridden to allow the writing of the file size.
+    }
+
+    @Override
+    public synchronized void writeFileSize(final long fileSize) {
+        try {
+            final long length = channel().size();
+            if (fileSize < length) {
+                // Keep the records that start before the new end, the last of which may be cut.
+                long kept = count;
+                while (kept > 0 && offset(kept - 1) >= fileSize)
+                    kept--;
+                channel.truncate(fileSize);
+                setOffsets(kept, new long[] { fileSize }, 1);
+                updateHeader();
+            } else if (fileSize > length) {
+                // Pad the file with empty records until the size is >= fileSize.
+                final int padding = (int) ((fileSize - length + DELIMITER.length - 1) / DELIMITER.length);
+                write(count, emptyRecords(padding));
+            }
+        } catch (final IOException e) {
+            LOG.error("Failed to write file size {}", fileSize, e);
+        }
+    }
+
+    @Override
+    public void validateRecordCountWrite(final long recordCount) throws BACnetServiceException {
+        // Overridden to allow the writing of the record count.
+    }
+
+    @Override
+    public synchronized void writeRecordCount(final long recordCount) {
+        try {
+            if (recordCount < count) {
+                final long end = offset(recordCount);
+                channel().truncate(end);
+                setOffsets(recordCount, new long[] { end }, 1);
+                updateHeader();
+            } else if (recordCount > count) {
+                write(count, emptyRecords((int) (recordCount - count)));
+            }
+        } catch (final IOException e) {
+            LOG.error("Failed to write record count {}", recordCount, e);
+        }
+    }
+
+    @Override
+    public synchronized SequenceOf<OctetString> readRecords(final long start, final long count)
+            throws IOException {
+        final int n = (int) Math.max(0, Math.min(count, this.count - start));
+        final SequenceOf<OctetString> result = new SequenceOf<>(n);
+        if (n == 0)
+            return result;
+
+        final long[] offsets = offsets(start, n + 1);
+        final ByteBuffer data = ByteBuffer.allocate((int) (offsets[n] - offsets[0]));
+        read(channel(), data, offsets[0]);
+
+        for (int i = 0; i < n; i++) {
+            final int from = (int) (offsets[i] - offsets[0]);
+            int to = (int) (offsets[i + 1] - offsets[0]);
+            // Remove the delimiter.
+            if (to > from && data.get(to - 1) == '\n')
+                to--;
+            if (to > from && data.get(to - 1) == '\r')
+                to--;
+            result.add(new OctetString(Arrays.copyOfRange(data.array(), from, to)));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized long writeRecords(final long start, final SequenceOf<OctetString> data)
+            throws IOException, BACnetServiceException {
+        final List<byte[]> records = new ArrayList<>(data.size());
+        long actualStart = start == -1 ? count : start;
+        if (actualStart > count) {
+            // Pad with empty records.
+            records.addAll(emptyRecords((int) (actualStart - count)));
+            actualStart = count;
+        }
+        for (final OctetString o : data)
+            records.add(o.getBytes());
+
+        write(actualStart, records);
+        return start == -1 ? actualStart : start;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            if (channel != null)
+                channel.close();
+            if (index != null)
+                index.close();
+        } catch (final IOException e) {
+            LOG.warn("Failed to close {}", file, e);
+        }
+        channel = null;
+        index = null;
+    }
+
+    /**
+     * Replaces the records from the given start, which is not after the last record, with the given records.
+     */
+    private void write(final long start, final List<byte[]> records) throws IOException {
+        final FileChannel ch = channel();
+        long from = offset(start);
+        if (start == count && from > 0 && !endsWithDelimiter(ch, from)) {
+            // The last record has no delimiter. Add one before appending.
+            write(ch, ByteBuffer.wrap(DELIMITER), from);
+            from += DELIMITER.length;
+        }
+
+        // The records after the replaced ones are moved if the size of the replaced ones changes.
+        final long replacedEnd = Math.min(start + records.size(), count);
+        final long oldEnd = offset(replacedEnd);
+        final int following = (int) (count - replacedEnd);
+
+        int size = 0;
+        for (final byte[] record : records)
+            size += record.length + DELIMITER.length;
+        final long delta = from + size - oldEnd;
+
+        final ByteBuffer out;
+        if (delta == 0 || following == 0) {
+            out = ByteBuffer.allocate(size);
+        } else {
+            final long length = ch.size();
+            out = ByteBuffer.allocate((int) (size + length - oldEnd));
+            out.position(size);
+            read(ch, out, oldEnd);
+            out.position(0);
+        }
+
+        final long[] offsets = new long[records.size() + following];
+        long position = from;
+        for (int i = 0; i < records.size(); i++) {
+            out.put(records.get(i));
+            out.put(DELIMITER);
+            position += records.get(i).length + DELIMITER.length;
+            offsets[i] = position;
+        }
+        if (following > 0) {
+            final long[] old = offsets(replacedEnd + 1, following);
+            for (int i = 0; i < following; i++)
+                offsets[records.size() + i] = old[i] + delta;
+        }
+
+        out.position(0);
+        if (delta != 0 && following == 0 || delta < 0)
+            ch.truncate(from + out.remaining());
+        write(ch, out, from);
+
+        if (from != offset(start))
+            setOffsets(start, new long[] { from }, 1);
+        setOffsets(start + 1, offsets, offsets.length);
+        updateHeader();
+    }
+
+    private void open() throws IOException {
+        final FileChannel ch = channel();
+        final FileChannel idx = index();
+        if (idx.size() >= HEADER + 8 && (idx.size() - HEADER) % 8 == 0) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER);
+            read(idx, header, 0);
+            count = (idx.size() - HEADER) / 8 - 1;
+            if (header.getLong(0) == ch.size() && header.getLong(8) == file.lastModified()
+                    && offset(count) == ch.size())
+                return;
+        }
+        rebuild();
+    }
+
+    /**
+     * Scans the file for delimiters and writes the offsets of the records.
+     */
+    private void rebuild() throws IOException {
+        LOG.debug("Building the record index of {}", file);
+        final FileChannel ch = channel();
+        index().truncate(HEADER);
+
+        final long length = ch.size();
+        final ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        final long[] offsets = new long[4096];
+        long written = 0;
+        int n = 0;
+        if (length > 0)
+            offsets[n++] = 0;
+        long position = 0;
+        while (position < length) {
+            buffer.clear();
+            final int read = ch.read(buffer, position);
+            if (read == -1)
+                break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n' && position + i + 1 < length) {
+                    offsets[n++] = position + i + 1;
+                    if (n == offsets.length) {
+                        setOffsets(written, offsets, n);
+                        written += n;
+                        n = 0;
+                    }
+                }
+            }
+            position += read;
+        }
+        offsets[n++] = length;
+        setOffsets(written, offsets, n);
+        updateHeader();
+    }
+
+    private static List<byte[]> emptyRecords(final int n) {
+        final List<byte[]> records = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            records.add(new byte[0]);
+        return records;
+    }
+
+    private static boolean endsWithDelimiter(final FileChannel ch, final long end) throws IOException {
+        final ByteBuffer last = ByteBuffer.allocate(1);
+        read(ch, last, end - 1);
+        return last.get(0) == '\n';
+    }
+
+    private long offset(final long record) throws IOException {
+        return offsets(record, 1)[0];
+    }
+
+    private long[] offsets(final long from, final int n) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(n * 8);
+        read(index(), buffer, HEADER + from * 8);
+        buffer.flip();
+        final long[] offsets = new long[n];
+        buffer.asLongBuffer().get(offsets);
+        return offsets;
+    }
+
+    /**
+     * Writes the given offsets from the given index, and truncates the index after them. The last offset is the end
+     * of the file.
+     */
+    private void setOffsets(final long from, final long[] offsets, final int n) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(n * 8);
+        final LongBuffer longs = buffer.asLongBuffer();
+        longs.put(offsets, 0, n);
+        final FileChannel idx = index();
+        write(idx, buffer, HEADER + from * 8);
+        idx.truncate(HEADER + (from + n) * 8);
+        count = from + n - 1;
+    }
+
+    private void updateHeader() throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER);
+        header.putLong(channel().size());
+        header.putLong(file.lastModified());
+        header.flip();
+        write(index(), header, 0);
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen())
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return channel;
+    }
+
+    private FileChannel index() throws IOException {
+        if (index == null || !index.isOpen())
+            index = FileChannel.open(indexFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        return index;
+    }
+
+    private static void read(final FileChannel ch, final ByteBuffer buffer, final long position)
+            throws IOException {
+        final int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (ch.read(buffer, position + buffer.position() - start) == -1)
+                throw new IOException("Unexpected end of file");
+        }
+    }
+
+    private static void write(final FileChannel ch, final ByteBuffer buffer, final long position)
+            throws IOException {
+        final int start = buffer.position();
+        while (buffer.hasRemaining())
+            ch.write(buffer, position + buffer.position() - start);
+    }
+}
@@ -65,6 +65,7 @@ import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.Null;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
 
 public class CommandableMixin extends AbstractMixin {
     private static final int MIN_OFF_ON_PRIORITY = 6;
@@ -321,7 +322,7 @@ public class CommandableMixin extends AbstractMixin {
                         LOG.debug("Starting min on timer: {}s", time);
                     }
 
-                    minOnOffTimerTask = getLocalDevice().schedule(() -> {
+                    minOnOffTimerTask = getLocalDevice().schedule(Lane.TIMER, getId(), () -> {
                         // Min time has elapsed.
                         LOG.debug("Min off/on timer has expired");
                         minOnOffCompleted();
@@ -29,7 +29,9 @@
 package com.serotonin.bacnet4j.obj.mixin;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -56,6 +58,7 @@ import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.Real;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
 
 /**
  * @author Matthew
@@ -64,6 +67,10 @@ public class CovReportingMixin extends AbstractMixin {
     private final CovReportingCriteria criteria;
     private ScheduledFuture<?> covPeriodFuture;
 
+    // The changes that were made during a batch of writes, to be checked when the batch ends.
+    private int batchDepth;
+    private Map<PropertyIdentifier, Encodable> batchChanges = new LinkedHashMap<>();
+
     public CovReportingMixin(final BACnetObject bo, final Real covIncrement, final UnsignedInteger covPeriod) {
         super(bo);
         criteria = objectTypeCriteria.get(bo.getId().getObjectType());
@@ -106,8 +113,39 @@ public class CovReportingMixin extends AbstractMixin {
             updateCovPeriodFuture((UnsignedInteger) newValue);
         }
 
-        //
-        // COVs
+        synchronized (this) {
+            if (batchDepth > 0) {
+                // Evaluate the change with the rest of the batch.
+                batchChanges.put(pid, newValue);
+                return;
+            }
+        }
+
+        checkCovs(Collections.singletonMap(pid, newValue));
+    }
+
+    @Override
+    protected synchronized void beginWrites() {
+        batchDepth++;
+    }
+
+    @Override
+    protected void endWrites() {
+        final Map<PropertyIdentifier, Encodable> changes;
+        synchronized (this) {
+            if (batchDepth == 0 || --batchDepth > 0 || batchChanges.isEmpty())
+                return;
+            changes = batchChanges;
+            batchChanges = new LinkedHashMap<>();
+        }
+        checkCovs(changes);
+    }
+
+    /**
+     * Checks the subscriptions for the given changes. At most one notification is sent to each subscription, with
+     * the values that the object has at the time.
+     */
+    private void checkCovs(final Map<PropertyIdentifier, Encodable> changes) {
         final List<CovContext> ctxs = getLocalDevice().getCovContexts().get(getId());
         final long now = getLocalDevice().getClock().millis();
         synchronized (ctxs) {
@@ -121,63 +159,9 @@ public class CovReportingMixin extends AbstractMixin {
                 } else {
                     // At this point we know that the subscription is still valid, and applies to this object.
                     // Try to find a reason to send the notification.
-
-                    boolean sent = false;
-
-                    // Table 13-1
-                    boolean table13_1Met = false;
-                    if (pid.isOneOf(criteria.monitoredProperties)) {
-                        table13_1Met = true;
-                        if (pid.equals(criteria.incrementProperty)) {
-                            // Check if the increment property has changed enough for a notification to be sent.
-                            table13_1Met = incrementChange(ctx, newValue);
-                        }
-                    }
-
-                    // Table 13-1 for object subscriptions and property subscriptions of monitored properties.
-                    if (table13_1Met) {
-                        // We send an object notification in any case because the property that changed is one
-                        // of the monitored properties in 13-1. So, send to all object subscriptions, and property
-                        // subscriptions where the monitored property is one of the criteria's monitored properties.
-                        if (ctx.isObjectSubscription()
-                                || ctx.getMonitoredProperty().isOneOf(criteria.monitoredProperties)) {
-                            sendObjectNotification(ctx, now);
-                            sent = true;
-                        }
-                    }
-
-                    if (!sent) {
-                        // Table 13-1a for properties other than those listed in Table 13-1
-                        if (!pid.isOneOf(criteria.monitoredProperties)) {
-                            // Rows in Table 13-1a are not distinguished because currently no alternative increment
-                            // value is supported.
-                            if (pid.equals(PropertyIdentifier.statusFlags) || pid.equals(ctx.getMonitoredProperty())) {
-                                final SequenceOf<PropertyValue> values = new SequenceOf<>();
-                                addPropertyValues(ctx, values, ctx.getMonitoredProperty(),
-                                        PropertyIdentifier.statusFlags);
-                                sendNotification(ctx, now, values);
-                                sent = true;
-                            }
-                        }
-                    }
-
-                    if (!sent && PropertyIdentifier.valueSource.equals(ctx.getMonitoredProperty())) {
-                        // Table 13-1a-2
-                        if (get(PropertyIdentifier.priorityArray) != null) {
-                            // Commandable
-                            if (table13_1Met //
-                                    || PropertyIdentifier.valueSource.equals(pid) //
-                                    || PropertyIdentifier.currentCommandPriority.equals(pid)) {
-                                sendPropertyNotification(ctx, now);
-                                sent = true;
-                            }
-                        } else {
-                            // Non-commandable
-                            if (table13_1Met || PropertyIdentifier.valueSource.equals(pid)) {
-                                sendPropertyNotification(ctx, now);
-                                sent = true;
-                            }
-                        }
+                    for (final Map.Entry<PropertyIdentifier, Encodable> change : changes.entrySet()) {
+                        if (checkCov(ctx, now, change.getKey(), change.getValue()))
+                            break;
                     }
                 }
             }
@@ -188,6 +172,66 @@ public class CovReportingMixin extends AbstractMixin {
         }
     }
 
+    /**
+     * @return true if the change caused a notification to be sent.
+     */
+    private boolean checkCov(final CovContext ctx, final long now, final PropertyIdentifier pid,
+            final Encodable newValue) {
+        // Table 13-1
+        boolean table13_1Met = false;
+        if (pid.isOneOf(criteria.monitoredProperties)) {
+            table13_1Met = true;
+            if (pid.equals(criteria.incrementProperty)) {
+                // Check if the increment property has changed enough for a notification to be sent.
+                table13_1Met = incrementChange(ctx, newValue);
+            }
+        }
+
+        // Table 13-1 for object subscriptions and property subscriptions of monitored properties.
+        if (table13_1Met) {
+            // We send an object notification in any case because the property that changed is one
+            // of the monitored properties in 13-1. So, send to all object subscriptions, and property
+            // subscriptions where the monitored property is one of the criteria's monitored properties.
+            if (ctx.isObjectSubscription() || ctx.getMonitoredProperty().isOneOf(criteria.monitoredProperties)) {
+                sendObjectNotification(ctx, now);
+                return true;
+            }
+        }
+
+        // Table 13-1a for properties other than those listed in Table 13-1
+        if (!pid.isOneOf(criteria.monitoredProperties)) {
+            // Rows in Table 13-1a are not distinguished because currently no alternative increment
+            // value is supported.
+            if (pid.equals(PropertyIdentifier.statusFlags) || pid.equals(ctx.getMonitoredProperty())) {
+                final SequenceOf<PropertyValue> values = new SequenceOf<>();
+                addPropertyValues(ctx, values, ctx.getMonitoredProperty(), PropertyIdentifier.statusFlags);
+                sendNotification(ctx, now, values);
+                return true;
+            }
+        }
+
+        if (PropertyIdentifier.valueSource.equals(ctx.getMonitoredProperty())) {
+            // Table 13-1a-2
+            if (get(PropertyIdentifier.priorityArray) != null) {
+                // Commandable
+                if (table13_1Met //
+                        || PropertyIdentifier.valueSource.equals(pid) //
+                        || PropertyIdentifier.currentCommandPriority.equals(pid)) {
+                    sendPropertyNotification(ctx, now);
+                    return true;
+                }
+            } else {
+                // Non-commandable
+                if (table13_1Met || PropertyIdentifier.valueSource.equals(pid)) {
+                    sendPropertyNotification(ctx, now);
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     public void addCovSubscription(final Address from, final UnsignedInteger subscriberProcessIdentifier,
             final Boolean issueConfirmedNotifications, final UnsignedInteger lifetime,
             final PropertyReference monitoredPropertyIdentifier, final Real covIncrement)
@@ -357,7 +401,7 @@ public class CovReportingMixin extends AbstractMixin {
         }
 
         if (covPeriod.intValue() > 0) {
-            covPeriodFuture = getLocalDevice().scheduleAtFixedRate(() -> {
+            covPeriodFuture = getLocalDevice().scheduleAtFixedRate(Lane.TIMER, getId(), () -> {
                 final long now = getLocalDevice().getClock().millis();
                 final List<CovContext> ctxs = getLocalDevice().getCovContexts().get(getId());
                 for (final CovContext ctx : ctxs) {
@@ -67,7 +67,10 @@ public class PropertyListMixin extends AbstractMixin {
                 if (!p.isOneOf(objectName, objectType, objectIdentifier, propertyList))
                     pids.add(p);
             }
-            writePropertyInternal(propertyList, new BACnetArray<>(pids));
+            // Only write a changed list, so that the encoding of the list can be reused in responses.
+            final BACnetArray<PropertyIdentifier> list = new BACnetArray<>(pids);
+            if (!list.equals(get(propertyList)))
+                writePropertyInternal(propertyList, list);
         }
     }
 }
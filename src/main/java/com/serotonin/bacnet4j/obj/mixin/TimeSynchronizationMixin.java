@@ -8,19 +8,18 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.obj.AbstractMixin;
 import com.serotonin.bacnet4j.obj.BACnetObject;
 import com.serotonin.bacnet4j.service.unconfirmed.TimeSynchronizationRequest;
 import com.serotonin.bacnet4j.service.unconfirmed.UTCTimeSynchronizationRequest;
 import com.serotonin.bacnet4j.type.Encodable;
-import com.serotonin.bacnet4j.type.constructed.Address;
 import com.serotonin.bacnet4j.type.constructed.DateTime;
 import com.serotonin.bacnet4j.type.constructed.Recipient;
 import com.serotonin.bacnet4j.type.constructed.SequenceOf;
 import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
 
 public class TimeSynchronizationMixin extends AbstractMixin {
     static final Logger LOG = LoggerFactory.getLogger(TimeSynchronizationMixin.class);
@@ -70,7 +69,7 @@ public class TimeSynchronizationMixin extends AbstractMixin {
             initialDelay += offsetToUse;
             initialDelay %= period;
 
-            timeSyncTask = getLocalDevice().scheduleAtFixedRate(() -> {
+            timeSyncTask = getLocalDevice().scheduleAtFixedRate(Lane.TIMER, getId(), () -> {
                 // Send the time sync messages.
                 final SequenceOf<Recipient> timeSynchronizationRecipients = get(
                         PropertyIdentifier.timeSynchronizationRecipients);
@@ -81,28 +80,16 @@ public class TimeSynchronizationMixin extends AbstractMixin {
 
                 final DateTime now = new DateTime(nowMillis);
                 for (final Recipient recipient : timeSynchronizationRecipients) {
-                    Address address;
-                    try {
-                        address = recipient.toAddress(getLocalDevice());
-                    } catch (final BACnetException e) {
-                        LOG.warn("Unable to get address for recipient {}", recipient, e);
-                        continue;
-                    }
-                    getLocalDevice().send(address, new TimeSynchronizationRequest(now));
+                    getLocalDevice().getRecipientResolver().send(recipient,
+                            (address) -> getLocalDevice().send(address, new TimeSynchronizationRequest(now)));
                 }
 
                 final GregorianCalendar gc = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
                 gc.setTimeInMillis(nowMillis);
                 final DateTime utcNow = new DateTime(gc);
                 for (final Recipient recipient : utcTimeSynchronizationRecipients) {
-                    Address address;
-                    try {
-                        address = recipient.toAddress(getLocalDevice());
-                    } catch (final BACnetException e) {
-                        LOG.warn("Unable to get address for recipient {}", recipient, e);
-                        continue;
-                    }
-                    getLocalDevice().send(address, new UTCTimeSynchronizationRequest(utcNow));
+                    getLocalDevice().getRecipientResolver().send(recipient,
+                            (address) -> getLocalDevice().send(address, new UTCTimeSynchronizationRequest(utcNow)));
                 }
             }, initialDelay, period, TimeUnit.MILLISECONDS);
         }
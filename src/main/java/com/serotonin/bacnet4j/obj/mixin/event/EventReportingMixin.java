@@ -7,7 +7,6 @@ import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.exception.BACnetServiceException;
 import com.serotonin.bacnet4j.obj.AbstractMixin;
 import com.serotonin.bacnet4j.obj.BACnetObject;
@@ -23,7 +22,6 @@ import com.serotonin.bacnet4j.service.confirmed.GetEnrollmentSummaryRequest.Even
 import com.serotonin.bacnet4j.service.confirmed.GetEnrollmentSummaryRequest.PriorityFilter;
 import com.serotonin.bacnet4j.service.unconfirmed.UnconfirmedEventNotificationRequest;
 import com.serotonin.bacnet4j.type.Encodable;
-import com.serotonin.bacnet4j.type.constructed.Address;
 import com.serotonin.bacnet4j.type.constructed.BACnetArray;
 import com.serotonin.bacnet4j.type.constructed.DateTime;
 import com.serotonin.bacnet4j.type.constructed.Destination;
@@ -49,6 +47,8 @@ import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.CharacterString;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
+import com.serotonin.bacnet4j.util.RecipientListFilter;
 
 /**
  * Common code for intrinsic and algorithmic reporting classes.
@@ -92,6 +92,8 @@ abstract public class EventReportingMixin extends AbstractMixin {
                 new BACnetArray<>(CharacterString.EMPTY, CharacterString.EMPTY, CharacterString.EMPTY));
         //ee.writePropertyImpl(PropertyIdentifier.eventAlgorithmInhibitRef, new ObjectPropertyReference()); Not supported
         bo.writePropertyInternal(PropertyIdentifier.eventAlgorithmInhibit, Boolean.FALSE);
+
+        updateEventStateIndex();
     }
 
     public void setPostNotificationAction(final Consumer<NotificationParameters> postNotificationAction) {
@@ -126,6 +128,15 @@ abstract public class EventReportingMixin extends AbstractMixin {
     @Override
     protected synchronized void afterWriteProperty(final PropertyIdentifier pid, final Encodable oldValue,
             final Encodable newValue) {
+        if (pid.isOneOf(PropertyIdentifier.eventState, PropertyIdentifier.ackedTransitions,
+                PropertyIdentifier.eventDetectionEnable)) {
+            updateEventStateIndex();
+        } else if (PropertyIdentifier.objectIdentifier.equals(pid) && oldValue != null) {
+            // Re-index the object under its new id.
+            getLocalDevice().getEventStateIndex().remove((ObjectIdentifier) oldValue, bo);
+            updateEventStateIndex();
+        }
+
         if (PropertyIdentifier.reliability.equals(pid)) {
             // Is reliability evaluation inhibited?
             final Boolean rei = get(PropertyIdentifier.reliabilityEvaluationInhibit);
@@ -158,6 +169,30 @@ abstract public class EventReportingMixin extends AbstractMixin {
         }
     }
 
+    /**
+     * Updates the device's event state index with the current state of this object. The object is active in the
+     * index if event detection is enabled and it either is not in the normal state or has unacknowledged transitions,
+     * i.e. whenever it could appear in an alarm summary or event information.
+     *
+     * If another object is already indexed under this object's id, this object only replaces it if it is the object
+     * that the device has. Otherwise this object is a duplicate that addObject is about to reject, and must not
+     * displace the original.
+     */
+    private void updateEventStateIndex() {
+        final EventStateIndex index = getLocalDevice().getEventStateIndex();
+        final BACnetObject indexed = index.get(bo.getId());
+        if (indexed != null && indexed != bo && getLocalDevice().getObject(bo.getId()) != bo)
+            return;
+
+        final Boolean eventDetectionEnable = get(PropertyIdentifier.eventDetectionEnable);
+        final EventState eventState = get(PropertyIdentifier.eventState);
+        final EventTransitionBits ackedTransitions = get(PropertyIdentifier.ackedTransitions);
+
+        final boolean active = Boolean.truthy(eventDetectionEnable) && (eventState != null
+                && !EventState.normal.equals(eventState) || ackedTransitions != null && !ackedTransitions.allTrue());
+        index.update(bo, active);
+    }
+
     protected void updateEventState(final StateTransition transition) {
         if (transition.getDelay() == null)
             // Do an immediate state transition.
@@ -274,7 +309,7 @@ abstract public class EventReportingMixin extends AbstractMixin {
             // Send notifications for this transition.
             LOG.debug("Notification enabled for state change to {}. Checking recipient list", toState);
 
-            final SequenceOf<Destination> recipientList = nc.get(PropertyIdentifier.recipientList);
+            final RecipientListFilter recipientList = getRecipientListFilter(nc);
             final NotifyType notifyType = get(PropertyIdentifier.notifyType);
             final BACnetArray<UnsignedInteger> priority = nc.get(PropertyIdentifier.priority);
 
@@ -319,7 +354,8 @@ abstract public class EventReportingMixin extends AbstractMixin {
         public Delayer(final StateTransition transition) {
             LOG.debug("Creating timer for state transition {}", transition);
             this.transition = transition;
-            future = getLocalDevice().schedule(this, transition.getDelay().intValue(), TimeUnit.SECONDS);
+            future = getLocalDevice().schedule(Lane.TIMER, getId(), this, transition.getDelay().intValue(),
+                    TimeUnit.SECONDS);
         }
 
         @Override
@@ -338,7 +374,14 @@ abstract public class EventReportingMixin extends AbstractMixin {
         }
     }
 
-    private void sendNotifications(final SequenceOf<Destination> recipientList, final TimeStamp timeStamp,
+    private static RecipientListFilter getRecipientListFilter(final BACnetObject nc) {
+        // The recipient list of a notification class object is only compiled when it changes.
+        if (nc instanceof NotificationClassObject)
+            return ((NotificationClassObject) nc).getRecipientListFilter();
+        return new RecipientListFilter(nc.get(PropertyIdentifier.recipientList));
+    }
+
+    private void sendNotifications(final RecipientListFilter recipientList, final TimeStamp timeStamp,
             final BACnetObject nc, final BACnetArray<UnsignedInteger> priority, final EventState toState,
             final EventType eventType, final CharacterString messageText, final NotifyType notifyType,
             final Boolean ackRequired, final EventState fromState, final NotificationParameters notifParams) {
@@ -347,36 +390,32 @@ abstract public class EventReportingMixin extends AbstractMixin {
         final UnsignedInteger notificationClass = (UnsignedInteger) nc.get(PropertyIdentifier.notificationClass);
         final UnsignedInteger priorityNum = priority.getBase1(toState.getTransitionIndex());
 
-        for (final Destination destination : recipientList) {
-            if (destination.isSuitableForEvent(timeStamp, toState)) {
-                Address address;
-                try {
-                    address = destination.getRecipient().toAddress(getLocalDevice());
-                } catch (final BACnetException e) {
-                    LOG.warn("Failed to get address for recipient {}", destination.getRecipient(), e);
-                    continue;
-                }
-
-                LOG.debug("Sending {} to {}", notifyType, destination.getRecipient());
-
-                final UnsignedInteger processIdentifier = destination.getProcessIdentifier();
-
-                if (destination.getIssueConfirmedNotifications().booleanValue()) {
-                    // Confirmed notification
-                    final ConfirmedEventNotificationRequest req = new ConfirmedEventNotificationRequest(
-                            processIdentifier, initiatingDeviceIdentifier, eventObjectIdentifier, timeStamp,
-                            notificationClass, priorityNum, eventType, messageText, notifyType, ackRequired, fromState,
-                            toState, notifParams);
-                    getLocalDevice().send(address, req, null);
-                } else {
-                    // Unconfirmed notification
-                    final UnconfirmedEventNotificationRequest req = new UnconfirmedEventNotificationRequest(
-                            processIdentifier, initiatingDeviceIdentifier, eventObjectIdentifier, timeStamp,
-                            notificationClass, priorityNum, eventType, messageText, notifyType, ackRequired, fromState,
-                            toState, notifParams);
-                    getLocalDevice().send(address, req);
+        for (final RecipientListFilter.Match match : recipientList.match(timeStamp, toState)) {
+            // The requests are sent immediately if the address of the recipient is known. Otherwise they are queued
+            // until the recipient device is found, so that this object is not blocked while it is looked for.
+            getLocalDevice().getRecipientResolver().send(match.getRecipient(), (address) -> {
+                LOG.debug("Sending {} to {}", notifyType, match.getRecipient());
+
+                for (final Destination destination : match.getDestinations()) {
+                    final UnsignedInteger processIdentifier = destination.getProcessIdentifier();
+
+                    if (destination.getIssueConfirmedNotifications().booleanValue()) {
+                        // Confirmed notification
+                        final ConfirmedEventNotificationRequest req = new ConfirmedEventNotificationRequest(
+                                processIdentifier, initiatingDeviceIdentifier, eventObjectIdentifier, timeStamp,
+                                notificationClass, priorityNum, eventType, messageText, notifyType, ackRequired,
+                                fromState, toState, notifParams);
+                        getLocalDevice().send(address, req, null);
+                    } else {
+                        // Unconfirmed notification
+                        final UnconfirmedEventNotificationRequest req = new UnconfirmedEventNotificationRequest(
+                                processIdentifier, initiatingDeviceIdentifier, eventObjectIdentifier, timeStamp,
+                                notificationClass, priorityNum, eventType, messageText, notifyType, ackRequired,
+                                fromState, toState, notifParams);
+                        getLocalDevice().send(address, req);
+                    }
                 }
-            }
+            });
         }
 
         // Internal (proprietary) handling of notifications for NotificationClass objects.
@@ -443,7 +482,7 @@ abstract public class EventReportingMixin extends AbstractMixin {
                 sb.append(": ").append(acknowledgmentSource.getValue());
             final CharacterString messageText = new CharacterString(sb.toString());
 
-            final SequenceOf<Destination> recipientList = nc.get(PropertyIdentifier.recipientList);
+            final RecipientListFilter recipientList = getRecipientListFilter(nc);
             final BACnetArray<UnsignedInteger> priority = nc.get(PropertyIdentifier.priority);
 
             sendNotifications(recipientList, timeOfAcknowledgment, nc, priority, eventStateAcknowledged,
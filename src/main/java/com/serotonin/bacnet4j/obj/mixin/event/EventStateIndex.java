@@ -0,0 +1,93 @@
+package com.serotonin.bacnet4j.obj.mixin.event;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.serotonin.bacnet4j.obj.BACnetObject;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+
+/**
+ * A live index of the local objects that do event reporting, maintained by the event reporting mixins so that the
+ * alarm and event summary services do not need to scan all of the objects in the device.
+ *
+ * Objects are ordered by object type and then instance number, so that event information can be paged from a given
+ * object identifier.
+ */
+public class EventStateIndex {
+    private static final Comparator<ObjectIdentifier> ORDER = Comparator
+            .comparingInt((final ObjectIdentifier oid) -> oid.getObjectType().intValue())
+            .thenComparingInt(ObjectIdentifier::getInstanceNumber);
+
+    /**
+     * All objects with an event reporting mixin.
+     */
+    private final ConcurrentNavigableMap<ObjectIdentifier, BACnetObject> reporting = new ConcurrentSkipListMap<>(
+            ORDER);
+
+    /**
+     * The objects that have event detection enabled and either an event state other than normal or unacknowledged
+     * transitions.
+     */
+    private final ConcurrentNavigableMap<ObjectIdentifier, BACnetObject> active = new ConcurrentSkipListMap<>(ORDER);
+
+    BACnetObject get(final ObjectIdentifier oid) {
+        return reporting.get(oid);
+    }
+
+    void update(final BACnetObject bo, final boolean isActive) {
+        final ObjectIdentifier oid = bo.getId();
+        reporting.put(oid, bo);
+        if (isActive)
+            active.put(oid, bo);
+        else
+            removeSame(active, oid, bo);
+    }
+
+    void remove(final ObjectIdentifier oid, final BACnetObject bo) {
+        removeSame(reporting, oid, bo);
+        removeSame(active, oid, bo);
+    }
+
+    /**
+     * Removes the mapping only if it is to the given instance. Objects are equal by id, so Map.remove(key, value)
+     * would also remove a different object with the same id.
+     */
+    private static void removeSame(final ConcurrentNavigableMap<ObjectIdentifier, BACnetObject> map,
+            final ObjectIdentifier oid, final BACnetObject bo) {
+        map.computeIfPresent(oid, (k, v) -> v == bo ? null : v);
+    }
+
+    /**
+     * Removes the object from the index, if it is the object that is indexed under its id.
+     */
+    public void remove(final BACnetObject bo) {
+        remove(bo.getId(), bo);
+    }
+
+    /**
+     * @return all objects that do event reporting.
+     */
+    public Collection<BACnetObject> getReportingObjects() {
+        return reporting.values();
+    }
+
+    /**
+     * @return the objects that have an event state other than normal or unacknowledged transitions.
+     */
+    public Collection<BACnetObject> getActiveObjects() {
+        return active.values();
+    }
+
+    /**
+     * @param after
+     *            the object identifier after which to start, or null to start at the beginning.
+     * @return the active objects that are ordered after the given object identifier.
+     */
+    public Collection<BACnetObject> getActiveObjectsAfter(final ObjectIdentifier after) {
+        if (after == null)
+            return active.values();
+        return active.tailMap(after, false).values();
+    }
+}
@@ -52,6 +52,13 @@ public class IntrinsicReportingMixin extends EventReportingMixin {
     private final PropertyIdentifier monitoredProperty;
     private final PropertyIdentifier[] triggerProperties;
 
+    // The state of a batch of writes: whether a trigger property was written, and the monitored value from before
+    // the batch if it was written.
+    private int batchDepth;
+    private boolean batchTriggered;
+    private boolean batchMonitoredChanged;
+    private Encodable batchMonitoredValue;
+
     public IntrinsicReportingMixin(final BACnetObject bo, final EventAlgorithm eventAlgo,
             final FaultAlgorithm faultAlgo, final PropertyIdentifier monitoredProperty,
             final PropertyIdentifier[] triggerProperties) {
@@ -79,25 +86,50 @@ public class IntrinsicReportingMixin extends EventReportingMixin {
         super.afterWriteProperty(pid, oldValue, newValue);
 
         if (pid.isOneOf(triggerProperties)) {
-            // Get the monitored value, in case this isn't it.
-            final Encodable prev, curr;
-            if (pid.equals(monitoredProperty)) {
-                prev = oldValue;
-                curr = newValue;
-            } else {
-                prev = null;
-                curr = get(monitoredProperty);
+            if (batchDepth > 0) {
+                // Evaluate once when the batch ends.
+                batchTriggered = true;
+                if (pid.equals(monitoredProperty) && !batchMonitoredChanged) {
+                    batchMonitoredChanged = true;
+                    batchMonitoredValue = oldValue;
+                }
+                return;
             }
 
-            // Check if there was a fault state transition.
-            final boolean fault = executeFaultAlgo(prev, curr);
-            if (!fault) {
-                // Ensure there is no current fault.
-                final Reliability reli = get(PropertyIdentifier.reliability);
-                if (reli == null || reli.equals(Reliability.noFaultDetected))
-                    // No fault detected. Run the event algorithm
-                    executeEventAlgo();
-            }
+            // Get the monitored value, in case this isn't it.
+            if (pid.equals(monitoredProperty))
+                evaluate(oldValue, newValue);
+            else
+                evaluate(null, get(monitoredProperty));
+        }
+    }
+
+    @Override
+    protected synchronized void beginWrites() {
+        batchDepth++;
+    }
+
+    @Override
+    protected synchronized void endWrites() {
+        if (batchDepth == 0 || --batchDepth > 0 || !batchTriggered)
+            return;
+
+        final Encodable prev = batchMonitoredChanged ? batchMonitoredValue : null;
+        batchTriggered = false;
+        batchMonitoredChanged = false;
+        batchMonitoredValue = null;
+        evaluate(prev, get(monitoredProperty));
+    }
+
+    private void evaluate(final Encodable prev, final Encodable curr) {
+        // Check if there was a fault state transition.
+        final boolean fault = executeFaultAlgo(prev, curr);
+        if (!fault) {
+            // Ensure there is no current fault.
+            final Reliability reli = get(PropertyIdentifier.reliability);
+            if (reli == null || reli.equals(Reliability.noFaultDetected))
+                // No fault detected. Run the event algorithm
+                executeEventAlgo();
         }
     }
 
@@ -1,56 +1,202 @@
 package com.serotonin.bacnet4j.persistence;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
+import com.serotonin.bacnet4j.util.sero.ArrayUtils;
+import com.serotonin.bacnet4j.util.sero.ByteQueue;
+
+/**
+ * Persistence in a single file. Values are held in memory, and the whole file is read in one pass when the instance
+ * is created.
+ *
+ * New files are written in a binary format that stores encodables as their raw BACnet encoding. Files that were
+ * written as properties files by earlier versions are read as such, and continue to be written in that format so
+ * that they remain readable by those versions. Use {@link #FilePersistence(File, boolean)} to convert them.
+ */
 public class FilePersistence implements IPersistence {
+    private static final byte[] MAGIC = { 'B', '4', 'J', 'P' };
+    private static final int VERSION = 1;
+    private static final int TYPE_STRING = 0;
+    private static final int TYPE_BYTES = 1;
+
     private final File file;
-    private final Properties props;
+    /**
+     * Values are either String, as given to save, or byte[], as given to saveBytes.
+     */
+    private final Map<String, Object> values = new HashMap<>();
+    private boolean legacy;
 
     public FilePersistence(final File file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * @param file
+     *            the persistence file
+     * @param convert
+     *            if true and the file is in the legacy properties format, it will be rewritten in the binary format.
+     * @throws IOException
+     */
+    public FilePersistence(final File file, final boolean convert) throws IOException {
         this.file = file;
 
-        props = new Properties();
         try {
-            try (FileReader in = new FileReader(file)) {
-                props.load(in);
-            }
+            legacy = !isBinary(file);
+            if (legacy)
+                loadProperties();
+            else
+                loadBinary();
         } catch (@SuppressWarnings("unused") final FileNotFoundException e) {
-            // no op.
+            legacy = false;
         }
+
+        if (legacy && convert) {
+            legacy = false;
+            store();
+        }
+    }
+
+    @Override
+    public synchronized void save(final String key, final String value) {
+        values.put(key, value);
+        store();
     }
 
     @Override
-    public void save(final String key, final String value) {
-        props.setProperty(key, value);
+    public synchronized void saveBytes(final String key, final byte[] value) {
+        if (legacy)
+            values.put(key, ArrayUtils.toPlainHexString(value));
+        else
+            values.put(key, value);
         store();
     }
 
     @Override
-    public String load(final String key) {
-        return props.getProperty(key);
+    public synchronized String load(final String key) {
+        final Object value = values.get(key);
+        if (value instanceof byte[])
+            return ArrayUtils.toPlainHexString((byte[]) value);
+        return (String) value;
+    }
+
+    @Override
+    public synchronized byte[] loadBytes(final String key) {
+        final Object value = values.get(key);
+        if (value instanceof String)
+            return new ByteQueue((String) value).popAll();
+        return (byte[]) value;
     }
 
     @Override
-    public void remove(final String key) {
-        props.remove(key);
+    public synchronized void remove(final String key) {
+        values.remove(key);
         store();
     }
 
+    private static boolean isBinary(final File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            final byte[] b = new byte[MAGIC.length];
+            int read = 0;
+            while (read < b.length) {
+                final int count = in.read(b, read, b.length - read);
+                if (count == -1)
+                    // An empty file can be written in the binary format. Other short files must be legacy.
+                    return read == 0;
+                read += count;
+            }
+            return Arrays.equals(b, MAGIC);
+        }
+    }
+
+    private void loadProperties() throws IOException {
+        final Properties props = new Properties();
+        try (FileReader in = new FileReader(file)) {
+            props.load(in);
+        }
+        for (final String key : props.stringPropertyNames())
+            values.put(key, props.getProperty(key));
+    }
+
+    private void loadBinary() throws IOException {
+        if (file.length() == 0)
+            return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            in.skipBytes(MAGIC.length);
+            final int version = in.readUnsignedByte();
+            if (version != VERSION)
+                throw new IOException("Unsupported persistence file version: " + version);
+
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                final String key = in.readUTF();
+                final int type = in.readUnsignedByte();
+                final byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                if (type == TYPE_STRING)
+                    values.put(key, new String(data, StandardCharsets.UTF_8));
+                else
+                    values.put(key, data);
+            }
+        }
+    }
+
     private void store() {
         try {
-            try (FileWriter out = new FileWriter(file)) {
-                props.store(out, "");
-            }
+            if (legacy)
+                storeProperties();
+            else
+                storeBinary();
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private void storeProperties() throws IOException {
+        final Properties props = new Properties();
+        for (final Map.Entry<String, Object> e : values.entrySet())
+            props.setProperty(e.getKey(), (String) e.getValue());
+        try (FileWriter out = new FileWriter(file)) {
+            props.store(out, "");
+        }
+    }
+
+    private void storeBinary() throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.write(MAGIC);
+            out.writeByte(VERSION);
+            out.writeInt(values.size());
+            for (final Map.Entry<String, Object> e : values.entrySet()) {
+                out.writeUTF(e.getKey());
+                final byte[] data;
+                if (e.getValue() instanceof String) {
+                    out.writeByte(TYPE_STRING);
+                    data = ((String) e.getValue()).getBytes(StandardCharsets.UTF_8);
+                } else {
+                    out.writeByte(TYPE_BYTES);
+                    data = (byte[]) e.getValue();
+                }
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        }
+    }
+
     @Override
     public File[] getFiles() {
         return new File[] { file };
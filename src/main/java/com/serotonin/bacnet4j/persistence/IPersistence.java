@@ -6,21 +6,41 @@ import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.exception.BACnetRuntimeException;
 import com.serotonin.bacnet4j.type.Encodable;
 import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.util.sero.ArrayUtils;
 import com.serotonin.bacnet4j.util.sero.ByteQueue;
 
 public interface IPersistence {
     void save(String key, String value);
 
+    /**
+     * Saves the given raw bytes. The default implementation stores the value as a hex string. Implementations that can
+     * store binary data should override this method and {@link #loadBytes(String)}.
+     */
+    default void saveBytes(final String key, final byte[] value) {
+        save(key, ArrayUtils.toPlainHexString(value));
+    }
+
     default void saveEncodable(final String key, final Encodable value) {
         final ByteQueue queue = new ByteQueue();
         value.write(queue);
-        save(key, queue.toHexString());
+        saveBytes(key, queue.popAll());
     }
 
     String load(String key);
 
-    default <T extends Encodable> T loadEncodable(final String key, final Class<T> clazz) {
+    /**
+     * Loads the raw bytes for the given key, or null if there is no value. The default implementation parses the hex
+     * string that {@link #saveBytes(String, byte[])} stores by default.
+     */
+    default byte[] loadBytes(final String key) {
         final String value = load(key);
+        if (value == null)
+            return null;
+        return new ByteQueue(value).popAll();
+    }
+
+    default <T extends Encodable> T loadEncodable(final String key, final Class<T> clazz) {
+        final byte[] value = loadBytes(key);
         if (value == null)
             return null;
         final ByteQueue queue = new ByteQueue(value);
@@ -32,7 +52,7 @@ public interface IPersistence {
     }
 
     default <T extends Encodable> SequenceOf<T> loadSequenceOf(final String key, final Class<T> clazz) {
-        final String value = load(key);
+        final byte[] value = loadBytes(key);
         if (value == null)
             return null;
         final ByteQueue queue = new ByteQueue(value);
@@ -12,11 +12,21 @@ public class NullPersistence implements IPersistence {
         // no op
     }
 
+    @Override
+    public void saveBytes(final String key, final byte[] value) {
+        // no op
+    }
+
     @Override
     public String load(final String key) {
         return null;
     }
 
+    @Override
+    public byte[] loadBytes(final String key) {
+        return null;
+    }
+
     @Override
     public void remove(final String key) {
         // no op
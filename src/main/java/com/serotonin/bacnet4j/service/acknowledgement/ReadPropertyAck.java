@@ -30,6 +30,7 @@ package com.serotonin.bacnet4j.service.acknowledgement;
 
 import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.EncodedValue;
 import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
@@ -42,13 +43,25 @@ public class ReadPropertyAck extends AcknowledgementService {
     private final PropertyIdentifier propertyIdentifier;
     private final UnsignedInteger propertyArrayIndex;
     private final Encodable value;
+    // The encoding of the value, if it is already known.
+    private final EncodedValue encodedValue;
 
     public ReadPropertyAck(final ObjectIdentifier eventObjectIdentifier, final PropertyIdentifier propertyIdentifier,
             final UnsignedInteger propertyArrayIndex, final Encodable value) {
+        this(eventObjectIdentifier, propertyIdentifier, propertyArrayIndex, value, null);
+    }
+
+    /**
+     * @param encodedValue
+     *            the encoding of the value, which is written instead of encoding the value again. May be null.
+     */
+    public ReadPropertyAck(final ObjectIdentifier eventObjectIdentifier, final PropertyIdentifier propertyIdentifier,
+            final UnsignedInteger propertyArrayIndex, final Encodable value, final EncodedValue encodedValue) {
         this.eventObjectIdentifier = eventObjectIdentifier;
         this.propertyIdentifier = propertyIdentifier;
         this.propertyArrayIndex = propertyArrayIndex;
         this.value = value;
+        this.encodedValue = encodedValue;
     }
 
     @Override
@@ -83,7 +96,10 @@ public class ReadPropertyAck extends AcknowledgementService {
         write(queue, eventObjectIdentifier, 0);
         write(queue, propertyIdentifier, 1);
         writeOptional(queue, propertyArrayIndex, 2);
-        writeANY(queue, value, 3);
+        if (encodedValue != null)
+            encodedValue.write(queue, 3);
+        else
+            writeANY(queue, value, 3);
     }
 
     public ReadPropertyAck(final ByteQueue queue) throws BACnetException {
@@ -91,6 +107,7 @@ public class ReadPropertyAck extends AcknowledgementService {
         propertyIdentifier = read(queue, PropertyIdentifier.class, 1);
         propertyArrayIndex = readOptional(queue, UnsignedInteger.class, 2);
         value = readANY(queue, eventObjectIdentifier.getObjectType(), propertyIdentifier, propertyArrayIndex, 3);
+        encodedValue = null;
     }
 
     @Override
@@ -29,6 +29,7 @@
 package com.serotonin.bacnet4j.service.acknowledgement;
 
 import com.serotonin.bacnet4j.exception.BACnetException;
+import com.serotonin.bacnet4j.exception.BACnetRuntimeException;
 import com.serotonin.bacnet4j.type.constructed.ReadAccessResult;
 import com.serotonin.bacnet4j.type.constructed.SequenceOf;
 import com.serotonin.bacnet4j.util.sero.ByteQueue;
@@ -36,10 +37,28 @@ import com.serotonin.bacnet4j.util.sero.ByteQueue;
 public class ReadPropertyMultipleAck extends AcknowledgementService {
     public static final byte TYPE_ID = 14;
 
-    private final SequenceOf<ReadAccessResult> listOfReadAccessResults;
+    private volatile SequenceOf<ReadAccessResult> listOfReadAccessResults;
+    // The encoded results, if the ack was created from them.
+    private final byte[] encodedResults;
 
     public ReadPropertyMultipleAck(final SequenceOf<ReadAccessResult> listOfReadAccessResults) {
         this.listOfReadAccessResults = listOfReadAccessResults;
+        encodedResults = null;
+    }
+
+    private ReadPropertyMultipleAck(final byte[] encodedResults) {
+        this.encodedResults = encodedResults;
+    }
+
+    /**
+     * Creates an ack from results that have already been encoded, e.g. by a handler that encodes them while they are
+     * read. The results are written as they are, and only decoded if they are asked for.
+     *
+     * @param encodedResults
+     *            the encoded list of read access results.
+     */
+    public static ReadPropertyMultipleAck fromEncodedResults(final ByteQueue encodedResults) {
+        return new ReadPropertyMultipleAck(encodedResults.popAll());
     }
 
     @Override
@@ -49,24 +68,38 @@ public class ReadPropertyMultipleAck extends AcknowledgementService {
 
     @Override
     public void write(final ByteQueue queue) {
-        write(queue, listOfReadAccessResults);
+        if (encodedResults != null)
+            queue.push(encodedResults);
+        else
+            write(queue, listOfReadAccessResults);
     }
 
     ReadPropertyMultipleAck(final ByteQueue queue) throws BACnetException {
         listOfReadAccessResults = readSequenceOf(queue, ReadAccessResult.class);
+        encodedResults = null;
     }
 
     @Override
     public String toString() {
-        return "ReadPropertyMultipleAck(" + listOfReadAccessResults + ")";
+        return "ReadPropertyMultipleAck(" + getListOfReadAccessResults() + ")";
     }
 
     public SequenceOf<ReadAccessResult> getListOfReadAccessResults() {
-        return listOfReadAccessResults;
+        SequenceOf<ReadAccessResult> list = listOfReadAccessResults;
+        if (list == null && encodedResults != null) {
+            try {
+                list = readSequenceOf(new ByteQueue(encodedResults), ReadAccessResult.class);
+            } catch (final BACnetException e) {
+                throw new BACnetRuntimeException(e);
+            }
+            listOfReadAccessResults = list;
+        }
+        return list;
     }
 
     @Override
     public int hashCode() {
+        final SequenceOf<ReadAccessResult> listOfReadAccessResults = getListOfReadAccessResults();
         final int PRIME = 31;
         int result = 1;
         result = PRIME * result + (listOfReadAccessResults == null ? 0 : listOfReadAccessResults.hashCode());
@@ -82,10 +115,11 @@ public class ReadPropertyMultipleAck extends AcknowledgementService {
         if (getClass() != obj.getClass())
             return false;
         final ReadPropertyMultipleAck other = (ReadPropertyMultipleAck) obj;
+        final SequenceOf<ReadAccessResult> listOfReadAccessResults = getListOfReadAccessResults();
         if (listOfReadAccessResults == null) {
-            if (other.listOfReadAccessResults != null)
+            if (other.getListOfReadAccessResults() != null)
                 return false;
-        } else if (!listOfReadAccessResults.equals(other.listOfReadAccessResults))
+        } else if (!listOfReadAccessResults.equals(other.getListOfReadAccessResults()))
             return false;
         return true;
     }
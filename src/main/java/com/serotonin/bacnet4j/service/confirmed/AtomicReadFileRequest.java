@@ -144,7 +144,8 @@ public class AtomicReadFileRequest extends ConfirmedRequestService {
 
                     final OctetString result = fileAccess.readData(start, readLength);
 
-                    response = new AtomicReadFileAck(Boolean.valueOf(fileLength <= start + readLength),
+                    // The end of the file is only reached if the data that was read extends to it.
+                    response = new AtomicReadFileAck(Boolean.valueOf(fileLength <= start + result.getLength()),
                             new StreamAccessAck(streamAccess.getFileStartPosition(), result));
                 } else if (accessMethod.isa(RecordAccess.class)) {
                     if (!fileAccess.supportsRecordAccess()) {
@@ -163,10 +164,9 @@ public class AtomicReadFileRequest extends ConfirmedRequestService {
                         throw new BACnetServiceException(ErrorClass.object, ErrorCode.invalidFileStartPosition);
                     }
 
-                    final SequenceOf<OctetString> result = fileAccess.readRecords(start,
-                            recordAccess.getRequestedRecordCount().longValue());
+                    final SequenceOf<OctetString> result = fileAccess.readRecords(start, readCount);
 
-                    response = new AtomicReadFileAck(Boolean.valueOf(fileCount <= start + readCount),
+                    response = new AtomicReadFileAck(Boolean.valueOf(fileCount <= start + result.size()),
                             new RecordAccessAck(recordAccess.getFileStartRecord(), new UnsignedInteger(result.size()),
                                     result));
                 } else {
@@ -186,6 +186,12 @@ public class AtomicReadFileRequest extends ConfirmedRequestService {
         return response;
     }
 
+    @Override
+    public boolean isBlocking() {
+        // Files are read from storage.
+        return true;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
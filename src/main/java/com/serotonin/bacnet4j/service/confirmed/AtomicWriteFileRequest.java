@@ -167,6 +167,12 @@ public class AtomicWriteFileRequest extends ConfirmedRequestService {
         return response;
     }
 
+    @Override
+    public boolean isBlocking() {
+        // Files are written to storage.
+        return true;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -99,6 +99,12 @@ public class ConfirmedPrivateTransferRequest extends ConfirmedRequestService {
         return new ConfirmedPrivateTransferAck(vendorId, serviceNumber, resultBlock);
     }
 
+    @Override
+    public boolean isBlocking() {
+        // Private transfer handlers may do any kind of work.
+        return true;
+    }
+
     public UnsignedInteger getVendorId() {
         return vendorId;
     }
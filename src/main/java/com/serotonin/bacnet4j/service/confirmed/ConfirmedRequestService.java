@@ -28,6 +28,10 @@
  */
 package com.serotonin.bacnet4j.service.confirmed;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
 import com.serotonin.bacnet4j.LocalDevice;
 import com.serotonin.bacnet4j.exception.BACnetErrorException;
 import com.serotonin.bacnet4j.exception.BACnetException;
@@ -171,6 +175,56 @@ abstract public class ConfirmedRequestService extends Service {
 
     abstract public AcknowledgementService handle(LocalDevice localDevice, Address from) throws BACnetException;
 
+    /**
+     * Handles the request from a requester that accepts responses up to the given size. Services with potentially
+     * large responses override this to abort as soon as the response is known to be too big, rather than after all of
+     * it has been built. Otherwise the size of the response is checked when it is sent.
+     *
+     * @param limit
+     *            the size of the largest response that the requester accepts.
+     */
+    public AcknowledgementService handle(final LocalDevice localDevice, final Address from,
+            final ResponseSizeLimit limit) throws BACnetException {
+        return handle(localDevice, from);
+    }
+
+    /**
+     * Handles the request without holding up the transport. The transport sends the response when the returned stage
+     * completes, or the error, reject or abort if it completes exceptionally with a BACnetException.
+     *
+     * By default, requests that may block are handled on the request executor of the local device, and all others
+     * immediately. Services that complete their work elsewhere, e.g. with asynchronous I/O, override this. The
+     * returned stage must support toCompletableFuture.
+     */
+    public CompletionStage<AcknowledgementService> handleAsync(final LocalDevice localDevice, final Address from,
+            final ResponseSizeLimit limit) {
+        if (!isBlocking()) {
+            final CompletableFuture<AcknowledgementService> future = new CompletableFuture<>();
+            try {
+                future.complete(handle(localDevice, from, limit));
+            } catch (final Exception e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return handle(localDevice, from, limit);
+            } catch (final BACnetException e) {
+                throw new CompletionException(e);
+            }
+        }, localDevice.getRequestExecutor());
+    }
+
+    /**
+     * Requests that may block, e.g. on storage, return true so that they are handled on the request executor rather
+     * than the transport thread. The number of such requests that are pending at once is limited by the transport.
+     */
+    public boolean isBlocking() {
+        return false;
+    }
+
     /**
      * This method determines whether responses to requests are sent when the device has had its communication set
      * to disabled with a DeviceCommunicationControlRequest. Method for maintaining this state are found in
@@ -40,6 +40,7 @@ import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.exception.BACnetServiceException;
 import com.serotonin.bacnet4j.obj.BACnetObject;
 import com.serotonin.bacnet4j.obj.CalendarObject;
+import com.serotonin.bacnet4j.obj.ChannelObject;
 import com.serotonin.bacnet4j.obj.EventLogObject;
 import com.serotonin.bacnet4j.obj.GroupObject;
 import com.serotonin.bacnet4j.obj.NotificationClassObject;
@@ -82,6 +83,7 @@ public class CreateObjectRequest extends ConfirmedRequestService {
     private static Map<ObjectType, ObjectCreator> creators = new HashMap<>();
     static {
         creators.put(ObjectType.calendar, (d, number) -> CalendarObject.create(d, number));
+        creators.put(ObjectType.channel, (d, number) -> ChannelObject.create(d, number));
         creators.put(ObjectType.eventLog, (d, number) -> EventLogObject.create(d, number));
         creators.put(ObjectType.group, (d, number) -> GroupObject.create(d, number));
         creators.put(ObjectType.notificationClass, (d, number) -> NotificationClassObject.create(d, number));
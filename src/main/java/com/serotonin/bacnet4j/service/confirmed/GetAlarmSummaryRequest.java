@@ -54,7 +54,8 @@ public class GetAlarmSummaryRequest extends ConfirmedRequestService {
     public AcknowledgementService handle(final LocalDevice localDevice, final Address from) throws BACnetException {
         final SequenceOf<AlarmSummary> summaries = new SequenceOf<>();
 
-        for (final BACnetObject bo : localDevice.getLocalObjects()) {
+        // Only objects that are not in the normal state can be in alarm.
+        for (final BACnetObject bo : localDevice.getEventStateIndex().getActiveObjects()) {
             final AlarmSummary alarmSummary = bo.getAlarmSummary();
             if (alarmSummary != null)
                 summaries.add(alarmSummary);
@@ -29,12 +29,14 @@
 package com.serotonin.bacnet4j.service.confirmed;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.serotonin.bacnet4j.LocalDevice;
 import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.obj.BACnetObject;
+import com.serotonin.bacnet4j.obj.mixin.event.EventStateIndex;
 import com.serotonin.bacnet4j.service.acknowledgement.AcknowledgementService;
 import com.serotonin.bacnet4j.service.acknowledgement.GetEnrollmentSummaryAck;
 import com.serotonin.bacnet4j.service.acknowledgement.GetEnrollmentSummaryAck.EnrollmentSummary;
@@ -78,7 +80,15 @@ public class GetEnrollmentSummaryRequest extends ConfirmedRequestService {
     public AcknowledgementService handle(final LocalDevice localDevice, final Address from) throws BACnetException {
         final SequenceOf<EnrollmentSummary> summaries = new SequenceOf<>();
 
-        for (final BACnetObject bo : localDevice.getLocalObjects()) {
+        // If the filters exclude objects that are normal and fully acknowledged, only the active objects need to be
+        // checked. Otherwise, check all objects that do event reporting.
+        final EventStateIndex index = localDevice.getEventStateIndex();
+        final boolean activeOnly = AcknowledgmentFilter.notAcked.equals(acknowledgmentFilter)
+                || eventStateFilter != null && eventStateFilter.isOneOf(EventStateFilter.offnormal,
+                        EventStateFilter.fault, EventStateFilter.active);
+        final Collection<BACnetObject> objects = activeOnly ? index.getActiveObjects() : index.getReportingObjects();
+
+        for (final BACnetObject bo : objects) {
             final EnrollmentSummary enrollmentSummary = bo.getEnrollmentSummary(acknowledgmentFilter, enrollmentFilter,
                     eventStateFilter, eventTypeFilter, priorityFilter, notificationClassFilter);
             if (enrollmentSummary != null)
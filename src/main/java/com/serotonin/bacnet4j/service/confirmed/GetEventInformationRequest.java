@@ -58,7 +58,10 @@ public class GetEventInformationRequest extends ConfirmedRequestService {
     public AcknowledgementService handle(final LocalDevice localDevice, final Address from) throws BACnetException {
         final SequenceOf<EventSummary> summaries = new SequenceOf<>();
 
-        for (final BACnetObject bo : localDevice.getLocalObjects()) {
+        // Only objects that are not in the normal state or have unacknowledged transitions are included. Start after
+        // the last object that the requester received, if given.
+        for (final BACnetObject bo : localDevice.getEventStateIndex()
+                .getActiveObjectsAfter(lastReceivedObjectIdentifier)) {
             final EventSummary eventSummary = bo.getEventSummary();
             if (eventSummary != null)
                 summaries.add(eventSummary);
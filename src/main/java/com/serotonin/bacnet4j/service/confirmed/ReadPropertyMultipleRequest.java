@@ -29,6 +29,7 @@
 package com.serotonin.bacnet4j.service.confirmed;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 import com.serotonin.bacnet4j.LocalDevice;
@@ -40,6 +41,7 @@ import com.serotonin.bacnet4j.obj.ObjectProperties;
 import com.serotonin.bacnet4j.obj.ObjectPropertyTypeDefinition;
 import com.serotonin.bacnet4j.service.acknowledgement.AcknowledgementService;
 import com.serotonin.bacnet4j.service.acknowledgement.ReadPropertyMultipleAck;
+import com.serotonin.bacnet4j.type.Encodable;
 import com.serotonin.bacnet4j.type.constructed.Address;
 import com.serotonin.bacnet4j.type.constructed.PropertyReference;
 import com.serotonin.bacnet4j.type.constructed.ReadAccessResult;
@@ -50,7 +52,6 @@ import com.serotonin.bacnet4j.type.enumerated.ErrorClass;
 import com.serotonin.bacnet4j.type.enumerated.ErrorCode;
 import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
-import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
 import com.serotonin.bacnet4j.util.sero.ByteQueue;
 
@@ -79,27 +80,73 @@ public class ReadPropertyMultipleRequest extends ConfirmedRequestService {
 
     @Override
     public AcknowledgementService handle(final LocalDevice localDevice, final Address from) throws BACnetException {
-        BACnetObject obj;
-        ObjectIdentifier oid;
-        final List<ReadAccessResult> readAccessResults = new ArrayList<>();
-        List<Result> results;
+        final List<ReadAccessResult> readAccessResults = new ArrayList<>(listOfReadAccessSpecs.getCount());
+        for (final ReadAccessSpecification req : listOfReadAccessSpecs)
+            readAccessResults.add(new ReadAccessResult(req.getObjectIdentifier(),
+                    new SequenceOf<>(readResults(localDevice, req))));
+        return new ReadPropertyMultipleAck(new SequenceOf<>(readAccessResults));
+    }
 
-        try {
-            for (final ReadAccessSpecification req : listOfReadAccessSpecs) {
-                results = new ArrayList<>();
-                oid = req.getObjectIdentifier();
-                obj = localDevice.getObjectRequired(oid);
+    /**
+     * Encodes the results into the response as the objects are read, rather than collecting all of them first. The
+     * request is aborted as soon as the response is too big for the requester, without reading the remaining
+     * objects.
+     */
+    @Override
+    public AcknowledgementService handle(final LocalDevice localDevice, final Address from,
+            final ResponseSizeLimit limit) throws BACnetException {
+        if (limit == null)
+            return handle(localDevice, from);
+
+        final ByteQueue queue = new ByteQueue();
+        for (final ReadAccessSpecification req : listOfReadAccessSpecs) {
+            final List<Result> results = readResults(localDevice, req);
+
+            // Write a ReadAccessResult.
+            write(queue, req.getObjectIdentifier(), 0);
+            writeContextTag(queue, 1, true);
+            for (final Result result : results) {
+                write(queue, result);
+                limit.check(queue.size());
+            }
+            writeContextTag(queue, 1, false);
+            limit.check(queue.size());
+        }
 
-                for (final PropertyReference propRef : req.getListOfPropertyReferences())
-                    addProperty(obj, results, propRef.getPropertyIdentifier(), propRef.getPropertyArrayIndex());
+        return ReadPropertyMultipleAck.fromEncodedResults(queue);
+    }
 
-                readAccessResults.add(new ReadAccessResult(oid, new SequenceOf<>(results)));
+    private List<Result> readResults(final LocalDevice localDevice, final ReadAccessSpecification req)
+            throws BACnetErrorException {
+        try {
+            final BACnetObject obj = localDevice.getObjectRequired(req.getObjectIdentifier());
+
+            // Collect the properties to read, so that they can be read from one snapshot of the object.
+            final List<PropertyReference> refs = new ArrayList<>();
+            final BitSet ignoreNotFound = new BitSet();
+            for (final PropertyReference propRef : req.getListOfPropertyReferences())
+                addProperty(obj, refs, ignoreNotFound, propRef.getPropertyIdentifier(),
+                        propRef.getPropertyArrayIndex());
+
+            final List<Encodable> values = obj.readProperties(refs);
+            final List<Result> results = new ArrayList<>(refs.size());
+            for (int i = 0; i < refs.size(); i++) {
+                final PropertyReference ref = refs.get(i);
+                final Encodable value = values.get(i);
+                if (value instanceof ErrorClassAndCode) {
+                    final ErrorClassAndCode error = (ErrorClassAndCode) value;
+                    if (ignoreNotFound.get(i) && error.getErrorClass().equals(ErrorClass.property)
+                            && error.getErrorCode().equals(ErrorCode.unknownProperty))
+                        continue;
+                    results.add(new Result(ref.getPropertyIdentifier(), ref.getPropertyArrayIndex(), error));
+                } else
+                    results.add(new Result(ref.getPropertyIdentifier(), ref.getPropertyArrayIndex(), value,
+                            obj.getEncoded(ref.getPropertyIdentifier(), ref.getPropertyArrayIndex(), value)));
             }
+            return results;
         } catch (final BACnetServiceException e) {
             throw new BACnetErrorException(getChoiceId(), e);
         }
-
-        return new ReadPropertyMultipleAck(new SequenceOf<>(readAccessResults));
     }
 
     public SequenceOf<ReadAccessSpecification> getListOfReadAccessSpecs() {
@@ -144,15 +191,15 @@ public class ReadPropertyMultipleRequest extends ConfirmedRequestService {
         return "ReadPropertyMultipleRequest [listOfReadAccessSpecs=" + listOfReadAccessSpecs + "]";
     }
 
-    private static void addProperty(final BACnetObject obj, final List<Result> results, final PropertyIdentifier pid,
-            final UnsignedInteger pin) {
+    private static void addProperty(final BACnetObject obj, final List<PropertyReference> refs,
+            final BitSet ignoreNotFound, final PropertyIdentifier pid, final UnsignedInteger pin) {
         if (pid.intValue() == PropertyIdentifier.all.intValue()) {
             for (final ObjectPropertyTypeDefinition def : ObjectProperties
                     .getObjectPropertyTypeDefinitions(obj.getId().getObjectType())) {
                 // Do not add the property list
                 if (def.getPropertyTypeDefinition().getPropertyIdentifier() != PropertyIdentifier.propertyList) {
-                    addNonSpecialProperty(obj, results, def.getPropertyTypeDefinition().getPropertyIdentifier(), pin,
-                            true);
+                    addNonSpecialProperty(refs, ignoreNotFound, def.getPropertyTypeDefinition().getPropertyIdentifier(),
+                            pin, true);
                 }
             }
         } else if (pid.intValue() == PropertyIdentifier.required.intValue()) {
@@ -160,32 +207,26 @@ public class ReadPropertyMultipleRequest extends ConfirmedRequestService {
                     .getRequiredObjectPropertyTypeDefinitions(obj.getId().getObjectType())) {
                 // Do not add the property list
                 if (def.getPropertyTypeDefinition().getPropertyIdentifier() != PropertyIdentifier.propertyList) {
-                    addNonSpecialProperty(obj, results, def.getPropertyTypeDefinition().getPropertyIdentifier(), pin,
-                            true);
+                    addNonSpecialProperty(refs, ignoreNotFound, def.getPropertyTypeDefinition().getPropertyIdentifier(),
+                            pin, true);
                 }
             }
         } else if (pid.intValue() == PropertyIdentifier.optional.intValue()) {
             for (final ObjectPropertyTypeDefinition def : ObjectProperties
                     .getOptionalObjectPropertyTypeDefinitions(obj.getId().getObjectType())) {
-                addNonSpecialProperty(obj, results, def.getPropertyTypeDefinition().getPropertyIdentifier(), pin, true);
+                addNonSpecialProperty(refs, ignoreNotFound, def.getPropertyTypeDefinition().getPropertyIdentifier(),
+                        pin, true);
             }
         } else {
             // Get the specified property.
-            addNonSpecialProperty(obj, results, pid, pin, false);
+            addNonSpecialProperty(refs, ignoreNotFound, pid, pin, false);
         }
     }
 
-    private static void addNonSpecialProperty(final BACnetObject obj, final List<Result> results,
-            final PropertyIdentifier pid, final UnsignedInteger pin, final boolean ignoreNotFound) {
-        try {
-            results.add(new Result(pid, pin, obj.readPropertyRequired(pid, pin)));
-        } catch (final BACnetServiceException e) {
-            if (ignoreNotFound && e.getErrorClass() == ErrorClass.property
-                    && e.getErrorCode() == ErrorCode.unknownProperty) {
-                // ignore
-            } else {
-                results.add(new Result(pid, pin, new ErrorClassAndCode(e.getErrorClass(), e.getErrorCode())));
-            }
-        }
+    private static void addNonSpecialProperty(final List<PropertyReference> refs, final BitSet ignoreNotFound,
+            final PropertyIdentifier pid, final UnsignedInteger pin, final boolean ignore) {
+        if (ignore)
+            ignoreNotFound.set(refs.size());
+        refs.add(new PropertyReference(pid, pin));
     }
 }
@@ -83,6 +83,7 @@ public class ReadPropertyRequest extends ConfirmedRequestService {
 
     @Override
     public AcknowledgementService handle(final LocalDevice localDevice, final Address from) throws BACnetException {
+        final BACnetObject obj;
         Encodable prop;
         try {
             // Handling for special properties
@@ -91,12 +92,13 @@ public class ReadPropertyRequest extends ConfirmedRequestService {
                 throw new BACnetServiceException(ErrorClass.services, ErrorCode.inconsistentParameters);
             }
 
-            final BACnetObject obj = localDevice.getObjectRequired(objectIdentifier);
+            obj = localDevice.getObjectRequired(objectIdentifier);
             prop = obj.readPropertyRequired(propertyIdentifier, propertyArrayIndex);
         } catch (final BACnetServiceException e) {
             throw new BACnetErrorException(getChoiceId(), e);
         }
-        return new ReadPropertyAck(objectIdentifier, propertyIdentifier, propertyArrayIndex, prop);
+        return new ReadPropertyAck(objectIdentifier, propertyIdentifier, propertyArrayIndex, prop,
+                obj.getEncoded(propertyIdentifier, propertyArrayIndex, prop));
     }
 
     @Override
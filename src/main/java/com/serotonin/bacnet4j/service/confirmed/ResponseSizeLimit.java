@@ -0,0 +1,55 @@
+package com.serotonin.bacnet4j.service.confirmed;
+
+import com.serotonin.bacnet4j.exception.BACnetAbortException;
+import com.serotonin.bacnet4j.type.enumerated.AbortReason;
+
+/**
+ * The size of the largest response that the requester of a confirmed service accepts, from the maximum APDU length,
+ * whether segmented responses are accepted, and the maximum number of segments in the request.
+ */
+public class ResponseSizeLimit {
+    private final int maxServiceDataLength;
+    private final AbortReason abortReason;
+
+    /**
+     * @param maxServiceDataLength
+     *            the maximum length of the service data of the response, over all segments.
+     * @param abortReason
+     *            the reason with which the request is aborted if its response is too big.
+     */
+    public ResponseSizeLimit(final int maxServiceDataLength, final AbortReason abortReason) {
+        this.maxServiceDataLength = maxServiceDataLength;
+        this.abortReason = abortReason;
+    }
+
+    public int getMaxServiceDataLength() {
+        return maxServiceDataLength;
+    }
+
+    public AbortReason getAbortReason() {
+        return abortReason;
+    }
+
+    /**
+     * @return true if service data of the given length can be sent to the requester.
+     */
+    public boolean fits(final int serviceDataLength) {
+        return serviceDataLength <= maxServiceDataLength;
+    }
+
+    /**
+     * @throws BACnetAbortException
+     *             if service data of the given length cannot be sent to the requester.
+     */
+    public void check(final int serviceDataLength) throws BACnetAbortException {
+        if (!fits(serviceDataLength))
+            throw new BACnetAbortException(abortReason, "Response of at least " + serviceDataLength
+                    + " bytes is too big to send to the device, which accepts " + maxServiceDataLength);
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseSizeLimit [maxServiceDataLength=" + maxServiceDataLength + ", abortReason=" + abortReason
+                + "]";
+    }
+}
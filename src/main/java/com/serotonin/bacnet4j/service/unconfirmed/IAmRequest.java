@@ -40,7 +40,6 @@ import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.enumerated.Segmentation;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
-import com.serotonin.bacnet4j.util.DiscoveryUtils;
 import com.serotonin.bacnet4j.util.sero.ByteQueue;
 
 public class IAmRequest extends UnconfirmedRequestService {
@@ -105,22 +104,9 @@ public class IAmRequest extends UnconfirmedRequestService {
 
         final RemoteDevice d = localDevice.getCachedRemoteDevice(remoteDoi);
         if (d == null) {
-            // Populate the object with discovered values, but do so in a different thread.
-            localDevice.execute(() -> {
-                LOG.debug("{} received an IAm from {}. Asynchronously creating remote device",
-                        localDevice.getInstanceNumber(), remoteDoi);
-                try {
-                    final RemoteDevice rd = new RemoteDevice(localDevice, remoteDoi, from);
-                    rd.setDeviceProperty(PropertyIdentifier.maxApduLengthAccepted, maxAPDULengthAccepted);
-                    rd.setDeviceProperty(PropertyIdentifier.segmentationSupported, segmentationSupported);
-                    rd.setDeviceProperty(PropertyIdentifier.vendorIdentifier, vendorId);
-                    DiscoveryUtils.getExtendedDeviceInformation(localDevice, rd);
-                    localDevice.getEventHandler().fireIAmReceived(rd);
-                } catch (final BACnetException e) {
-                    LOG.warn("Error in {} while discovering extended device information from {} at {}",
-                            localDevice.getId(), remoteDoi, from, e);
-                }
-            });
+            // Populate the object with discovered values. The discovery engine does so in a different thread.
+            localDevice.getDiscoveryEngine().discover(remoteDoi, from, maxAPDULengthAccepted, segmentationSupported,
+                    vendorId);
         } else {
             d.setDeviceProperty(PropertyIdentifier.maxApduLengthAccepted, maxAPDULengthAccepted);
             d.setDeviceProperty(PropertyIdentifier.segmentationSupported, segmentationSupported);
@@ -28,18 +28,32 @@
  */
 package com.serotonin.bacnet4j.service.unconfirmed;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.serotonin.bacnet4j.LocalDevice;
 import com.serotonin.bacnet4j.exception.BACnetException;
-import com.serotonin.bacnet4j.exception.NotImplementedException;
+import com.serotonin.bacnet4j.exception.BACnetServiceException;
+import com.serotonin.bacnet4j.obj.BACnetObject;
+import com.serotonin.bacnet4j.obj.ChannelObject;
 import com.serotonin.bacnet4j.type.constructed.Address;
 import com.serotonin.bacnet4j.type.constructed.GroupChannelValue;
+import com.serotonin.bacnet4j.type.constructed.PropertyValue;
 import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.Unsigned32;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
 import com.serotonin.bacnet4j.util.sero.ByteQueue;
 
 public class WriteGroupRequest extends UnconfirmedRequestService {
+    static final Logger LOG = LoggerFactory.getLogger(WriteGroupRequest.class);
+
     public static final byte TYPE_ID = 10;
 
     private final Unsigned32 groupNumber; // 0
@@ -78,7 +92,47 @@ public class WriteGroupRequest extends UnconfirmedRequestService {
 
     @Override
     public void handle(final LocalDevice localDevice, final Address from) throws BACnetException {
-        throw new NotImplementedException();
+        // Requests with an invalid group or priority are ignored.
+        if (groupNumber.longValue() == 0 || !isValidPriority(writePriority))
+            return;
+
+        // Find the channels in the group in one pass over the objects.
+        final Map<Integer, List<ChannelObject>> channels = new HashMap<>();
+        for (final BACnetObject bo : localDevice.getLocalObjects()) {
+            if (bo instanceof ChannelObject) {
+                final ChannelObject channel = (ChannelObject) bo;
+                if (channel.isInControlGroup(groupNumber.longValue()))
+                    channels.computeIfAbsent(channel.getChannelNumber(), k -> new ArrayList<>()).add(channel);
+            }
+        }
+        if (channels.isEmpty())
+            return;
+
+        for (final GroupChannelValue change : changeList) {
+            final List<ChannelObject> members = channels.get(change.getChannel().intValue());
+            if (members == null)
+                continue;
+
+            UnsignedInteger priority = writePriority;
+            if (change.getOverridingPriority() != null) {
+                if (!isValidPriority(change.getOverridingPriority()))
+                    continue;
+                priority = change.getOverridingPriority();
+            }
+
+            for (final ChannelObject channel : members) {
+                try {
+                    channel.writeProperty(null,
+                            new PropertyValue(PropertyIdentifier.presentValue, null, change.getValue(), priority));
+                } catch (final BACnetServiceException e) {
+                    LOG.warn("Failed to write group value to channel {}", channel.getId(), e);
+                }
+            }
+        }
+    }
+
+    private static boolean isValidPriority(final UnsignedInteger priority) {
+        return priority.intValue() >= 1 && priority.intValue() <= 16;
     }
 
     @Override
@@ -0,0 +1,123 @@
+package com.serotonin.bacnet4j.transport;
+
+/**
+ * The segment window and round trip statistics of segmented transfers to a single peer.
+ *
+ * The window is the number of segments that are proposed to the peer at the start of a segmented transfer. It starts
+ * fully open at the transport's configured segment window. It is halved each time the peer negatively acknowledges a
+ * window or a window times out, and grows by one segment for each window that the peer acknowledges cleanly, until it
+ * is fully open again.
+ *
+ * The round trip time is measured from the sending of the last segment of a window to the receipt of its SegmentACK,
+ * excluding windows that had to be resent, and is smoothed in the same way as TCP. While the window is not fully
+ * open, the segments of each window are paced over the smoothed round trip time rather than being sent back to back,
+ * so that a slow link or router is not sent bursts that it cannot buffer.
+ */
+public class AdaptiveSegmentWindow {
+    // The current window, or 0 if the window is fully open.
+    private int window;
+
+    // The smoothed round trip time and its variation, in ms. The smoothed value is -1 until there is a sample.
+    private long smoothedRtt = -1;
+    private long rttVariation;
+
+    private long acks;
+    private long negativeAcks;
+    private long timeouts;
+
+    /**
+     * @param maxWindow
+     *            the configured segment window of the transport
+     * @return the window to propose to the peer
+     */
+    public synchronized int getWindowSize(final int maxWindow) {
+        if (window == 0 || window > maxWindow)
+            return maxWindow;
+        return window;
+    }
+
+    /**
+     * @return true if the window has been reduced because of lost segments or acknowledgements.
+     */
+    public synchronized boolean isBackedOff(final int maxWindow) {
+        return getWindowSize(maxWindow) < maxWindow;
+    }
+
+    /**
+     * @return the smoothed round trip time in ms, or -1 if no round trip has been measured yet.
+     */
+    public synchronized long getSmoothedRtt() {
+        return smoothedRtt;
+    }
+
+    public synchronized long getRttVariation() {
+        return rttVariation;
+    }
+
+    public synchronized long getAcks() {
+        return acks;
+    }
+
+    public synchronized long getNegativeAcks() {
+        return negativeAcks;
+    }
+
+    public synchronized long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Called when the peer has acknowledged all of the segments of a window.
+     *
+     * @param rtt
+     *            the round trip time of the window, or -1 if it is not to be sampled.
+     */
+    synchronized void acknowledged(final long rtt, final int maxWindow) {
+        acks++;
+        if (rtt >= 0) {
+            if (smoothedRtt == -1) {
+                smoothedRtt = rtt;
+                rttVariation = rtt / 2;
+            } else {
+                rttVariation = (3 * rttVariation + Math.abs(smoothedRtt - rtt)) / 4;
+                smoothedRtt = (7 * smoothedRtt + rtt) / 8;
+            }
+        }
+
+        if (window != 0 && ++window >= maxWindow)
+            window = 0;
+    }
+
+    synchronized void negativelyAcknowledged(final int maxWindow) {
+        negativeAcks++;
+        backOff(maxWindow);
+    }
+
+    synchronized void timedOut(final int maxWindow) {
+        timeouts++;
+        backOff(maxWindow);
+    }
+
+    private void backOff(final int maxWindow) {
+        window = Math.max(1, getWindowSize(maxWindow) / 2);
+    }
+
+    /**
+     * @param windowSize
+     *            the number of segments in the window that is to be sent.
+     * @param segTimeout
+     *            the transport's segment timeout, which bounds the time over which the window is spread.
+     * @return the time in ms to wait between the segments of a window, or 0 if they can be sent back to back.
+     */
+    synchronized long getPacingInterval(final int windowSize, final int maxWindow, final int segTimeout) {
+        if (!isBackedOff(maxWindow) || smoothedRtt <= 0 || windowSize < 2)
+            return 0;
+        return Math.min(smoothedRtt, segTimeout / 2) / windowSize;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AdaptiveSegmentWindow [window=" + window + ", smoothedRtt=" + smoothedRtt + ", rttVariation="
+                + rttVariation + ", acks=" + acks + ", negativeAcks=" + negativeAcks + ", timeouts=" + timeouts + "]";
+    }
+}
@@ -28,12 +28,19 @@
  */
 package com.serotonin.bacnet4j.transport;
 
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +59,7 @@ import com.serotonin.bacnet4j.apdu.Segmentable;
 import com.serotonin.bacnet4j.apdu.SimpleACK;
 import com.serotonin.bacnet4j.apdu.UnconfirmedRequest;
 import com.serotonin.bacnet4j.enums.MaxSegments;
+import com.serotonin.bacnet4j.exception.BACnetAbortException;
 import com.serotonin.bacnet4j.exception.BACnetErrorException;
 import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.exception.BACnetRecoverableException;
@@ -66,10 +74,12 @@ import com.serotonin.bacnet4j.npdu.NetworkIdentifier;
 import com.serotonin.bacnet4j.service.acknowledgement.AcknowledgementService;
 import com.serotonin.bacnet4j.service.confirmed.ConfirmedRequestService;
 import com.serotonin.bacnet4j.service.confirmed.DeviceCommunicationControlRequest.EnableDisable;
+import com.serotonin.bacnet4j.service.confirmed.ResponseSizeLimit;
 import com.serotonin.bacnet4j.service.unconfirmed.IAmRequest;
 import com.serotonin.bacnet4j.service.unconfirmed.UnconfirmedRequestService;
 import com.serotonin.bacnet4j.type.constructed.Address;
 import com.serotonin.bacnet4j.type.constructed.ServicesSupported;
+import com.serotonin.bacnet4j.type.enumerated.AbortReason;
 import com.serotonin.bacnet4j.type.enumerated.ErrorClass;
 import com.serotonin.bacnet4j.type.enumerated.ErrorCode;
 import com.serotonin.bacnet4j.type.enumerated.Segmentation;
@@ -84,6 +94,7 @@ import com.serotonin.bacnet4j.util.sero.ThreadUtils;
 public class DefaultTransport implements Transport, Runnable {
     static final Logger LOG = LoggerFactory.getLogger(DefaultTransport.class);
     static final MaxSegments MAX_SEGMENTS = MaxSegments.MORE_THAN_64;
+    public static final int DEFAULT_MAX_PENDING_REQUESTS = 32;
 
     final Map<Integer, OctetString> networkRouters = new ConcurrentHashMap<>();
 
@@ -94,12 +105,23 @@ public class DefaultTransport implements Transport, Runnable {
     int retries = DEFAULT_RETRIES;
     int segTimeout = DEFAULT_SEG_TIMEOUT;
     int segWindow = DEFAULT_SEG_WINDOW;
+    int maxPendingRequests = DEFAULT_MAX_PENDING_REQUESTS;
     ServicesSupported servicesSupported;
 
     // Message queues
     private final Queue<Outgoing> outgoing = new ConcurrentLinkedQueue<>();
     private final Queue<NPDU> incoming = new ConcurrentLinkedQueue<>();
     private final Queue<DelayedOutgoing> delayedOutgoing = new LinkedList<>();
+    private final Queue<PacedSegment> pacedSegments = new PriorityQueue<>(
+            Comparator.comparingLong((final PacedSegment ps) -> ps.sendTime).thenComparingLong(ps -> ps.order));
+    private long pacedSegmentCount;
+
+    // Responses to incoming requests that were handled asynchronously, and the number of such requests pending.
+    private final Queue<Runnable> completedRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingRequests = new AtomicInteger();
+
+    // Segmentation flow control, by peer.
+    private final Map<Address, AdaptiveSegmentWindow> segmentWindows = new ConcurrentHashMap<>();
 
     // Processing
     final UnackedMessages unackedMessages = new UnackedMessages();
@@ -160,6 +182,37 @@ public class DefaultTransport implements Transport, Runnable {
         return segWindow;
     }
 
+    /**
+     * Sets the number of incoming requests that may block which can be pending at once. Further such requests are
+     * aborted with out of resources until some of them complete.
+     */
+    public void setMaxPendingRequests(final int maxPendingRequests) {
+        this.maxPendingRequests = maxPendingRequests;
+    }
+
+    public int getMaxPendingRequests() {
+        return maxPendingRequests;
+    }
+
+    /**
+     * @return the number of incoming requests whose responses are pending.
+     */
+    public int getPendingRequests() {
+        return pendingRequests.get();
+    }
+
+    /**
+     * @return the segment window and round trip statistics of segmented transfers to the given peer, or null if
+     *         there have not been any.
+     */
+    public AdaptiveSegmentWindow getAdaptiveSegmentWindow(final Address address) {
+        return segmentWindows.get(address);
+    }
+
+    AdaptiveSegmentWindow adaptiveSegmentWindow(final Address address) {
+        return segmentWindows.computeIfAbsent(address, a -> new AdaptiveSegmentWindow());
+    }
+
     @Override
     public Network getNetwork() {
         return network;
@@ -383,13 +436,14 @@ public class DefaultTransport implements Transport, Runnable {
                     throw new ServiceTooBigException("Request too big to send to device; too many segments required");
 
                 // Prepare the segmenting session.
+                final int window = adaptiveSegmentWindow(address).getWindowSize(segWindow);
                 ctx.setSegmentTemplate(new ConfirmedRequest(true, true, true, MAX_SEGMENTS, network.getMaxApduLength(),
-                        key.getInvokeId(), 0, segWindow, service.getChoiceId(), null, service.getNetworkPriority()));
+                        key.getInvokeId(), 0, window, service.getChoiceId(), null, service.getNetworkPriority()));
                 ctx.setServiceData(serviceData);
                 ctx.setSegBuf(new byte[maxServiceData]);
 
                 // Send an initial message to negotiate communication terms.
-                apdu = ctx.getSegmentTemplate().clone(true, 0, segWindow, ctx.getNextSegment());
+                apdu = ctx.getSegmentTemplate().clone(true, 0, window, ctx.getNextSegment());
             } else
                 // We can send the whole APDU in one shot.
                 apdu = new ConfirmedRequest(false, false, true, MAX_SEGMENTS, network.getMaxApduLength(),
@@ -445,6 +499,37 @@ public class DefaultTransport implements Transport, Runnable {
         }
     }
 
+    /**
+     * A segment that is waiting for its time to be sent, in order to pace the segments of a window.
+     */
+    class PacedSegment {
+        final UnackedMessageKey key;
+        final UnackedMessageContext ctx;
+        final APDU segment;
+        final int generation;
+        final long sendTime;
+        final long order = pacedSegmentCount++;
+
+        PacedSegment(final UnackedMessageKey key, final UnackedMessageContext ctx, final APDU segment,
+                final int generation, final long sendTime) {
+            this.key = key;
+            this.ctx = ctx;
+            this.segment = segment;
+            this.generation = generation;
+            this.sendTime = sendTime;
+        }
+
+        void send() {
+            // Ignore the segment if the window it belongs to has since been resent or abandoned.
+            if (ctx.getPacingGeneration() != generation)
+                return;
+            if (!sendSegment(key, ctx, segment))
+                unackedMessages.getRequests().remove(key, ctx);
+            else if (((Segmentable) segment).getSequenceNumber() == ctx.getLastIdSent())
+                ctx.setWindowSentTime(localDevice.getClock().millis());
+        }
+    }
+
     class DelayedOutgoing {
         final Outgoing outgoing;
         final long retryTime;
@@ -486,6 +571,17 @@ public class DefaultTransport implements Transport, Runnable {
                 pause = false;
             }
 
+            // Respond to a request that was handled asynchronously.
+            final Runnable completed = completedRequests.poll();
+            if (completed != null) {
+                try {
+                    completed.run();
+                } catch (final Exception e) {
+                    LOG.error("Error during response", e);
+                }
+                pause = false;
+            }
+
             // Receive an incoming message.
             in = incoming.poll();
             if (in != null) {
@@ -515,6 +611,17 @@ public class DefaultTransport implements Transport, Runnable {
                 }
             }
 
+            // Send paced segments that are due.
+            if (!pacedSegments.isEmpty()) {
+                final long now = localDevice.getClock().millis();
+                PacedSegment paced;
+                while ((paced = pacedSegments.peek()) != null && paced.sendTime <= now) {
+                    pacedSegments.remove();
+                    paced.send();
+                    pause = false;
+                }
+            }
+
             if (pause && running) {
                 try {
                     pause = expire();
@@ -523,8 +630,13 @@ public class DefaultTransport implements Transport, Runnable {
                 }
             }
 
-            if (pause && running)
-                ThreadUtils.waitSync(pauseLock, 50);
+            if (pause && running) {
+                long wait = 50;
+                final PacedSegment paced = pacedSegments.peek();
+                if (paced != null)
+                    wait = Math.max(1, Math.min(wait, paced.sendTime - localDevice.getClock().millis()));
+                ThreadUtils.waitSync(pauseLock, wait);
+            }
         }
     }
 
@@ -699,7 +811,7 @@ public class DefaultTransport implements Transport, Runnable {
             LOG.debug("Received first segment {} for {}", currentSeq, key);
 
             // This is the first segment.
-            ctx.setSegmentWindow(new SegmentWindow(windowSize, currentSeq + 1));
+            ctx.setSegmentWindow(new SegmentWindow(windowSize, currentSeq + 1, msg));
             ctx.setSegmentedMessage(msg);
 
             // Send a segment acknowledgement going with the proposed window size.
@@ -716,7 +828,15 @@ public class DefaultTransport implements Transport, Runnable {
 
                 // Do we need to send an ack?
                 complete = segmentWindow.isMessageComplete();
-                if (complete || segmentWindow.isFull()) {
+                if (!complete && !segmentWindow.isFull()
+                        && (segmentWindow.isLastSegment(currentSeq) || !msg.isMoreFollows())) {
+                    // The end of the window has arrived, but segments before it are missing. Ask for them to be
+                    // resent rather than waiting for the sender to time out.
+                    final int lastSeq = segmentWindow.getLastInOrderSequenceId();
+                    LOG.debug("Sending nak for segment {}, key={}", lastSeq, key);
+                    network.sendAPDU(key.getAddress(), key.getLinkService(), new SegmentACK(true, !key.isFromServer(),
+                            msg.getInvokeId(), lastSeq, windowSize, true), false);
+                } else if (complete || segmentWindow.isFull()) {
                     final int lastSeq = segmentWindow.getLatestSequenceId();
 
                     LOG.debug("Sending ack for segment {}, key={}", lastSeq, key);
@@ -725,14 +845,20 @@ public class DefaultTransport implements Transport, Runnable {
                     network.sendAPDU(key.getAddress(), key.getLinkService(), new SegmentACK(false, !key.isFromServer(),
                             msg.getInvokeId(), lastSeq, windowSize, !segmentWindow.isMessageComplete()), false);
 
-                    // Append the window onto the original response.
-                    for (final Segmentable segment : segmentWindow.getSegments()) {
-                        ctx.getSegmentedMessage().appendServiceData(segment.getServiceData());
-                        if (!segment.isMoreFollows())
-                            break;
-                    }
-                    segmentWindow.clear(lastSeq + 1);
+                    // Append the window onto the reassembled data.
+                    segmentWindow.commit(lastSeq + 1);
+                    if (complete)
+                        ctx.getSegmentedMessage().setServiceData(segmentWindow.getServiceData());
                 }
+            } else if (currentSeq < segmentWindow.getFirstSequenceId()) {
+                // A segment that was already received. The sender probably did not get the ack for its window, so
+                // send it again.
+                final int lastSeq = segmentWindow.getFirstSequenceId() - 1;
+                LOG.debug("Received duplicate segment {}. Resending ack for segment {}, key={}", currentSeq, lastSeq,
+                        key);
+                network.sendAPDU(key.getAddress(), key.getLinkService(),
+                        new SegmentACK(false, !key.isFromServer(), msg.getInvokeId(), lastSeq, windowSize, true),
+                        false);
             } else {
                 LOG.warn("Segment did not fit in segment window: segment={}, first={}, windowSize={}, key={}",
                         currentSeq, segmentWindow.getFirstSequenceId(), segmentWindow.getWindowSize(), key);
@@ -772,9 +898,36 @@ public class DefaultTransport implements Transport, Runnable {
      * This method handles outgoing segmented requests and responses.
      */
     private void segmentedOutgoing(final UnackedMessageKey key, final UnackedMessageContext ctx, final SegmentACK ack) {
-        // TODO handle NAK
+        final int sequenceNumber = ack.getSequenceNumber();
+        final AdaptiveSegmentWindow flow = adaptiveSegmentWindow(key.getAddress());
+
+        if (ack.isNegativeAck()) {
+            // The peer is missing the segments that follow the given sequence number. Resend them.
+            LOG.debug("Received segment nak {} for {}", sequenceNumber, key);
+            flow.negativelyAcknowledged(segWindow);
+            ctx.acknowledgeSegments(sequenceNumber);
+            final long pacing = resendSegments(key, ctx, flow);
+            if (pacing != -1) {
+                ctx.reset(segTimeout + (int) pacing, retries);
+                unackedMessages.add(key, ctx);
+            }
+            return;
+        }
+
+        LOG.debug("Received segment ack {} for {}", sequenceNumber, key);
+
+        if (sequenceNumber <= ctx.getLastIdAcked() || sequenceNumber < ctx.getLastIdSent()) {
+            // This is a repeated ack, or an ack for an inter-window segment. We wait for the ack for the last segment
+            // that was sent.
+            ctx.acknowledgeSegments(sequenceNumber);
+            unackedMessages.add(key, ctx);
+            return;
+        }
 
-        LOG.debug("Received segment ack {} for {}", ack.getSequenceNumber(), key);
+        // The window has been acknowledged. Only sample the round trip if none of the window was resent.
+        final long now = localDevice.getClock().millis();
+        flow.acknowledged(ctx.isWindowResent() ? -1 : now - ctx.getWindowSentTime(), segWindow);
+        ctx.acknowledgeSegments(sequenceNumber);
 
         if (ctx.getServiceData().size() == 0) {
             // There any no more segments to send. If this is a request, expect the response.
@@ -785,44 +938,161 @@ public class DefaultTransport implements Transport, Runnable {
             return;
         }
 
-        // This may be a segment ack for an inter-window segment. We ignore all segment acks except for the
-        // one for the last segment that was sent.
-        if (ack.getSequenceNumber() < ctx.getLastIdSent())
-            return;
-
-        int remaining = ack.getActualWindowSize();
-
         // Send the next window of messages.
-        int sequenceNumber = ctx.getLastIdSent();
-        while (remaining > 0 && ctx.getServiceData().size() > 0) {
+        final int windowSize = ack.getActualWindowSize();
+        final int generation = ctx.nextPacingGeneration();
+        final long interval = flow.getPacingInterval(windowSize, segWindow, segTimeout);
+        ctx.setWindowResent(false);
+
+        int sequenceId = ctx.getLastIdSent();
+        int count = 0;
+        while (count < windowSize && ctx.getServiceData().size() > 0) {
             final ByteQueue segData = ctx.getNextSegment();
-            final APDU segment = ctx.getSegmentTemplate().clone(ctx.getServiceData().size() > 0, ++sequenceNumber,
-                    ack.getActualWindowSize(), segData);
+            final APDU segment = ctx.getSegmentTemplate().clone(ctx.getServiceData().size() > 0, ++sequenceId,
+                    windowSize, segData);
+            ctx.addUnackedSegment(segment);
 
-            LOG.debug("Sending segment {} for {}", sequenceNumber, key);
-            try {
-                network.sendAPDU(key.getAddress(), key.getLinkService(), segment, false);
-            } catch (final BACnetException e) {
-                ctx.useConsumer((consumer) -> consumer.ex(e));
-                return;
-            }
+            if (count == 0 || interval == 0) {
+                LOG.debug("Sending segment {} for {}", sequenceId, key);
+                if (!sendSegment(key, ctx, segment))
+                    return;
+            } else
+                pacedSegments.add(new PacedSegment(key, ctx, segment, generation, now + count * interval));
 
-            remaining--;
+            count++;
         }
-        ctx.setLastIdSent(sequenceNumber);
-        ctx.reset(segTimeout, retries);
+        ctx.setLastIdSent(sequenceId);
+        ctx.setWindowSentTime(now);
+        ctx.reset(segTimeout + (int) ((count - 1) * interval), retries);
 
         // Expect the segment ack.
         unackedMessages.add(key, ctx);
     }
 
+    /**
+     * Resends the segments that the peer has not acknowledged, paced according to its segment window.
+     *
+     * @return the time in ms over which the segments will be sent, or -1 if the transfer has been abandoned.
+     */
+    private long resendSegments(final UnackedMessageKey key, final UnackedMessageContext ctx,
+            final AdaptiveSegmentWindow flow) {
+        final List<APDU> segments = ctx.getUnackedSegments();
+        final int generation = ctx.nextPacingGeneration();
+        final long interval = flow.getPacingInterval(segments.size(), segWindow, segTimeout);
+        final long now = localDevice.getClock().millis();
+        ctx.setWindowResent(true);
+
+        for (int i = 0; i < segments.size(); i++) {
+            final APDU segment = segments.get(i);
+            if (i == 0 || interval == 0) {
+                LOG.debug("Resending segment {} for {}", ((Segmentable) segment).getSequenceNumber(), key);
+                if (!sendSegment(key, ctx, segment))
+                    return -1;
+            } else
+                pacedSegments.add(new PacedSegment(key, ctx, segment, generation, now + i * interval));
+        }
+
+        return Math.max(0, segments.size() - 1) * interval;
+    }
+
+    /**
+     * @return true if the segment was sent, false if the transfer has been abandoned, in which case the caller is to
+     *         remove the context from the unacked messages.
+     */
+    boolean sendSegment(final UnackedMessageKey key, final UnackedMessageContext ctx, final APDU segment) {
+        try {
+            network.sendAPDU(key.getAddress(), key.getLinkService(), segment, false);
+            return true;
+        } catch (final BACnetException e) {
+            ctx.nextPacingGeneration();
+            ctx.useConsumer((consumer) -> consumer.ex(e));
+            return false;
+        }
+    }
+
     private void incomingConfirmedRequest(final ConfirmedRequest confAPDU, final Address address,
             final OctetString linkService, final byte invokeId) {
+        final CompletableFuture<AcknowledgementService> future;
+        try {
+            confAPDU.parseServiceData();
+            future = handleConfirmedRequest(address, invokeId, confAPDU.getServiceRequest(),
+                    responseSizeLimit(confAPDU));
+        } catch (final BACnetException e) {
+            respond(confAPDU, address, linkService, invokeId, null, e);
+            return;
+        }
+
+        if (future.isDone()) {
+            // Handled on this thread, so respond right away.
+            respondWhenDone(confAPDU, address, linkService, invokeId, future);
+            return;
+        }
+
+        // The response is sent from the transport thread when the handler completes.
+        pendingRequests.incrementAndGet();
+        future.whenComplete((ack, t) -> {
+            completedRequests.add(() -> {
+                pendingRequests.decrementAndGet();
+                respondWhenDone(confAPDU, address, linkService, invokeId, future);
+            });
+            ThreadUtils.notifySync(pauseLock);
+        });
+    }
+
+    private CompletableFuture<AcknowledgementService> handleConfirmedRequest(final Address from,
+            final byte invokeId, final ConfirmedRequestService service, final ResponseSizeLimit limit)
+            throws BACnetException {
+        if (service.isBlocking() && pendingRequests.get() >= maxPendingRequests) {
+            LOG.debug("Too many pending requests, aborting request from {}: {}", from, service);
+            throw new BACnetAbortException(AbortReason.outOfResources);
+        }
+
+        try {
+            localDevice.getEventHandler().requestReceived(from, service);
+            return service.handleAsync(localDevice, from, limit).toCompletableFuture();
+        } catch (final Exception e) {
+            throw handlerException(from, invokeId, service, e);
+        }
+    }
+
+    private void respondWhenDone(final ConfirmedRequest confAPDU, final Address address,
+            final OctetString linkService, final byte invokeId, final CompletableFuture<AcknowledgementService> future) {
+        AcknowledgementService ackService = null;
+        BACnetException ex = null;
+        try {
+            ackService = future.join();
+        } catch (final CompletionException | CancellationException e) {
+            final Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            ex = handlerException(address, invokeId, confAPDU.getServiceRequest(), cause);
+        }
+        respond(confAPDU, address, linkService, invokeId, ackService, ex);
+    }
+
+    /**
+     * Converts an exception from a request handler into the exception that determines the response.
+     */
+    private static BACnetException handlerException(final Address from, final byte invokeId,
+            final ConfirmedRequestService service, final Throwable t) {
+        if (t instanceof NotImplementedException) {
+            LOG.warn("Unsupported confirmed request: invokeId=" + invokeId + ", from=" + from + ", request="
+                    + service.getClass().getName());
+            return new BACnetErrorException(ErrorClass.services, ErrorCode.serviceRequestDenied);
+        }
+        if (t instanceof BACnetErrorException || t instanceof BACnetAbortException)
+            return (BACnetException) t;
+        LOG.warn("Error while handling confirmed request", t);
+        return new BACnetErrorException(ErrorClass.device, ErrorCode.operationalProblem);
+    }
+
+    /**
+     * Sends the response to a request, or the error, reject or abort for the given exception.
+     */
+    private void respond(final ConfirmedRequest confAPDU, final Address address, final OctetString linkService,
+            final byte invokeId, final AcknowledgementService ackService, final BACnetException ex) {
         try {
             try {
-                confAPDU.parseServiceData();
-                final AcknowledgementService ackService = handleConfirmedRequest(address, invokeId,
-                        confAPDU.getServiceRequest());
+                if (ex != null)
+                    throw ex;
 
                 // 16.1.2: Check if communication is currently disabled. If so, only certain requests are responded.
                 boolean allowResponse = true;
@@ -845,6 +1115,10 @@ public class DefaultTransport implements Transport, Runnable {
                         new com.serotonin.bacnet4j.apdu.Error(invokeId, e.getBacnetError()), false);
             } catch (final BACnetRejectException e) {
                 network.sendAPDU(address, linkService, new Reject(invokeId, e.getRejectReason()), false);
+            } catch (final BACnetAbortException e) {
+                LOG.debug("Aborting incoming request from {}: {}", address, e.getMessage());
+                network.sendAPDU(address, linkService, new Abort(true, invokeId, e.getAbortReason().intValue()),
+                        false);
             } catch (final BACnetException e) {
                 LOG.warn("Error handling incoming request", e);
                 final com.serotonin.bacnet4j.apdu.Error error = new com.serotonin.bacnet4j.apdu.Error(
@@ -858,23 +1132,6 @@ public class DefaultTransport implements Transport, Runnable {
         }
     }
 
-    private AcknowledgementService handleConfirmedRequest(final Address from, final byte invokeId,
-            final ConfirmedRequestService service) throws BACnetException {
-        try {
-            localDevice.getEventHandler().requestReceived(from, service);
-            return service.handle(localDevice, from);
-        } catch (@SuppressWarnings("unused") final NotImplementedException e) {
-            LOG.warn("Unsupported confirmed request: invokeId=" + invokeId + ", from=" + from + ", request="
-                    + service.getClass().getName());
-            throw new BACnetErrorException(ErrorClass.services, ErrorCode.serviceRequestDenied);
-        } catch (final BACnetErrorException e) {
-            throw e;
-        } catch (final Exception e) {
-            LOG.warn("Error while handling confirmed request", e);
-            throw new BACnetErrorException(ErrorClass.device, ErrorCode.operationalProblem);
-        }
-    }
-
     private void sendConfirmedResponse(final Address address, final OctetString linkService,
             final ConfirmedRequest request, final AcknowledgementService response) throws BACnetException {
         if (response == null)
@@ -891,11 +1148,8 @@ public class DefaultTransport implements Transport, Runnable {
                 final int maxServiceData = request.getMaxApduLengthAccepted().getMaxLengthInt()
                         - ComplexACK.getHeaderSize(true);
                 // Check if the device can accept what we want to send.
-                if (!request.isSegmentedResponseAccepted())
-                    throw new ServiceTooBigException("Response too big to send to device without segmentation");
-                final int segmentsRequired = serviceData.size() / maxServiceData + 1;
-                if (segmentsRequired > request.getMaxSegmentsAccepted().getMaxSegments() || segmentsRequired > 128)
-                    throw new ServiceTooBigException("Response too big to send to device; too many segments required");
+                responseSizeLimit(request).check(serviceData.size());
+                final int segmentsRequired = (serviceData.size() + maxServiceData - 1) / maxServiceData;
 
                 LOG.debug("Sending confirmed response as segmented with {} segments", segmentsRequired);
                 // Prepare the segmenting session.
@@ -904,13 +1158,14 @@ public class DefaultTransport implements Transport, Runnable {
                 final UnackedMessageKey key = unackedMessages.addServer(address, linkService, request.getInvokeId(),
                         ctx);
 
+                final int window = adaptiveSegmentWindow(address).getWindowSize(segWindow);
                 ctx.setSegmentTemplate(
-                        new ComplexACK(true, true, request.getInvokeId(), 0, segWindow, response.getChoiceId(), null));
+                        new ComplexACK(true, true, request.getInvokeId(), 0, window, response.getChoiceId(), null));
                 ctx.setServiceData(serviceData);
                 ctx.setSegBuf(new byte[maxServiceData]);
 
                 // Send an initial message to negotiate communication terms.
-                final APDU apdu = ctx.getSegmentTemplate().clone(true, 0, segWindow, ctx.getNextSegment());
+                final APDU apdu = ctx.getSegmentTemplate().clone(true, 0, window, ctx.getNextSegment());
 
                 ctx.setOriginalApdu(apdu);
                 sendForResponse(key, ctx);
@@ -922,6 +1177,21 @@ public class DefaultTransport implements Transport, Runnable {
         }
     }
 
+    /**
+     * @return the size of the largest response that the requester accepts. A response that does not fit is aborted
+     *         with segmentation-not-supported if the requester does not accept segmented responses, or with
+     *         buffer-overflow if it needs more segments than the requester accepts.
+     */
+    private static ResponseSizeLimit responseSizeLimit(final ConfirmedRequest request) {
+        final int maxApdu = request.getMaxApduLengthAccepted().getMaxLengthInt();
+        if (!request.isSegmentedResponseAccepted())
+            return new ResponseSizeLimit(maxApdu - ComplexACK.getHeaderSize(false),
+                    AbortReason.segmentationNotSupported);
+        final int maxSegments = Math.min(request.getMaxSegmentsAccepted().getMaxSegments(), 128);
+        return new ResponseSizeLimit(maxSegments * (maxApdu - ComplexACK.getHeaderSize(true)),
+                AbortReason.bufferOverflow);
+    }
+
     private boolean expire() {
         boolean didSomething = false;
 
@@ -935,15 +1205,32 @@ public class DefaultTransport implements Transport, Runnable {
             final UnackedMessageKey key = e.getKey();
             final UnackedMessageContext ctx = e.getValue();
             if (ctx.isExpired(now)) {
+                if (!ctx.getUnackedSegments().isEmpty()) {
+                    // A window of segments was not acknowledged in time.
+                    adaptiveSegmentWindow(key.getAddress()).timedOut(segWindow);
+                }
+
                 if (ctx.hasMoreAttempts()) {
-                    // Resend
-                    ctx.retry(timeout);
-                    sendForResponse(key, ctx);
+                    if (!ctx.getUnackedSegments().isEmpty()) {
+                        // Resend the segments that were not acknowledged.
+                        final long pacing = resendSegments(key, ctx, adaptiveSegmentWindow(key.getAddress()));
+                        if (pacing == -1)
+                            umIter.remove();
+                        else
+                            ctx.retry(segTimeout + (int) pacing);
+                    } else {
+                        // Resend
+                        if (ctx.getSegmentTemplate() != null)
+                            ctx.setWindowResent(true);
+                        ctx.retry(timeout);
+                        sendForResponse(key, ctx);
+                    }
                 } else {
                     LOG.debug("Timeout on key {}", key);
 
                     // Timeout
                     umIter.remove();
+                    ctx.nextPacingGeneration();
                     if (ctx.getSegmentWindow() == null) {
                         // Not a segmented message, at least as far as we know.
                         ctx.useConsumer((consumer) -> consumer.ex(new BACnetTimeoutException()));
@@ -979,6 +1266,9 @@ public class DefaultTransport implements Transport, Runnable {
     }
 
     void sendForResponse(final UnackedMessageKey key, final UnackedMessageContext ctx) {
+        if (ctx.getSegmentTemplate() != null && ctx.getLastIdAcked() == -1)
+            // The first segment, which is the start of the first window.
+            ctx.setWindowSentTime(localDevice.getClock().millis());
         try {
             network.sendAPDU(key.getAddress(), key.getLinkService(), ctx.getOriginalApdu(), false);
         } catch (final BACnetException e) {
@@ -29,51 +29,95 @@
 package com.serotonin.bacnet4j.transport;
 
 import com.serotonin.bacnet4j.apdu.Segmentable;
+import com.serotonin.bacnet4j.util.sero.ByteQueue;
 
+/**
+ * Tracks the segments of the current window of an incoming segmented message, and reassembles the service data of the
+ * message as the segments arrive.
+ *
+ * The service data is copied directly from each segment into a single buffer, so segments are not retained and each
+ * byte is copied once. Every segment but the last is expected to be the same size as the first segment, so a segment
+ * that arrives out of order is written at the offset of its slot in the window. When the window is committed the slots
+ * are normally already contiguous. Segments that are shorter or longer than expected are compacted at that point.
+ *
+ * The number of segments in a message is not known in advance, so the buffer is sized for the current window and
+ * grown geometrically.
+ */
 public class SegmentWindow {
     private int firstSequenceId;
-    private final Segmentable[] segments;
+    private final int windowSize;
+
+    // The length of the service data in each slot, or -1 if the segment has not been received.
+    private final int[] lengths;
+    private final boolean[] moreFollows;
+    // The data of segments that were too long for their slots.
+    private final ByteQueue[] oversized;
 
-    public SegmentWindow(final int windowSize, final int firstSequenceId) {
+    private byte[] buffer;
+    // The length of the reassembled data of the committed windows, which is where the current window starts.
+    private int length;
+    private final int slotSize;
+
+    /**
+     * @param first
+     *            the first segment of the message, the service data of which starts the reassembled data.
+     */
+    public SegmentWindow(final int windowSize, final int firstSequenceId, final Segmentable first) {
         this.firstSequenceId = firstSequenceId;
-        segments = new Segmentable[windowSize];
+        this.windowSize = windowSize;
+        lengths = new int[windowSize];
+        moreFollows = new boolean[windowSize];
+        oversized = new ByteQueue[windowSize];
+        clearSlots();
+
+        final ByteQueue data = first.getServiceData();
+        length = data.size();
+        slotSize = Math.max(1, length);
+        buffer = new byte[length + windowSize * slotSize];
+        data.peek(buffer, 0, length);
     }
 
     public int getFirstSequenceId() {
         return firstSequenceId;
     }
 
-    public Segmentable getSegment(final int sequenceId) {
-        return segments[sequenceId - firstSequenceId];
-    }
-
     public void setSegment(final Segmentable segment) {
-        segments[segment.getSequenceNumber() - firstSequenceId] = segment;
+        final int index = segment.getSequenceNumber() - firstSequenceId;
+        final ByteQueue data = segment.getServiceData();
+        final int len = data.size();
+
+        oversized[index] = null;
+        if (len > slotSize)
+            oversized[index] = (ByteQueue) data.clone();
+        else
+            data.peek(buffer, length + index * slotSize, len);
+        lengths[index] = len;
+        moreFollows[index] = segment.isMoreFollows();
     }
 
     public boolean fitsInWindow(final Segmentable segment) {
         final int index = segment.getSequenceNumber() - firstSequenceId;
-        if (index < 0 || index >= segments.length)
+        if (index < 0 || index >= windowSize)
             return false;
         return true;
     }
 
     public boolean isEmpty() {
-        for (int i = 0; i < segments.length; i++) {
-            if (segments[i] != null)
+        for (int i = 0; i < windowSize; i++) {
+            if (lengths[i] != -1)
                 return false;
         }
         return true;
     }
 
     /**
-     * The segment window is full if all slots are non-null.
+     * The segment window is full if all slots are filled.
      *
      * @return
      */
     public boolean isFull() {
-        for (int i = 0; i < segments.length; i++) {
-            if (segments[i] == null)
+        for (int i = 0; i < windowSize; i++) {
+            if (lengths[i] == -1)
                 return false;
         }
         return true;
@@ -86,38 +130,109 @@ public class SegmentWindow {
      * @return
      */
     public boolean isMessageComplete() {
-        for (int i = 0; i < segments.length; i++) {
-            if (segments[i] == null)
+        for (int i = 0; i < windowSize; i++) {
+            if (lengths[i] == -1)
                 return false;
-            if (!segments[i].isMoreFollows())
+            if (!moreFollows[i])
                 return true;
         }
         return false;
     }
 
-    public void clear(final int firstSequenceId) {
+    /**
+     * Appends the segments of the window, up to the first missing segment or the last segment of the message, to the
+     * reassembled data, and starts a new window.
+     */
+    public void commit(final int firstSequenceId) {
+        int count = 0;
+        boolean regular = true;
+        while (count < windowSize && lengths[count] != -1) {
+            if (oversized[count] != null)
+                regular = false;
+            if (!moreFollows[count++])
+                break;
+        }
+
+        if (regular) {
+            // The segments are already in place, unless one of them was short. Move the remainder down if so.
+            int dest = length;
+            for (int i = 0; i < count; i++) {
+                final int src = length + i * slotSize;
+                if (dest != src)
+                    System.arraycopy(buffer, src, buffer, dest, lengths[i]);
+                dest += lengths[i];
+            }
+            length = dest;
+        } else {
+            // A segment was too long for its slot. Gather the window and write it back.
+            int total = 0;
+            for (int i = 0; i < count; i++)
+                total += lengths[i];
+            final byte[] window = new byte[total];
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                if (oversized[i] == null)
+                    System.arraycopy(buffer, length + i * slotSize, window, pos, lengths[i]);
+                else
+                    oversized[i].peek(window, pos, lengths[i]);
+                pos += lengths[i];
+            }
+            ensureCapacity(length + total);
+            System.arraycopy(window, 0, buffer, length, total);
+            length += total;
+        }
+
         this.firstSequenceId = firstSequenceId;
-        for (int i = 0; i < segments.length; i++)
-            segments[i] = null;
+        clearSlots();
+        ensureCapacity(length + windowSize * slotSize);
+    }
+
+    /**
+     * @return the reassembled service data of the committed windows. The buffer is not copied, so the window must not
+     *         be used afterwards.
+     */
+    public ByteQueue getServiceData() {
+        return ByteQueue.wrap(buffer, length);
     }
 
     public boolean isLastSegment(final int sequenceId) {
-        return sequenceId == segments.length + firstSequenceId - 1;
+        return sequenceId == windowSize + firstSequenceId - 1;
     }
 
-    public Segmentable[] getSegments() {
-        return segments;
+    /**
+     * @return the sequence id of the last segment that was received in order, i.e. before the first empty slot.
+     */
+    public int getLastInOrderSequenceId() {
+        int i = 0;
+        while (i < windowSize && lengths[i] != -1)
+            i++;
+        return firstSequenceId + i - 1;
     }
 
     public int getLatestSequenceId() {
-        for (int i = segments.length - 1; i >= 0; i--) {
-            if (segments[i] != null)
-                return segments[i].getSequenceNumber();
+        for (int i = windowSize - 1; i >= 0; i--) {
+            if (lengths[i] != -1)
+                return firstSequenceId + i;
         }
         return -1;
     }
 
     public int getWindowSize() {
-        return segments.length;
+        return windowSize;
+    }
+
+    private void clearSlots() {
+        for (int i = 0; i < windowSize; i++) {
+            lengths[i] = -1;
+            oversized[i] = null;
+        }
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (buffer.length < capacity) {
+            final byte[] b = new byte[Math.max(capacity, buffer.length * 2)];
+            System.arraycopy(buffer, 0, b, 0, length);
+            buffer = b;
+        }
     }
 }
@@ -29,7 +29,9 @@
 package com.serotonin.bacnet4j.transport;
 
 import java.time.Clock;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import com.serotonin.bacnet4j.ResponseConsumer;
 import com.serotonin.bacnet4j.apdu.APDU;
@@ -61,6 +63,14 @@ public class UnackedMessageContext {
     private ByteQueue serviceData;
     private byte[] segBuf;
     private int lastIdSent;
+    // The segments of the current window that have been sent but not yet acknowledged, for resending.
+    private final List<APDU> unackedSegments = new ArrayList<>();
+    private int lastIdAcked = -1;
+    // When the last segment of the current window was sent, and whether any of the window had to be resent.
+    private long windowSentTime;
+    private boolean windowResent;
+    // Incremented whenever the segments that are queued for paced sending are superseded.
+    private int pacingGeneration;
 
     public UnackedMessageContext(final Clock clock, final int timeout, final int retries,
             final ResponseConsumer consumer, final ConfirmedRequestService service) {
@@ -157,6 +167,63 @@ public class UnackedMessageContext {
         this.lastIdSent = lastIdSent;
     }
 
+    /**
+     * Records a segment that has been sent as part of the current window.
+     */
+    public void addUnackedSegment(final APDU segment) {
+        unackedSegments.add(segment);
+    }
+
+    /**
+     * @return the segments that have been sent but not yet acknowledged, in sequence.
+     */
+    public List<APDU> getUnackedSegments() {
+        return unackedSegments;
+    }
+
+    /**
+     * Removes the segments up to and including the given sequence id from the unacknowledged segments.
+     */
+    public void acknowledgeSegments(final int sequenceId) {
+        if (sequenceId <= lastIdAcked)
+            return;
+        // The first segment is not in the list, since it is the original APDU.
+        final int count = Math.min(sequenceId - lastIdAcked, unackedSegments.size());
+        unackedSegments.subList(0, count).clear();
+        lastIdAcked = sequenceId;
+    }
+
+    /**
+     * @return the sequence id of the last segment that the peer has acknowledged, or -1 if none.
+     */
+    public int getLastIdAcked() {
+        return lastIdAcked;
+    }
+
+    public long getWindowSentTime() {
+        return windowSentTime;
+    }
+
+    public void setWindowSentTime(final long windowSentTime) {
+        this.windowSentTime = windowSentTime;
+    }
+
+    public boolean isWindowResent() {
+        return windowResent;
+    }
+
+    public void setWindowResent(final boolean windowResent) {
+        this.windowResent = windowResent;
+    }
+
+    public int getPacingGeneration() {
+        return pacingGeneration;
+    }
+
+    public int nextPacingGeneration() {
+        return ++pacingGeneration;
+    }
+
     public void useConsumer(final ConsumerClient client) {
         if (consumer != null) {
             client.use(consumer);
@@ -169,7 +236,8 @@ public class UnackedMessageContext {
                 + ", service=" + service + ", consumer=" + consumer + ", originalApdu=" + originalApdu
                 + ", segmentWindow=" + segmentWindow + ", segmentedMessage=" + segmentedMessage + ", segmentTemplate="
                 + segmentTemplate + ", serviceData=" + serviceData + ", segBuf=" + Arrays.toString(segBuf)
-                + ", lastIdSent=" + lastIdSent + "]";
+                + ", lastIdSent=" + lastIdSent + ", lastIdAcked=" + lastIdAcked + ", unackedSegments="
+                + unackedSegments.size() + "]";
     }
 
     @FunctionalInterface
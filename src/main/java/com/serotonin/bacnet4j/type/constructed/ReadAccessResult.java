@@ -31,6 +31,7 @@ package com.serotonin.bacnet4j.type.constructed;
 import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.type.AmbiguousValue;
 import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.EncodedValue;
 import com.serotonin.bacnet4j.type.ObjectTypePropertyReference;
 import com.serotonin.bacnet4j.type.ThreadLocalObjectTypePropertyReferenceStack;
 import com.serotonin.bacnet4j.type.ThreadLocalObjectTypeStack;
@@ -88,12 +89,25 @@ public class ReadAccessResult extends BaseType {
         private final PropertyIdentifier propertyIdentifier;
         private final UnsignedInteger propertyArrayIndex;
         private final Choice readResult;
+        // The encoding of the read result, if it is already known.
+        private final EncodedValue encodedReadResult;
 
         public Result(final PropertyIdentifier propertyIdentifier, final UnsignedInteger propertyArrayIndex,
                 final Encodable readResult) {
+            this(propertyIdentifier, propertyArrayIndex, readResult, null);
+        }
+
+        /**
+         * @param encodedReadResult
+         *            the encoding of the read result, which is written instead of encoding the result again. May be
+         *            null.
+         */
+        public Result(final PropertyIdentifier propertyIdentifier, final UnsignedInteger propertyArrayIndex,
+                final Encodable readResult, final EncodedValue encodedReadResult) {
             this.propertyIdentifier = propertyIdentifier;
             this.propertyArrayIndex = propertyArrayIndex;
             this.readResult = new Choice(4, readResult, choiceOptions);
+            this.encodedReadResult = encodedReadResult;
         }
 
         public Result(final PropertyIdentifier propertyIdentifier, final UnsignedInteger propertyArrayIndex,
@@ -101,6 +115,7 @@ public class ReadAccessResult extends BaseType {
             this.propertyIdentifier = propertyIdentifier;
             this.propertyArrayIndex = propertyArrayIndex;
             this.readResult = new Choice(5, readResult, choiceOptions);
+            encodedReadResult = null;
         }
 
         public UnsignedInteger getPropertyArrayIndex() {
@@ -129,12 +144,16 @@ public class ReadAccessResult extends BaseType {
         public void write(final ByteQueue queue) {
             write(queue, propertyIdentifier, 2);
             writeOptional(queue, propertyArrayIndex, 3);
-            write(queue, readResult);
+            if (encodedReadResult != null)
+                encodedReadResult.write(queue, 4);
+            else
+                write(queue, readResult);
         }
 
         public Result(final ByteQueue queue) throws BACnetException {
             propertyIdentifier = read(queue, PropertyIdentifier.class, 2);
             propertyArrayIndex = readOptional(queue, UnsignedInteger.class, 3);
+            encodedReadResult = null;
             try {
                 ThreadLocalObjectTypePropertyReferenceStack.set(new ObjectTypePropertyReference(
                         ThreadLocalObjectTypeStack.get(), propertyIdentifier, propertyArrayIndex));
@@ -1,9 +1,10 @@
 package com.serotonin.bacnet4j.util;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -14,10 +15,6 @@ import com.serotonin.bacnet4j.LocalDevice;
 import com.serotonin.bacnet4j.RemoteDevice;
 import com.serotonin.bacnet4j.exception.BACnetErrorException;
 import com.serotonin.bacnet4j.exception.BACnetException;
-import com.serotonin.bacnet4j.service.acknowledgement.AtomicReadFileAck;
-import com.serotonin.bacnet4j.service.confirmed.AtomicReadFileRequest;
-import com.serotonin.bacnet4j.service.confirmed.AtomicReadFileRequest.RecordAccess;
-import com.serotonin.bacnet4j.service.confirmed.AtomicReadFileRequest.StreamAccess;
 import com.serotonin.bacnet4j.service.confirmed.ReinitializeDeviceRequest;
 import com.serotonin.bacnet4j.service.confirmed.ReinitializeDeviceRequest.ReinitializedStateOfDevice;
 import com.serotonin.bacnet4j.type.constructed.SequenceOf;
@@ -29,8 +26,6 @@ import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
 import com.serotonin.bacnet4j.type.primitive.CharacterString;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
-import com.serotonin.bacnet4j.type.primitive.OctetString;
-import com.serotonin.bacnet4j.type.primitive.SignedInteger;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
 import com.serotonin.bacnet4j.util.sero.ArrayUtils;
 import com.serotonin.bacnet4j.util.sero.ThreadUtils;
@@ -160,55 +155,33 @@ public class BackupClient {
             result.add(localFile);
 
             LOG.info("Retrieving configuration file contents for {}, and saving to {}", fileOid, localFile);
-            int reqCount = 0;
+            final FileTransfer transfer = createFileTransfer(rd);
+            final FileTransfer.Statistics stats;
             if (fileAccessMethod.equals(FileAccessMethod.recordAccess)) {
-                // Record access files are written out as CRLF-delimited hex representations. The choice of the number
-                // of records per request is arbitrary because we don't know how big a record will be.
-                final UnsignedInteger recordsPerRequest = new UnsignedInteger(5);
-                int currentRecord = 0;
+                // Record access files are written out as CRLF-delimited hex representations.
                 try (PrintWriter out = new PrintWriter(localFile)) {
-                    while (true) {
-                        reqCount++;
-                        final AtomicReadFileRequest req = new AtomicReadFileRequest(fileOid,
-                                new RecordAccess(new SignedInteger(currentRecord), recordsPerRequest));
-                        final AtomicReadFileAck ack = localDevice.send(rd, req).get();
-
-                        for (final OctetString record : ack.getRecordAccess().getFileRecordData()) {
-                            out.println(ArrayUtils.toPlainHexString(record.getBytes()));
-                        }
-
-                        if (ack.getEndOfFile().booleanValue()) {
-                            break;
-                        }
-                        currentRecord += ack.getRecordAccess().getReturnedRecordCount().intValue();
-                    }
+                    stats = transfer.readRecords(fileOid,
+                            record -> out.println(ArrayUtils.toPlainHexString(record.getBytes())));
                 }
             } else {
-                // The choice of the number of bytes per request should be based upon the max APDU size of the target.
-                final UnsignedInteger octetsPerRequest = new UnsignedInteger(128);
-                int currentPosition = 0;
-                try (FileOutputStream out = new FileOutputStream(localFile)) {
-                    while (true) {
-                        reqCount++;
-                        final AtomicReadFileRequest req = new AtomicReadFileRequest(fileOid,
-                                new StreamAccess(new SignedInteger(currentPosition), octetsPerRequest));
-                        final AtomicReadFileAck ack = localDevice.send(rd, req).get();
-
-                        out.write(ack.getStreamAccess().getFileData().getBytes());
-
-                        if (ack.getEndOfFile().booleanValue()) {
-                            break;
-                        }
-                        currentPosition += ack.getStreamAccess().getFileData().getLength();
-                    }
+                try (FileChannel out = FileChannel.open(localFile.toPath(), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    stats = transfer.read(fileOid, out);
                 }
             }
-            LOG.info("Configuration file retrieved using {} requests", reqCount);
+            LOG.info("Configuration file retrieved using {} requests, {}", stats.getRequests(), stats);
         }
 
         return result;
     }
 
+    /**
+     * Override this method to configure the transfer of files, e.g. the number of requests in flight.
+     */
+    protected FileTransfer createFileTransfer(final RemoteDevice rd) {
+        return new FileTransfer(localDevice, rd);
+    }
+
     /**
      * Override this method to provide customized backup file names.
      *
@@ -0,0 +1,300 @@
+package com.serotonin.bacnet4j.util;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.RemoteDevice;
+import com.serotonin.bacnet4j.exception.BACnetException;
+import com.serotonin.bacnet4j.type.constructed.Address;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.enumerated.Segmentation;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+
+/**
+ * Discovers the extended information of remote devices that announce themselves with an IAm.
+ *
+ * A global WhoIs on a large site can produce thousands of IAms within seconds, and discovering each device takes
+ * several confirmed requests. So rather than starting a discovery for every IAm, the engine:
+ * <ul>
+ * <li>queues at most one discovery per device instance, updating a queued discovery with the latest IAm</li>
+ * <li>runs a bounded number of discoveries at a time</li>
+ * <li>limits the rate at which discoveries are started on each network, so that routers are not flooded</li>
+ * <li>runs discoveries of devices that are being looked for, e.g. by the RemoteDeviceFinder, first, and without
+ * holding them back by the rate limit</li>
+ * </ul>
+ */
+public class DiscoveryEngine {
+    static final Logger LOG = LoggerFactory.getLogger(DiscoveryEngine.class);
+
+    private static final Comparator<Job> ORDER = Comparator.comparing((final Job job) -> !job.prioritized)
+            .thenComparingLong(job -> job.sequence);
+
+    private final LocalDevice localDevice;
+
+    private int maxConcurrency = 8;
+    private double ratePerNetwork = 20;
+
+    // Queued and running jobs, by device instance number.
+    private final Map<Integer, Job> jobs = new HashMap<>();
+    // Queued jobs, by network number.
+    private final Map<Integer, TreeSet<Job>> queues = new HashMap<>();
+    private final Map<Integer, TokenBucket> buckets = new HashMap<>();
+    // Instance numbers that are being looked for, and until when.
+    private final Map<Integer, Long> wanted = new HashMap<>();
+    private int running;
+    private long nextSequence;
+    private ScheduledFuture<?> dispatchFuture;
+
+    public DiscoveryEngine(final LocalDevice localDevice) {
+        this.localDevice = localDevice;
+    }
+
+    public synchronized int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @param maxConcurrency
+     *            the maximum number of discoveries that run at the same time. Queued discoveries are started if the
+     *            maximum is raised.
+     */
+    public synchronized void setMaxConcurrency(final int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        dispatch();
+    }
+
+    public synchronized double getRatePerNetwork() {
+        return ratePerNetwork;
+    }
+
+    /**
+     * @param ratePerNetwork
+     *            the maximum number of discoveries that are started per second on each network. Up to this many can
+     *            be started at once after a quiet period.
+     */
+    public synchronized void setRatePerNetwork(final double ratePerNetwork) {
+        this.ratePerNetwork = ratePerNetwork;
+        buckets.clear();
+    }
+
+    public synchronized int getQueueSize() {
+        return jobs.size() - running;
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+
+    /**
+     * Queues the discovery of a device that sent an IAm. If the device is already queued, the queued discovery is
+     * updated with the given values instead.
+     */
+    public synchronized void discover(final int instanceNumber, final Address from,
+            final UnsignedInteger maxAPDULengthAccepted, final Segmentation segmentationSupported,
+            final UnsignedInteger vendorId) {
+        Job job = jobs.get(instanceNumber);
+        if (job != null) {
+            if (!job.running) {
+                // Update the queued job. The network may have changed.
+                queue(job.network).remove(job);
+                job.address = from;
+                job.network = network(from);
+                job.maxAPDULengthAccepted = maxAPDULengthAccepted;
+                job.segmentationSupported = segmentationSupported;
+                job.vendorId = vendorId;
+                queue(job.network).add(job);
+            }
+            return;
+        }
+
+        job = new Job();
+        job.instanceNumber = instanceNumber;
+        job.address = from;
+        job.network = network(from);
+        job.maxAPDULengthAccepted = maxAPDULengthAccepted;
+        job.segmentationSupported = segmentationSupported;
+        job.vendorId = vendorId;
+        job.sequence = nextSequence++;
+        job.prioritized = isWanted(instanceNumber);
+        jobs.put(instanceNumber, job);
+        queue(job.network).add(job);
+
+        dispatch();
+    }
+
+    /**
+     * Runs the discovery of the given device ahead of others if it is queued, or is queued within the given time.
+     */
+    public synchronized void prioritize(final int instanceNumber, final long timeout, final TimeUnit unit) {
+        final long now = localDevice.getClock().millis();
+        // Forget the devices that were looked for but never answered.
+        wanted.values().removeIf(until -> until < now);
+        wanted.put(instanceNumber, now + unit.toMillis(timeout));
+
+        final Job job = jobs.get(instanceNumber);
+        if (job != null && !job.running && !job.prioritized) {
+            final TreeSet<Job> queue = queue(job.network);
+            queue.remove(job);
+            job.prioritized = true;
+            queue.add(job);
+            dispatch();
+        }
+    }
+
+    /**
+     * Discards the queued discoveries.
+     */
+    public synchronized void clear() {
+        jobs.values().removeIf(job -> !job.running);
+        queues.clear();
+        wanted.clear();
+        if (dispatchFuture != null) {
+            dispatchFuture.cancel(false);
+            dispatchFuture = null;
+        }
+    }
+
+    synchronized void dispatch() {
+        final long now = localDevice.getClock().millis();
+        long wait = Long.MAX_VALUE;
+
+        while (running < maxConcurrency) {
+            // Find the best job at the head of a network queue that can be started now.
+            Job next = null;
+            final Iterator<Map.Entry<Integer, TreeSet<Job>>> iter = queues.entrySet().iterator();
+            while (iter.hasNext()) {
+                final Map.Entry<Integer, TreeSet<Job>> e = iter.next();
+                if (e.getValue().isEmpty()) {
+                    iter.remove();
+                    continue;
+                }
+
+                // Devices that are being looked for are not held back by the rate limit.
+                final Job head = e.getValue().first();
+                final long bucketWait = head.prioritized ? 0 : bucket(e.getKey()).getWait(now);
+                if (bucketWait > 0)
+                    wait = Math.min(wait, bucketWait);
+                else if (next == null || ORDER.compare(head, next) < 0)
+                    next = head;
+            }
+
+            if (next == null)
+                break;
+
+            queues.get(next.network).remove(next);
+            if (!next.prioritized)
+                bucket(next.network).take();
+            next.running = true;
+            running++;
+
+            final Job job = next;
+            localDevice.execute(() -> run(job));
+        }
+
+        if (wait != Long.MAX_VALUE && running < maxConcurrency
+                && (dispatchFuture == null || dispatchFuture.isDone()))
+            // Jobs are waiting for the rate limit.
+            dispatchFuture = localDevice.schedule(this::dispatch, wait, TimeUnit.MILLISECONDS);
+    }
+
+    private void run(final Job job) {
+        LOG.debug("{} received an IAm from {}. Asynchronously creating remote device",
+                localDevice.getInstanceNumber(), job.instanceNumber);
+        try {
+            final RemoteDevice rd = new RemoteDevice(localDevice, job.instanceNumber, job.address);
+            rd.setDeviceProperty(PropertyIdentifier.maxApduLengthAccepted, job.maxAPDULengthAccepted);
+            rd.setDeviceProperty(PropertyIdentifier.segmentationSupported, job.segmentationSupported);
+            rd.setDeviceProperty(PropertyIdentifier.vendorIdentifier, job.vendorId);
+            DiscoveryUtils.getExtendedDeviceInformation(localDevice, rd);
+            localDevice.getEventHandler().fireIAmReceived(rd);
+        } catch (final BACnetException e) {
+            LOG.warn("Error in {} while discovering extended device information from {} at {}", localDevice.getId(),
+                    job.instanceNumber, job.address, e);
+        } finally {
+            synchronized (this) {
+                running--;
+                jobs.remove(job.instanceNumber);
+                wanted.remove(job.instanceNumber);
+                dispatch();
+            }
+        }
+    }
+
+    private boolean isWanted(final int instanceNumber) {
+        final Long until = wanted.get(instanceNumber);
+        if (until == null)
+            return false;
+        if (until < localDevice.getClock().millis()) {
+            wanted.remove(instanceNumber);
+            return false;
+        }
+        return true;
+    }
+
+    private TreeSet<Job> queue(final int network) {
+        return queues.computeIfAbsent(network, k -> new TreeSet<>(ORDER));
+    }
+
+    private TokenBucket bucket(final int network) {
+        return buckets.computeIfAbsent(network, k -> new TokenBucket(ratePerNetwork));
+    }
+
+    private static int network(final Address address) {
+        return address.getNetworkNumber().intValue();
+    }
+
+    static class Job {
+        int instanceNumber;
+        Address address;
+        int network;
+        UnsignedInteger maxAPDULengthAccepted;
+        Segmentation segmentationSupported;
+        UnsignedInteger vendorId;
+        long sequence;
+        boolean prioritized;
+        boolean running;
+    }
+
+    /**
+     * Allows a number of discoveries per second, with bursts of up to the same number.
+     */
+    class TokenBucket {
+        private final double rate;
+        private final double burst;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(final double rate) {
+            this.rate = rate;
+            burst = Math.max(1, rate);
+            tokens = burst;
+            lastRefill = localDevice.getClock().millis();
+        }
+
+        /**
+         * @return the time in ms until a token is available.
+         */
+        long getWait(final long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(burst, tokens + (now - lastRefill) * rate / 1000);
+                lastRefill = now;
+            }
+            if (tokens >= 1)
+                return 0;
+            return Math.max(1, (long) Math.ceil((1 - tokens) * 1000 / rate));
+        }
+
+        void take() {
+            tokens--;
+        }
+    }
+}
@@ -28,22 +28,44 @@
  */
 package com.serotonin.bacnet4j.util;
 
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.serotonin.bacnet4j.LocalDevice;
 import com.serotonin.bacnet4j.RemoteDevice;
+import com.serotonin.bacnet4j.exception.AbortAPDUException;
 import com.serotonin.bacnet4j.exception.BACnetException;
+import com.serotonin.bacnet4j.exception.ErrorAPDUException;
+import com.serotonin.bacnet4j.exception.RejectAPDUException;
 import com.serotonin.bacnet4j.service.acknowledgement.ReadPropertyAck;
+import com.serotonin.bacnet4j.service.acknowledgement.ReadPropertyMultipleAck;
+import com.serotonin.bacnet4j.service.confirmed.ReadPropertyMultipleRequest;
 import com.serotonin.bacnet4j.service.confirmed.ReadPropertyRequest;
 import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.constructed.PropertyReference;
+import com.serotonin.bacnet4j.type.constructed.ReadAccessResult;
+import com.serotonin.bacnet4j.type.constructed.ReadAccessResult.Result;
+import com.serotonin.bacnet4j.type.constructed.ReadAccessSpecification;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
 import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 
 public class DiscoveryUtils {
+    static final Logger LOG = LoggerFactory.getLogger(DiscoveryUtils.class);
+
     public static void getExtendedDeviceInformation(final LocalDevice localDevice, final RemoteDevice d)
             throws BACnetException {
         final ObjectIdentifier oid = d.getObjectIdentifier();
 
         // Get the device's supported services
         if (d.getServicesSupported() == null) {
+            // Most devices support ReadPropertyMultiple, so first try to get the supported services along with the
+            // other properties in a single request.
+            if (readMultiple(localDevice, d))
+                return;
+
             final ReadPropertyAck supportedServicesAck = (ReadPropertyAck) localDevice
                     .send(d, new ReadPropertyRequest(oid, PropertyIdentifier.protocolServicesSupported)).get();
             d.setDeviceProperty(PropertyIdentifier.protocolServicesSupported, supportedServicesAck.getValue());
@@ -51,10 +73,7 @@ public class DiscoveryUtils {
 
         // Uses the readProperties method here because this list will probably be extended.
         final PropertyReferences properties = new PropertyReferences();
-        addIfMissing(d, properties, PropertyIdentifier.objectName);
-        addIfMissing(d, properties, PropertyIdentifier.protocolVersion);
-        addIfMissing(d, properties, PropertyIdentifier.vendorIdentifier);
-        addIfMissing(d, properties, PropertyIdentifier.modelName);
+        addExtendedProperties(d, properties);
 
         if (properties.size() > 0) {
             // Only send a request if we have to.
@@ -67,6 +86,54 @@ public class DiscoveryUtils {
         }
     }
 
+    /**
+     * Reads the supported services and the missing extended properties with a ReadPropertyMultiple request.
+     *
+     * @return true if the request succeeded, or false if the device does not support it.
+     */
+    private static boolean readMultiple(final LocalDevice localDevice, final RemoteDevice d) throws BACnetException {
+        final PropertyReferences properties = new PropertyReferences();
+        properties.add(d.getObjectIdentifier(), PropertyIdentifier.protocolServicesSupported);
+        addExtendedProperties(d, properties);
+
+        final List<PropertyReference> refs = properties.getProperties().get(d.getObjectIdentifier());
+        final ReadPropertyMultipleRequest request = new ReadPropertyMultipleRequest(
+                new SequenceOf<>(new ReadAccessSpecification(d.getObjectIdentifier(), new SequenceOf<>(refs))));
+
+        final ReadPropertyMultipleAck ack;
+        try {
+            ack = localDevice.send(d, request).get();
+        } catch (final ErrorAPDUException | RejectAPDUException | AbortAPDUException e) {
+            LOG.debug("Device {} did not accept a ReadPropertyMultiple during discovery: {}", d.getInstanceNumber(),
+                    e.getMessage());
+            return false;
+        }
+
+        Encodable servicesSupported = null;
+        for (final ReadAccessResult objectResult : ack.getListOfReadAccessResults()) {
+            for (final Result result : objectResult.getListOfResults()) {
+                final Encodable value = PropertyValues.getNullOnError(result.getReadResult().getDatum());
+                if (PropertyIdentifier.protocolServicesSupported.equals(result.getPropertyIdentifier()))
+                    servicesSupported = value;
+                else
+                    d.setDeviceProperty(result.getPropertyIdentifier(), value);
+            }
+        }
+
+        if (servicesSupported == null)
+            // This property is required, so the response is not to be trusted.
+            return false;
+        d.setDeviceProperty(PropertyIdentifier.protocolServicesSupported, servicesSupported);
+        return true;
+    }
+
+    private static void addExtendedProperties(final RemoteDevice d, final PropertyReferences properties) {
+        addIfMissing(d, properties, PropertyIdentifier.objectName);
+        addIfMissing(d, properties, PropertyIdentifier.protocolVersion);
+        addIfMissing(d, properties, PropertyIdentifier.vendorIdentifier);
+        addIfMissing(d, properties, PropertyIdentifier.modelName);
+    }
+
     private static void addIfMissing(final RemoteDevice d, final PropertyReferences properties,
             final PropertyIdentifier pid) {
         if (d.getDeviceProperty(pid) == null)
@@ -0,0 +1,582 @@
+package com.serotonin.bacnet4j.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.RemoteDevice;
+import com.serotonin.bacnet4j.ServiceFuture;
+import com.serotonin.bacnet4j.exception.AbortAPDUException;
+import com.serotonin.bacnet4j.exception.BACnetException;
+import com.serotonin.bacnet4j.exception.BACnetTimeoutException;
+import com.serotonin.bacnet4j.npdu.Network;
+import com.serotonin.bacnet4j.service.acknowledgement.AcknowledgementService;
+import com.serotonin.bacnet4j.service.acknowledgement.AtomicReadFileAck;
+import com.serotonin.bacnet4j.service.confirmed.AtomicReadFileRequest;
+import com.serotonin.bacnet4j.service.confirmed.AtomicWriteFileRequest;
+import com.serotonin.bacnet4j.service.confirmed.ConfirmedRequestService;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.enumerated.AbortReason;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.enumerated.Segmentation;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.type.primitive.OctetString;
+import com.serotonin.bacnet4j.type.primitive.SignedInteger;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+
+/**
+ * Reads and writes the contents of file objects in a remote device with AtomicReadFile and AtomicWriteFile requests.
+ *
+ * Stream data is sent in chunks that fill as much of an APDU as the remote device and the local network accept, or a
+ * window of segments if both devices support segmentation. Several chunks are requested at a time. The number of
+ * chunks in flight starts at one, grows by one with each chunk that is acknowledged until the maximum window is
+ * reached, and is halved when a chunk times out. Chunks that time out are resent from the same position, so a slow or
+ * lossy link slows a transfer down rather than failing it. Data is delivered in the order of the file regardless of
+ * the order in which chunks complete.
+ *
+ * The transfer methods block until the transfer is complete, and so must not be called from the transport thread.
+ */
+public class FileTransfer {
+    static final Logger LOG = LoggerFactory.getLogger(FileTransfer.class);
+
+    // The header of a confirmed request and of a complex ack, unsegmented and segmented.
+    private static final int REQUEST_HEADER = 4;
+    private static final int SEGMENTED_REQUEST_HEADER = 6;
+    private static final int ACK_HEADER = 3;
+    private static final int SEGMENTED_ACK_HEADER = 5;
+    // The largest encoding of the parameters of a request or ack besides the file data.
+    private static final int WRITE_OVERHEAD = 17;
+    private static final int READ_OVERHEAD = 13;
+    // The largest encoding of the header of an octet string.
+    private static final int OCTET_STRING_HEADER = 5;
+
+    private final LocalDevice localDevice;
+    private final RemoteDevice rd;
+
+    private int maxWindow = 8;
+    private int retries = 3;
+    private int chunkSize;
+    private int recordsPerRequest = 16;
+
+    private volatile Statistics statistics;
+
+    public FileTransfer(final LocalDevice localDevice, final RemoteDevice rd) {
+        this.localDevice = localDevice;
+        this.rd = rd;
+    }
+
+    public int getMaxWindow() {
+        return maxWindow;
+    }
+
+    /**
+     * @param maxWindow
+     *            the maximum number of chunks that are requested at the same time.
+     */
+    public void setMaxWindow(final int maxWindow) {
+        this.maxWindow = Math.max(1, maxWindow);
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * @param retries
+     *            the number of times that a chunk is resent after it timed out, in addition to the retries of the
+     *            transport.
+     */
+    public void setRetries(final int retries) {
+        this.retries = retries;
+    }
+
+    /**
+     * @param chunkSize
+     *            the number of octets per request of stream data, or 0 to derive it from the APDU sizes and
+     *            segmentation support of the devices.
+     */
+    public void setChunkSize(final int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getRecordsPerRequest() {
+        return recordsPerRequest;
+    }
+
+    /**
+     * @param recordsPerRequest
+     *            the number of records that are read per request, since the size of the records is not known in
+     *            advance. It is halved for the rest of a transfer if the remote device aborts a request because the
+     *            response is too big.
+     */
+    public void setRecordsPerRequest(final int recordsPerRequest) {
+        this.recordsPerRequest = Math.max(1, recordsPerRequest);
+    }
+
+    /**
+     * @return the statistics of the current or latest transfer, or null if there has not been one.
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return the number of octets of stream data in a read request.
+     */
+    public int getReadChunkSize() {
+        if (chunkSize > 0)
+            return chunkSize;
+        final Segmentation segmentation = rd.getSegmentationSupported();
+        if (segmentation != null && segmentation.hasTransmitSegmentation() && isLocalSegmentation(true))
+            return getSegments() * (getMaxApdu() - SEGMENTED_ACK_HEADER) - READ_OVERHEAD;
+        return getMaxApdu() - ACK_HEADER - READ_OVERHEAD;
+    }
+
+    /**
+     * @return the number of octets of stream or record data in a write request.
+     */
+    public int getWriteChunkSize() {
+        if (chunkSize > 0)
+            return chunkSize;
+        final Segmentation segmentation = rd.getSegmentationSupported();
+        if (segmentation != null && segmentation.hasReceiveSegmentation() && isLocalSegmentation(false))
+            return getSegments() * (getMaxApdu() - SEGMENTED_REQUEST_HEADER) - WRITE_OVERHEAD;
+        return getMaxApdu() - REQUEST_HEADER - WRITE_OVERHEAD;
+    }
+
+    private int getMaxApdu() {
+        int max = rd.getMaxAPDULengthAccepted();
+        if (max <= 0)
+            max = 50;
+        final Network network = localDevice.getNetwork();
+        if (network != null)
+            max = Math.min(max, network.getMaxApduLength().getMaxLengthInt());
+        return max;
+    }
+
+    private boolean isLocalSegmentation(final boolean receive) {
+        final Segmentation segmentation = localDevice.get(PropertyIdentifier.segmentationSupported);
+        if (segmentation == null)
+            return false;
+        return receive ? segmentation.hasReceiveSegmentation() : segmentation.hasTransmitSegmentation();
+    }
+
+    /**
+     * A chunk fills one window of segments, so that it does not wait for more than one segment ack.
+     */
+    private int getSegments() {
+        return Math.max(1, localDevice.getTransport().getSegWindow());
+    }
+
+    /**
+     * Reads the stream data of the file into the given channel.
+     */
+    public Statistics read(final ObjectIdentifier fileOid, final WritableByteChannel out)
+            throws BACnetException, IOException {
+        return read(fileOid, out, 0);
+    }
+
+    /**
+     * Reads the stream data of the file from the given position into the given channel, e.g. to resume a transfer
+     * that failed at the position of its statistics.
+     */
+    public Statistics read(final ObjectIdentifier fileOid, final WritableByteChannel out, final long position)
+            throws BACnetException, IOException {
+        final UnsignedInteger fileSize = RequestUtils.getProperty(localDevice, rd, fileOid,
+                PropertyIdentifier.fileSize);
+        final Statistics stats = start(position);
+        new ReadPipeline(stats, getReadChunkSize()) {
+            @Override
+            AtomicReadFileRequest request(final long start, final int count) {
+                return new AtomicReadFileRequest(fileOid, new AtomicReadFileRequest.StreamAccess(
+                        new SignedInteger(start), new UnsignedInteger(count)));
+            }
+
+            @Override
+            int deliver(final AtomicReadFileAck ack) throws IOException {
+                final byte[] data = ack.getStreamAccess().getFileData().getBytes();
+                final ByteBuffer buffer = ByteBuffer.wrap(data);
+                while (buffer.hasRemaining())
+                    out.write(buffer);
+                stats.octets += data.length;
+                return data.length;
+            }
+        }.run(position, fileSize.longValue());
+        return finish(stats);
+    }
+
+    /**
+     * Reads the records of the file, passing them to the given consumer in order.
+     */
+    public Statistics readRecords(final ObjectIdentifier fileOid, final Consumer<OctetString> out)
+            throws BACnetException, IOException {
+        return readRecords(fileOid, out, 0);
+    }
+
+    /**
+     * Reads the records of the file from the given record, passing them to the given consumer in order.
+     */
+    public Statistics readRecords(final ObjectIdentifier fileOid, final Consumer<OctetString> out,
+            final long position) throws BACnetException, IOException {
+        final UnsignedInteger recordCount = RequestUtils.getProperty(localDevice, rd, fileOid,
+                PropertyIdentifier.recordCount);
+        final Statistics stats = start(position);
+        new ReadPipeline(stats, recordsPerRequest) {
+            @Override
+            AtomicReadFileRequest request(final long start, final int count) {
+                return new AtomicReadFileRequest(fileOid, new AtomicReadFileRequest.RecordAccess(
+                        new SignedInteger(start), new UnsignedInteger(count)));
+            }
+
+            @Override
+            int deliver(final AtomicReadFileAck ack) {
+                for (final OctetString record : ack.getRecordAccess().getFileRecordData()) {
+                    out.accept(record);
+                    stats.octets += record.getLength();
+                }
+                return ack.getRecordAccess().getReturnedRecordCount().intValue();
+            }
+        }.run(position, recordCount.longValue());
+        return finish(stats);
+    }
+
+    /**
+     * Writes the remaining content of the given channel to the file, starting at the given position.
+     */
+    public Statistics write(final ObjectIdentifier fileOid, final ReadableByteChannel in, final long position)
+            throws BACnetException, IOException {
+        final Statistics stats = start(position);
+        final int size = getWriteChunkSize();
+        new WritePipeline(stats) {
+            long next = position;
+            boolean eof;
+
+            @Override
+            Chunk next() throws IOException {
+                if (eof)
+                    return null;
+                final ByteBuffer buffer = ByteBuffer.allocate(size);
+                while (buffer.hasRemaining()) {
+                    if (in.read(buffer) == -1) {
+                        eof = true;
+                        break;
+                    }
+                }
+                if (buffer.position() == 0)
+                    return null;
+
+                final byte[] data = new byte[buffer.position()];
+                buffer.flip();
+                buffer.get(data);
+                final Chunk chunk = new Chunk(new AtomicWriteFileRequest(fileOid, new AtomicWriteFileRequest.StreamAccess(
+                        new SignedInteger(next), new OctetString(data))), next, data.length, data.length);
+                next += data.length;
+                return chunk;
+            }
+        }.run();
+        return finish(stats);
+    }
+
+    /**
+     * Writes the given records to the file, starting at the given record. As many records are written per request as
+     * fit into a chunk.
+     */
+    public Statistics writeRecords(final ObjectIdentifier fileOid, final Iterator<OctetString> in,
+            final long position) throws BACnetException, IOException {
+        final Statistics stats = start(position);
+        final int size = getWriteChunkSize();
+        new WritePipeline(stats) {
+            long next = position;
+            OctetString pending;
+
+            @Override
+            Chunk next() {
+                final SequenceOf<OctetString> records = new SequenceOf<>();
+                int octets = 0;
+                while (pending != null || in.hasNext()) {
+                    final OctetString record = pending == null ? in.next() : pending;
+                    pending = null;
+                    if (records.size() > 0 && octets + OCTET_STRING_HEADER + record.getLength() > size) {
+                        pending = record;
+                        break;
+                    }
+                    records.add(record);
+                    octets += OCTET_STRING_HEADER + record.getLength();
+                }
+                if (records.size() == 0)
+                    return null;
+
+                final Chunk chunk = new Chunk(new AtomicWriteFileRequest(fileOid, new AtomicWriteFileRequest.RecordAccess(
+                        new SignedInteger(next), new UnsignedInteger(records.size()), records)), next, records.size(),
+                        octets - records.size() * OCTET_STRING_HEADER);
+                next += records.size();
+                return chunk;
+            }
+        }.run();
+        return finish(stats);
+    }
+
+    private Statistics start(final long position) {
+        final Statistics stats = new Statistics(localDevice.getClock(), position);
+        statistics = stats;
+        return stats;
+    }
+
+    private Statistics finish(final Statistics stats) {
+        stats.end = localDevice.getClock().millis();
+        LOG.info("File transfer with {} complete: {}", rd.getInstanceNumber(), stats);
+        return stats;
+    }
+
+    static boolean isTooBig(final AbortAPDUException e) {
+        final int reason = e.getApdu().getAbortReason();
+        return reason == AbortReason.segmentationNotSupported.intValue()
+                || reason == AbortReason.bufferOverflow.intValue();
+    }
+
+    static class Chunk {
+        final ConfirmedRequestService request;
+        final long start;
+        final int count;
+        final int octets;
+        int attempts;
+        ServiceFuture future;
+
+        Chunk(final ConfirmedRequestService request, final long start, final int count, final int octets) {
+            this.request = request;
+            this.start = start;
+            this.count = count;
+            this.octets = octets;
+        }
+    }
+
+    /**
+     * Sends chunks within the window and waits for them in order.
+     */
+    abstract class Pipeline {
+        final Statistics stats;
+        final ArrayDeque<Chunk> inFlight = new ArrayDeque<>();
+
+        Pipeline(final Statistics stats) {
+            this.stats = stats;
+        }
+
+        Chunk send(final Chunk chunk) {
+            chunk.future = localDevice.send(rd, chunk.request);
+            stats.requests++;
+            return chunk;
+        }
+
+        boolean hasRoom() {
+            return inFlight.size() < stats.window;
+        }
+
+        /**
+         * Waits for the oldest chunk. If it times out, it is resent at the front of the window.
+         *
+         * @return the ack, or null if the chunk was resent.
+         */
+        <T extends AcknowledgementService> T await(final Chunk chunk) throws BACnetException {
+            try {
+                final T ack = chunk.future.get();
+                stats.window = Math.min(maxWindow, stats.window + 1);
+                return ack;
+            } catch (final BACnetTimeoutException e) {
+                if (++chunk.attempts > retries)
+                    throw e;
+                LOG.debug("Chunk at {} timed out, resending", chunk.start);
+                stats.retries++;
+                stats.window = Math.max(1, stats.window / 2);
+                inFlight.addFirst(send(chunk));
+                return null;
+            }
+        }
+    }
+
+    abstract class ReadPipeline extends Pipeline {
+        int count;
+
+        ReadPipeline(final Statistics stats, final int count) {
+            super(stats);
+            this.count = count;
+        }
+
+        abstract AtomicReadFileRequest request(long start, int count);
+
+        /**
+         * Delivers the data of the ack in order, and returns the number of octets or records that it contained.
+         */
+        abstract int deliver(AtomicReadFileAck ack) throws IOException;
+
+        Chunk send(final long start, final int n) {
+            return send(new Chunk(request(start, n), start, n, 0));
+        }
+
+        void run(final long position, final long size) throws BACnetException, IOException {
+            long end = size;
+            long next = position;
+            while (true) {
+                while (next < end && hasRoom()) {
+                    final int n = (int) Math.min(count, end - next);
+                    inFlight.add(send(next, n));
+                    next += n;
+                }
+
+                final Chunk chunk = inFlight.poll();
+                if (chunk == null)
+                    break;
+
+                final AtomicReadFileAck ack;
+                try {
+                    ack = await(chunk);
+                } catch (final AbortAPDUException e) {
+                    if (chunk.count == 1 || !isTooBig(e))
+                        throw e;
+                    // The response did not fit. Request the chunk in halves, and smaller chunks from now on.
+                    count = Math.max(1, chunk.count / 2);
+                    inFlight.addFirst(send(chunk.start + count, chunk.count - count));
+                    inFlight.addFirst(send(chunk.start, count));
+                    continue;
+                }
+                if (ack == null)
+                    continue;
+
+                final int returned = deliver(ack);
+                stats.position = chunk.start + returned;
+                if (ack.getEndOfFile().booleanValue()) {
+                    // Chunks after the end that are still in flight are ignored.
+                    break;
+                }
+                if (returned == 0)
+                    throw new BACnetException("No data returned at " + chunk.start + " before the end of the file");
+                if (returned < chunk.count) {
+                    // A short read. Request the rest of the chunk before any later ones are delivered.
+                    inFlight.addFirst(send(chunk.start + returned, chunk.count - returned));
+                } else if (next >= end && inFlight.isEmpty()) {
+                    // The file has grown since its size was read.
+                    end += count;
+                }
+            }
+        }
+    }
+
+    abstract class WritePipeline extends Pipeline {
+        WritePipeline(final Statistics stats) {
+            super(stats);
+        }
+
+        /**
+         * @return the next chunk to write, or null if there is no more data.
+         */
+        abstract Chunk next() throws IOException;
+
+        void run() throws BACnetException, IOException {
+            boolean more = true;
+            while (true) {
+                while (more && hasRoom()) {
+                    final Chunk chunk = next();
+                    if (chunk == null)
+                        more = false;
+                    else
+                        inFlight.add(send(chunk));
+                }
+
+                final Chunk chunk = inFlight.poll();
+                if (chunk == null)
+                    break;
+                if (await(chunk) == null)
+                    continue;
+
+                stats.octets += chunk.octets;
+                stats.position = chunk.start + chunk.count;
+            }
+        }
+    }
+
+    /**
+     * The progress and throughput of a transfer.
+     */
+    public static class Statistics {
+        private final Clock clock;
+        private final long begin;
+        volatile long end;
+        volatile long position;
+        volatile long octets;
+        volatile int requests;
+        volatile int retries;
+        volatile int window = 1;
+
+        Statistics(final Clock clock, final long position) {
+            this.clock = clock;
+            begin = clock.millis();
+            this.position = position;
+        }
+
+        /**
+         * @return the position in octets or records up to which the file has been transferred. A transfer that
+         *         failed can be resumed from here.
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * @return the number of octets of file data that have been transferred.
+         */
+        public long getOctets() {
+            return octets;
+        }
+
+        public int getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return the number of chunks that were resent after they timed out.
+         */
+        public int getRetries() {
+            return retries;
+        }
+
+        /**
+         * @return the current number of chunks that may be in flight.
+         */
+        public int getWindow() {
+            return window;
+        }
+
+        /**
+         * @return the duration of the transfer in ms, so far if it is still running.
+         */
+        public long getElapsed() {
+            final long e = end;
+            return (e == 0 ? clock.millis() : e) - begin;
+        }
+
+        /**
+         * @return the throughput in octets per second, so far if the transfer is still running.
+         */
+        public double getThroughput() {
+            final long elapsed = getElapsed();
+            if (elapsed <= 0)
+                return 0;
+            return octets * 1000D / elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics [position=" + position + ", octets=" + octets + ", requests=" + requests
+                    + ", retries=" + retries + ", window=" + window + ", elapsed=" + getElapsed()
+                    + "ms, throughput=" + String.format("%.0f", getThroughput()) + " octets/s]";
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.serotonin.bacnet4j.util;
+
+import java.time.Clock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Schedules the work of a local device in separate lanes, so that work which blocks on network I/O cannot delay work
+ * that has to run on time.
+ *
+ * The triggering of all scheduled work is still done by the device's timer, so that it follows the device's clock.
+ * Work in the TIMER lane is then handed to one of a number of single-threaded shards, one per available processor. Work
+ * with a key, such as the id of the object that scheduled it, always runs on the same shard, so the timers of an
+ * object run in order and never concurrently. Work in the IO lane runs on a pool of its own with a bounded number of
+ * threads, so it may block without holding up the timer or the TIMER lane.
+ *
+ * Work in the TIMER lane must not block. A periodic task in the TIMER lane that is still running when its next
+ * execution is due skips that execution rather than queueing behind itself.
+ */
+public class LaneScheduler {
+    static final Logger LOG = LoggerFactory.getLogger(LaneScheduler.class);
+
+    public enum Lane {
+        /**
+         * Short, non-blocking work that has to run on time, like event time delays and COV periods.
+         */
+        TIMER,
+        /**
+         * Work that may block, like polling remote devices.
+         */
+        IO,
+    }
+
+    private final Clock clock;
+    private final ScheduledExecutorService timer;
+    private final ThreadPoolExecutor[] shards;
+    private final ThreadPoolExecutor io;
+    private final AtomicInteger nextShard = new AtomicInteger();
+    private final LaneStats[] stats = new LaneStats[Lane.values().length];
+
+    public LaneScheduler(final Clock clock, final ScheduledExecutorService timer) {
+        this(clock, timer, Runtime.getRuntime().availableProcessors());
+    }
+
+    public LaneScheduler(final Clock clock, final ScheduledExecutorService timer, final int shardCount) {
+        this(clock, timer, shardCount, Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param ioThreads
+     *            the maximum number of threads that run IO lane work at the same time. Further work waits for a
+     *            thread. Idle threads end after a minute.
+     */
+    public LaneScheduler(final Clock clock, final ScheduledExecutorService timer, final int shardCount,
+            final int ioThreads) {
+        this.clock = clock;
+        this.timer = timer;
+
+        final AtomicInteger ioThreadCount = new AtomicInteger();
+        io = new ThreadPoolExecutor(Math.max(1, ioThreads), Math.max(1, ioThreads), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    final Thread thread = new Thread(r, "BACnet4J io lane " + ioThreadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        io.allowCoreThreadTimeOut(true);
+
+        shards = new ThreadPoolExecutor[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            final String name = "BACnet4J timer lane " + i;
+            shards[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                final Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        for (final Lane lane : Lane.values())
+            stats[lane.ordinal()] = new LaneStats(lane);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public LaneStats getStats(final Lane lane) {
+        return stats[lane.ordinal()];
+    }
+
+    /**
+     * @return the executor of the IO lane, for other work that may block.
+     */
+    public Executor getIoExecutor() {
+        return io;
+    }
+
+    /**
+     * Runs the given command once after the given delay.
+     *
+     * @param key
+     *            if not null, TIMER lane work with equal keys runs on the same shard.
+     */
+    public ScheduledFuture<?> schedule(final Lane lane, final Object key, final Runnable command, final long delay,
+            final TimeUnit unit) {
+        final LaneTask task = new LaneTask(lane, key, command, false);
+        task.due = clock.millis() + unit.toMillis(delay);
+        task.trigger = timer.schedule(task::trigger, delay, unit);
+        return task;
+    }
+
+    /**
+     * Runs the given command periodically at the given rate.
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(final Lane lane, final Object key, final Runnable command,
+            final long initialDelay, final long period, final TimeUnit unit) {
+        final LaneTask task = new LaneTask(lane, key, command, true);
+        task.due = clock.millis() + unit.toMillis(initialDelay);
+        task.period = unit.toMillis(period);
+        task.trigger = timer.scheduleAtFixedRate(task::trigger, initialDelay, period, unit);
+        return task;
+    }
+
+    /**
+     * Runs the given command periodically with the given delay between the end of one execution and the start of
+     * the next.
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(final Lane lane, final Object key, final Runnable command,
+            final long initialDelay, final long delay, final TimeUnit unit) {
+        final LaneTask task = new LaneTask(lane, key, command, true);
+        task.due = clock.millis() + unit.toMillis(initialDelay);
+        task.fixedDelay = unit.toMillis(delay);
+        task.trigger = timer.schedule(task::trigger, initialDelay, unit);
+        return task;
+    }
+
+    /**
+     * Runs the given command as soon as possible.
+     */
+    public void execute(final Lane lane, final Object key, final Runnable command) {
+        final LaneTask task = new LaneTask(lane, key, command, false);
+        task.due = clock.millis();
+        task.trigger();
+    }
+
+    /**
+     * Shuts down the shards of the TIMER lane and the pool of the IO lane. The timer itself is shut down by its
+     * owner.
+     */
+    public void shutdown() {
+        for (final ExecutorService shard : shards)
+            shard.shutdown();
+        io.shutdown();
+    }
+
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (final ExecutorService shard : shards) {
+            if (!shard.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+                return false;
+        }
+        return io.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    private ExecutorService shard(final Object key) {
+        final int hash = key == null ? nextShard.getAndIncrement() : key.hashCode();
+        return shards[(hash & Integer.MAX_VALUE) % shards.length];
+    }
+
+    class LaneTask implements ScheduledFuture<Object> {
+        final Lane lane;
+        final ExecutorService executor;
+        final Runnable command;
+        final boolean periodic;
+        final CompletableFuture<Object> completion = new CompletableFuture<>();
+        final AtomicBoolean running = new AtomicBoolean();
+
+        volatile ScheduledFuture<?> trigger;
+        // The clock time at which the next execution is due.
+        volatile long due;
+        long period;
+        long fixedDelay;
+
+        LaneTask(final Lane lane, final Object key, final Runnable command, final boolean periodic) {
+            this.lane = lane;
+            executor = lane == Lane.TIMER ? shard(key) : io;
+            this.command = command;
+            this.periodic = periodic;
+        }
+
+        void trigger() {
+            if (completion.isDone())
+                return;
+
+            final LaneStats laneStats = getStats(lane);
+            final long dueAt = due;
+            due += period;
+            if (!running.compareAndSet(false, true)) {
+                // Still running from the last time.
+                laneStats.skipped.incrementAndGet();
+                return;
+            }
+
+            laneStats.queued.incrementAndGet();
+            try {
+                executor.execute(() -> run(dueAt));
+            } catch (final RuntimeException e) {
+                laneStats.queued.decrementAndGet();
+                running.set(false);
+                if (!completion.isDone())
+                    LOG.warn("Unable to run {} lane task", lane, e);
+            }
+        }
+
+        void run(final long dueAt) {
+            final LaneStats laneStats = getStats(lane);
+            laneStats.queued.decrementAndGet();
+            if (completion.isDone()) {
+                running.set(false);
+                return;
+            }
+
+            laneStats.started(clock.millis() - dueAt);
+            try {
+                command.run();
+            } catch (final Throwable t) {
+                // As with a ScheduledExecutorService, a task that fails is not run again.
+                LOG.error("Error in {} lane task", lane, t);
+                completion.completeExceptionally(t);
+                cancelTrigger();
+                return;
+            } finally {
+                running.set(false);
+            }
+
+            if (!periodic)
+                completion.complete(null);
+            else if (fixedDelay > 0) {
+                due = clock.millis() + fixedDelay;
+                if (!completion.isDone())
+                    trigger = timer.schedule(this::trigger, fixedDelay, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void cancelTrigger() {
+            final ScheduledFuture<?> t = trigger;
+            if (t != null)
+                t.cancel(false);
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(due - clock.millis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed that) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), that.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        /**
+         * Cancels the task. An execution that has not yet started will not run, but one that has started is never
+         * interrupted.
+         */
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            final boolean cancelled = completion.cancel(false);
+            cancelTrigger();
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return completion.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        @Override
+        public Object get() throws InterruptedException, ExecutionException {
+            return completion.get();
+        }
+
+        @Override
+        public Object get(final long timeout, final TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            return completion.get(timeout, unit);
+        }
+    }
+
+    /**
+     * Metrics of a lane. Lateness is the time in ms between when an execution was due according to the device's
+     * clock and when it started.
+     */
+    public static class LaneStats {
+        private final Lane lane;
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        private long totalLateness;
+        private long maxLateness;
+
+        LaneStats(final Lane lane) {
+            this.lane = lane;
+        }
+
+        synchronized void started(final long lateness) {
+            started.incrementAndGet();
+            if (lateness > 0) {
+                totalLateness += lateness;
+                if (maxLateness < lateness)
+                    maxLateness = lateness;
+            }
+        }
+
+        public Lane getLane() {
+            return lane;
+        }
+
+        /**
+         * @return the number of executions that are due but have not yet started.
+         */
+        public int getQueueDepth() {
+            return queued.get();
+        }
+
+        /**
+         * @return the number of executions that have started.
+         */
+        public long getStartedCount() {
+            return started.get();
+        }
+
+        /**
+         * @return the number of periodic executions that were skipped because the previous one was still running.
+         */
+        public long getSkippedCount() {
+            return skipped.get();
+        }
+
+        public synchronized long getMaxLateness() {
+            return maxLateness;
+        }
+
+        public synchronized double getAverageLateness() {
+            final long count = started.get();
+            return count == 0 ? 0 : (double) totalLateness / count;
+        }
+
+        /**
+         * Resets the lateness metrics.
+         */
+        public synchronized void reset() {
+            started.set(0);
+            skipped.set(0);
+            totalLateness = 0;
+            maxLateness = 0;
+        }
+
+        @Override
+        public String toString() {
+            return "LaneStats [lane=" + lane + ", queueDepth=" + getQueueDepth() + ", started=" + getStartedCount()
+                    + ", skipped=" + getSkippedCount() + ", maxLateness=" + getMaxLateness() + ", averageLateness="
+                    + getAverageLateness() + "]";
+        }
+    }
+}
@@ -0,0 +1,573 @@
+package com.serotonin.bacnet4j.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.RemoteDevice;
+import com.serotonin.bacnet4j.ResponseConsumer;
+import com.serotonin.bacnet4j.apdu.AckAPDU;
+import com.serotonin.bacnet4j.event.DeviceEventAdapter;
+import com.serotonin.bacnet4j.exception.BACnetException;
+import com.serotonin.bacnet4j.service.acknowledgement.AcknowledgementService;
+import com.serotonin.bacnet4j.service.confirmed.ConfirmedRequestService;
+import com.serotonin.bacnet4j.service.confirmed.SubscribeCOVPropertyRequest;
+import com.serotonin.bacnet4j.service.confirmed.SubscribeCOVRequest;
+import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.constructed.PropertyReference;
+import com.serotonin.bacnet4j.type.constructed.PropertyValue;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.constructed.ServicesSupported;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
+import com.serotonin.bacnet4j.type.primitive.Boolean;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
+import com.serotonin.bacnet4j.util.PollingEngine.Subscription;
+
+/**
+ * Keeps the values of points, i.e. properties of objects in remote devices, current for its listeners, preferring COV
+ * subscriptions over polling.
+ *
+ * For each point the service subscribes to the object with SubscribeCOV if the point is the present value or status
+ * flags, or otherwise to the property with SubscribeCOVProperty. Points that share an object or property share the
+ * subscription. Subscriptions are renewed centrally at half of their lifetime. A subscription that is rejected, that
+ * fails to renew, or that does not produce its initial notification is considered stale, and its points are polled
+ * instead, batched per device through the PollingEngine, until a retry of the subscription succeeds.
+ *
+ * SubscribeCOVPropertyMultiple is not used, because this stack does not handle the notifications it results in.
+ */
+public class PointSubscriptionService {
+    static final Logger LOG = LoggerFactory.getLogger(PointSubscriptionService.class);
+
+    public enum PointMode {
+        /**
+         * A COV subscription for the point is being made.
+         */
+        PENDING,
+        /**
+         * The point is updated by COV notifications.
+         */
+        COV,
+        /**
+         * The point is polled.
+         */
+        POLLED,
+    }
+
+    @FunctionalInterface
+    public interface PointListener {
+        void pointUpdated(Point point, Encodable value);
+    }
+
+    private final LocalDevice localDevice;
+
+    private int lifetime = 600;
+    private long pollPeriod = 60000;
+    private long retryInterval = 600000;
+    private long initialNotificationTimeout = 10000;
+
+    private UnsignedInteger processId;
+    private DeviceEventAdapter notificationListener;
+    private final Map<Integer, DeviceState> devices = new HashMap<>();
+
+    public PointSubscriptionService(final LocalDevice localDevice) {
+        this.localDevice = localDevice;
+    }
+
+    public synchronized int getLifetime() {
+        return lifetime;
+    }
+
+    /**
+     * @param lifetime
+     *            the lifetime in seconds of the COV subscriptions. They are renewed at half of this time.
+     */
+    public synchronized void setLifetime(final int lifetime) {
+        this.lifetime = lifetime;
+    }
+
+    public synchronized long getPollPeriod() {
+        return pollPeriod;
+    }
+
+    /**
+     * @param pollPeriod
+     *            the period in ms at which points are polled when they cannot be subscribed to. Applies to polls that
+     *            start after it is set.
+     */
+    public synchronized void setPollPeriod(final long pollPeriod) {
+        this.pollPeriod = pollPeriod;
+    }
+
+    public synchronized long getRetryInterval() {
+        return retryInterval;
+    }
+
+    /**
+     * @param retryInterval
+     *            the time in ms after which a stale COV subscription is attempted again.
+     */
+    public synchronized void setRetryInterval(final long retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    public synchronized long getInitialNotificationTimeout() {
+        return initialNotificationTimeout;
+    }
+
+    /**
+     * @param initialNotificationTimeout
+     *            the time in ms after a subscription is made within which its initial notification must arrive.
+     */
+    public synchronized void setInitialNotificationTimeout(final long initialNotificationTimeout) {
+        this.initialNotificationTimeout = initialNotificationTimeout;
+    }
+
+    /**
+     * Starts keeping the value of the given point current. The listener is called with each new value, from COV
+     * notifications or polls, in threads of the local device.
+     */
+    public synchronized Point subscribe(final int deviceId, final ObjectIdentifier oid, final PropertyIdentifier pid,
+            final PointListener listener) {
+        if (processId == null) {
+            final UnsignedInteger id = new UnsignedInteger(localDevice.getNextProcessId());
+            processId = id;
+            notificationListener = new DeviceEventAdapter() {
+                @Override
+                public void covNotificationReceived(final UnsignedInteger subscriberProcessIdentifier,
+                        final ObjectIdentifier initiatingDeviceIdentifier,
+                        final ObjectIdentifier monitoredObjectIdentifier, final UnsignedInteger timeRemaining,
+                        final SequenceOf<PropertyValue> listOfValues) {
+                    if (id.equals(subscriberProcessIdentifier))
+                        notificationReceived(initiatingDeviceIdentifier.getInstanceNumber(),
+                                monitoredObjectIdentifier, listOfValues);
+                }
+            };
+            localDevice.getEventHandler().addListener(notificationListener);
+        }
+
+        final Point point = new Point(deviceId, oid, pid, listener);
+        final DeviceState ds = devices.computeIfAbsent(deviceId, DeviceState::new);
+
+        if (deviceId == localDevice.getInstanceNumber()) {
+            // Local points are cheap to read.
+            point.mode = PointMode.POLLED;
+            ds.localPoints.add(point);
+            updatePolling(ds);
+            return point;
+        }
+
+        final CovKey key = new CovKey(oid, isObjectProperty(pid) ? null : pid);
+        CovSubscription cs = ds.subscriptions.get(key);
+        if (cs == null) {
+            cs = new CovSubscription(ds, key);
+            ds.subscriptions.put(key, cs);
+            cs.points.add(point);
+            subscribe(cs);
+        } else {
+            cs.points.add(point);
+            point.mode = cs.state;
+            if (cs.state == PointMode.POLLED)
+                updatePolling(ds);
+            else if (cs.notified) {
+                // The point missed the notifications so far, so give it the last value that was notified.
+                final Encodable value = cs.values.get(pid);
+                if (value != null)
+                    localDevice.execute(() -> {
+                        if (point.getValue() == null)
+                            point.update(value);
+                    });
+            }
+        }
+        point.subscription = cs;
+        return point;
+    }
+
+    /**
+     * Cancels all subscriptions and polls without notifying the remote devices.
+     */
+    public synchronized void clear() {
+        for (final DeviceState ds : devices.values()) {
+            for (final CovSubscription cs : ds.subscriptions.values())
+                cs.cancelTimers();
+            ds.subscriptions.clear();
+            if (ds.poll != null)
+                ds.poll.cancel();
+        }
+        devices.clear();
+        if (notificationListener != null) {
+            localDevice.getEventHandler().removeListener(notificationListener);
+            notificationListener = null;
+            processId = null;
+        }
+    }
+
+    synchronized void unsubscribe(final Point point) {
+        final DeviceState ds = devices.get(point.deviceId);
+        if (ds == null)
+            return;
+
+        final CovSubscription cs = point.subscription;
+        if (cs == null) {
+            ds.localPoints.remove(point);
+        } else if (cs.points.remove(point) && cs.points.isEmpty()) {
+            cs.cancelTimers();
+            ds.subscriptions.remove(cs.key);
+            if (cs.state == PointMode.COV && ds.rd != null) {
+                // Cancel the subscription in the remote device.
+                localDevice.send(ds.rd, cs.createRequest(null, null), new ResponseConsumer() {
+                    @Override
+                    public void success(final AcknowledgementService ack) {
+                        // no op
+                    }
+
+                    @Override
+                    public void fail(final AckAPDU ack) {
+                        LOG.debug("Failed to cancel COV subscription {}: {}", cs.key, ack);
+                    }
+
+                    @Override
+                    public void ex(final BACnetException e) {
+                        LOG.debug("Failed to cancel COV subscription {}", cs.key, e);
+                    }
+                });
+            }
+        }
+
+        updatePolling(ds);
+        if (ds.subscriptions.isEmpty() && ds.localPoints.isEmpty())
+            devices.remove(point.deviceId);
+    }
+
+    private static boolean isObjectProperty(final PropertyIdentifier pid) {
+        // The properties that are reported by a subscription to the object.
+        return pid.isOneOf(PropertyIdentifier.presentValue, PropertyIdentifier.statusFlags);
+    }
+
+    //
+    //
+    // COV subscriptions
+    //
+    private void subscribe(final CovSubscription cs) {
+        final int deviceId = cs.ds.deviceId;
+        localDevice.getRemoteDevice(deviceId, (rd) -> {
+            synchronized (this) {
+                cs.ds.rd = rd;
+            }
+            send(cs, rd);
+        }, () -> stale(cs, "device not found"), null, localDevice.getTransportTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    private void send(final CovSubscription cs, final RemoteDevice rd) {
+        final ServicesSupported services = rd.getServicesSupported();
+        if (services != null
+                && !(cs.key.pid == null ? services.isSubscribeCov() : services.isSubscribeCovProperty())) {
+            stale(cs, "service not supported");
+            return;
+        }
+
+        final ConfirmedRequestService request;
+        synchronized (this) {
+            if (cs.isCancelled())
+                return;
+            request = cs.createRequest(Boolean.FALSE, new UnsignedInteger(lifetime));
+        }
+        localDevice.send(rd, request, new ResponseConsumer() {
+            @Override
+            public void success(final AcknowledgementService ack) {
+                subscribed(cs);
+            }
+
+            @Override
+            public void fail(final AckAPDU ack) {
+                stale(cs, ack.toString());
+            }
+
+            @Override
+            public void ex(final BACnetException e) {
+                stale(cs, e.getMessage());
+            }
+        });
+    }
+
+    synchronized void subscribed(final CovSubscription cs) {
+        if (cs.isCancelled())
+            return;
+
+        final boolean renewal = cs.state == PointMode.COV;
+        cs.cancelTimers();
+        cs.renewal = localDevice.schedule(Lane.TIMER, null, () -> send(cs, cs.ds.rd), lifetime * 500L,
+                TimeUnit.MILLISECONDS);
+        if (!renewal && !cs.notified) {
+            cs.check = localDevice.schedule(Lane.TIMER, null, () -> {
+                synchronized (this) {
+                    if (cs.notified)
+                        return;
+                }
+                stale(cs, "no initial notification");
+            }, initialNotificationTimeout, TimeUnit.MILLISECONDS);
+        }
+        // The state is set after the timers, so that whoever sees it can rely on them.
+        cs.setState(PointMode.COV);
+        updatePolling(cs.ds);
+        LOG.debug("COV subscription {} on device {} is active", cs.key, cs.ds.deviceId);
+    }
+
+    synchronized void stale(final CovSubscription cs, final String reason) {
+        if (cs.isCancelled())
+            return;
+
+        LOG.info("COV subscription {} on device {} is stale ({}). Polling until it can be renewed", cs.key,
+                cs.ds.deviceId, reason);
+        cs.notified = false;
+        cs.cancelTimers();
+        cs.retry = localDevice.schedule(Lane.TIMER, null, () -> subscribe(cs), retryInterval, TimeUnit.MILLISECONDS);
+        cs.setState(PointMode.POLLED);
+        updatePolling(cs.ds);
+    }
+
+    void notificationReceived(final int deviceId, final ObjectIdentifier oid,
+            final SequenceOf<PropertyValue> listOfValues) {
+        final List<Point> points = new ArrayList<>();
+        synchronized (this) {
+            final DeviceState ds = devices.get(deviceId);
+            if (ds == null)
+                return;
+            for (final CovSubscription cs : ds.subscriptions.values()) {
+                if (cs.key.oid.equals(oid)) {
+                    cs.notified = true;
+                    for (final PropertyValue pv : listOfValues) {
+                        if (pv.getPropertyArrayIndex() == null)
+                            cs.values.put(pv.getPropertyIdentifier(), pv.getValue());
+                    }
+                    points.addAll(cs.points);
+                }
+            }
+        }
+
+        for (final PropertyValue pv : listOfValues) {
+            for (final Point point : points) {
+                if (point.pid.equals(pv.getPropertyIdentifier()) && pv.getPropertyArrayIndex() == null)
+                    point.update(pv.getValue());
+            }
+        }
+    }
+
+    //
+    //
+    // Polling
+    //
+    private void updatePolling(final DeviceState ds) {
+        final List<Point> polled = new ArrayList<>(ds.localPoints);
+        for (final CovSubscription cs : ds.subscriptions.values()) {
+            if (cs.state == PointMode.POLLED)
+                polled.addAll(cs.points);
+        }
+
+        if (polled.isEmpty()) {
+            if (ds.poll != null) {
+                ds.poll.cancel();
+                ds.poll = null;
+            }
+            ds.polled = polled;
+            return;
+        }
+
+        final DeviceObjectPropertyReferences refs = new DeviceObjectPropertyReferences();
+        for (final Point point : polled)
+            refs.add(ds.deviceId, point.oid, point.pid);
+
+        ds.polled = polled;
+        if (ds.poll == null)
+            ds.poll = localDevice.getPollingEngine().subscribe(refs, 0, pollPeriod, TimeUnit.MILLISECONDS,
+                    (time, values) -> polled(ds, values));
+        else
+            ds.poll.setReferences(refs);
+    }
+
+    private void polled(final DeviceState ds, final DeviceObjectPropertyValues values) {
+        final List<Point> polled;
+        synchronized (this) {
+            polled = ds.polled;
+        }
+        for (final Point point : polled) {
+            final Encodable value = values.get(ds.deviceId, point.oid, point.pid);
+            if (value instanceof ErrorClassAndCode)
+                LOG.debug("Error polling {}: {}", point, value);
+            else if (value != null)
+                point.update(value);
+        }
+    }
+
+    //
+    //
+    // State
+    //
+    class DeviceState {
+        final int deviceId;
+        final Map<CovKey, CovSubscription> subscriptions = new HashMap<>();
+        final List<Point> localPoints = new ArrayList<>();
+        RemoteDevice rd;
+        Subscription poll;
+        List<Point> polled = new ArrayList<>();
+
+        DeviceState(final int deviceId) {
+            this.deviceId = deviceId;
+        }
+    }
+
+    static class CovKey {
+        final ObjectIdentifier oid;
+        // Null for a subscription to the object.
+        final PropertyIdentifier pid;
+
+        CovKey(final ObjectIdentifier oid, final PropertyIdentifier pid) {
+            this.oid = oid;
+            this.pid = pid;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(oid, pid);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof CovKey))
+                return false;
+            final CovKey that = (CovKey) obj;
+            return oid.equals(that.oid) && Objects.equals(pid, that.pid);
+        }
+
+        @Override
+        public String toString() {
+            return pid == null ? oid.toString() : oid + "/" + pid;
+        }
+    }
+
+    class CovSubscription {
+        final DeviceState ds;
+        final CovKey key;
+        final List<Point> points = new ArrayList<>();
+        // The last notified values, for points that join the subscription later.
+        final Map<PropertyIdentifier, Encodable> values = new HashMap<>();
+        PointMode state = PointMode.PENDING;
+        boolean notified;
+        ScheduledFuture<?> renewal;
+        ScheduledFuture<?> check;
+        ScheduledFuture<?> retry;
+
+        CovSubscription(final DeviceState ds, final CovKey key) {
+            this.ds = ds;
+            this.key = key;
+        }
+
+        boolean isCancelled() {
+            return ds.subscriptions.get(key) != this;
+        }
+
+        ConfirmedRequestService createRequest(final Boolean issueConfirmedNotifications,
+                final UnsignedInteger lifetime) {
+            if (key.pid == null)
+                return new SubscribeCOVRequest(processId, key.oid, issueConfirmedNotifications, lifetime);
+            return new SubscribeCOVPropertyRequest(processId, key.oid, issueConfirmedNotifications, lifetime,
+                    new PropertyReference(key.pid), null);
+        }
+
+        void setState(final PointMode state) {
+            this.state = state;
+            for (final Point point : points)
+                point.mode = state;
+        }
+
+        void cancelTimers() {
+            renewal = cancel(renewal);
+            check = cancel(check);
+            retry = cancel(retry);
+        }
+
+        private ScheduledFuture<?> cancel(final ScheduledFuture<?> future) {
+            if (future != null)
+                future.cancel(false);
+            return null;
+        }
+    }
+
+    public class Point {
+        final int deviceId;
+        final ObjectIdentifier oid;
+        final PropertyIdentifier pid;
+        final PointListener listener;
+        CovSubscription subscription;
+        volatile PointMode mode = PointMode.PENDING;
+        private volatile Encodable value;
+        private volatile long updated;
+
+        Point(final int deviceId, final ObjectIdentifier oid, final PropertyIdentifier pid,
+                final PointListener listener) {
+            this.deviceId = deviceId;
+            this.oid = oid;
+            this.pid = pid;
+            this.listener = listener;
+        }
+
+        public int getDeviceId() {
+            return deviceId;
+        }
+
+        public ObjectIdentifier getObjectIdentifier() {
+            return oid;
+        }
+
+        public PropertyIdentifier getPropertyIdentifier() {
+            return pid;
+        }
+
+        public PointMode getMode() {
+            return mode;
+        }
+
+        /**
+         * @return the last value received, or null if none has been received yet.
+         */
+        public Encodable getValue() {
+            return value;
+        }
+
+        /**
+         * @return the time at which the last value was received.
+         */
+        public long getUpdated() {
+            return updated;
+        }
+
+        public void cancel() {
+            unsubscribe(this);
+        }
+
+        void update(final Encodable value) {
+            this.value = value;
+            updated = localDevice.getClock().millis();
+            try {
+                listener.pointUpdated(this, value);
+            } catch (final Exception e) {
+                LOG.error("Error in point listener", e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Point [deviceId=" + deviceId + ", oid=" + oid + ", pid=" + pid + ", mode=" + mode + "]";
+        }
+    }
+}
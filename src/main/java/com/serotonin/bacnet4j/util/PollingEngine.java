@@ -0,0 +1,329 @@
+package com.serotonin.bacnet4j.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.obj.mixin.PollingDelegate;
+import com.serotonin.bacnet4j.type.constructed.ObjectPropertyReference;
+import com.serotonin.bacnet4j.type.constructed.PropertyReference;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
+
+/**
+ * Polls the references of all polling objects of a local device, like trend logs and averaging objects, on shared
+ * ticks.
+ *
+ * Subscriptions with the same period whose polls are due at the same times share a tick. When a tick is due, the
+ * references of all of its subscriptions are merged per device, so that each device receives one set of
+ * ReadPropertyMultiple requests for the tick rather than one per object, and the values are then provided to each
+ * subscription.
+ *
+ * Aligned polls of many objects are all due at the same time. To avoid bursts of requests, the reads of each remote
+ * device can be delayed by a fixed offset of up to maxJitter ms. The offset of a device is derived from its instance
+ * number, so its polls stay evenly spaced, and the time given to the listeners is still the time at which the tick
+ * started.
+ */
+public class PollingEngine {
+    static final Logger LOG = LoggerFactory.getLogger(PollingEngine.class);
+
+    private final LocalDevice localDevice;
+
+    private long maxJitter;
+
+    // Ticks by period and then by phase, i.e. the time at which they are due modulo the period.
+    private final Map<Long, Map<Long, Tick>> ticks = new HashMap<>();
+
+    public PollingEngine(final LocalDevice localDevice) {
+        this.localDevice = localDevice;
+    }
+
+    public synchronized long getMaxJitter() {
+        return maxJitter;
+    }
+
+    /**
+     * @param maxJitter
+     *            the maximum time in ms by which the reads of a remote device are delayed after a tick. The default of
+     *            0 reads all devices at the time of the tick.
+     */
+    public synchronized void setMaxJitter(final long maxJitter) {
+        this.maxJitter = maxJitter;
+    }
+
+    /**
+     * @return the number of distinct ticks on which polls are currently done.
+     */
+    public synchronized int getTickCount() {
+        int count = 0;
+        for (final Map<Long, Tick> byPhase : ticks.values())
+            count += byPhase.size();
+        return count;
+    }
+
+    @FunctionalInterface
+    public interface PollListener {
+        /**
+         * @param time
+         *            the time at which the poll started.
+         * @param values
+         *            the polled values. These may include values of references of other subscriptions.
+         */
+        void polled(long time, DeviceObjectPropertyValues values);
+    }
+
+    public Subscription subscribe(final DeviceObjectPropertyReferences references, final long initialDelay,
+            final long period, final TimeUnit unit, final PollListener listener) {
+        return subscribe(references, initialDelay, period, unit, () -> true, listener);
+    }
+
+    /**
+     * Polls the given references periodically, starting after the given delay.
+     *
+     * @param enabled
+     *            checked when a poll is due. The references are not polled if it returns false.
+     */
+    public synchronized Subscription subscribe(final DeviceObjectPropertyReferences references,
+            final long initialDelay, final long period, final TimeUnit unit, final BooleanSupplier enabled,
+            final PollListener listener) {
+        final long periodMillis = unit.toMillis(period);
+        if (periodMillis < 1)
+            throw new IllegalArgumentException("period cannot be < 1 ms");
+
+        final long now = localDevice.getClock().millis();
+        final long firstDue = now + unit.toMillis(initialDelay);
+        final long phase = Math.floorMod(firstDue, periodMillis);
+
+        final Subscription subscription = new Subscription(references, enabled, listener, firstDue);
+        final Map<Long, Tick> byPhase = ticks.computeIfAbsent(periodMillis, k -> new HashMap<>());
+        Tick tick = byPhase.get(phase);
+        if (tick == null) {
+            tick = new Tick(periodMillis, phase);
+            byPhase.put(phase, tick);
+            subscription.tick = tick;
+            tick.future = localDevice.scheduleAtFixedRate(Lane.IO, null, tick::run, firstDue - now, periodMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            subscription.tick = tick;
+            if (firstDue < tick.getNextDue()) {
+                // The tick is next due after the first poll of the subscription, so do that one separately.
+                subscription.firstPoll = localDevice.schedule(Lane.IO, null, () -> {
+                    final List<Subscription> subscriptions = new ArrayList<>(1);
+                    subscriptions.add(subscription);
+                    poll(localDevice.getClock().millis(), subscriptions);
+                }, firstDue - now, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        tick.subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Cancels all subscriptions.
+     */
+    public synchronized void clear() {
+        for (final Map<Long, Tick> byPhase : ticks.values()) {
+            for (final Tick tick : byPhase.values()) {
+                tick.future.cancel(false);
+                for (final Subscription subscription : tick.subscriptions)
+                    subscription.cancelFirstPoll();
+            }
+        }
+        ticks.clear();
+    }
+
+    synchronized void unsubscribe(final Subscription subscription) {
+        final Tick tick = subscription.tick;
+        subscription.cancelFirstPoll();
+        if (tick != null && tick.subscriptions.remove(subscription) && tick.subscriptions.isEmpty()) {
+            tick.future.cancel(false);
+            final Map<Long, Tick> byPhase = ticks.get(tick.period);
+            byPhase.remove(tick.phase);
+            if (byPhase.isEmpty())
+                ticks.remove(tick.period);
+        }
+    }
+
+    private synchronized List<Subscription> getSubscriptions(final Tick tick) {
+        return new ArrayList<>(tick.subscriptions);
+    }
+
+    void poll(final long time, final List<Subscription> subscriptions) {
+        // Merge the references of the subscriptions that want a poll.
+        final List<Subscription> polled = new ArrayList<>(subscriptions.size());
+        final DeviceObjectPropertyReferences merged = new DeviceObjectPropertyReferences();
+        for (final Subscription subscription : subscriptions) {
+            if (time >= subscription.firstDue && subscription.enabled.getAsBoolean()) {
+                polled.add(subscription);
+                merge(merged, subscription.references);
+            }
+        }
+        if (polled.isEmpty())
+            return;
+
+        final long jitter = Math.min(getMaxJitter(), subscriptions.get(0).tick.period / 2);
+        if (jitter <= 0) {
+            complete(time, polled, new PollingDelegate(localDevice, merged).doPoll());
+            return;
+        }
+
+        // Separate the devices that are read later.
+        final Map<Integer, DeviceObjectPropertyReferences> later = new HashMap<>();
+        final DeviceObjectPropertyReferences now = new DeviceObjectPropertyReferences();
+        for (final Map.Entry<Integer, PropertyReferences> e : merged.getProperties().entrySet()) {
+            final int deviceId = e.getKey();
+            if (deviceId == localDevice.getInstanceNumber() || offset(deviceId, jitter) == 0)
+                now.add(deviceId, e.getValue());
+            else
+                later.put(deviceId, new DeviceObjectPropertyReferences().add(deviceId, e.getValue()));
+        }
+
+        final Round round = new Round(time, polled, later.size() + 1);
+        for (final Map.Entry<Integer, DeviceObjectPropertyReferences> e : later.entrySet()) {
+            final int deviceId = e.getKey();
+            localDevice.schedule(Lane.IO, null, () -> round.add(Collections.singleton(deviceId),
+                    PropertyUtils.readProperties(localDevice, e.getValue(), null)), offset(deviceId, jitter),
+                    TimeUnit.MILLISECONDS);
+        }
+        final Set<Integer> nowDevices = new HashSet<>(now.getProperties().keySet());
+        round.add(nowDevices, new PollingDelegate(localDevice, now).doPoll());
+    }
+
+    static long offset(final int deviceId, final long jitter) {
+        // Spread consecutive instance numbers across the range.
+        return Math.floorMod(deviceId * 0x9E3779B1L, jitter + 1);
+    }
+
+    private static void merge(final DeviceObjectPropertyReferences to, final DeviceObjectPropertyReferences from) {
+        // The references are copied because the polls may modify them.
+        for (final Map.Entry<Integer, PropertyReferences> device : from.getProperties().entrySet()) {
+            final PropertyReferences refs = to.getDeviceProperties(device.getKey());
+            for (final Map.Entry<ObjectIdentifier, List<PropertyReference>> object : device.getValue().getProperties()
+                    .entrySet()) {
+                final List<PropertyReference> existing = refs.getProperties().get(object.getKey());
+                for (final PropertyReference ref : object.getValue()) {
+                    if (existing == null || !existing.contains(ref))
+                        refs.add(object.getKey(), ref);
+                }
+            }
+        }
+    }
+
+    private static void complete(final long time, final List<Subscription> subscriptions,
+            final DeviceObjectPropertyValues values) {
+        for (final Subscription subscription : subscriptions) {
+            if (subscription.cancelled)
+                continue;
+            try {
+                subscription.listener.polled(time, values);
+            } catch (final Exception e) {
+                LOG.error("Error in poll listener", e);
+            }
+        }
+    }
+
+    class Tick {
+        final long period;
+        final long phase;
+        final List<Subscription> subscriptions = new ArrayList<>();
+        ScheduledFuture<?> future;
+
+        Tick(final long period, final long phase) {
+            this.period = period;
+            this.phase = phase;
+        }
+
+        long getNextDue() {
+            return localDevice.getClock().millis() + future.getDelay(TimeUnit.MILLISECONDS);
+        }
+
+        void run() {
+            final List<Subscription> list = getSubscriptions(this);
+            if (!list.isEmpty())
+                poll(localDevice.getClock().millis(), list);
+        }
+    }
+
+    /**
+     * The reads of a tick that has devices with offsets.
+     */
+    static class Round {
+        final long time;
+        final List<Subscription> subscriptions;
+        final DeviceObjectPropertyValues values = new DeviceObjectPropertyValues();
+        int remaining;
+
+        Round(final long time, final List<Subscription> subscriptions, final int parts) {
+            this.time = time;
+            this.subscriptions = subscriptions;
+            remaining = parts;
+        }
+
+        void add(final Collection<Integer> deviceIds, final DeviceObjectPropertyValues part) {
+            synchronized (this) {
+                for (final Integer deviceId : deviceIds) {
+                    final PropertyValues deviceValues = part.getPropertyValues(deviceId);
+                    if (deviceValues == null)
+                        continue;
+                    for (final ObjectPropertyReference opr : deviceValues) {
+                        values.add(deviceId, opr.getObjectIdentifier(), opr.getPropertyIdentifier(),
+                                opr.getPropertyArrayIndex(), deviceValues.getNoErrorCheck(opr));
+                    }
+                }
+                if (--remaining > 0)
+                    return;
+            }
+            complete(time, subscriptions, values);
+        }
+    }
+
+    public class Subscription {
+        volatile DeviceObjectPropertyReferences references;
+        final BooleanSupplier enabled;
+        final PollListener listener;
+        final long firstDue;
+        Tick tick;
+        ScheduledFuture<?> firstPoll;
+        volatile boolean cancelled;
+
+        Subscription(final DeviceObjectPropertyReferences references, final BooleanSupplier enabled,
+                final PollListener listener, final long firstDue) {
+            this.references = references;
+            this.enabled = enabled;
+            this.listener = listener;
+            this.firstDue = firstDue;
+        }
+
+        /**
+         * Replaces the polled references, starting with the next poll.
+         */
+        public void setReferences(final DeviceObjectPropertyReferences references) {
+            this.references = references;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            unsubscribe(this);
+        }
+
+        void cancelFirstPoll() {
+            if (firstPoll != null) {
+                firstPoll.cancel(false);
+                firstPoll = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package com.serotonin.bacnet4j.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.RemoteDevice;
+import com.serotonin.bacnet4j.ResponseConsumer;
+import com.serotonin.bacnet4j.apdu.AckAPDU;
+import com.serotonin.bacnet4j.apdu.Error;
+import com.serotonin.bacnet4j.exception.BACnetException;
+import com.serotonin.bacnet4j.service.acknowledgement.AcknowledgementService;
+import com.serotonin.bacnet4j.service.confirmed.ConfirmedRequestService;
+import com.serotonin.bacnet4j.service.confirmed.WritePropertyMultipleRequest;
+import com.serotonin.bacnet4j.service.confirmed.WritePropertyRequest;
+import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.constructed.DeviceObjectPropertyReference;
+import com.serotonin.bacnet4j.type.constructed.ObjectPropertyReference;
+import com.serotonin.bacnet4j.type.constructed.PropertyValue;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.constructed.ServicesSupported;
+import com.serotonin.bacnet4j.type.constructed.WriteAccessSpecification;
+import com.serotonin.bacnet4j.type.enumerated.Segmentation;
+import com.serotonin.bacnet4j.type.error.WritePropertyMultipleError;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.sero.ByteQueue;
+
+/**
+ * Writes a value to a list of properties in remote devices, e.g. the object property references of a schedule,
+ * without blocking the caller.
+ *
+ * The references are grouped by device, and the devices are found asynchronously. The references of a device that
+ * supports WritePropertyMultiple are written with as few requests as fit into its APDUs, and otherwise with a
+ * WriteProperty request each. A bounded number of requests are outstanding at a time. The result of each reference
+ * is tracked, and writes that are still queued when a new value is written are superseded by the new value.
+ */
+public class PropertyWriteFanOut {
+    static final Logger LOG = LoggerFactory.getLogger(PropertyWriteFanOut.class);
+
+    // The header of an unsegmented confirmed request.
+    private static final int REQUEST_HEADER = 4;
+    // The object identifier and the opening and closing tags of the list of properties.
+    private static final int SPEC_OVERHEAD = 7;
+
+    public enum WriteStatus {
+        PENDING, SUCCEEDED, FAILED, SUPERSEDED
+    }
+
+    private final LocalDevice localDevice;
+    private int maxConcurrency = 8;
+
+    private final ArrayDeque<Task> queue = new ArrayDeque<>();
+    private int running;
+    private int generation;
+    private Map<DeviceObjectPropertyReference, WriteStatus> results = Collections.emptyMap();
+
+    public PropertyWriteFanOut(final LocalDevice localDevice) {
+        this.localDevice = localDevice;
+    }
+
+    public synchronized int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @param maxConcurrency
+     *            the maximum number of write requests that are outstanding at the same time.
+     */
+    public synchronized void setMaxConcurrency(final int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        dispatch();
+    }
+
+    /**
+     * @return the status of each reference of the latest write.
+     */
+    public synchronized Map<DeviceObjectPropertyReference, WriteStatus> getResults() {
+        return Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * Writes the value to the given remote references. References without a device identifier are ignored.
+     *
+     * @return the status of each reference, which is updated as the writes complete.
+     */
+    public Map<DeviceObjectPropertyReference, WriteStatus> write(final List<DeviceObjectPropertyReference> refs,
+            final Encodable value, final UnsignedInteger priority) {
+        return write(refs, value, priority, null);
+    }
+
+    /**
+     * Writes the value to the given remote references. References without a device identifier are ignored.
+     *
+     * @param done
+     *            if not null, called with the status of each reference once none of them is pending, including when
+     *            they are superseded by a later write.
+     * @return the status of each reference, which is updated as the writes complete.
+     */
+    public synchronized Map<DeviceObjectPropertyReference, WriteStatus> write(
+            final List<DeviceObjectPropertyReference> refs, final Encodable value, final UnsignedInteger priority,
+            final Consumer<Map<DeviceObjectPropertyReference, WriteStatus>> done) {
+        final int gen = ++generation;
+        final Results genResults = new Results(done);
+        results = genResults.statuses;
+
+        // Writes of the previous value that have not been sent yet are no longer needed.
+        for (final Task task : queue)
+            task.complete(WriteStatus.SUPERSEDED);
+        queue.clear();
+
+        // Group the references by device.
+        final Map<Integer, List<DeviceObjectPropertyReference>> byDevice = new LinkedHashMap<>();
+        for (final DeviceObjectPropertyReference ref : refs) {
+            if (ref.getDeviceIdentifier() == null)
+                continue;
+            genResults.pending(ref);
+            byDevice.computeIfAbsent(ref.getDeviceIdentifier().getInstanceNumber(), k -> new ArrayList<>()).add(ref);
+        }
+
+        for (final Map.Entry<Integer, List<DeviceObjectPropertyReference>> e : byDevice.entrySet()) {
+            final List<DeviceObjectPropertyReference> deviceRefs = e.getValue();
+            localDevice.getRemoteDevice(e.getKey(), (rd) -> queue(gen, genResults, rd, deviceRefs, value, priority),
+                    () -> {
+                        LOG.warn("Failed to write to unknown remote device {}", e.getKey());
+                        for (final DeviceObjectPropertyReference ref : deviceRefs)
+                            genResults.set(ref, WriteStatus.FAILED);
+                    }, null, localDevice.getTransportTimeout(), TimeUnit.MILLISECONDS);
+        }
+        genResults.sealed();
+
+        return Collections.unmodifiableMap(genResults.statuses);
+    }
+
+    private synchronized void queue(final int gen, final Results genResults, final RemoteDevice rd,
+            final List<DeviceObjectPropertyReference> refs, final Encodable value, final UnsignedInteger priority) {
+        if (gen != generation) {
+            for (final DeviceObjectPropertyReference ref : refs)
+                genResults.set(ref, WriteStatus.SUPERSEDED);
+            return;
+        }
+
+        final ServicesSupported services = rd.getServicesSupported();
+        if (refs.size() > 1 && services != null && services.isWritePropertyMultiple()) {
+            // Write as many references at once as fit into a request.
+            final int max = getMaxRequestSize(rd);
+            List<DeviceObjectPropertyReference> batch = new ArrayList<>();
+            int size = REQUEST_HEADER;
+            for (final DeviceObjectPropertyReference ref : refs) {
+                final int cost = SPEC_OVERHEAD + encodedSize(toPropertyValue(ref, value, priority));
+                if (!batch.isEmpty() && size + cost > max) {
+                    queue.add(new Task(gen, genResults, rd, batch, value, priority));
+                    batch = new ArrayList<>();
+                    size = REQUEST_HEADER;
+                }
+                batch.add(ref);
+                size += cost;
+            }
+            queue.add(new Task(gen, genResults, rd, batch, value, priority));
+        } else {
+            for (final DeviceObjectPropertyReference ref : refs)
+                queue.add(new Task(gen, genResults, rd, Collections.singletonList(ref), value, priority));
+        }
+
+        dispatch();
+    }
+
+    private synchronized void dispatch() {
+        while (running < maxConcurrency && !queue.isEmpty()) {
+            final Task task = queue.poll();
+            running++;
+            task.send();
+        }
+    }
+
+    private synchronized void completed() {
+        running--;
+        dispatch();
+    }
+
+    private int getMaxRequestSize(final RemoteDevice rd) {
+        final Segmentation segmentation = rd.getSegmentationSupported();
+        if (segmentation != null && segmentation.hasReceiveSegmentation())
+            return Integer.MAX_VALUE;
+
+        int max = rd.getMaxAPDULengthAccepted();
+        if (max <= 0)
+            max = 50;
+        if (localDevice.getNetwork() != null)
+            max = Math.min(max, localDevice.getNetwork().getMaxApduLength().getMaxLengthInt());
+        return max;
+    }
+
+    private static PropertyValue toPropertyValue(final DeviceObjectPropertyReference ref, final Encodable value,
+            final UnsignedInteger priority) {
+        return new PropertyValue(ref.getPropertyIdentifier(), ref.getPropertyArrayIndex(), value, priority);
+    }
+
+    private static int encodedSize(final Encodable e) {
+        final ByteQueue queue = new ByteQueue(32);
+        e.write(queue);
+        return queue.size();
+    }
+
+    /**
+     * The status of each reference of one write, and the callback for when none is pending.
+     */
+    static class Results {
+        final Map<DeviceObjectPropertyReference, WriteStatus> statuses = new ConcurrentHashMap<>();
+        private final Consumer<Map<DeviceObjectPropertyReference, WriteStatus>> done;
+        // The pending references, plus one until all of them have been added.
+        private int pending = 1;
+
+        Results(final Consumer<Map<DeviceObjectPropertyReference, WriteStatus>> done) {
+            this.done = done;
+        }
+
+        synchronized void pending(final DeviceObjectPropertyReference ref) {
+            if (statuses.put(ref, WriteStatus.PENDING) == null)
+                pending++;
+        }
+
+        void set(final DeviceObjectPropertyReference ref, final WriteStatus status) {
+            synchronized (this) {
+                if (statuses.put(ref, status) != WriteStatus.PENDING || --pending > 0)
+                    return;
+            }
+            complete();
+        }
+
+        void sealed() {
+            synchronized (this) {
+                if (--pending > 0)
+                    return;
+            }
+            complete();
+        }
+
+        private void complete() {
+            if (done != null)
+                done.accept(Collections.unmodifiableMap(statuses));
+        }
+    }
+
+    class Task implements ResponseConsumer {
+        final int gen;
+        final Results genResults;
+        final RemoteDevice rd;
+        final List<DeviceObjectPropertyReference> refs;
+        final Encodable value;
+        final UnsignedInteger priority;
+
+        Task(final int gen, final Results genResults, final RemoteDevice rd,
+                final List<DeviceObjectPropertyReference> refs, final Encodable value, final UnsignedInteger priority) {
+            this.gen = gen;
+            this.genResults = genResults;
+            this.rd = rd;
+            this.refs = refs;
+            this.value = value;
+            this.priority = priority;
+        }
+
+        void send() {
+            final ConfirmedRequestService req;
+            if (refs.size() == 1) {
+                final DeviceObjectPropertyReference ref = refs.get(0);
+                req = new WritePropertyRequest(ref.getObjectIdentifier(), ref.getPropertyIdentifier(),
+                        ref.getPropertyArrayIndex(), value, priority);
+            } else {
+                final Map<ObjectIdentifier, List<DeviceObjectPropertyReference>> byObject = byObject();
+                final SequenceOf<WriteAccessSpecification> specs = new SequenceOf<>(byObject.size());
+                for (final Map.Entry<ObjectIdentifier, List<DeviceObjectPropertyReference>> e : byObject.entrySet()) {
+                    final SequenceOf<PropertyValue> values = new SequenceOf<>(e.getValue().size());
+                    for (final DeviceObjectPropertyReference ref : e.getValue())
+                        values.add(toPropertyValue(ref, value, priority));
+                    specs.add(new WriteAccessSpecification(e.getKey(), values));
+                }
+                req = new WritePropertyMultipleRequest(specs);
+            }
+            LOG.debug("Sending write request for {} references to {}", refs.size(), rd.getInstanceNumber());
+            localDevice.send(rd, req, this);
+        }
+
+        /**
+         * Groups the references by object, in the order in which they are written by a WritePropertyMultiple request.
+         */
+        Map<ObjectIdentifier, List<DeviceObjectPropertyReference>> byObject() {
+            final Map<ObjectIdentifier, List<DeviceObjectPropertyReference>> byObject = new LinkedHashMap<>();
+            for (final DeviceObjectPropertyReference ref : refs)
+                byObject.computeIfAbsent(ref.getObjectIdentifier(), k -> new ArrayList<>()).add(ref);
+            return byObject;
+        }
+
+        void complete(final WriteStatus status) {
+            for (final DeviceObjectPropertyReference ref : refs)
+                genResults.set(ref, status);
+        }
+
+        @Override
+        public void success(final AcknowledgementService ack) {
+            complete(WriteStatus.SUCCEEDED);
+            completed();
+        }
+
+        @Override
+        public void fail(final AckAPDU ack) {
+            if (refs.size() > 1 && ack instanceof Error
+                    && ((Error) ack).getError() instanceof WritePropertyMultipleError) {
+                // The writes before the first failed one succeeded. The rest were not attempted.
+                final ObjectPropertyReference failed = ((WritePropertyMultipleError) ((Error) ack).getError())
+                        .getFirstFailedWriteAttempt();
+                LOG.warn("Failed to write to {} in {}, ack={}", failed, rd.getInstanceNumber(), ack);
+                synchronized (PropertyWriteFanOut.this) {
+                    if (gen == generation)
+                        completeUpTo(failed);
+                    else
+                        complete(WriteStatus.SUPERSEDED);
+                }
+            } else if (refs.size() > 1 && !(ack instanceof Error)) {
+                // Rejected or aborted, e.g. because the request was too big after all. Write the references one at
+                // a time instead.
+                LOG.debug("Write multiple to {} failed, writing singly, ack={}", rd.getInstanceNumber(), ack);
+                synchronized (PropertyWriteFanOut.this) {
+                    if (gen == generation) {
+                        for (int i = refs.size() - 1; i >= 0; i--)
+                            queue.addFirst(new Task(gen, genResults, rd, Collections.singletonList(refs.get(i)),
+                                    value, priority));
+                    } else
+                        complete(WriteStatus.SUPERSEDED);
+                }
+            } else {
+                LOG.warn("Failed to write to {} in {}, ack={}", refs, rd.getInstanceNumber(), ack);
+                complete(WriteStatus.FAILED);
+            }
+            completed();
+        }
+
+        /**
+         * Marks the references that were written before the failed one as succeeded, and the rest as failed. The
+         * references are walked in the order in which they were sent. If the failed reference is not found, it is not
+         * known which writes succeeded, so all are marked as failed.
+         */
+        private void completeUpTo(final ObjectPropertyReference failed) {
+            final List<DeviceObjectPropertyReference> succeeded = new ArrayList<>();
+            boolean found = false;
+            for (final List<DeviceObjectPropertyReference> objectRefs : byObject().values()) {
+                for (final DeviceObjectPropertyReference ref : objectRefs) {
+                    if (ref.getObjectIdentifier().equals(failed.getObjectIdentifier())
+                            && ref.getPropertyIdentifier().equals(failed.getPropertyIdentifier())
+                            && Objects.equals(ref.getPropertyArrayIndex(), failed.getPropertyArrayIndex())) {
+                        found = true;
+                        break;
+                    }
+                    succeeded.add(ref);
+                }
+                if (found)
+                    break;
+            }
+
+            for (final DeviceObjectPropertyReference ref : refs)
+                genResults.set(ref, found && succeeded.contains(ref) ? WriteStatus.SUCCEEDED : WriteStatus.FAILED);
+        }
+
+        @Override
+        public void ex(final BACnetException e) {
+            LOG.error("Failed to write to {} in {}", refs, rd.getInstanceNumber(), e);
+            complete(WriteStatus.FAILED);
+            completed();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.serotonin.bacnet4j.util;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.serotonin.bacnet4j.obj.ObjectProperties;
+import com.serotonin.bacnet4j.obj.ObjectPropertyTypeDefinition;
+import com.serotonin.bacnet4j.obj.PropertyTypeDefinition;
+import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.constructed.PropertyReference;
+import com.serotonin.bacnet4j.type.enumerated.ObjectType;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.primitive.BitString;
+import com.serotonin.bacnet4j.type.primitive.Boolean;
+import com.serotonin.bacnet4j.type.primitive.Date;
+import com.serotonin.bacnet4j.type.primitive.Double;
+import com.serotonin.bacnet4j.type.primitive.Enumerated;
+import com.serotonin.bacnet4j.type.primitive.Null;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.type.primitive.Primitive;
+import com.serotonin.bacnet4j.type.primitive.Real;
+import com.serotonin.bacnet4j.type.primitive.SignedInteger;
+import com.serotonin.bacnet4j.type.primitive.Time;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.sero.ByteQueue;
+
+/**
+ * Partitions the references of a ReadPropertyMultiple request so that each response fits into a single APDU, for
+ * devices that cannot send segmented responses.
+ *
+ * The encoded size of each property in the response is estimated from its type, and then learned from the values that
+ * the device actually returns, per object type and property. If the device still rejects a response as too big, the
+ * response size limit is reduced below the estimated size of the failed request, and allowed to grow back up to it
+ * as requests succeed.
+ */
+public class ReadPropertyMultiplePacker implements Serializable {
+    private static final long serialVersionUID = -2395741178095424567L;
+
+    // The header of an unsegmented ComplexACK.
+    static final int ACK_HEADER = 3;
+    // The object identifier and the opening and closing tags of the list of results.
+    static final int OBJECT_OVERHEAD = 7;
+    // The opening and closing tags of the read result.
+    static final int RESULT_OVERHEAD = 2;
+
+    // The size of strings and constructed values, which cannot be estimated from the type.
+    static final int DEFAULT_SIZE = 64;
+    static final int DEFAULT_LIST_SIZE = 128;
+    static final int MINIMUM_RESPONSE_LIMIT = 50;
+    // The size of all, required or optional properties, which cannot be estimated at all.
+    static final int UNKNOWN_SIZE = Integer.MAX_VALUE / 2;
+
+    // The learned value sizes, keyed by object type, property and kind of array index.
+    private final Map<Long, Integer> learned = new ConcurrentHashMap<>();
+
+    // The limit on the response size that was learned from failed requests.
+    private volatile int responseLimit = Integer.MAX_VALUE;
+    // The estimated size of the last failed request, which the limit does not grow back to.
+    private volatile int failedSize = Integer.MAX_VALUE;
+
+    /**
+     * @param maxReferences
+     *            the maximum number of references in a partition.
+     * @param maxResponseSize
+     *            the maximum size of the response APDU, or Integer.MAX_VALUE if the size is not limited.
+     */
+    public List<PropertyReferences> partition(final PropertyReferences refs, final int maxReferences,
+            final int maxResponseSize) {
+        if (maxResponseSize == Integer.MAX_VALUE)
+            return refs.getPropertiesPartitioned(maxReferences);
+
+        final int budget = getResponseBudget(maxResponseSize);
+        final List<PropertyReferences> partitions = new ArrayList<>();
+
+        PropertyReferences partition = null;
+        int count = 0;
+        // Sizes are summed as longs so that unknown sizes do not overflow. A reference of unknown size fills a
+        // partition on its own.
+        long size = 0;
+        for (final Map.Entry<ObjectIdentifier, List<PropertyReference>> e : refs.getProperties().entrySet()) {
+            final ObjectIdentifier oid = e.getKey();
+            boolean newObject = true;
+            for (final PropertyReference ref : e.getValue()) {
+                long cost = estimate(oid.getObjectType(), ref);
+                if (newObject)
+                    cost += OBJECT_OVERHEAD;
+
+                if (partition == null || count >= maxReferences || count > 0 && size + cost > budget) {
+                    partition = new PropertyReferences();
+                    partitions.add(partition);
+                    count = 0;
+                    size = 0;
+                    if (!newObject)
+                        cost += OBJECT_OVERHEAD;
+                }
+
+                partition.add(oid, ref);
+                count++;
+                size += cost;
+                newObject = false;
+            }
+        }
+
+        return partitions;
+    }
+
+    /**
+     * @return the estimated size of the response to a request for the given references, which is at least
+     *         UNKNOWN_SIZE if it includes references of unknown size.
+     */
+    public int estimate(final PropertyReferences refs) {
+        long size = ACK_HEADER;
+        for (final Map.Entry<ObjectIdentifier, List<PropertyReference>> e : refs.getProperties().entrySet()) {
+            size += OBJECT_OVERHEAD;
+            for (final PropertyReference ref : e.getValue())
+                size += estimate(e.getKey().getObjectType(), ref);
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the estimated size of a single result in the response, or UNKNOWN_SIZE for all, required or optional
+     *         properties.
+     */
+    public int estimate(final ObjectType objectType, final PropertyReference ref) {
+        final PropertyIdentifier pid = ref.getPropertyIdentifier();
+        final UnsignedInteger index = ref.getPropertyArrayIndex();
+
+        int size = RESULT_OVERHEAD + 1 + unsignedLength(pid.intValue());
+        if (index != null)
+            size += 1 + unsignedLength(index.longValue());
+
+        if (pid.isOneOf(PropertyIdentifier.all, PropertyIdentifier.required, PropertyIdentifier.optional))
+            // The size of all of the properties of an object cannot be estimated, so it is sent on its own.
+            return UNKNOWN_SIZE;
+
+        final Integer learnedSize = learned.get(key(objectType, pid, index));
+        if (learnedSize != null)
+            return size + learnedSize;
+        return size + defaultSize(objectType, pid, index);
+    }
+
+    /**
+     * Learns the encoded size of a value, or error, that the device returned.
+     */
+    public void learn(final ObjectType objectType, final PropertyIdentifier pid, final UnsignedInteger index,
+            final Encodable value) {
+        if (value == null)
+            return;
+
+        final ByteQueue queue = new ByteQueue(64);
+        value.write(queue);
+        final int size = queue.size();
+
+        // Grow immediately, but shrink slowly so that a value that varies in size is not underestimated.
+        learned.merge(key(objectType, pid, index), size,
+                (old, observed) -> observed >= old ? observed : (7 * old + observed + 7) / 8);
+    }
+
+    /**
+     * Called when a request with the given estimated response size was rejected as too big.
+     */
+    public void tooBig(final int estimatedSize) {
+        // Nothing is learned from a request whose size was not known.
+        if (estimatedSize >= UNKNOWN_SIZE)
+            return;
+        failedSize = Math.min(failedSize, estimatedSize);
+        responseLimit = Math.max(MINIMUM_RESPONSE_LIMIT, Math.min(responseLimit, estimatedSize) / 4 * 3);
+    }
+
+    /**
+     * Called when a request succeeded, to allow the response limit to recover.
+     */
+    public void succeeded() {
+        final int limit = responseLimit;
+        if (limit != Integer.MAX_VALUE)
+            responseLimit = Math.min(failedSize - 1, limit + limit / 16 + 1);
+    }
+
+    public int getResponseBudget(final int maxResponseSize) {
+        return Math.min(maxResponseSize, responseLimit) - ACK_HEADER;
+    }
+
+    private static int defaultSize(final ObjectType objectType, final PropertyIdentifier pid,
+            final UnsignedInteger index) {
+        PropertyTypeDefinition def;
+        final ObjectPropertyTypeDefinition opdef = ObjectProperties.getObjectPropertyTypeDefinition(objectType, pid);
+        if (opdef != null)
+            def = opdef.getPropertyTypeDefinition();
+        else
+            def = ObjectProperties.getPropertyTypeDefinition(pid);
+        if (def == null)
+            return DEFAULT_SIZE;
+
+        if (def.isArray() || def.isList()) {
+            if (index == null)
+                return DEFAULT_LIST_SIZE;
+            if (index.intValue() == 0)
+                // The length of the array
+                return 5;
+        }
+
+        final Class<? extends Encodable> clazz = def.getClazz();
+        if (Null.class.isAssignableFrom(clazz) || Boolean.class.isAssignableFrom(clazz))
+            return 1;
+        if (Real.class.isAssignableFrom(clazz) || UnsignedInteger.class.isAssignableFrom(clazz)
+                || SignedInteger.class.isAssignableFrom(clazz) || Enumerated.class.isAssignableFrom(clazz)
+                || ObjectIdentifier.class.isAssignableFrom(clazz) || Date.class.isAssignableFrom(clazz)
+                || Time.class.isAssignableFrom(clazz))
+            return 5;
+        if (Double.class.isAssignableFrom(clazz))
+            return 10;
+        if (BitString.class.isAssignableFrom(clazz))
+            return 8;
+        if (Primitive.class.equals(clazz))
+            // Any primitive, e.g. the present value of a schedule.
+            return 10;
+        return DEFAULT_SIZE;
+    }
+
+    private static Long key(final ObjectType objectType, final PropertyIdentifier pid, final UnsignedInteger index) {
+        final int indexKind = index == null ? 0 : index.intValue() == 0 ? 1 : 2;
+        return ((long) objectType.intValue() << 24 | pid.intValue()) << 2 | indexKind;
+    }
+
+    private static int unsignedLength(final long value) {
+        if (value < 0x100)
+            return 1;
+        if (value < 0x10000)
+            return 2;
+        if (value < 0x1000000)
+            return 3;
+        return 4;
+    }
+
+    @Override
+    public String toString() {
+        return "ReadPropertyMultiplePacker [learned=" + learned.size() + ", responseLimit=" + responseLimit + "]";
+    }
+}
@@ -0,0 +1,186 @@
+package com.serotonin.bacnet4j.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.serotonin.bacnet4j.type.constructed.DateTime;
+import com.serotonin.bacnet4j.type.constructed.Destination;
+import com.serotonin.bacnet4j.type.constructed.Recipient;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.constructed.TimeStamp;
+import com.serotonin.bacnet4j.type.enumerated.EventState;
+import com.serotonin.bacnet4j.type.primitive.Time;
+
+/**
+ * A recipient list that is compiled for matching events against its destinations.
+ *
+ * The valid days and transitions of each destination are compiled into bit masks, and the from and to times into
+ * hundredths of the day, so that matching an event takes a few integer operations per destination rather than
+ * comparisons of BitStrings and Times. Destinations are grouped by recipient so that the notifications to a recipient
+ * are resolved and sent together, and destinations that would result in identical notifications to the same recipient
+ * only result in one.
+ *
+ * A filter is immutable. Objects that own a recipient list keep a filter for it, and replace it when the list changes.
+ */
+public class RecipientListFilter {
+    private final SequenceOf<Destination> recipientList;
+    private final int count;
+    private final List<Group> groups = new ArrayList<>();
+
+    public RecipientListFilter(final SequenceOf<Destination> recipientList) {
+        this.recipientList = recipientList;
+        count = count(recipientList);
+
+        if (recipientList != null) {
+            final Map<Recipient, Group> byRecipient = new LinkedHashMap<>();
+            for (final Destination destination : recipientList) {
+                Group group = byRecipient.get(destination.getRecipient());
+                if (group == null) {
+                    group = new Group(destination.getRecipient());
+                    byRecipient.put(destination.getRecipient(), group);
+                }
+                group.windows.add(new Window(destination));
+            }
+            groups.addAll(byRecipient.values());
+        }
+    }
+
+    /**
+     * @return the given filter if it was compiled from the given list, or otherwise a new filter for the list. A
+     *         null list is treated as empty.
+     */
+    public static RecipientListFilter forList(final RecipientListFilter filter,
+            final SequenceOf<Destination> recipientList) {
+        if (filter != null && filter.recipientList == recipientList && filter.count == count(recipientList))
+            return filter;
+        return new RecipientListFilter(recipientList);
+    }
+
+    private static int count(final SequenceOf<Destination> recipientList) {
+        return recipientList == null ? 0 : recipientList.getCount();
+    }
+
+    /**
+     * @return the recipients that are interested in the event, each with the destinations to which notifications
+     *         should be sent.
+     */
+    public List<Match> match(final TimeStamp timeStamp, final EventState toState) {
+        final int transition = 1 << toState.getTransitionIndex() - 1;
+
+        // Only check date fields if the timestamp is not a sequence number.
+        final boolean checkTime = !timeStamp.isSequenceNumber();
+        int day = 0;
+        int hundredth = 0;
+        boolean specified = true;
+        if (checkTime) {
+            final DateTime dt = timeStamp.getDateTime();
+            final int dow = dt.getDate().getDayOfWeek().getId();
+            final Time time = dt.getTime();
+            specified = dow >= 1 && dow <= 7 && time.isFullySpecified();
+            if (specified) {
+                day = 1 << dow - 1;
+                hundredth = time.getHundredthInDay();
+            }
+        }
+
+        List<Match> result = null;
+        for (final Group group : groups) {
+            List<Destination> matches = null;
+            for (final Window window : group.windows) {
+                if ((window.transitions & transition) == 0)
+                    continue;
+
+                if (checkTime) {
+                    if (!specified || !window.specified) {
+                        // Times with unspecified fields are compared as they always have been.
+                        if (!window.destination.isSuitableForEvent(timeStamp, toState))
+                            continue;
+                    } else if ((window.days & day) == 0 || hundredth < window.from || hundredth > window.to)
+                        continue;
+                }
+
+                if (matches == null)
+                    matches = new ArrayList<>(group.windows.size());
+                else if (containsEquivalent(matches, window.destination))
+                    continue;
+                matches.add(window.destination);
+            }
+
+            if (matches != null) {
+                if (result == null)
+                    result = new ArrayList<>(groups.size());
+                result.add(new Match(group.recipient, matches));
+            }
+        }
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    private static boolean containsEquivalent(final List<Destination> matches, final Destination destination) {
+        for (final Destination match : matches) {
+            if (match.getProcessIdentifier().equals(destination.getProcessIdentifier())
+                    && match.getIssueConfirmedNotifications().equals(destination.getIssueConfirmedNotifications()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * A recipient and the destinations with which it matched an event.
+     */
+    public static class Match {
+        private final Recipient recipient;
+        private final List<Destination> destinations;
+
+        Match(final Recipient recipient, final List<Destination> destinations) {
+            this.recipient = recipient;
+            this.destinations = destinations;
+        }
+
+        public Recipient getRecipient() {
+            return recipient;
+        }
+
+        public List<Destination> getDestinations() {
+            return destinations;
+        }
+    }
+
+    static class Group {
+        final Recipient recipient;
+        final List<Window> windows = new ArrayList<>(1);
+
+        Group(final Recipient recipient) {
+            this.recipient = recipient;
+        }
+    }
+
+    static class Window {
+        final Destination destination;
+        final int days;
+        final int transitions;
+        final boolean specified;
+        final int from;
+        final int to;
+
+        Window(final Destination destination) {
+            this.destination = destination;
+            days = mask(destination.getValidDays().getValue());
+            transitions = mask(destination.getTransitions().getValue());
+            specified = destination.getFromTime().isFullySpecified() && destination.getToTime().isFullySpecified();
+            from = specified ? destination.getFromTime().getHundredthInDay() : 0;
+            to = specified ? destination.getToTime().getHundredthInDay() : 0;
+        }
+
+        private static int mask(final boolean[] bits) {
+            int mask = 0;
+            for (int i = 0; i < bits.length && i < 32; i++) {
+                if (bits[i])
+                    mask |= 1 << i;
+            }
+            return mask;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.serotonin.bacnet4j.util;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.RemoteDevice;
+import com.serotonin.bacnet4j.type.constructed.Address;
+import com.serotonin.bacnet4j.type.constructed.Recipient;
+
+/**
+ * Resolves the addresses of notification recipients without blocking the caller.
+ *
+ * Recipients that are given as an address, or as a device whose address is known, are sent to immediately. Sends to
+ * a device whose address is not yet known are queued per device, a lookup of the device is started, and the queue is
+ * flushed when the device responds with an IAm, or when its address is otherwise learned. The resolved addresses are
+ * cached, and kept current through LocalDevice.updateRemoteDevice.
+ */
+public class RecipientResolver {
+    static final Logger LOG = LoggerFactory.getLogger(RecipientResolver.class);
+
+    private final LocalDevice localDevice;
+
+    private int maxPendingPerDevice = 100;
+    private long pendingTimeout = 60000;
+
+    // Resolved addresses, by device instance number.
+    private final Map<Integer, Address> addresses = new ConcurrentHashMap<>();
+    // Sends that are waiting for the address of a device, by device instance number.
+    private final Map<Integer, Pending> pending = new HashMap<>();
+
+    public RecipientResolver(final LocalDevice localDevice) {
+        this.localDevice = localDevice;
+    }
+
+    public synchronized int getMaxPendingPerDevice() {
+        return maxPendingPerDevice;
+    }
+
+    /**
+     * @param maxPendingPerDevice
+     *            the maximum number of sends that are queued for a device. If more are queued, the oldest are
+     *            discarded.
+     */
+    public synchronized void setMaxPendingPerDevice(final int maxPendingPerDevice) {
+        this.maxPendingPerDevice = maxPendingPerDevice;
+    }
+
+    public synchronized long getPendingTimeout() {
+        return pendingTimeout;
+    }
+
+    /**
+     * @param pendingTimeout
+     *            the time in ms after which a queued send is discarded if the address of the device was not learned.
+     */
+    public synchronized void setPendingTimeout(final long pendingTimeout) {
+        this.pendingTimeout = pendingTimeout;
+    }
+
+    public synchronized int getPendingCount(final int instanceNumber) {
+        final Pending p = pending.get(instanceNumber);
+        return p == null ? 0 : p.senders.size();
+    }
+
+    /**
+     * Provides the address of the recipient to the given sender, either immediately in the calling thread if the
+     * address is known, or later in a different thread once the address has been learned.
+     */
+    public void send(final Recipient recipient, final Consumer<Address> sender) {
+        if (recipient.isAddress()) {
+            sender.accept(recipient.getAddress());
+            return;
+        }
+
+        final int instanceNumber = recipient.getDevice().getInstanceNumber();
+        Address address = getAddress(instanceNumber);
+        if (address == null) {
+            boolean lookup = false;
+            synchronized (this) {
+                // Check again in case the address was learned in the meantime.
+                address = addresses.get(instanceNumber);
+                if (address == null) {
+                    final long now = localDevice.getClock().millis();
+                    final Pending p = pending.computeIfAbsent(instanceNumber, k -> new Pending());
+                    p.expire(now - pendingTimeout);
+                    while (p.senders.size() >= maxPendingPerDevice) {
+                        LOG.warn("Discarding a send to device {} because too many are waiting for its address",
+                                instanceNumber);
+                        p.remove();
+                    }
+                    p.add(now, sender);
+                    if (!p.lookingUp) {
+                        p.lookingUp = true;
+                        lookup = true;
+                    }
+                }
+            }
+
+            if (address == null) {
+                if (lookup) {
+                    LOG.debug("Looking up the address of recipient device {}", instanceNumber);
+                    localDevice.getRemoteDevice(instanceNumber, (rd) -> update(instanceNumber, rd.getAddress()),
+                            () -> lookupTimedOut(instanceNumber), null, localDevice.getTransportTimeout(),
+                            TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+
+        sender.accept(address);
+    }
+
+    /**
+     * Updates the address of the given device if it is a recipient, and flushes the sends that are waiting for it.
+     */
+    public void update(final int instanceNumber, final Address address) {
+        final Collection<Consumer<Address>> flush;
+        synchronized (this) {
+            final Pending p = pending.remove(instanceNumber);
+            if (p == null) {
+                addresses.computeIfPresent(instanceNumber, (k, v) -> address);
+                return;
+            }
+
+            addresses.put(instanceNumber, address);
+            p.expire(localDevice.getClock().millis() - pendingTimeout);
+            flush = p.senders;
+        }
+
+        if (!flush.isEmpty()) {
+            LOG.debug("Sending {} queued notifications to device {} at {}", flush.size(), instanceNumber, address);
+            localDevice.execute(() -> {
+                for (final Consumer<Address> sender : flush)
+                    sender.accept(address);
+            });
+        }
+    }
+
+    /**
+     * Discards the cached addresses and the queued sends.
+     */
+    public synchronized void clear() {
+        addresses.clear();
+        pending.clear();
+    }
+
+    private Address getAddress(final int instanceNumber) {
+        Address address = addresses.get(instanceNumber);
+        if (address == null) {
+            final RemoteDevice rd = localDevice.getCachedRemoteDevice(instanceNumber);
+            if (rd != null) {
+                address = rd.getAddress();
+                addresses.put(instanceNumber, address);
+            }
+        }
+        return address;
+    }
+
+    private synchronized void lookupTimedOut(final int instanceNumber) {
+        final Pending p = pending.get(instanceNumber);
+        if (p != null) {
+            // Keep the sends that have not expired in case an IAm arrives later. The next send starts a new lookup.
+            p.lookingUp = false;
+            p.expire(localDevice.getClock().millis() - pendingTimeout);
+            LOG.warn("Unable to find recipient device {}. {} sends are waiting for its address", instanceNumber,
+                    p.senders.size());
+            if (p.senders.isEmpty())
+                pending.remove(instanceNumber);
+        }
+    }
+
+    static class Pending {
+        final ArrayDeque<Consumer<Address>> senders = new ArrayDeque<>();
+        final ArrayDeque<Long> times = new ArrayDeque<>();
+        boolean lookingUp;
+
+        void add(final long time, final Consumer<Address> sender) {
+            senders.add(sender);
+            times.add(time);
+        }
+
+        void remove() {
+            senders.poll();
+            times.poll();
+        }
+
+        void expire(final long before) {
+            while (!times.isEmpty() && times.peek() < before)
+                remove();
+        }
+    }
+}
@@ -104,6 +104,9 @@ public class RemoteDeviceFinder {
         // Register as an event listener
         localDevice.getEventHandler().addListener(listener);
 
+        // Discover the device ahead of others if the IAm arrives during a storm of them.
+        localDevice.getDiscoveryEngine().prioritize(instanceId, timeout, unit);
+
         // Send a WhoIs with the device id.
         localDevice.sendGlobalBroadcast(
                 new WhoIsRequest(new UnsignedInteger(instanceId), new UnsignedInteger(instanceId)));
@@ -150,6 +153,9 @@ public class RemoteDeviceFinder {
 
             localDevice.getEventHandler().addListener(listener);
 
+            // Discover the device ahead of others if the IAm arrives during a storm of them.
+            localDevice.getDiscoveryEngine().prioritize(instanceId, DEFAULT_TIMEOUT, TimeUnit.MILLISECONDS);
+
             // Send a WhoIs with the device id.
             localDevice.sendGlobalBroadcast(
                     new WhoIsRequest(new UnsignedInteger(instanceId), new UnsignedInteger(instanceId)));
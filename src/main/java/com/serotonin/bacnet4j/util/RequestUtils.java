@@ -55,7 +55,9 @@ import com.serotonin.bacnet4j.service.confirmed.ReadPropertyRequest;
 import com.serotonin.bacnet4j.service.confirmed.RemoveListElementRequest;
 import com.serotonin.bacnet4j.service.confirmed.WritePropertyMultipleRequest;
 import com.serotonin.bacnet4j.service.confirmed.WritePropertyRequest;
+import com.serotonin.bacnet4j.service.unconfirmed.WriteGroupRequest;
 import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.constructed.GroupChannelValue;
 import com.serotonin.bacnet4j.type.constructed.ObjectPropertyReference;
 import com.serotonin.bacnet4j.type.constructed.PropertyReference;
 import com.serotonin.bacnet4j.type.constructed.PropertyValue;
@@ -70,6 +72,7 @@ import com.serotonin.bacnet4j.type.enumerated.ErrorCode;
 import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.type.primitive.Unsigned32;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
 import com.serotonin.bacnet4j.util.sero.Utils;
 
@@ -295,9 +298,12 @@ public class RequestUtils {
         if (forceMultiple || refs.size() > 1 && multipleSupported) {
             // Read property multiple can be used. Determine the max references
             final int maxRef = d.getMaxReadMultipleReferences();
+            final ReadPropertyMultiplePacker packer = d.getReadPropertyMultiplePacker();
+            final int maxResponseSize = d.getMaxReadMultipleResponseSize();
 
-            // If the device supports read property multiple, send them all at once, or at least in partitions.
-            List<PropertyReferences> partitions = refs.getPropertiesPartitioned(maxRef);
+            // If the device supports read property multiple, send them all at once, or at least in partitions. If the
+            // device cannot segment its responses, the partitions are sized to fit the responses into one APDU.
+            List<PropertyReferences> partitions = packer.partition(refs, maxRef, maxResponseSize);
             int counter = 0;
             while (!partitions.isEmpty()) {
                 final PropertyReferences partition = partitions.get(0);
@@ -318,6 +324,8 @@ public class RequestUtils {
                     for (final ReadAccessResult objectResult : results) {
                         oid = objectResult.getObjectIdentifier();
                         for (final Result result : objectResult.getListOfResults().getValues()) {
+                            packer.learn(oid.getObjectType(), result.getPropertyIdentifier(),
+                                    result.getPropertyArrayIndex(), result.getReadResult().getDatum());
                             updater.increment(d.getInstanceNumber(), oid, result.getPropertyIdentifier(),
                                     result.getPropertyArrayIndex(), result.getReadResult().getDatum());
                             if (updater.cancelled())
@@ -328,19 +336,23 @@ public class RequestUtils {
                             break;
                     }
 
+                    packer.succeeded();
+                    d.increaseMaxReadMultipleReferences(partition.size());
                     partitions.remove(0);
                 } catch (final ServiceTooBigException e) {
                     if (partition.size() < 2)
                         throw e;
 
-                    // Reduce the device's max references.
+                    // Reduce the device's max references and response size.
                     d.reduceMaxReadMultipleReferences(partition.size());
+                    if (maxResponseSize != Integer.MAX_VALUE)
+                        packer.tooBig(packer.estimate(partition));
 
                     // Create a new PropertyReferences instance from the remaining references.
                     final PropertyReferences remaining = new PropertyReferences(partitions);
 
                     // Repartition the remaining requests.
-                    partitions = remaining.getPropertiesPartitioned(d.getMaxReadMultipleReferences());
+                    partitions = packer.partition(remaining, d.getMaxReadMultipleReferences(), maxResponseSize);
                 } catch (final AbortAPDUException e) {
                     LOG.warn("Chunked request failed.");
                     if (AbortReason.bufferOverflow.equals(e.getApdu().getAbortReason())
@@ -348,14 +360,16 @@ public class RequestUtils {
                         if (partition.size() < 2)
                             throw e;
 
-                        // Reduce the device's max references.
+                        // Reduce the device's max references and response size.
                         d.reduceMaxReadMultipleReferences(partition.size());
+                        if (maxResponseSize != Integer.MAX_VALUE)
+                            packer.tooBig(packer.estimate(partition));
 
                         // Create a new PropertyReferences instance from the remaining references.
                         final PropertyReferences remaining = new PropertyReferences(partitions);
 
                         // Repartition the remaining requests.
-                        partitions = remaining.getPropertiesPartitioned(d.getMaxReadMultipleReferences());
+                        partitions = packer.partition(remaining, d.getMaxReadMultipleReferences(), maxResponseSize);
                     } else
                         throw new BACnetException("Completed " + counter + " requests. Excepted on: " + request, e);
                 } catch (final BACnetTimeoutException e) {
@@ -552,6 +566,16 @@ public class RequestUtils {
         }
     }
 
+    /**
+     * Writes the given values to the channels of a control group in all devices with a single global broadcast,
+     * rather than a write request for each member of the channels. Channels in the local device are not written.
+     */
+    public static void writeGroup(final LocalDevice localDevice, final int groupNumber, final int writePriority,
+            final List<GroupChannelValue> changeList) {
+        localDevice.sendGlobalBroadcast(new WriteGroupRequest(new Unsigned32(groupNumber),
+                new UnsignedInteger(writePriority), new SequenceOf<>(changeList), null));
+    }
+
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////
     ////////////////////////////////////////////////////////////////////////////////////////////////////////////
     // List element write requests
@@ -2,9 +2,10 @@ package com.serotonin.bacnet4j.util;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -17,9 +18,6 @@ import com.serotonin.bacnet4j.RemoteDevice;
 import com.serotonin.bacnet4j.exception.BACnetErrorException;
 import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.service.acknowledgement.CreateObjectAck;
-import com.serotonin.bacnet4j.service.confirmed.AtomicWriteFileRequest;
-import com.serotonin.bacnet4j.service.confirmed.AtomicWriteFileRequest.RecordAccess;
-import com.serotonin.bacnet4j.service.confirmed.AtomicWriteFileRequest.StreamAccess;
 import com.serotonin.bacnet4j.service.confirmed.CreateObjectRequest;
 import com.serotonin.bacnet4j.service.confirmed.ReinitializeDeviceRequest;
 import com.serotonin.bacnet4j.service.confirmed.ReinitializeDeviceRequest.ReinitializedStateOfDevice;
@@ -35,7 +33,6 @@ import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
 import com.serotonin.bacnet4j.type.primitive.CharacterString;
 import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.OctetString;
-import com.serotonin.bacnet4j.type.primitive.SignedInteger;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
 import com.serotonin.bacnet4j.util.sero.ArrayUtils;
 import com.serotonin.bacnet4j.util.sero.ThreadUtils;
@@ -188,7 +185,8 @@ public class RestoreClient {
                     PropertyIdentifier.fileAccessMethod);
 
             LOG.info("Writing configuration file contents for {}", file);
-            int reqCount = 0;
+            final FileTransfer transfer = createFileTransfer(rd);
+            final FileTransfer.Statistics stats;
             if (fileAccessMethod.equals(FileAccessMethod.recordAccess)) {
                 // Empty the existing file by writing a record count of 0.
                 RequestUtils.writeProperty(localDevice, rd, fileOid, PropertyIdentifier.recordCount,
@@ -196,65 +194,30 @@ public class RestoreClient {
 
                 // Record access files are expected to be CRLF-delimited hex representations, as written by the
                 // BackupClient.
-                int currentRecord = 0;
                 try (BufferedReader in = new BufferedReader(new FileReader(file))) {
-                    boolean done = false;
-                    while (!done) {
-                        final SequenceOf<OctetString> records = new SequenceOf<>();
-                        while (records.size() < 5) {
-                            final String line = in.readLine();
-                            if (line == null) {
-                                // EOF
-                                done = true;
-                                break;
-                            }
-                            records.add(new OctetString(ArrayUtils.fromPlainHexString(line)));
-                        }
-
-                        if (records.size() > 0) {
-                            reqCount++;
-                            final AtomicWriteFileRequest req = new AtomicWriteFileRequest(fileOid, new RecordAccess(
-                                    new SignedInteger(currentRecord), new UnsignedInteger(records.size()), records));
-                            localDevice.send(rd, req).get();
-
-                            currentRecord += records.size();
-                        }
-                    }
+                    stats = transfer.writeRecords(fileOid,
+                            in.lines().map(line -> new OctetString(ArrayUtils.fromPlainHexString(line))).iterator(),
+                            0);
                 }
             } else {
                 // Empty the existing file by writing a file size of 0.
                 RequestUtils.writeProperty(localDevice, rd, fileOid, PropertyIdentifier.fileSize, UnsignedInteger.ZERO);
 
-                final byte[] buffer = new byte[128];
-                int currentPosition = 0;
-                try (FileInputStream in = new FileInputStream(file)) {
-                    while (true) {
-                        final int readCount = in.read(buffer);
-                        if (readCount == -1)
-                            break;
-
-                        OctetString data;
-                        if (readCount < buffer.length) {
-                            final byte[] b = new byte[readCount];
-                            System.arraycopy(buffer, 0, b, 0, readCount);
-                            data = new OctetString(b);
-                        } else {
-                            data = new OctetString(buffer);
-                        }
-
-                        reqCount++;
-                        final AtomicWriteFileRequest req = new AtomicWriteFileRequest(fileOid,
-                                new StreamAccess(new SignedInteger(currentPosition), data));
-                        localDevice.send(rd, req).get();
-
-                        currentPosition += readCount;
-                    }
+                try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                    stats = transfer.write(fileOid, in, 0);
                 }
             }
-            LOG.info("Configuration file written using {} requests", reqCount);
+            LOG.info("Configuration file written using {} requests, {}", stats.getRequests(), stats);
         }
     }
 
+    /**
+     * Override this method to configure the transfer of files, e.g. the number of requests in flight.
+     */
+    protected FileTransfer createFileTransfer(final RemoteDevice rd) {
+        return new FileTransfer(localDevice, rd);
+    }
+
     /**
      * Override this method to provide customized file name to object identifier mapping.
      *
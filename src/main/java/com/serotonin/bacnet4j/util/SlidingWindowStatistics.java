@@ -0,0 +1,271 @@
+package com.serotonin.bacnet4j.util;
+
+/**
+ * Minimum, maximum and average of the last n samples, maintained in amortized constant time per sample.
+ *
+ * Samples are held in a ring buffer. The sum is kept as a running total, and the minimum and maximum are the heads of
+ * monotonic deques of sample sequence numbers, so none of the statistics require a scan of the window. Samples may be
+ * invalid (e.g. a failed poll), in which case they occupy a slot in the window but are not included in the
+ * statistics.
+ *
+ * Where several samples share the minimum or maximum value, the oldest one is reported, along with its timestamp.
+ *
+ * This class is not thread safe.
+ *
+ * @param <T>
+ *            the type of the sample timestamps
+ */
+public class SlidingWindowStatistics<T> {
+    private final int windowSize;
+
+    // The ring buffer. The slot of a sample is its sequence number modulo the window size.
+    private final float[] values;
+    private final Object[] timestamps;
+    private final boolean[] valid;
+
+    private final MonotonicDeque minimums;
+    private final MonotonicDeque maximums;
+
+    // The sequence number of the next sample to be added.
+    private long nextSequence;
+    private int count;
+
+    private int validCount;
+    private double sum;
+    // Non-finite values are counted rather than summed so that the sum recovers once they leave the window.
+    private int nanCount;
+    private int positiveInfinityCount;
+    private int negativeInfinityCount;
+    // The number of samples since the sum was last recalculated from the buffer, to limit rounding drift.
+    private int sinceResync;
+
+    public SlidingWindowStatistics(final int windowSize) {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("windowSize must be greater than zero");
+
+        this.windowSize = windowSize;
+        values = new float[windowSize];
+        timestamps = new Object[windowSize];
+        valid = new boolean[windowSize];
+        minimums = new MonotonicDeque(windowSize, true);
+        maximums = new MonotonicDeque(windowSize, false);
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Adds a valid sample, dropping the oldest sample if the window is full.
+     */
+    public void add(final float value, final T timestamp) {
+        makeRoom();
+
+        final int slot = slot(nextSequence);
+        values[slot] = value;
+        timestamps[slot] = timestamp;
+        valid[slot] = true;
+
+        if (!Float.isNaN(value)) {
+            minimums.add(nextSequence, value);
+            maximums.add(nextSequence, value);
+        }
+
+        validCount++;
+        addToSum(value, 1);
+
+        nextSequence++;
+        count++;
+
+        if (++sinceResync >= windowSize)
+            resync();
+    }
+
+    /**
+     * Adds an invalid sample, dropping the oldest sample if the window is full.
+     */
+    public void addInvalid() {
+        makeRoom();
+
+        final int slot = slot(nextSequence);
+        timestamps[slot] = null;
+        valid[slot] = false;
+
+        nextSequence++;
+        count++;
+    }
+
+    public void clear() {
+        minimums.clear();
+        maximums.clear();
+        for (int i = 0; i < windowSize; i++)
+            timestamps[i] = null;
+        count = 0;
+        validCount = 0;
+        sum = 0;
+        nanCount = 0;
+        positiveInfinityCount = 0;
+        negativeInfinityCount = 0;
+        sinceResync = 0;
+    }
+
+    /**
+     * @return the number of samples, valid or not, in the window.
+     */
+    public int getSampleCount() {
+        return count;
+    }
+
+    public int getValidCount() {
+        return validCount;
+    }
+
+    /**
+     * @return the minimum value, or positive infinity if there are no valid samples.
+     */
+    public float getMinimum() {
+        if (minimums.isEmpty())
+            return Float.POSITIVE_INFINITY;
+        return values[slot(minimums.first())];
+    }
+
+    /**
+     * @return the timestamp of the minimum value, or null if there are no valid samples.
+     */
+    public T getMinimumTimestamp() {
+        if (minimums.isEmpty())
+            return null;
+        return timestamp(minimums.first());
+    }
+
+    /**
+     * @return the maximum value, or negative infinity if there are no valid samples.
+     */
+    public float getMaximum() {
+        if (maximums.isEmpty())
+            return Float.NEGATIVE_INFINITY;
+        return values[slot(maximums.first())];
+    }
+
+    /**
+     * @return the timestamp of the maximum value, or null if there are no valid samples.
+     */
+    public T getMaximumTimestamp() {
+        if (maximums.isEmpty())
+            return null;
+        return timestamp(maximums.first());
+    }
+
+    /**
+     * @return the average of the valid samples, or NaN if there are none.
+     */
+    public float getAverage() {
+        if (validCount == 0 || nanCount > 0)
+            return Float.NaN;
+        if (positiveInfinityCount > 0)
+            return negativeInfinityCount > 0 ? Float.NaN : Float.POSITIVE_INFINITY;
+        if (negativeInfinityCount > 0)
+            return Float.NEGATIVE_INFINITY;
+        return (float) (sum / validCount);
+    }
+
+    private void makeRoom() {
+        if (count < windowSize)
+            return;
+
+        final long oldest = nextSequence - count;
+        final int slot = slot(oldest);
+        if (valid[slot]) {
+            minimums.removeFirstIf(oldest);
+            maximums.removeFirstIf(oldest);
+            validCount--;
+            addToSum(values[slot], -1);
+        }
+        timestamps[slot] = null;
+        count--;
+    }
+
+    private void addToSum(final float value, final int direction) {
+        if (Float.isNaN(value))
+            nanCount += direction;
+        else if (value == Float.POSITIVE_INFINITY)
+            positiveInfinityCount += direction;
+        else if (value == Float.NEGATIVE_INFINITY)
+            negativeInfinityCount += direction;
+        else
+            sum += direction * (double) value;
+    }
+
+    private void resync() {
+        sum = 0;
+        for (long seq = nextSequence - count; seq < nextSequence; seq++) {
+            final int slot = slot(seq);
+            if (valid[slot] && !Float.isNaN(values[slot]) && !Float.isInfinite(values[slot]))
+                sum += values[slot];
+        }
+        sinceResync = 0;
+    }
+
+    private int slot(final long sequence) {
+        return (int) (sequence % windowSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T timestamp(final long sequence) {
+        return (T) timestamps[slot(sequence)];
+    }
+
+    /**
+     * A deque of sequence numbers whose values are monotonic, increasing for minimums and decreasing for maximums. It
+     * never holds more entries than the window, so it is backed by a fixed size ring of its own.
+     */
+    private class MonotonicDeque {
+        private final long[] sequences;
+        private final boolean minimum;
+        private int head;
+        private int size;
+
+        MonotonicDeque(final int capacity, final boolean minimum) {
+            sequences = new long[capacity];
+            this.minimum = minimum;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long first() {
+            return sequences[head];
+        }
+
+        void add(final long sequence, final float value) {
+            // Remove entries from the tail that can no longer be the min/max. Entries with the same value are kept so
+            // that the oldest is reported.
+            while (size > 0) {
+                final float last = values[slot(sequences[index(size - 1)])];
+                if (minimum ? last > value : last < value)
+                    size--;
+                else
+                    break;
+            }
+            sequences[index(size)] = sequence;
+            size++;
+        }
+
+        void removeFirstIf(final long sequence) {
+            if (size > 0 && sequences[head] == sequence) {
+                head = index(1);
+                size--;
+            }
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        private int index(final int offset) {
+            return (head + offset) % sequences.length;
+        }
+    }
+}
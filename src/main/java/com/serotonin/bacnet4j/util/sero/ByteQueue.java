@@ -70,6 +70,23 @@ public class ByteQueue implements Cloneable {
         push(hex);
     }
 
+    /**
+     * Creates a queue that contains the first length bytes of the given array, using the array as its buffer rather
+     * than copying it. The array must not be modified afterwards.
+     */
+    public static ByteQueue wrap(final byte[] b, final int length) {
+        if (length < 0 || length > b.length)
+            throw new IllegalArgumentException("length " + length + " is not within the array length " + b.length);
+
+        final ByteQueue queue = new ByteQueue(0);
+        queue.queue = b.length == 0 ? new byte[1] : b;
+        if (length > 0)
+            queue.head = 0;
+        queue.tail = length % queue.queue.length;
+        queue.size = length;
+        return queue;
+    }
+
     public void push(final String hex) {
         if (hex.length() % 2 != 0)
             throw new IllegalArgumentException("Hex string must have an even number of characters");
@@ -37,6 +37,11 @@ public class JsscSerialPortInputStream extends InputStream {
 
         try {
             int length = serialPort.getInputBufferBytesCount();
+            if (length == 0) {
+                // Block until at least one byte is available, as required by the InputStream contract.
+                b[off] = (byte) read();
+                return 1;
+            }
             if (length > len) {
                 length = len;
             }
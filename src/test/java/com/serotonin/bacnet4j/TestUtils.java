@@ -11,6 +11,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.function.BiPredicate;
+import java.util.function.BooleanSupplier;
 
 import org.junit.Assert;
 
@@ -273,4 +274,16 @@ public class TestUtils {
     interface SizeRetriever {
         int size();
     }
+
+    //
+    // Condition assurance. Uses busy wait with timeout to ensure that a condition becomes true.
+    public static void await(final BooleanSupplier condition, final int wait) {
+        final long deadline = Clock.systemUTC().millis() + wait;
+        while (!condition.getAsBoolean()) {
+            if (deadline < Clock.systemUTC().millis()) {
+                fail("Condition was not met within " + wait + " ms");
+            }
+            ThreadUtils.sleep(2);
+        }
+    }
 }
@@ -0,0 +1,152 @@
+package com.serotonin.bacnet4j.adhoc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.time.Clock;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.serotonin.bacnet4j.npdu.mstp.DataCRC;
+import com.serotonin.bacnet4j.npdu.mstp.Frame;
+import com.serotonin.bacnet4j.npdu.mstp.FrameType;
+import com.serotonin.bacnet4j.npdu.mstp.MasterNode;
+
+/**
+ * Measures the cost of the MS/TP CRCs against the bitwise calculation that they replaced, and the throughput of data
+ * frames between two master nodes connected by a loopback stream, in both the polling and blocking read modes.
+ */
+public class MstpThroughputBenchmark {
+    public static void main(final String[] args) throws Exception {
+        crc();
+        loopback(false);
+        loopback(true);
+        System.exit(0);
+    }
+
+    private static void crc() {
+        final byte[] data = new byte[501];
+        new Random(0).nextBytes(data);
+        final DataCRC dataCRC = new DataCRC();
+
+        final int iterations = 20000;
+        int check = 0;
+        for (int warmup = 0; warmup < 2; warmup++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++)
+                check += dataCRC.getCrc(data, 0, data.length);
+            final long table = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                int crc = 0xffff;
+                for (final byte b : data)
+                    crc = bitwiseDataCRC(b & 0xff, crc);
+                check += crc;
+            }
+            final long bits = System.nanoTime() - start;
+
+            if (warmup == 1) {
+                final double bytes = (double) iterations * data.length;
+                System.out.println(String.format("Data CRC: table %.2f ns/byte, bitwise %.2f ns/byte", table / bytes,
+                        bits / bytes));
+            }
+        }
+        if (check == 42)
+            System.out.println();
+    }
+
+    private static void loopback(final boolean blockingRead) throws Exception {
+        final PipedInputStream in1 = new PipedInputStream(65536);
+        final PipedInputStream in2 = new PipedInputStream(65536);
+        final CountingOutputStream out1 = new CountingOutputStream(new PipedOutputStream(in2));
+        final CountingOutputStream out2 = new CountingOutputStream(new PipedOutputStream(in1));
+
+        final AtomicInteger received = new AtomicInteger();
+        final MasterNode sender = new BenchmarkNode("1", in1, out1, (byte) 1, null);
+        final MasterNode receiver = new BenchmarkNode("2", in2, out2, (byte) 2, received);
+        for (final MasterNode node : new MasterNode[] { sender, receiver }) {
+            node.setMaxMaster(3);
+            node.setMaxInfoFrames(20);
+            node.setBlockingRead(blockingRead);
+            node.initialize(true);
+        }
+
+        // Wait for the token ring to form.
+        while (!sender.hasReceivedToken() || !receiver.hasReceivedToken())
+            Thread.sleep(100);
+
+        final byte[] data = new byte[480];
+        for (int i = 0; i < 500000; i++)
+            sender.queueFrame(FrameType.bacnetDataNotExpectingReply, (byte) 2, data);
+
+        final int startFrames = received.get();
+        final long startWrites = out1.writes;
+        final long startBytes = sender.getBytesOut();
+        final long start = System.nanoTime();
+        Thread.sleep(5000);
+        final int frames = received.get() - startFrames;
+        final long writes = out1.writes - startWrites;
+        final long bytes = sender.getBytesOut() - startBytes;
+        final long elapsed = System.nanoTime() - start;
+
+        System.out.println(String.format(
+                "Loopback, %s reads: %.0f frames/s, %.0f kbytes/s, %.2f writes per frame sent", //
+                blockingRead ? "blocking" : "polling", frames * 1e9 / elapsed, bytes * 1e6 / elapsed,
+                (double) writes / Math.max(1, frames)));
+
+        sender.terminate();
+        receiver.terminate();
+    }
+
+    static class BenchmarkNode extends MasterNode {
+        private final AtomicInteger received;
+
+        BenchmarkNode(final String portId, final PipedInputStream in, final OutputStream out, final byte thisStation,
+                final AtomicInteger received) {
+            super(portId, in, out, thisStation, 2);
+            this.received = received;
+            clock = Clock.systemUTC();
+        }
+
+        @Override
+        protected void receivedDataNoReply(final Frame frame) {
+            if (received != null)
+                received.incrementAndGet();
+        }
+    }
+
+    static class CountingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+        volatile long writes;
+
+        CountingOutputStream(final OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            writes++;
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            writes++;
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+    }
+
+    private static int bitwiseDataCRC(final int dataValue, final int crcValue) {
+        final int crcLow = crcValue & 0xff ^ dataValue;
+        final int crc = crcValue >> 8 ^ crcLow << 8 ^ crcLow << 3 ^ crcLow << 12 ^ crcLow >> 4 ^ crcLow & 0x0f
+                ^ (crcLow & 0x0f) << 7;
+        return crc & 0xffff;
+    }
+}
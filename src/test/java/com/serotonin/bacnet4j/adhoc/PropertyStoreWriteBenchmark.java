@@ -0,0 +1,61 @@
+package com.serotonin.bacnet4j.adhoc;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.npdu.test.TestNetwork;
+import com.serotonin.bacnet4j.npdu.test.TestNetworkMap;
+import com.serotonin.bacnet4j.obj.AnalogValueObject;
+import com.serotonin.bacnet4j.transport.DefaultTransport;
+import com.serotonin.bacnet4j.type.constructed.PropertyReference;
+import com.serotonin.bacnet4j.type.enumerated.EngineeringUnits;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.primitive.Real;
+
+/**
+ * Measures the cost of local writes of the present value of an analog value, with and without reads of the
+ * properties in between. Once an object's properties have been read, its property store publishes a snapshot after
+ * every write, so each case uses a new object.
+ */
+public class PropertyStoreWriteBenchmark {
+    public static void main(final String[] args) throws Exception {
+        final LocalDevice d = new LocalDevice(1, new DefaultTransport(new TestNetwork(new TestNetworkMap(), 1, 0)))
+                .initialize();
+        try {
+            // Warm up
+            writes(new AnalogValueObject(d, 0, "warm0", 0, EngineeringUnits.noUnits, false), 1000000, 0);
+            writes(new AnalogValueObject(d, 1, "warm1", 0, EngineeringUnits.noUnits, false), 1000000, 10);
+
+            System.out.println(String.format("%18s %18s", "reads per write", "ns/write"));
+            int instance = 2;
+            for (final int readEvery : new int[] { 0, 100, 10, 1 }) {
+                final AnalogValueObject av = new AnalogValueObject(d, instance, "av" + instance, 0,
+                        EngineeringUnits.noUnits, false);
+                instance++;
+                final double ns = writes(av, 1000000, readEvery);
+                System.out.println(String.format("%18s %18.1f", readEvery == 0 ? "none" : "1/" + readEvery, ns));
+            }
+        } finally {
+            d.terminate();
+        }
+    }
+
+    private static double writes(final AnalogValueObject av, final int count, final int readEvery)
+            throws Exception {
+        final List<PropertyReference> refs = Collections
+                .singletonList(new PropertyReference(PropertyIdentifier.presentValue));
+        float check = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            av.writePropertyInternal(PropertyIdentifier.presentValue, new Real(i));
+            if (readEvery > 0 && i % readEvery == 0)
+                check += ((Real) av.readProperties(refs).get(0)).floatValue();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        if (check == 42.4242F)
+            System.out.println();
+        return (double) elapsed / count;
+    }
+}
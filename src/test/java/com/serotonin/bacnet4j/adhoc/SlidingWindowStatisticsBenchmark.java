@@ -0,0 +1,97 @@
+package com.serotonin.bacnet4j.adhoc;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import com.serotonin.bacnet4j.util.SlidingWindowStatistics;
+
+/**
+ * Compares the cost per sample of SlidingWindowStatistics with a rescan of the window, which is how the averaging
+ * object used to calculate its values.
+ */
+public class SlidingWindowStatisticsBenchmark {
+    public static void main(final String[] args) {
+        final int[] windowSizes = { 10, 100, 1000, 10000, 100000 };
+
+        // Warm up
+        for (final int windowSize : windowSizes) {
+            streaming(windowSize, 100000);
+            rescan(windowSize, Math.max(100, 2000000 / windowSize));
+        }
+
+        System.out.println(String.format("%10s %18s %18s", "window", "streaming ns/op", "rescan ns/op"));
+        for (final int windowSize : windowSizes) {
+            // The windows are filled before timing starts. Bound the rescan samples so that it finishes.
+            final int streamingSamples = 1000000;
+            final int rescanSamples = Math.max(200, 20000000 / windowSize);
+
+            final double streaming = streaming(windowSize, streamingSamples);
+            final double rescan = rescan(windowSize, rescanSamples);
+            System.out.println(String.format("%10d %18.1f %18.1f", windowSize, streaming, rescan));
+        }
+    }
+
+    private static double streaming(final int windowSize, final int samples) {
+        final float[] values = values(windowSize + samples);
+        final SlidingWindowStatistics<Long> stats = new SlidingWindowStatistics<>(windowSize);
+        final Long timestamp = 0L;
+        for (int i = 0; i < windowSize; i++)
+            stats.add(values[i], timestamp);
+        float check = 0;
+
+        final long start = System.nanoTime();
+        for (int i = windowSize; i < values.length; i++) {
+            stats.add(values[i], timestamp);
+            check += stats.getMinimum() + stats.getMaximum() + stats.getAverage();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        blackhole(check);
+        return (double) elapsed / samples;
+    }
+
+    private static double rescan(final int windowSize, final int samples) {
+        final float[] values = values(windowSize + samples);
+        final List<Float> buffer = new LinkedList<>();
+        for (int i = 0; i < windowSize; i++)
+            buffer.add(values[i]);
+        float check = 0;
+
+        final long start = System.nanoTime();
+        for (int i = windowSize; i < values.length; i++) {
+            while (buffer.size() >= windowSize)
+                buffer.remove(0);
+            buffer.add(values[i]);
+
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            float sum = 0;
+            for (final Float f : buffer) {
+                if (f < min)
+                    min = f;
+                if (f > max)
+                    max = f;
+                sum += f;
+            }
+            check += min + max + sum / buffer.size();
+        }
+        final long elapsed = System.nanoTime() - start;
+
+        blackhole(check);
+        return (double) elapsed / samples;
+    }
+
+    private static float[] values(final int count) {
+        final Random random = new Random(0);
+        final float[] values = new float[count];
+        for (int i = 0; i < count; i++)
+            values[i] = random.nextFloat();
+        return values;
+    }
+
+    private static void blackhole(final float f) {
+        if (f == 42.4242F)
+            System.out.println();
+    }
+}
@@ -0,0 +1,73 @@
+package com.serotonin.bacnet4j.npdu.mstp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DataCRCTest {
+    @Test
+    public void knownFrames() {
+        final DataCRC crc = new DataCRC();
+
+        // The example in Annex G.2 of the standard.
+        assertEquals(0xBD10, crc.getCrc(new byte[] { 0x01, 0x22, 0x30 }, 0, 3));
+
+        // A captured data frame.
+        final byte[] data = { 0x1, 0x20, (byte) 0xff, (byte) 0xfc, (byte) 0xfe, 0x20, (byte) 0xa0, (byte) 0xe7,
+                (byte) 0x91, (byte) 0xf0, 0x3, 0x22, 0x1, 0x15, 0x2b, (byte) 0xf9, (byte) 0xff, 0x55, (byte) 0xff, 0x0,
+                0x4 };
+        assertEquals(0xB896, crc.getCrc(new Frame(FrameType.bacnetDataNotExpectingReply, (byte) 0xff, (byte) 8, data)));
+        assertReceivedOk(data, 0xB896);
+    }
+
+    @Test
+    public void matchesBitwise() {
+        final Random random = new Random(0);
+        final DataCRC crc = new DataCRC();
+        for (int i = 0; i < 1000; i++) {
+            final byte[] data = new byte[random.nextInt(502)];
+            random.nextBytes(data);
+            final int offset = data.length == 0 ? 0 : random.nextInt(data.length);
+            final int length = data.length - offset;
+
+            int expected = 0xffff;
+            for (int j = offset; j < offset + length; j++)
+                expected = bitwise(data[j] & 0xff, expected);
+            expected = ~expected & 0xffff;
+
+            assertEquals(expected, crc.getCrc(data, offset, length));
+
+            // Accumulating one octet at a time gives the same result as a block.
+            crc.reset();
+            for (int j = offset; j < offset + length; j++)
+                crc.accumulate(data[j]);
+            crc.accumulate(expected & 0xff);
+            crc.accumulate(expected >> 8);
+            assertTrue(crc.isOk());
+        }
+    }
+
+    /**
+     * Checks the CRC as a receiver does, by accumulating the data and the CRC, least significant octet first.
+     */
+    private static void assertReceivedOk(final byte[] data, final int sent) {
+        final DataCRC crc = new DataCRC();
+        crc.accumulate(data, 0, data.length);
+        crc.accumulate(sent & 0xff);
+        crc.accumulate(sent >> 8);
+        assertTrue(crc.isOk());
+    }
+
+    /**
+     * The bitwise calculation from Annex G.2 of the standard.
+     */
+    private static int bitwise(final int dataValue, final int crcValue) {
+        final int crcLow = crcValue & 0xff ^ dataValue;
+        final int crc = crcValue >> 8 ^ crcLow << 8 ^ crcLow << 3 ^ crcLow << 12 ^ crcLow >> 4 ^ crcLow & 0x0f
+                ^ (crcLow & 0x0f) << 7;
+        return crc & 0xffff;
+    }
+}
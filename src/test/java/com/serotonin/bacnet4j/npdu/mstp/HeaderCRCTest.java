@@ -0,0 +1,69 @@
+package com.serotonin.bacnet4j.npdu.mstp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class HeaderCRCTest {
+    @Test
+    public void knownFrames() {
+        final HeaderCRC crc = new HeaderCRC();
+
+        // The example in Annex G.1 of the standard.
+        assertEquals(0x8C, crc.getCrc(new Frame(FrameType.token, (byte) 0x10, (byte) 0x05)));
+        assertEquals(0x8C, crc.getCrc(new byte[] { 0x00, 0x10, 0x05, 0x00, 0x00 }, 0, 5));
+
+        // A captured data frame.
+        final byte[] header = { 0x06, (byte) 0xff, 0x08, 0x00, 0x15 };
+        assertEquals(0xDA, crc.getCrc(header, 0, header.length));
+        crc.reset();
+        for (final byte b : header)
+            crc.accumulate(b);
+        crc.accumulate(0xDA);
+        assertTrue(crc.isOk());
+    }
+
+    @Test
+    public void matchesBitwise() {
+        // Every combination of accumulator and data octet.
+        for (int value = 0; value < 256; value++) {
+            for (int data = 0; data < 256; data++)
+                assertEquals(bitwise(data, value), HeaderCRC.calcHeaderCRC(data, value));
+        }
+
+        final Random random = new Random(0);
+        final HeaderCRC crc = new HeaderCRC();
+        final byte[] header = new byte[7];
+        for (int i = 0; i < 1000; i++) {
+            random.nextBytes(header);
+            final int offset = random.nextInt(3);
+
+            int expected = 0xff;
+            for (int j = offset; j < offset + 5; j++)
+                expected = bitwise(header[j] & 0xff, expected);
+            expected = ~expected & 0xff;
+
+            assertEquals(expected, crc.getCrc(header, offset, 5));
+
+            final Frame frame = new Frame();
+            frame.setFrameType(FrameType.forId(header[offset]));
+            frame.setDestinationAddress(header[offset + 1]);
+            frame.setSourceAddress(header[offset + 2]);
+            frame.setLength((header[offset + 3] & 0xff) << 8 | header[offset + 4] & 0xff);
+            if (frame.getFrameType() != null)
+                assertEquals(expected, crc.getCrc(frame));
+        }
+    }
+
+    /**
+     * The bitwise calculation from Annex G.1 of the standard.
+     */
+    private static int bitwise(final int dataValue, final int crcValue) {
+        int crc = crcValue ^ dataValue;
+        crc = crc ^ crc << 1 ^ crc << 2 ^ crc << 3 ^ crc << 4 ^ crc << 5 ^ crc << 6 ^ crc << 7;
+        return crc & 0xfe ^ crc >> 8 & 1;
+    }
+}
@@ -0,0 +1,67 @@
+package com.serotonin.bacnet4j.npdu.mstp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.TestUtils;
+
+public class MstpNodeTest {
+    @Test
+    public void blockingRead() throws Exception {
+        final PipedInputStream in1 = new PipedInputStream(4096);
+        final PipedInputStream in2 = new PipedInputStream(4096);
+        final TestNode node1 = new TestNode("1", in1, new PipedOutputStream(in2), (byte) 1);
+        final TestNode node2 = new TestNode("2", in2, new PipedOutputStream(in1), (byte) 2);
+        for (final TestNode node : new TestNode[] { node1, node2 }) {
+            node.setMaxMaster(3);
+            node.setBlockingRead(true);
+            node.initialize(true);
+        }
+
+        try {
+            // The token ring forms, and data frames are delivered in both directions.
+            TestUtils.await(() -> node1.hasReceivedToken() && node2.hasReceivedToken(), 5000);
+            node1.queueFrame(FrameType.bacnetDataNotExpectingReply, (byte) 2, new byte[] { 1, 2, 3 });
+            node2.queueFrame(FrameType.bacnetDataNotExpectingReply, (byte) 1, new byte[] { 4, 5 });
+            TestUtils.await(() -> node1.received.size() == 1 && node2.received.size() == 1, 5000);
+            assertTrue(Arrays.equals(new byte[] { 4, 5 }, node1.received.get(0)));
+            assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, node2.received.get(0)));
+            assertTrue(node1.getBytesIn() > 0);
+            assertTrue(node2.getBytesIn() > 0);
+        } finally {
+            node1.terminate();
+            node2.terminate();
+        }
+
+        // Both the node and receiver threads have ended, although the streams were not closed.
+        for (final TestNode node : new TestNode[] { node1, node2 }) {
+            assertFalse(node.thread.isAlive());
+            assertFalse(node.receiverThread.isAlive());
+        }
+        assertEquals(1, node1.received.size());
+    }
+
+    static class TestNode extends MasterNode {
+        final List<byte[]> received = new CopyOnWriteArrayList<>();
+
+        TestNode(final String portId, final PipedInputStream in, final PipedOutputStream out, final byte thisStation) {
+            super(portId, in, out, thisStation, 2);
+            clock = Clock.systemUTC();
+        }
+
+        @Override
+        protected void receivedDataNoReply(final Frame frame) {
+            received.add(frame.getData());
+        }
+    }
+}
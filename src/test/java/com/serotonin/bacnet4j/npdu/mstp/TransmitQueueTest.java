@@ -0,0 +1,93 @@
+package com.serotonin.bacnet4j.npdu.mstp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.npdu.NPCI;
+import com.serotonin.bacnet4j.npdu.NPCI.NetworkPriority;
+import com.serotonin.bacnet4j.util.sero.ByteQueue;
+
+public class TransmitQueueTest {
+    @Test
+    public void priorityFromNpdu() {
+        for (final NetworkPriority priority : NetworkPriority.values()) {
+            final ByteQueue queue = new ByteQueue();
+            new NPCI(null, null, true).priority(priority).write(queue);
+            assertTrue(TransmitQueue.getPriority(queue.popAll()) == priority);
+        }
+        assertTrue(TransmitQueue.getPriority(null) == NetworkPriority.normal);
+    }
+
+    @Test
+    public void highestPriorityFirst() {
+        final TransmitQueue queue = new TransmitQueue();
+        final Frame normal = frame(1);
+        final Frame urgent = frame(2);
+        final Frame lifeSafety = frame(1);
+        queue.add(normal, NetworkPriority.normal, 0);
+        queue.add(urgent, NetworkPriority.urgent, 10);
+        queue.add(lifeSafety, NetworkPriority.lifeSafety, 20);
+        assertEquals(3, queue.size());
+
+        assertTrue(queue.poll(30) == lifeSafety);
+        assertTrue(queue.poll(30) == urgent);
+        assertTrue(queue.poll(30) == normal);
+        assertNull(queue.poll(30));
+        assertTrue(queue.isEmpty());
+    }
+
+    /**
+     * Destinations take turns within a class, and the frames of each destination keep their order.
+     */
+    @Test
+    public void destinationsTakeTurns() {
+        final TransmitQueue queue = new TransmitQueue();
+        final Frame[] bulk = new Frame[5];
+        for (int i = 0; i < bulk.length; i++) {
+            bulk[i] = frame(1);
+            queue.add(bulk[i], NetworkPriority.normal, 0);
+        }
+        final Frame other1 = frame(2);
+        final Frame other2 = frame(3);
+        queue.add(other1, NetworkPriority.normal, 0);
+        queue.add(other2, NetworkPriority.normal, 0);
+
+        assertTrue(queue.poll(0) == bulk[0]);
+        assertTrue(queue.poll(0) == other1);
+        assertTrue(queue.poll(0) == other2);
+        for (int i = 1; i < bulk.length; i++)
+            assertTrue(queue.poll(0) == bulk[i]);
+        assertNull(queue.poll(0));
+    }
+
+    @Test
+    public void stats() {
+        final TransmitQueue queue = new TransmitQueue();
+        queue.add(frame(1), NetworkPriority.urgent, 100);
+        queue.add(frame(2), NetworkPriority.urgent, 200);
+        queue.add(frame(3), NetworkPriority.normal, 200);
+
+        final TransmitQueue.PriorityStats urgent = queue.getStats(NetworkPriority.urgent);
+        assertEquals(2, urgent.getQueueDepth());
+        assertEquals(1, queue.getStats(NetworkPriority.normal).getQueueDepth());
+
+        queue.poll(300);
+        queue.poll(300);
+        assertEquals(0, urgent.getQueueDepth());
+        assertEquals(2, urgent.getSentCount());
+        assertEquals(200, urgent.getMaxWait());
+        assertEquals(150, urgent.getAverageWait(), 0.1);
+        assertEquals(1, queue.getStats(NetworkPriority.normal).getQueueDepth());
+
+        urgent.reset();
+        assertEquals(0, urgent.getSentCount());
+        assertEquals(0, urgent.getMaxWait());
+    }
+
+    private static Frame frame(final int destination) {
+        return new Frame(FrameType.bacnetDataExpectingReply, (byte) destination, (byte) 0, new byte[] { 1, 4 });
+    }
+}
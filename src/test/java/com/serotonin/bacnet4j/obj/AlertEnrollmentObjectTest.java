@@ -1,6 +1,7 @@
 package com.serotonin.bacnet4j.obj;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.Map;
 
@@ -15,6 +16,8 @@ import com.serotonin.bacnet4j.type.constructed.Recipient;
 import com.serotonin.bacnet4j.type.constructed.SequenceOf;
 import com.serotonin.bacnet4j.type.constructed.TimeStamp;
 import com.serotonin.bacnet4j.type.enumerated.EngineeringUnits;
+import com.serotonin.bacnet4j.type.enumerated.ErrorClass;
+import com.serotonin.bacnet4j.type.enumerated.ErrorCode;
 import com.serotonin.bacnet4j.type.enumerated.EventState;
 import com.serotonin.bacnet4j.type.enumerated.EventType;
 import com.serotonin.bacnet4j.type.enumerated.NotifyType;
@@ -105,4 +108,18 @@ public class AlertEnrollmentObjectTest extends AbstractTest {
                 PropertyIdentifier.eventMessageTextsConfig, //
                 PropertyIdentifier.eventAlgorithmInhibit), propertyList.getValues());
     }
+
+    @Test
+    public void duplicateKeepsEventStateIndex() throws Exception {
+        final AlertEnrollmentObject ae = new AlertEnrollmentObject(d1, 1, "ae1", 55, NotifyType.alarm);
+
+        // The duplicate's event reporting is set up before the device rejects it.
+        TestUtils.assertBACnetServiceException(() -> new AlertEnrollmentObject(d1, 1, "ae1dup", 55, NotifyType.alarm),
+                ErrorClass.object, ErrorCode.objectIdentifierAlreadyExists);
+
+        // The original is still the indexed object.
+        final BACnetObject indexed = d1.getEventStateIndex().getReportingObjects().stream()
+                .filter(bo -> bo.getId().equals(ae.getId())).findFirst().orElse(null);
+        assertSame(ae, indexed);
+    }
 }
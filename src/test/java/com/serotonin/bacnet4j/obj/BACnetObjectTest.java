@@ -8,6 +8,8 @@ import org.slf4j.LoggerFactory;
 import com.serotonin.bacnet4j.AbstractTest;
 import com.serotonin.bacnet4j.TestUtils;
 import com.serotonin.bacnet4j.exception.BACnetException;
+import com.serotonin.bacnet4j.service.acknowledgement.ReadPropertyAck;
+import com.serotonin.bacnet4j.type.EncodedValue;
 import com.serotonin.bacnet4j.type.constructed.BACnetArray;
 import com.serotonin.bacnet4j.type.constructed.DateTime;
 import com.serotonin.bacnet4j.type.constructed.NameValue;
@@ -26,6 +28,7 @@ import com.serotonin.bacnet4j.type.primitive.Real;
 import com.serotonin.bacnet4j.type.primitive.SignedInteger;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
 import com.serotonin.bacnet4j.util.RequestUtils;
+import com.serotonin.bacnet4j.util.sero.ByteQueue;
 
 public class BACnetObjectTest extends AbstractTest {
     static final Logger LOG = LoggerFactory.getLogger(BACnetObjectTest.class);
@@ -178,4 +181,36 @@ public class BACnetObjectTest extends AbstractTest {
                         new Recipient(new ObjectIdentifier(ObjectType.device, 13))),
                 d2.get(PropertyIdentifier.restartNotificationRecipients));
     }
+
+    @Test
+    public void encodedValues() {
+        final PropertyIdentifier pid = PropertyIdentifier.forId(6789);
+        final BACnetArray<Real> array = d2.get(pid);
+        final EncodedValue encoded = d2.getDeviceObject().getEncoded(pid, null, array);
+        Assert.assertTrue(encoded == d2.getDeviceObject().getEncoded(pid, null, array));
+        Assert.assertArrayEquals(encode(new ReadPropertyAck(d2.getId(), pid, null, array)),
+                encode(new ReadPropertyAck(d2.getId(), pid, null, array, encoded)));
+
+        // Elements are cached separately.
+        final EncodedValue element = d2.getDeviceObject().getEncoded(pid, new UnsignedInteger(2), new Real(1));
+        Assert.assertTrue(element != encoded);
+        Assert.assertTrue(encoded == d2.getDeviceObject().getEncoded(pid, null, array));
+
+        // A value that is changed in place is encoded again.
+        array.setBase1(2, new Real(20));
+        final EncodedValue changed = d2.getDeviceObject().getEncoded(pid, null, array);
+        Assert.assertTrue(changed != encoded);
+        Assert.assertEquals(new EncodedValue(new BACnetArray<>(new Real(0), new Real(20), new Real(2))), changed);
+
+        // As is a value that is written.
+        final BACnetArray<Real> written = new BACnetArray<>(new Real(3));
+        d2.writePropertyInternal(pid, written);
+        Assert.assertEquals(new EncodedValue(written), d2.getDeviceObject().getEncoded(pid, null, written));
+    }
+
+    private static byte[] encode(final ReadPropertyAck ack) {
+        final ByteQueue queue = new ByteQueue();
+        ack.write(queue);
+        return queue.popAll();
+    }
 }
@@ -3,6 +3,7 @@ package com.serotonin.bacnet4j.obj;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -15,6 +16,7 @@ import com.serotonin.bacnet4j.TestUtils;
 import com.serotonin.bacnet4j.exception.ErrorAPDUException;
 import com.serotonin.bacnet4j.service.confirmed.SubscribeCOVPropertyRequest;
 import com.serotonin.bacnet4j.service.confirmed.SubscribeCOVRequest;
+import com.serotonin.bacnet4j.type.Encodable;
 import com.serotonin.bacnet4j.type.constructed.Address;
 import com.serotonin.bacnet4j.type.constructed.CovSubscription;
 import com.serotonin.bacnet4j.type.constructed.DateTime;
@@ -203,6 +205,43 @@ public class ChangeOfValueTest extends AbstractTest {
         assertEquals(0, listener.notifs.size());
     }
 
+    @Test
+    public void batchWrite() throws Exception {
+        final AnalogValueObject av = new AnalogValueObject(d1, 0, "av0", 10, EngineeringUnits.amperes, false);
+        av.supportCovReporting(4);
+
+        final CovNotifListener listener = new CovNotifListener();
+        d2.getEventHandler().addListener(listener);
+
+        d2.send(rd1, new SubscribeCOVRequest(new UnsignedInteger(4), av.getId(), Boolean.TRUE, //
+                new UnsignedInteger(2))).get();
+        Thread.sleep(50);
+        assertEquals(1, listener.notifs.size());
+        listener.notifs.remove(0);
+
+        // Written one at a time, the present value and out of service each cause a notification.
+        av.writePropertyInternal(PropertyIdentifier.presentValue, new Real(20));
+        av.writePropertyInternal(PropertyIdentifier.outOfService, Boolean.TRUE);
+        Thread.sleep(100);
+        assertEquals(2, listener.notifs.size());
+        listener.notifs.clear();
+
+        // Written together, they cause one notification with the values after both writes.
+        final Map<PropertyIdentifier, Encodable> values = new LinkedHashMap<>();
+        values.put(PropertyIdentifier.presentValue, new Real(30));
+        values.put(PropertyIdentifier.outOfService, Boolean.FALSE);
+        final Map<ObjectIdentifier, Map<PropertyIdentifier, Encodable>> objectValues = new LinkedHashMap<>();
+        objectValues.put(av.getId(), values);
+        d1.writePropertiesInternal(objectValues);
+        Thread.sleep(100);
+        assertEquals(1, listener.notifs.size());
+        assertEquals(
+                new SequenceOf<>( //
+                        new PropertyValue(PropertyIdentifier.presentValue, new Real(30)), //
+                        new PropertyValue(PropertyIdentifier.statusFlags, new StatusFlags(false, false, false, false))),
+                listener.notifs.get(0).get("listOfValues"));
+    }
+
     @Test
     public void unsubscribe() throws Exception {
         final AnalogValueObject av = new AnalogValueObject(d1, 0, "av0", 10, EngineeringUnits.amperes, false);
@@ -0,0 +1,127 @@
+package com.serotonin.bacnet4j.obj;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.AbstractTest;
+import com.serotonin.bacnet4j.TestUtils;
+import com.serotonin.bacnet4j.type.constructed.BACnetArray;
+import com.serotonin.bacnet4j.type.constructed.ChannelValue;
+import com.serotonin.bacnet4j.type.constructed.DeviceObjectPropertyReference;
+import com.serotonin.bacnet4j.type.constructed.GroupChannelValue;
+import com.serotonin.bacnet4j.type.constructed.PriorityArray;
+import com.serotonin.bacnet4j.type.constructed.PriorityValue;
+import com.serotonin.bacnet4j.type.constructed.PropertyValue;
+import com.serotonin.bacnet4j.type.enumerated.EngineeringUnits;
+import com.serotonin.bacnet4j.type.enumerated.ErrorClass;
+import com.serotonin.bacnet4j.type.enumerated.ErrorCode;
+import com.serotonin.bacnet4j.type.enumerated.ObjectType;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.enumerated.WriteStatus;
+import com.serotonin.bacnet4j.type.primitive.Null;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.type.primitive.Real;
+import com.serotonin.bacnet4j.type.primitive.Unsigned16;
+import com.serotonin.bacnet4j.type.primitive.Unsigned32;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.PropertyWriteFanOut;
+import com.serotonin.bacnet4j.util.RequestUtils;
+
+public class ChannelObjectTest extends AbstractTest {
+    @Test
+    public void writePresentValue() throws Exception {
+        final AnalogOutputObject localAo = new AnalogOutputObject(d1, 1, "ao1", 0, EngineeringUnits.noUnits, false,
+                0);
+        final AnalogOutputObject remoteAo = new AnalogOutputObject(d2, 2, "ao2", 0, EngineeringUnits.noUnits, false,
+                0);
+
+        final ChannelObject channel = new ChannelObject(d1, 0, "channel", 1,
+                new BACnetArray<>(new DeviceObjectPropertyReference(localAo.getId(), PropertyIdentifier.presentValue,
+                        null, null),
+                        new DeviceObjectPropertyReference(remoteAo.getId(), PropertyIdentifier.presentValue, null,
+                                d2.getId())),
+                new BACnetArray<>(new Unsigned32(5)), false);
+
+        channel.writeProperty(null, new PropertyValue(PropertyIdentifier.presentValue, null,
+                new ChannelValue(new Real(12)), new UnsignedInteger(8)));
+        assertEquals(new Real(12), localAo.get(PropertyIdentifier.presentValue));
+        assertEquals(new UnsignedInteger(8), channel.get(PropertyIdentifier.lastPriority));
+        // The status is successful once the remote write is done.
+        TestUtils.await(() -> WriteStatus.successful.equals(channel.get(PropertyIdentifier.writeStatus)), 2000);
+        assertEquals(new Real(12), remoteAo.get(PropertyIdentifier.presentValue));
+        assertEquals(new PriorityValue(new Real(12)),
+                ((PriorityArray) remoteAo.get(PropertyIdentifier.priorityArray)).getBase1(8));
+
+        // A null relinquishes the members.
+        channel.writeProperty(null, new PropertyValue(PropertyIdentifier.presentValue, null,
+                new ChannelValue(Null.instance), new UnsignedInteger(8)));
+        assertEquals(new Real(0), localAo.get(PropertyIdentifier.presentValue));
+        TestUtils.await(() -> new Real(0).equals(remoteAo.get(PropertyIdentifier.presentValue)), 2000);
+
+        TestUtils.assertBACnetServiceException(() -> {
+            channel.writeProperty(null, new PropertyValue(PropertyIdentifier.presentValue, null,
+                    new ChannelValue(new Real(1)), new UnsignedInteger(17)));
+        }, ErrorClass.property, ErrorCode.valueOutOfRange);
+    }
+
+    @Test
+    public void failedRemoteWrite() throws Exception {
+        final AnalogOutputObject remoteAo = new AnalogOutputObject(d2, 2, "ao2", 0, EngineeringUnits.noUnits, false,
+                0);
+        final ObjectIdentifier missing = new ObjectIdentifier(ObjectType.analogOutput, 3);
+
+        final ChannelObject channel = new ChannelObject(d1, 0, "channel", 1, new BACnetArray<>( //
+                new DeviceObjectPropertyReference(remoteAo.getId(), PropertyIdentifier.presentValue, null, d2.getId()),
+                new DeviceObjectPropertyReference(missing, PropertyIdentifier.presentValue, null, d2.getId())),
+                new BACnetArray<>(new Unsigned32(5)), false);
+
+        // Hold the requests to the remote device, so that the writes are seen in progress.
+        channel.getWriteFanOut().setMaxConcurrency(0);
+        channel.writeProperty(null, new PropertyValue(PropertyIdentifier.presentValue, null,
+                new ChannelValue(new Real(12)), new UnsignedInteger(8)));
+        assertEquals(WriteStatus.inProgress, channel.get(PropertyIdentifier.writeStatus));
+
+        channel.getWriteFanOut().setMaxConcurrency(8);
+        TestUtils.await(() -> WriteStatus.failed.equals(channel.get(PropertyIdentifier.writeStatus)), 2000);
+        assertEquals(new Real(12), remoteAo.get(PropertyIdentifier.presentValue));
+        assertEquals(PropertyWriteFanOut.WriteStatus.FAILED, channel.getWriteResults()
+                .get(new DeviceObjectPropertyReference(missing, PropertyIdentifier.presentValue, null, d2.getId())));
+    }
+
+    @Test
+    public void writeGroup() throws Exception {
+        final AnalogOutputObject ao1 = new AnalogOutputObject(d2, 1, "ao1", 0, EngineeringUnits.noUnits, false, 0);
+        final AnalogOutputObject ao2 = new AnalogOutputObject(d2, 2, "ao2", 0, EngineeringUnits.noUnits, false, 0);
+        final AnalogOutputObject ao3 = new AnalogOutputObject(d2, 3, "ao3", 0, EngineeringUnits.noUnits, false, 0);
+
+        final ChannelObject channel1 = new ChannelObject(d2, 1, "channel1", 1, refs(ao1),
+                new BACnetArray<>(new Unsigned32(5), new Unsigned32(6)), false);
+        final ChannelObject channel2 = new ChannelObject(d2, 2, "channel2", 2, refs(ao2),
+                new BACnetArray<>(new Unsigned32(5)), false);
+        // Not in the group.
+        final ChannelObject channel3 = new ChannelObject(d2, 3, "channel3", 1, refs(ao3),
+                new BACnetArray<>(new Unsigned32(6)), false);
+
+        RequestUtils.writeGroup(d1, 5, 10, Arrays.asList( //
+                new GroupChannelValue(new Unsigned16(1), null, new ChannelValue(new Real(11))), //
+                new GroupChannelValue(new Unsigned16(2), new UnsignedInteger(4), new ChannelValue(new Real(22)))));
+
+        TestUtils.await(() -> new Real(11).equals(ao1.get(PropertyIdentifier.presentValue)), 2000);
+        TestUtils.await(() -> new Real(22).equals(ao2.get(PropertyIdentifier.presentValue)), 2000);
+        assertEquals(new UnsignedInteger(10), channel1.get(PropertyIdentifier.lastPriority));
+        assertEquals(new UnsignedInteger(4), channel2.get(PropertyIdentifier.lastPriority));
+        assertEquals(new PriorityValue(new Real(22)),
+                ((PriorityArray) ao2.get(PropertyIdentifier.priorityArray)).getBase1(4));
+
+        assertEquals(new Real(0), ao3.get(PropertyIdentifier.presentValue));
+        assertEquals(new ChannelValue(Null.instance), channel3.get(PropertyIdentifier.presentValue));
+    }
+
+    private static BACnetArray<DeviceObjectPropertyReference> refs(final AnalogOutputObject ao) {
+        return new BACnetArray<>(
+                new DeviceObjectPropertyReference(ao.getId(), PropertyIdentifier.presentValue, null, null));
+    }
+}
@@ -603,6 +603,45 @@ public class IntrinsicAlarmTest extends AbstractTest {
         assertEquals(new UnsignedInteger(200), eventSummary.getEventPriorities().getBase1(3));
     }
 
+    @Test
+    public void eventInformationPaging() throws Exception {
+        final BinaryValueObject bv1 = new BinaryValueObject(d1, 1, "bvName2", BinaryPV.inactive, false);
+        bv.supportIntrinsicReporting(1, 7, BinaryPV.active, new EventTransitionBits(true, true, true), NotifyType.alarm,
+                2);
+        bv1.supportIntrinsicReporting(1, 7, BinaryPV.active, new EventTransitionBits(true, true, true),
+                NotifyType.alarm, 2);
+
+        // Nothing is active yet.
+        GetEventInformationAck eventInfoAck = d2.send(rd1, new GetEventInformationRequest(null)).get();
+        assertEquals(0, eventInfoAck.getListOfEventSummaries().getCount());
+
+        // Put both objects into alarm.
+        bv.writePropertyInternal(PropertyIdentifier.presentValue, BinaryPV.active);
+        bv1.writePropertyInternal(PropertyIdentifier.presentValue, BinaryPV.active);
+        clock.plus(1100, TimeUnit.MILLISECONDS, 1100, TimeUnit.MILLISECONDS, 0, 40);
+        assertEquals(EventState.offnormal, bv.readProperty(PropertyIdentifier.eventState));
+        assertEquals(EventState.offnormal, bv1.readProperty(PropertyIdentifier.eventState));
+
+        eventInfoAck = d2.send(rd1, new GetEventInformationRequest(null)).get();
+        assertEquals(2, eventInfoAck.getListOfEventSummaries().getCount());
+        assertEquals(bv.getId(), eventInfoAck.getListOfEventSummaries().getBase1(1).getObjectIdentifier());
+        assertEquals(bv1.getId(), eventInfoAck.getListOfEventSummaries().getBase1(2).getObjectIdentifier());
+
+        // Continue after the first object.
+        eventInfoAck = d2.send(rd1, new GetEventInformationRequest(bv.getId())).get();
+        assertEquals(1, eventInfoAck.getListOfEventSummaries().getCount());
+        assertEquals(bv1.getId(), eventInfoAck.getListOfEventSummaries().getBase1(1).getObjectIdentifier());
+
+        eventInfoAck = d2.send(rd1, new GetEventInformationRequest(bv1.getId())).get();
+        assertEquals(0, eventInfoAck.getListOfEventSummaries().getCount());
+
+        // Removed objects are no longer reported.
+        d1.removeObject(bv1.getId());
+        final GetAlarmSummaryAck alarmSummaryAck = d2.send(rd1, new GetAlarmSummaryRequest()).get();
+        assertEquals(1, alarmSummaryAck.getValues().getCount());
+        assertEquals(bv.getId(), alarmSummaryAck.getValues().getBase1(1).getObjectIdentifier());
+    }
+
     @Test
     public void internalAcks() throws Exception {
         // Add rd2 as a recipient of event notifications from bv
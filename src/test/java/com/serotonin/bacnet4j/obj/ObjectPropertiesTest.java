@@ -1,12 +1,19 @@
 package com.serotonin.bacnet4j.obj;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
 
 import org.junit.Test;
 
+import com.serotonin.bacnet4j.type.enumerated.ObjectType;
 import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.enumerated.Reliability;
+import com.serotonin.bacnet4j.type.primitive.Real;
 
 public class ObjectPropertiesTest {
     @Test
@@ -19,5 +26,52 @@ public class ObjectPropertiesTest {
 
         // Present value takes on different values in different objects.
         assertNull(ObjectProperties.getPropertyTypeDefinition(PropertyIdentifier.presentValue));
+
+        // Proprietary properties are not defined.
+        assertNull(ObjectProperties.getPropertyTypeDefinition(PropertyIdentifier.forId(5000)));
+    }
+
+    @Test
+    public void objectPropertyDefinition() {
+        final ObjectPropertyTypeDefinition def = ObjectProperties
+                .getObjectPropertyTypeDefinition(ObjectType.analogValue, PropertyIdentifier.presentValue);
+        assertEquals(Real.class, def.getPropertyTypeDefinition().getClazz());
+        assertTrue(def.isRequired());
+
+        assertNull(ObjectProperties.getObjectPropertyTypeDefinition(ObjectType.analogValue,
+                PropertyIdentifier.forId(5000)));
+        assertNull(ObjectProperties.getObjectPropertyTypeDefinition(ObjectType.forId(1000),
+                PropertyIdentifier.presentValue));
+        assertNull(ObjectProperties.getObjectPropertyTypeDefinition(null, PropertyIdentifier.presentValue));
+
+        assertTrue(ObjectProperties.isCommandable(ObjectType.analogValue, PropertyIdentifier.presentValue));
+        assertFalse(ObjectProperties.isCommandable(ObjectType.analogInput, PropertyIdentifier.presentValue));
+        assertFalse(ObjectProperties.isCommandable(ObjectType.forId(1000), PropertyIdentifier.presentValue));
+    }
+
+    @Test
+    public void objectPropertyDefinitions() {
+        final List<ObjectPropertyTypeDefinition> all = ObjectProperties
+                .getObjectPropertyTypeDefinitions(ObjectType.analogValue);
+        final List<ObjectPropertyTypeDefinition> required = ObjectProperties
+                .getRequiredObjectPropertyTypeDefinitions(ObjectType.analogValue);
+        final List<ObjectPropertyTypeDefinition> optional = ObjectProperties
+                .getOptionalObjectPropertyTypeDefinitions(ObjectType.analogValue);
+        assertEquals(all.size(), required.size() + optional.size());
+        for (final ObjectPropertyTypeDefinition def : required)
+            assertTrue(def.isRequired());
+        for (final ObjectPropertyTypeDefinition def : optional)
+            assertTrue(def.isOptional());
+
+        // The lists are shared, and so cannot be changed.
+        assertTrue(all == ObjectProperties.getObjectPropertyTypeDefinitions(ObjectType.analogValue));
+        try {
+            all.clear();
+            fail();
+        } catch (@SuppressWarnings("unused") final UnsupportedOperationException e) {
+            // Expected
+        }
+
+        assertTrue(ObjectProperties.getObjectPropertyTypeDefinitions(ObjectType.forId(1000)).isEmpty());
     }
 }
@@ -0,0 +1,196 @@
+package com.serotonin.bacnet4j.obj;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.AbstractTest;
+import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.constructed.PropertyReference;
+import com.serotonin.bacnet4j.type.constructed.StatusFlags;
+import com.serotonin.bacnet4j.type.enumerated.EngineeringUnits;
+import com.serotonin.bacnet4j.type.enumerated.ErrorClass;
+import com.serotonin.bacnet4j.type.enumerated.ErrorCode;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
+import com.serotonin.bacnet4j.type.primitive.CharacterString;
+import com.serotonin.bacnet4j.type.primitive.Real;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+
+public class PropertyStoreTest extends AbstractTest {
+    private static final PropertyIdentifier PROPRIETARY = PropertyIdentifier.forId(1000);
+
+    @Test
+    public void map() {
+        final PropertyStore store = new PropertyStore();
+        assertNull(store.put(PropertyIdentifier.presentValue, new Real(1)));
+        assertEquals(new Real(1), store.put(PropertyIdentifier.presentValue, new Real(2)));
+        store.put(PropertyIdentifier.description, new CharacterString("d"));
+        store.put(PROPRIETARY, new CharacterString("p"));
+        assertEquals(3, store.size());
+        assertEquals(new Real(2), store.get(PropertyIdentifier.presentValue));
+        assertEquals(new CharacterString("p"), store.get(PROPRIETARY));
+        assertTrue(store.containsKey(PROPRIETARY));
+
+        // Properties are iterated in the order of their identifiers.
+        final List<PropertyIdentifier> keys = new ArrayList<>(store.keySet());
+        assertEquals(Arrays.asList(PropertyIdentifier.description, PropertyIdentifier.presentValue, PROPRIETARY),
+                keys);
+
+        assertEquals(new CharacterString("d"), store.remove(PropertyIdentifier.description));
+        assertFalse(store.containsKey(PropertyIdentifier.description));
+        store.keySet().remove(PROPRIETARY);
+        assertEquals(1, store.size());
+        assertNull(store.get(PROPRIETARY));
+    }
+
+    @Test
+    public void snapshot() {
+        final PropertyStore store = new PropertyStore();
+        store.put(PropertyIdentifier.presentValue, new Real(1));
+        store.put(PropertyIdentifier.statusFlags, new StatusFlags(false, false, false, false));
+        final PropertyStore.Snapshot before = store.snapshot();
+        assertEquals(new Real(1), before.get(PropertyIdentifier.presentValue));
+
+        // While a group of writes is in progress, the snapshot does not include any of them.
+        store.begin();
+        store.put(PropertyIdentifier.presentValue, new Real(2));
+        assertEquals(new Real(2), store.get(PropertyIdentifier.presentValue));
+        assertTrue(store.snapshot() == before);
+        store.put(PropertyIdentifier.statusFlags, new StatusFlags(true, false, false, false));
+        store.put(PROPRIETARY, new CharacterString("p"));
+        assertTrue(store.snapshot() == before);
+        store.end();
+
+        final PropertyStore.Snapshot after = store.snapshot();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(new Real(2), after.get(PropertyIdentifier.presentValue));
+        assertEquals(new StatusFlags(true, false, false, false), after.get(PropertyIdentifier.statusFlags));
+        assertEquals(new CharacterString("p"), after.get(PROPRIETARY));
+        assertNull(after.get(PropertyIdentifier.description));
+
+        // The old snapshot is unchanged.
+        assertEquals(new Real(1), before.get(PropertyIdentifier.presentValue));
+    }
+
+    @Test
+    public void writesDoNotPublish() {
+        final PropertyStore store = new PropertyStore();
+        final PropertyStore.Snapshot initial = store.getPublished();
+
+        // Writes that no reader asks for a snapshot of do not copy the values.
+        for (int i = 0; i < 1000; i++) {
+            store.begin();
+            store.put(PropertyIdentifier.presentValue, new Real(i));
+            store.put(PropertyIdentifier.statusFlags, new StatusFlags(false, false, false, false));
+            store.end();
+        }
+        assertTrue(store.getPublished() == initial);
+
+        // The snapshot is made when it is asked for.
+        final PropertyStore.Snapshot snapshot = store.snapshot();
+        assertEquals(new Real(999), snapshot.get(PropertyIdentifier.presentValue));
+        assertTrue(store.getPublished() == snapshot);
+        assertTrue(store.snapshot() == snapshot);
+
+        // From then on, the last writer to end publishes.
+        store.begin();
+        store.put(PropertyIdentifier.presentValue, new Real(1000));
+        assertTrue(store.snapshot() == snapshot);
+        store.end();
+        assertEquals(new Real(1000), store.getPublished().get(PropertyIdentifier.presentValue));
+    }
+
+    @Test
+    public void readerInterleavedWithWriters() {
+        final PropertyStore store = new PropertyStore();
+        store.put(PropertyIdentifier.presentValue, new Real(0));
+        assertEquals(new Real(0), store.snapshot().get(PropertyIdentifier.presentValue));
+
+        // Overlapping groups of writes. The reader asks for a snapshot while both are in progress.
+        store.begin();
+        store.put(PropertyIdentifier.presentValue, new Real(1));
+        store.begin();
+        store.put(PropertyIdentifier.description, new CharacterString("d"));
+        assertEquals(new Real(0), store.snapshot().get(PropertyIdentifier.presentValue));
+        store.end();
+        // One group is still in progress, so nothing is published.
+        assertEquals(new Real(0), store.getPublished().get(PropertyIdentifier.presentValue));
+        store.end();
+
+        // The last writer to end published both groups.
+        PropertyStore.Snapshot published = store.getPublished();
+        assertEquals(new Real(1), published.get(PropertyIdentifier.presentValue));
+        assertEquals(new CharacterString("d"), published.get(PropertyIdentifier.description));
+
+        // Writes that complete without a reader in between are published too, so a reader during later writes does
+        // not get a snapshot from before them.
+        for (int i = 2; i < 10; i++) {
+            store.begin();
+            store.put(PropertyIdentifier.presentValue, new Real(i));
+            store.end();
+        }
+        store.begin();
+        store.put(PropertyIdentifier.presentValue, new Real(10));
+        published = store.snapshot();
+        assertEquals(new Real(9), published.get(PropertyIdentifier.presentValue));
+        store.end();
+        assertEquals(new Real(10), store.snapshot().get(PropertyIdentifier.presentValue));
+    }
+
+    @Test
+    public void readerRacingWriters() throws Exception {
+        final PropertyStore store = new PropertyStore();
+        store.put(PropertyIdentifier.presentValue, new Real(0));
+        store.put(PropertyIdentifier.description, new CharacterString("0"));
+        store.snapshot();
+
+        // The writer updates both properties in one group. The reader must never see them from different groups, and
+        // once the writer is done, the snapshot must have its last values.
+        final int writes = 20000;
+        final Thread writer = new Thread(() -> {
+            for (int i = 1; i <= writes; i++) {
+                store.begin();
+                store.put(PropertyIdentifier.presentValue, new Real(i));
+                store.put(PropertyIdentifier.description, new CharacterString(Integer.toString(i)));
+                store.end();
+            }
+        });
+        writer.start();
+
+        boolean alive = true;
+        while (alive) {
+            alive = writer.isAlive();
+            final PropertyStore.Snapshot snapshot = store.snapshot();
+            final Real pv = snapshot.get(PropertyIdentifier.presentValue);
+            final CharacterString description = snapshot.get(PropertyIdentifier.description);
+            assertEquals(Integer.toString((int) pv.floatValue()), description.getValue());
+        }
+        writer.join();
+
+        assertEquals(new Real(writes), store.getPublished().get(PropertyIdentifier.presentValue));
+    }
+
+    @Test
+    public void readProperties() throws Exception {
+        final AnalogValueObject av = new AnalogValueObject(d1, 0, "av", 3, EngineeringUnits.noUnits, false);
+
+        final List<Encodable> values = av.readProperties(Arrays.asList( //
+                new PropertyReference(PropertyIdentifier.presentValue), //
+                new PropertyReference(PropertyIdentifier.statusFlags), //
+                new PropertyReference(PropertyIdentifier.priorityArray), //
+                new PropertyReference(PropertyIdentifier.units, new UnsignedInteger(1))));
+
+        assertEquals(new Real(3), values.get(0));
+        assertEquals(new StatusFlags(false, false, false, false), values.get(1));
+        assertEquals(new ErrorClassAndCode(ErrorClass.property, ErrorCode.unknownProperty), values.get(2));
+        assertEquals(new ErrorClassAndCode(ErrorClass.property, ErrorCode.propertyIsNotAnArray), values.get(3));
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import com.serotonin.bacnet4j.AbstractTest;
+import com.serotonin.bacnet4j.LocalDevice;
 import com.serotonin.bacnet4j.TestUtils;
 import com.serotonin.bacnet4j.enums.DayOfWeek;
 import com.serotonin.bacnet4j.enums.Month;
@@ -48,6 +49,7 @@ import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
 import com.serotonin.bacnet4j.type.primitive.Real;
 import com.serotonin.bacnet4j.type.primitive.Time;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.PropertyWriteFanOut.WriteStatus;
 import com.serotonin.bacnet4j.util.RequestUtils;
 
 public class ScheduleObjectTest extends AbstractTest {
@@ -245,6 +247,48 @@ public class ScheduleObjectTest extends AbstractTest {
         assertEquals(list, new SequenceOf<>(remote11));
     }
 
+    @Test
+    public void remoteWrites() throws Exception {
+        final SequenceOf<DeviceObjectPropertyReference> refs = new SequenceOf<>();
+        final AnalogValueObject[] avs = new AnalogValueObject[40];
+        for (int i = 0; i < avs.length; i++) {
+            final LocalDevice d = i % 2 == 0 ? d2 : d3;
+            avs[i] = new AnalogValueObject(d, i, "av" + i, 0, EngineeringUnits.amperes, false).supportCommandable(0);
+            refs.add(new DeviceObjectPropertyReference(avs[i].getId(), PropertyIdentifier.presentValue, null,
+                    d.getId()));
+        }
+        // A reference to an object that does not exist, and to a device that does not exist.
+        final DeviceObjectPropertyReference missingObject = new DeviceObjectPropertyReference(
+                new ObjectIdentifier(ObjectType.analogValue, 100), PropertyIdentifier.presentValue, null, d3.getId());
+        refs.add(missingObject);
+        final DeviceObjectPropertyReference missingDevice = new DeviceObjectPropertyReference(
+                new ObjectIdentifier(ObjectType.analogValue, 0), PropertyIdentifier.presentValue, null,
+                new ObjectIdentifier(ObjectType.device, 99));
+        refs.add(missingDevice);
+
+        final ScheduleObject so = new ScheduleObject(d1, 0, "sch0", new DateRange(Date.UNSPECIFIED, Date.UNSPECIFIED),
+                null, new SequenceOf<>(), new Real(8), refs, 12, false);
+        so.getWriteFanOut().setMaxConcurrency(2);
+
+        // Write the value again and wait for the writes. Only the lookup of the missing device is left pending.
+        so.forceWrites();
+        final Map<DeviceObjectPropertyReference, WriteStatus> results = so.getWriteResults();
+        assertEquals(42, results.size());
+        TestUtils.await(() -> results.entrySet().stream()
+                .allMatch(e -> e.getKey().equals(missingDevice) || e.getValue() != WriteStatus.PENDING), 5000);
+        for (final AnalogValueObject av : avs)
+            assertEquals(new Real(8), av.get(PropertyIdentifier.presentValue));
+
+        // Let the lookup of the missing device time out.
+        clock.plusMillis(TIMEOUT * 2);
+        TestUtils.await(() -> results.get(missingDevice) != WriteStatus.PENDING, 5000);
+
+        for (int i = 0; i < avs.length; i++)
+            assertEquals(WriteStatus.SUCCEEDED, results.get(refs.getBase1(i + 1)));
+        assertEquals(WriteStatus.FAILED, results.get(missingObject));
+        assertEquals(WriteStatus.FAILED, results.get(missingDevice));
+    }
+
     @Test
     public void validations() throws Exception {
         final AnalogValueObject av = new AnalogValueObject(d2, 0, "av0", 98, EngineeringUnits.amperes, false)
@@ -0,0 +1,89 @@
+package com.serotonin.bacnet4j.obj.fileAccess;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.AbstractTest;
+import com.serotonin.bacnet4j.obj.FileObject;
+import com.serotonin.bacnet4j.service.acknowledgement.AtomicReadFileAck;
+import com.serotonin.bacnet4j.service.confirmed.AtomicReadFileRequest;
+import com.serotonin.bacnet4j.service.confirmed.AtomicWriteFileRequest;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.primitive.OctetString;
+import com.serotonin.bacnet4j.type.primitive.SignedInteger;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+
+public class ChannelStreamAccessTest extends AbstractTest {
+    @Test
+    public void mapped() throws Exception {
+        readWrite(0);
+    }
+
+    @Test
+    public void unmapped() throws Exception {
+        readWrite(Long.MAX_VALUE);
+    }
+
+    private void readWrite(final long mapThreshold) throws Exception {
+        final byte[] data = new byte[1000];
+        new Random(2).nextBytes(data);
+        final File file = File.createTempFile("channelStreamAccessTest", ".bin");
+        Files.write(file.toPath(), data);
+        try {
+            final ChannelStreamAccess access = new ChannelStreamAccess(file, mapThreshold);
+            final FileObject f = new FileObject(d1, 0, "test", access);
+
+            // Read through the service.
+            AtomicReadFileAck ack = d2.send(rd1, new AtomicReadFileRequest(f.getId(),
+                    new AtomicReadFileRequest.StreamAccess(new SignedInteger(100), new UnsignedInteger(200)))).get();
+            assertArrayEquals(Arrays.copyOfRange(data, 100, 300), ack.getStreamAccess().getFileData().getBytes());
+            assertEquals(false, ack.getEndOfFile().booleanValue());
+
+            ack = d2.send(rd1, new AtomicReadFileRequest(f.getId(),
+                    new AtomicReadFileRequest.StreamAccess(new SignedInteger(900), new UnsignedInteger(200)))).get();
+            assertArrayEquals(Arrays.copyOfRange(data, 900, 1000), ack.getStreamAccess().getFileData().getBytes());
+            assertEquals(true, ack.getEndOfFile().booleanValue());
+
+            // Write past the end, and read the new data.
+            d2.send(rd1, new AtomicWriteFileRequest(f.getId(), new AtomicWriteFileRequest.StreamAccess(
+                    new SignedInteger(-1), new OctetString(new byte[] { 1, 2, 3 })))).get();
+            assertEquals(new UnsignedInteger(1003), f.readProperty(PropertyIdentifier.fileSize, null));
+            assertArrayEquals(new byte[] { data[999], 1, 2, 3 }, readData(access, 999, 10));
+            if (mapThreshold == 0) {
+                // The appended data is read from the channel, and the file is not mapped again until it has doubled.
+                assertEquals(1000, access.getMappedSize());
+                access.writeData(-1, new OctetString(new byte[997]));
+                assertArrayEquals(new byte[] { 3, 0 }, readData(access, 1002, 2));
+                assertEquals(2000, access.getMappedSize());
+            }
+
+            // Change the file size.
+            f.writeProperty(null, PropertyIdentifier.fileSize, new UnsignedInteger(500));
+            if (mapThreshold == 0)
+                assertEquals(0, access.getMappedSize());
+            assertEquals(500, file.length());
+            assertArrayEquals(Arrays.copyOfRange(data, 400, 500), readData(access, 400, 200));
+            f.writeProperty(null, PropertyIdentifier.fileSize, new UnsignedInteger(600));
+            assertEquals(600, access.length());
+            assertArrayEquals(new byte[100], readData(access, 500, 200));
+
+            // Removing the object closes the channel. It is opened again as required.
+            d1.removeObject(f.getId());
+            assertArrayEquals(Arrays.copyOfRange(data, 0, 10), readData(access, 0, 10));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static byte[] readData(final ChannelStreamAccess access, final long start, final long length)
+            throws Exception {
+        return access.readData(start, length).getBytes();
+    }
+}
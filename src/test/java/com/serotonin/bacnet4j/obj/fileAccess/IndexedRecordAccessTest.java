@@ -0,0 +1,121 @@
+package com.serotonin.bacnet4j.obj.fileAccess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.primitive.OctetString;
+
+public class IndexedRecordAccessTest {
+    private File file;
+    private IndexedRecordAccess access;
+
+    @Before
+    public void before() throws Exception {
+        file = File.createTempFile("indexedRecordAccessTest", ".txt");
+        Files.write(file.toPath(), "a\nbb\r\nccc\ndddd".getBytes(StandardCharsets.US_ASCII));
+        access = new IndexedRecordAccess(file);
+    }
+
+    @After
+    public void after() {
+        access.delete();
+    }
+
+    @Test
+    public void read() throws Exception {
+        assertEquals(4, access.recordCount());
+        assertEquals(Arrays.asList("a", "bb", "ccc", "dddd"), records(0, 10));
+        assertEquals(Arrays.asList("bb", "ccc"), records(1, 2));
+        assertEquals(0, access.readRecords(4, 1).size());
+        assertTrue(access.getIndexFile().exists());
+
+        // The index is used when the file is opened again.
+        final long indexModified = access.getIndexFile().lastModified();
+        access.close();
+        access = new IndexedRecordAccess(file);
+        assertEquals(4, access.recordCount());
+        assertEquals(indexModified, access.getIndexFile().lastModified());
+        assertEquals(Arrays.asList("a", "bb", "ccc", "dddd"), records(0, 10));
+    }
+
+    @Test
+    public void write() throws Exception {
+        // Append. The last record gets a delimiter.
+        assertEquals(4, access.writeRecords(-1, records("e")));
+        assertEquals(Arrays.asList("a", "bb", "ccc", "dddd", "e"), records(0, 10));
+
+        // Replace with longer and shorter records.
+        assertEquals(1, access.writeRecords(1, records("bbbbbb", "c")));
+        assertEquals(Arrays.asList("a", "bbbbbb", "c", "dddd", "e"), records(0, 10));
+        assertEquals(0, access.writeRecords(0, records("")));
+        assertEquals(Arrays.asList("", "bbbbbb", "c", "dddd", "e"), records(0, 10));
+
+        // Replace over the end.
+        assertEquals(4, access.writeRecords(4, records("E", "f")));
+        assertEquals(Arrays.asList("", "bbbbbb", "c", "dddd", "E", "f"), records(0, 10));
+
+        // Write after the end.
+        assertEquals(8, access.writeRecords(8, records("i")));
+        assertEquals(Arrays.asList("", "bbbbbb", "c", "dddd", "E", "f", "", "", "i"), records(0, 10));
+
+        assertFile("", "bbbbbb", "c", "dddd", "E", "f", "", "", "i");
+        assertEquals(file.length(), access.length());
+
+        // A new index is built when the file changed.
+        access.close();
+        Files.write(file.toPath(), "x\r\ny\r\n".getBytes(StandardCharsets.US_ASCII));
+        access = new IndexedRecordAccess(file);
+        assertEquals(Arrays.asList("x", "y"), records(0, 10));
+    }
+
+    @Test
+    public void recordCountAndFileSize() throws Exception {
+        access.writeRecordCount(2);
+        assertEquals(Arrays.asList("a", "bb"), records(0, 10));
+        assertEquals(6, access.length());
+
+        access.writeRecordCount(4);
+        assertEquals(Arrays.asList("a", "bb", "", ""), records(0, 10));
+        assertEquals(10, access.length());
+
+        // The last record is cut.
+        access.writeFileSize(3);
+        assertEquals(Arrays.asList("a", "b"), records(0, 10));
+        assertEquals(3, access.length());
+
+        access.writeFileSize(9);
+        assertEquals(5, access.recordCount());
+        assertTrue(access.length() >= 9);
+        assertFile("a", "b", "", "", "");
+    }
+
+    private List<String> records(final long start, final long count) throws Exception {
+        final List<String> result = new ArrayList<>();
+        for (final OctetString record : access.readRecords(start, count))
+            result.add(new String(record.getBytes(), StandardCharsets.US_ASCII));
+        return result;
+    }
+
+    private static SequenceOf<OctetString> records(final String... records) {
+        final SequenceOf<OctetString> result = new SequenceOf<>();
+        for (final String record : records)
+            result.add(new OctetString(record.getBytes(StandardCharsets.US_ASCII)));
+        return result;
+    }
+
+    private void assertFile(final String... lines) throws Exception {
+        assertEquals(Arrays.asList(lines), Files.readAllLines(file.toPath(), StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,88 @@
+package com.serotonin.bacnet4j.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.type.constructed.Destination;
+import com.serotonin.bacnet4j.type.constructed.EventTransitionBits;
+import com.serotonin.bacnet4j.type.constructed.Recipient;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.enumerated.ObjectType;
+import com.serotonin.bacnet4j.type.primitive.Boolean;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.type.primitive.Unsigned32;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+
+public class FilePersistenceTest {
+    private final File file = new File("file-persistence-test.bin");
+
+    @Before
+    public void before() {
+        file.delete();
+    }
+
+    @After
+    public void after() {
+        file.delete();
+    }
+
+    @Test
+    public void binaryRoundTrip() throws Exception {
+        FilePersistence p = new FilePersistence(file);
+        p.save("string", "a string value");
+        p.saveEncodable("uint", new UnsignedInteger(1234));
+        p.saveEncodable("list", new SequenceOf<>(new Destination(
+                new Recipient(new ObjectIdentifier(ObjectType.device, 5)), new Unsigned32(1), Boolean.FALSE,
+                new EventTransitionBits(true, false, true))));
+        p.saveBytes("bytes", new byte[] { 1, 2, (byte) 0xff });
+
+        // The encodings are stored as is, rather than as hex.
+        assertEquals('B', Files.readAllBytes(file.toPath())[0]);
+
+        p = new FilePersistence(file);
+        assertEquals("a string value", p.load("string"));
+        assertEquals(new UnsignedInteger(1234), p.loadEncodable("uint", UnsignedInteger.class));
+        assertEquals(1, p.loadSequenceOf("list", Destination.class).size());
+        assertArrayEquals(new byte[] { 1, 2, (byte) 0xff }, p.loadBytes("bytes"));
+        assertEquals("0102ff", p.load("bytes"));
+        assertNull(p.loadBytes("missing"));
+
+        p.remove("uint");
+        p = new FilePersistence(file);
+        assertNull(p.loadEncodable("uint", UnsignedInteger.class));
+        assertEquals("a string value", p.load("string"));
+    }
+
+    @Test
+    public void legacyProperties() throws Exception {
+        try (FileWriter out = new FileWriter(file)) {
+            out.write("string=legacy value\n");
+            out.write("uint=2204d2\n");
+        }
+
+        FilePersistence p = new FilePersistence(file);
+        assertEquals("legacy value", p.load("string"));
+        assertEquals(new UnsignedInteger(1234), p.loadEncodable("uint", UnsignedInteger.class));
+
+        // Legacy files remain properties files.
+        p.saveEncodable("uint2", new UnsignedInteger(5));
+        assertEquals(true, new String(Files.readAllBytes(file.toPath())).contains("uint2=2105"));
+
+        // ... until they are converted.
+        p = new FilePersistence(file, true);
+        assertEquals('B', Files.readAllBytes(file.toPath())[0]);
+        p = new FilePersistence(file);
+        assertEquals("legacy value", p.load("string"));
+        assertEquals(new UnsignedInteger(1234), p.loadEncodable("uint", UnsignedInteger.class));
+        assertEquals(new UnsignedInteger(5), p.loadEncodable("uint2", UnsignedInteger.class));
+    }
+}
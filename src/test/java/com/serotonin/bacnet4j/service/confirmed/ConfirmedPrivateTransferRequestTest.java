@@ -1,29 +1,39 @@
 package com.serotonin.bacnet4j.service.confirmed;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.junit.Test;
 
 import com.serotonin.bacnet4j.AbstractTest;
 import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.ServiceFuture;
 import com.serotonin.bacnet4j.TestUtils;
 import com.serotonin.bacnet4j.event.PrivateTransferHandler;
+import com.serotonin.bacnet4j.exception.AbortAPDUException;
 import com.serotonin.bacnet4j.exception.BACnetErrorException;
 import com.serotonin.bacnet4j.npdu.test.TestNetworkUtils;
 import com.serotonin.bacnet4j.service.acknowledgement.ConfirmedPrivateTransferAck;
+import com.serotonin.bacnet4j.service.acknowledgement.ReadPropertyAck;
+import com.serotonin.bacnet4j.transport.DefaultTransport;
 import com.serotonin.bacnet4j.type.Encodable;
 import com.serotonin.bacnet4j.type.EncodedValue;
 import com.serotonin.bacnet4j.type.constructed.Address;
+import com.serotonin.bacnet4j.type.enumerated.AbortReason;
 import com.serotonin.bacnet4j.type.enumerated.ErrorClass;
 import com.serotonin.bacnet4j.type.enumerated.ErrorCode;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.error.ConfirmedPrivateTransferError;
 import com.serotonin.bacnet4j.type.error.ErrorClassAndCode;
 import com.serotonin.bacnet4j.type.primitive.Boolean;
 import com.serotonin.bacnet4j.type.primitive.CharacterString;
 import com.serotonin.bacnet4j.type.primitive.Real;
 import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.sero.ThreadUtils;
 
 public class ConfirmedPrivateTransferRequestTest extends AbstractTest {
     @Test
@@ -108,4 +118,47 @@ public class ConfirmedPrivateTransferRequestTest extends AbstractTest {
             d2.send(rd1, new ConfirmedPrivateTransferRequest(236, 14, new EncodedValue(new Real(12.3F)))).get();
         }, ErrorClass.communication, ErrorCode.unknownRoute);
     }
+
+    @Test
+    public void blocking() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        d1.addPrivateTransferHandler(236, 15, new PrivateTransferHandler() {
+            @Override
+            public Encodable handle(final LocalDevice localDevice, final Address from, final UnsignedInteger vendorId,
+                    final UnsignedInteger serviceNumber, final EncodedValue serviceParameters, final boolean confirmed) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (@SuppressWarnings("unused") final InterruptedException e) {
+                    // no op
+                }
+                return new EncodedValue(new Real(15));
+            }
+        });
+
+        final DefaultTransport transport = (DefaultTransport) d1.getTransport();
+        transport.setMaxPendingRequests(1);
+
+        final ServiceFuture blocked = d2.send(rd1, new ConfirmedPrivateTransferRequest(236, 15, null));
+        for (int i = 0; i < 100 && transport.getPendingRequests() == 0; i++)
+            ThreadUtils.sleep(5);
+        assertEquals(1, transport.getPendingRequests());
+
+        // Other requests are still handled while the handler blocks.
+        final ReadPropertyAck read = d2
+                .send(rd1, new ReadPropertyRequest(d1.getId(), PropertyIdentifier.objectName)).get();
+        assertEquals(d1.getDeviceObject().get(PropertyIdentifier.objectName), read.getValue());
+
+        // Requests that may block are aborted while too many are pending.
+        try {
+            d2.send(rd1, new ConfirmedPrivateTransferRequest(236, 15, null)).get();
+            fail("Should have been aborted");
+        } catch (final AbortAPDUException e) {
+            assertEquals(AbortReason.outOfResources.intValue(), e.getApdu().getAbortReason());
+        }
+
+        release.countDown();
+        final ConfirmedPrivateTransferAck ack = blocked.get();
+        assertEquals(new EncodedValue(new Real(15)), ack.getResultBlock());
+        assertEquals(0, transport.getPendingRequests());
+    }
 }
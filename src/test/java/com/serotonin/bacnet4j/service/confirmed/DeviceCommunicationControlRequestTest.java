@@ -207,8 +207,9 @@ public class DeviceCommunicationControlRequestTest extends AbstractTest {
             // Expected
         }
 
-        // Let the 5 minutes elapse.
+        // Let the 5 minutes elapse. The timer runs in the IO lane, so wait for it to re-enable communication.
         clock.plusMinutes(6);
+        TestUtils.await(() -> d1.getCommunicationControlState() == EnableDisable.enable, 1000);
 
         // Receive a request. This time it too succeeds. Note that the value is already "a", because requests are
         // still processed, just not responded.
@@ -1,6 +1,8 @@
 package com.serotonin.bacnet4j.service.confirmed;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.util.List;
 
@@ -9,11 +11,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.exception.BACnetAbortException;
 import com.serotonin.bacnet4j.exception.BACnetException;
 import com.serotonin.bacnet4j.npdu.test.TestNetwork;
 import com.serotonin.bacnet4j.npdu.test.TestNetworkMap;
 import com.serotonin.bacnet4j.npdu.test.TestNetworkUtils;
 import com.serotonin.bacnet4j.obj.GroupObject;
+import com.serotonin.bacnet4j.service.acknowledgement.AcknowledgementService;
 import com.serotonin.bacnet4j.service.acknowledgement.ReadPropertyMultipleAck;
 import com.serotonin.bacnet4j.transport.DefaultTransport;
 import com.serotonin.bacnet4j.type.constructed.Address;
@@ -21,9 +25,11 @@ import com.serotonin.bacnet4j.type.constructed.ReadAccessResult;
 import com.serotonin.bacnet4j.type.constructed.ReadAccessResult.Result;
 import com.serotonin.bacnet4j.type.constructed.ReadAccessSpecification;
 import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.enumerated.AbortReason;
 import com.serotonin.bacnet4j.type.enumerated.ObjectType;
 import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
 import com.serotonin.bacnet4j.type.primitive.CharacterString;
+import com.serotonin.bacnet4j.util.sero.ByteQueue;
 
 public class ReadPropertyMultipleRequestTest {
     private final TestNetworkMap map = new TestNetworkMap();
@@ -100,4 +106,38 @@ public class ReadPropertyMultipleRequestTest {
         assertEquals(new Result(PropertyIdentifier.description, null, new CharacterString("my description")),
                 results.get(0));
     }
+
+    @Test
+    public void streamed() throws Exception {
+        final GroupObject g1 = new GroupObject(localDevice, 1, "g1", new SequenceOf<>());
+        final ReadPropertyMultipleRequest request = new ReadPropertyMultipleRequest(new SequenceOf<>( //
+                new ReadAccessSpecification(g0.getId(), PropertyIdentifier.all), //
+                new ReadAccessSpecification(g1.getId(), PropertyIdentifier.required)));
+
+        // The response that is encoded while it is read is the same as the one that is built first.
+        final byte[] expected = encode(request.handle(localDevice, addr));
+        final ReadPropertyMultipleAck ack = (ReadPropertyMultipleAck) request.handle(localDevice, addr,
+                new ResponseSizeLimit(expected.length, AbortReason.bufferOverflow));
+        assertArrayEquals(expected, encode(ack));
+
+        // The encoded results can still be read.
+        assertEquals(2, ack.getListOfReadAccessResults().getCount());
+        assertEquals(g1.getId(), ack.getListOfReadAccessResults().getBase1(2).getObjectIdentifier());
+        assertEquals(5, ack.getListOfReadAccessResults().getBase1(2).getListOfResults().getCount());
+
+        // One byte less is too big.
+        try {
+            request.handle(localDevice, addr,
+                    new ResponseSizeLimit(expected.length - 1, AbortReason.segmentationNotSupported));
+            fail("Should have been aborted");
+        } catch (final BACnetAbortException e) {
+            assertEquals(AbortReason.segmentationNotSupported, e.getAbortReason());
+        }
+    }
+
+    private static byte[] encode(final AcknowledgementService ack) {
+        final ByteQueue queue = new ByteQueue();
+        ack.write(queue);
+        return queue.popAll();
+    }
 }
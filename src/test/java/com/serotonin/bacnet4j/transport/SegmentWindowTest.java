@@ -0,0 +1,73 @@
+package com.serotonin.bacnet4j.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.apdu.ComplexACK;
+import com.serotonin.bacnet4j.util.sero.ByteQueue;
+
+public class SegmentWindowTest {
+    @Test
+    public void outOfOrder() {
+        final SegmentWindow window = new SegmentWindow(3, 1, segment(0, true, 0, 1, 2));
+
+        window.setSegment(segment(3, true, 9, 10, 11));
+        window.setSegment(segment(1, true, 3, 4, 5));
+        assertFalse(window.isFull());
+        assertEquals(1, window.getLastInOrderSequenceId());
+        assertEquals(3, window.getLatestSequenceId());
+        window.setSegment(segment(2, true, 6, 7, 8));
+        assertTrue(window.isFull());
+        assertFalse(window.isMessageComplete());
+        window.commit(4);
+        assertTrue(window.isEmpty());
+
+        window.setSegment(segment(5, false, 15));
+        window.setSegment(segment(4, true, 12, 13, 14));
+        assertTrue(window.isMessageComplete());
+        window.commit(6);
+
+        assertEquals(new ByteQueue(new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 }),
+                window.getServiceData());
+    }
+
+    @Test
+    public void irregularSizes() {
+        final SegmentWindow window = new SegmentWindow(3, 1, segment(0, true, 0, 1));
+
+        // A short segment followed by a long one.
+        window.setSegment(segment(3, true, 6, 7));
+        window.setSegment(segment(2, true, 3, 4, 5));
+        window.setSegment(segment(1, true, 2));
+        window.commit(4);
+
+        window.setSegment(segment(4, false, 8));
+        window.commit(5);
+
+        assertEquals(new ByteQueue(new byte[] { 0, 1, 2, 3, 4, 5, 6, 7, 8 }), window.getServiceData());
+    }
+
+    @Test
+    public void growth() {
+        final SegmentWindow window = new SegmentWindow(2, 1, segment(0, true, 0));
+        final ByteQueue expected = new ByteQueue(new byte[] { 0 });
+        for (int i = 1; i < 200; i += 2) {
+            window.setSegment(segment(i + 1, i + 1 < 199, (byte) (i + 1)));
+            window.setSegment(segment(i, true, (byte) i));
+            window.commit(i + 2);
+            expected.push((byte) i);
+            expected.push((byte) (i + 1));
+        }
+        assertEquals(expected, window.getServiceData());
+    }
+
+    private static ComplexACK segment(final int sequenceNumber, final boolean moreFollows, final int... data) {
+        final ByteQueue queue = new ByteQueue();
+        for (final int b : data)
+            queue.push(b);
+        return new ComplexACK(true, moreFollows, (byte) 1, sequenceNumber, 3, (byte) 12, queue);
+    }
+}
@@ -0,0 +1,160 @@
+package com.serotonin.bacnet4j.transport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.RemoteDevice;
+import com.serotonin.bacnet4j.npdu.test.TestNetwork;
+import com.serotonin.bacnet4j.npdu.test.TestNetworkMap;
+import com.serotonin.bacnet4j.service.acknowledgement.ReadPropertyAck;
+import com.serotonin.bacnet4j.service.confirmed.ReadPropertyRequest;
+import com.serotonin.bacnet4j.service.confirmed.WritePropertyRequest;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.primitive.CharacterString;
+
+/**
+ * Segmented transfers over a test network that loses messages and delays them.
+ */
+public class SegmentedTransferTest {
+    private final TestNetworkMap map = new TestNetworkMap();
+    private TestNetwork network1;
+    private DefaultTransport transport1;
+    private DefaultTransport transport2;
+    private LocalDevice d1;
+    private LocalDevice d2;
+
+    @Before
+    public void before() throws Exception {
+        network1 = new TestNetwork(map, 1, 0).withTimeout(300).withSegTimeout(100).withLatency(5);
+        transport1 = new DefaultTransport(network1);
+        d1 = new LocalDevice(1, transport1).initialize();
+
+        transport2 = new DefaultTransport(
+                new TestNetwork(map, 2, 0).withTimeout(300).withSegTimeout(100).withLatency(5));
+        d2 = new LocalDevice(2, transport2).initialize();
+
+        // The test network disables retries, but they are needed to recover lost messages.
+        transport1.setRetries(10);
+        transport2.setRetries(10);
+    }
+
+    @After
+    public void after() {
+        d1.terminate();
+        d2.terminate();
+    }
+
+    @Test
+    public void lossless() throws Exception {
+        final RemoteDevice rd2 = d1.getRemoteDeviceBlocking(2);
+        final RemoteDevice rd1 = d2.getRemoteDeviceBlocking(1);
+
+        for (int i = 0; i < 3; i++) {
+            final CharacterString description = description(i, 20000);
+            d2.getDeviceObject().writePropertyInternal(PropertyIdentifier.description, description);
+            assertEquals(description, read(rd2));
+        }
+
+        final AdaptiveSegmentWindow window = transport2.getAdaptiveSegmentWindow(rd1.getAddress());
+        assertTrue(window.getAcks() > 0);
+        assertEquals(0, window.getNegativeAcks());
+        assertEquals(0, window.getTimeouts());
+        assertFalse(window.isBackedOff(transport2.getSegWindow()));
+        assertTrue(window.getSmoothedRtt() >= 0);
+    }
+
+    @Test
+    public void lossy() throws Exception {
+        final RemoteDevice rd2 = d1.getRemoteDeviceBlocking(2);
+        final RemoteDevice rd1 = d2.getRemoteDeviceBlocking(1);
+
+        // Messages from device 1 are lost, which includes the segment acks of responses, and the segments of
+        // requests.
+        network1.withLoss(0.2, 1);
+
+        for (int i = 0; i < 10; i++) {
+            // Segmented response
+            CharacterString description = description(i, 10000);
+            d2.getDeviceObject().writePropertyInternal(PropertyIdentifier.description, description);
+            assertEquals(description, read(rd2));
+
+            // Segmented request
+            description = description(i + 100, 5000);
+            d1.send(rd2, new WritePropertyRequest(d2.getDeviceObject().getId(), PropertyIdentifier.description, null,
+                    description, null)).get();
+            assertEquals(description, d2.getDeviceObject().get(PropertyIdentifier.description));
+        }
+
+        assertTrue(network1.getDropped() > 0);
+
+        // The loss was noticed by the senders of the segments.
+        final AdaptiveSegmentWindow window1 = transport1.getAdaptiveSegmentWindow(rd2.getAddress());
+        final AdaptiveSegmentWindow window2 = transport2.getAdaptiveSegmentWindow(rd1.getAddress());
+        assertTrue(window1.getNegativeAcks() + window1.getTimeouts() + window2.getNegativeAcks()
+                + window2.getTimeouts() > 0);
+    }
+
+    @Test
+    public void windowAdaptation() {
+        final AdaptiveSegmentWindow window = new AdaptiveSegmentWindow();
+        assertEquals(8, window.getWindowSize(8));
+        assertEquals(0, window.getPacingInterval(8, 8, 1000));
+
+        // Multiplicative decrease
+        window.timedOut(8);
+        assertEquals(4, window.getWindowSize(8));
+        window.negativelyAcknowledged(8);
+        assertEquals(2, window.getWindowSize(8));
+        window.timedOut(8);
+        window.timedOut(8);
+        assertEquals(1, window.getWindowSize(8));
+        assertTrue(window.isBackedOff(8));
+
+        // Additive increase
+        window.acknowledged(40, 8);
+        assertEquals(2, window.getWindowSize(8));
+        assertEquals(40, window.getSmoothedRtt());
+        assertEquals(20, window.getRttVariation());
+
+        // Paced while backed off.
+        assertEquals(20, window.getPacingInterval(2, 8, 1000));
+        // ... but not over more than half of the segment timeout.
+        assertEquals(10, window.getPacingInterval(2, 8, 40));
+
+        window.acknowledged(-1, 8);
+        window.acknowledged(-1, 8);
+        window.acknowledged(-1, 8);
+        window.acknowledged(-1, 8);
+        window.acknowledged(-1, 8);
+        assertEquals(7, window.getWindowSize(8));
+        window.acknowledged(48, 8);
+        assertEquals(8, window.getWindowSize(8));
+        assertEquals(41, window.getSmoothedRtt());
+        assertFalse(window.isBackedOff(8));
+        assertEquals(0, window.getPacingInterval(8, 8, 1000));
+
+        // The window does not exceed the configured maximum.
+        window.acknowledged(40, 8);
+        assertEquals(8, window.getWindowSize(8));
+        assertEquals(5, window.getWindowSize(5));
+    }
+
+    private static CharacterString description(final int seed, final int length) {
+        final StringBuilder sb = new StringBuilder();
+        while (sb.length() < length)
+            sb.append(seed).append(' ').append(sb.length()).append(' ');
+        return new CharacterString(sb.toString());
+    }
+
+    private CharacterString read(final RemoteDevice rd) throws Exception {
+        final ReadPropertyAck ack = d1.send(rd,
+                new ReadPropertyRequest(rd.getObjectIdentifier(), PropertyIdentifier.description)).get();
+        return (CharacterString) ack.getValue();
+    }
+}
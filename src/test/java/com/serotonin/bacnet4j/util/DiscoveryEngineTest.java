@@ -0,0 +1,116 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.RemoteDevice;
+import com.serotonin.bacnet4j.TestUtils;
+import com.serotonin.bacnet4j.event.DeviceEventAdapter;
+import com.serotonin.bacnet4j.npdu.test.TestNetwork;
+import com.serotonin.bacnet4j.npdu.test.TestNetworkMap;
+import com.serotonin.bacnet4j.service.unconfirmed.WhoIsRequest;
+import com.serotonin.bacnet4j.transport.DefaultTransport;
+import com.serotonin.bacnet4j.type.constructed.Address;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+
+import lohbihler.warp.WarpClock;
+
+public class DiscoveryEngineTest {
+    private static final int DEVICES = 30;
+    // Only a safeguard against hanging. The test does not depend on timing.
+    private static final long TIMEOUT = 10000;
+
+    private final TestNetworkMap map = new TestNetworkMap();
+    private final WarpClock clock = new WarpClock();
+    private LocalDevice d;
+    private final List<LocalDevice> remotes = new ArrayList<>();
+
+    @Before
+    public void before() throws Exception {
+        d = new LocalDevice(1, new DefaultTransport(new TestNetwork(map, 1, 0))).withClock(clock).initialize();
+        for (int i = 0; i < DEVICES; i++) {
+            final LocalDevice remote = new LocalDevice(100 + i,
+                    new DefaultTransport(new TestNetwork(map, 100 + i, 0))).withClock(clock).initialize();
+            // The remotes hear each other's IAms too. Don't let them discover each other.
+            remote.getDiscoveryEngine().setMaxConcurrency(0);
+            remotes.add(remote);
+        }
+    }
+
+    @After
+    public void after() {
+        d.terminate();
+        for (final LocalDevice remote : remotes)
+            remote.terminate();
+    }
+
+    @Test
+    public void storm() throws Exception {
+        final DiscoveryEngine engine = d.getDiscoveryEngine();
+        // Hold the discoveries back until all of the IAms are queued.
+        engine.setMaxConcurrency(0);
+        engine.setRatePerNetwork(5);
+
+        final Map<Integer, RemoteDevice> discovered = new ConcurrentHashMap<>();
+        final AtomicInteger duplicates = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        d.getEventHandler().addListener(new DeviceEventAdapter() {
+            @Override
+            public void iAmReceived(final RemoteDevice rd) {
+                maxRunning.accumulateAndGet(engine.getRunningCount(), Math::max);
+                if (discovered.put(rd.getInstanceNumber(), rd) != null)
+                    duplicates.incrementAndGet();
+            }
+        });
+
+        d.sendGlobalBroadcast(new WhoIsRequest());
+        awaitIdle(engine, DEVICES);
+
+        // Another IAm from a queued device is merged into its queued discovery.
+        final LocalDevice remote = remotes.get(0);
+        engine.discover(100, new Address(new byte[] { 100 }), remote.get(PropertyIdentifier.maxApduLengthAccepted),
+                remote.get(PropertyIdentifier.segmentationSupported), remote.get(PropertyIdentifier.vendorIdentifier));
+        assertEquals(DEVICES, engine.getQueueSize());
+
+        // Without the clock moving, only the initial burst of discoveries is allowed to start.
+        engine.setMaxConcurrency(2);
+        TestUtils.assertSize(discovered.keySet(), 5, (int) TIMEOUT);
+        awaitIdle(engine, DEVICES - 5);
+
+        // Each move of the clock allows one more to start.
+        for (int i = DEVICES - 6; i >= 0; i--) {
+            clock.plusMillis(200);
+            TestUtils.assertSize(discovered.keySet(), DEVICES - i, (int) TIMEOUT);
+            awaitIdle(engine, i);
+        }
+        assertEquals(0, duplicates.get());
+        assertTrue(maxRunning.get() <= 2);
+        assertEquals(0, engine.getQueueSize());
+
+        // The extended information was read, including the supported services.
+        final RemoteDevice rd = discovered.get(100);
+        assertNotNull(rd.getServicesSupported());
+        assertNotNull(rd.getName());
+        assertFalse(rd.getName().isEmpty());
+    }
+
+    /**
+     * Waits until no discoveries are running and the given number are queued.
+     */
+    private static void awaitIdle(final DiscoveryEngine engine, final int queueSize) {
+        TestUtils.await(() -> engine.getRunningCount() == 0 && engine.getQueueSize() == queueSize, (int) TIMEOUT);
+    }
+}
@@ -0,0 +1,233 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.AbstractTest;
+import com.serotonin.bacnet4j.exception.BACnetServiceException;
+import com.serotonin.bacnet4j.obj.FileObject;
+import com.serotonin.bacnet4j.obj.fileAccess.CrlfDelimitedFileAccess;
+import com.serotonin.bacnet4j.obj.fileAccess.StreamAccess;
+import com.serotonin.bacnet4j.type.primitive.OctetString;
+
+public class FileTransferTest extends AbstractTest {
+    @Test
+    public void stream() throws Exception {
+        final byte[] data = new byte[20000];
+        new Random(1).nextBytes(data);
+        final File source = tempFile(data);
+        final File target = tempFile(new byte[0]);
+        try {
+            final FileObject sourceFile = new FileObject(d1, 1, "source", new StreamAccess(source));
+            final FileObject targetFile = new FileObject(d1, 2, "target", new StreamAccess(target));
+
+            final FileTransfer transfer = new FileTransfer(d2, rd1);
+            transfer.setChunkSize(500);
+
+            // Read
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FileTransfer.Statistics stats = transfer.read(sourceFile.getId(), Channels.newChannel(out));
+            assertArrayEquals(data, out.toByteArray());
+            assertEquals(20000, stats.getPosition());
+            assertEquals(20000, stats.getOctets());
+            assertEquals(40, stats.getRequests());
+            assertEquals(0, stats.getRetries());
+            assertEquals(transfer.getMaxWindow(), stats.getWindow());
+
+            // Resume from a position.
+            out.reset();
+            stats = transfer.read(sourceFile.getId(), Channels.newChannel(out), 19000);
+            assertEquals(1000, out.size());
+            assertEquals(2, stats.getRequests());
+
+            // Write
+            stats = transfer.write(targetFile.getId(), Channels.newChannel(new ByteArrayInputStream(data)), 0);
+            assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+            assertEquals(20000, stats.getPosition());
+            assertEquals(40, stats.getRequests());
+        } finally {
+            source.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void chunkSize() {
+        final FileTransfer transfer = new FileTransfer(d2, rd1);
+        // Both devices support segmentation, so a chunk fills a window of segments.
+        final int segments = d2.getTransport().getSegWindow();
+        assertEquals(segments * (rd1.getMaxAPDULengthAccepted() - 5) - 13, transfer.getReadChunkSize());
+        assertEquals(segments * (rd1.getMaxAPDULengthAccepted() - 6) - 17, transfer.getWriteChunkSize());
+        assertTrue(transfer.getReadChunkSize() > rd1.getMaxAPDULengthAccepted());
+    }
+
+    @Test
+    public void records() throws Exception {
+        final StringBuilder content = new StringBuilder();
+        final List<String> lines = new ArrayList<>();
+        final List<OctetString> records = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            final String line = "record " + i;
+            content.append(line).append("\r\n");
+            lines.add(line);
+            records.add(new OctetString(line.getBytes(StandardCharsets.US_ASCII)));
+        }
+        final File source = tempFile(content.toString().getBytes(StandardCharsets.US_ASCII));
+        final File target = tempFile(new byte[0]);
+        try {
+            final FileObject sourceFile = new FileObject(d1, 1, "source", new CrlfDelimitedFileAccess(source));
+            final FileObject targetFile = new FileObject(d1, 2, "target", new CrlfDelimitedFileAccess(target));
+
+            final FileTransfer transfer = new FileTransfer(d2, rd1);
+            transfer.setRecordsPerRequest(3);
+
+            final List<OctetString> read = new ArrayList<>();
+            FileTransfer.Statistics stats = transfer.readRecords(sourceFile.getId(), read::add);
+            assertEquals(records, read);
+            assertEquals(50, stats.getPosition());
+            assertEquals(17, stats.getRequests());
+
+            stats = transfer.writeRecords(targetFile.getId(), records.iterator(), 0);
+            assertEquals(50, stats.getPosition());
+            assertEquals(1, stats.getRequests());
+            assertEquals(lines, Files.readAllLines(target.toPath(), StandardCharsets.US_ASCII));
+        } finally {
+            source.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void timeout() throws Exception {
+        final byte[] data = new byte[20000];
+        new Random(1).nextBytes(data);
+        final File source = tempFile(data);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final FileObject sourceFile = new FileObject(d1, 1, "source", new StreamAccess(source));
+
+            // Lose the request for the last chunk, so that it times out. The transport does not retry.
+            final AtomicInteger requests = new AtomicInteger();
+            d1.withRequestExecutor(task -> {
+                if (requests.incrementAndGet() != 40)
+                    d1.execute(task);
+            });
+            d2.getTransport().setRetries(0);
+
+            final FileTransfer transfer = new FileTransfer(d2, rd1);
+            transfer.setChunkSize(500);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final Future<FileTransfer.Statistics> future = executor
+                    .submit(() -> transfer.read(sourceFile.getId(), Channels.newChannel(out)));
+
+            // Wait until everything before the last chunk has been delivered, and let the last one time out.
+            awaitPosition(transfer, 19500);
+            assertEquals(transfer.getMaxWindow(), transfer.getStatistics().getWindow());
+            clock.plusMillis(TIMEOUT + 1);
+
+            // The chunk was resent from the same position, and the window was halved, and then grew by one.
+            final FileTransfer.Statistics stats = future.get(5, TimeUnit.SECONDS);
+            assertArrayEquals(data, out.toByteArray());
+            assertEquals(41, stats.getRequests());
+            assertEquals(1, stats.getRetries());
+            assertEquals(transfer.getMaxWindow() / 2 + 1, stats.getWindow());
+        } finally {
+            executor.shutdown();
+            source.delete();
+        }
+    }
+
+    @Test
+    public void tooBigRecords() throws Exception {
+        // Records that are too big to be returned 16 at a time, even with segmentation.
+        final char[] chars = new char[20000];
+        final List<String> lines = new ArrayList<>();
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            Arrays.fill(chars, (char) ('a' + i % 26));
+            lines.add(new String(chars));
+            content.append(chars).append("\r\n");
+        }
+        final File source = tempFile(content.toString().getBytes(StandardCharsets.US_ASCII));
+        try {
+            final FileObject sourceFile = new FileObject(d1, 1, "source", new CrlfDelimitedFileAccess(source));
+
+            final FileTransfer transfer = new FileTransfer(d2, rd1);
+            final List<String> read = new ArrayList<>();
+            final FileTransfer.Statistics stats = transfer.readRecords(sourceFile.getId(),
+                    record -> read.add(new String(record.getBytes(), StandardCharsets.US_ASCII)));
+            assertEquals(lines, read);
+            assertEquals(40, stats.getPosition());
+            // The first request is aborted and requested in halves. The rest are requested 8 records at a time.
+            assertEquals(1 + 2 + 3, stats.getRequests());
+            assertEquals(0, stats.getRetries());
+        } finally {
+            source.delete();
+        }
+    }
+
+    @Test
+    public void shortReads() throws Exception {
+        final byte[] data = new byte[20000];
+        new Random(1).nextBytes(data);
+        final File source = tempFile(data);
+        try {
+            // A file access that returns at most 300 octets per read.
+            final FileObject sourceFile = new FileObject(d1, 1, "source", new StreamAccess(source) {
+                @Override
+                public OctetString readData(final long start, final long length)
+                        throws IOException, BACnetServiceException {
+                    return super.readData(start, Math.min(length, 300));
+                }
+            });
+
+            final FileTransfer transfer = new FileTransfer(d2, rd1);
+            transfer.setChunkSize(500);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final FileTransfer.Statistics stats = transfer.read(sourceFile.getId(), Channels.newChannel(out));
+
+            // The rest of each chunk is requested before later chunks are delivered.
+            assertArrayEquals(data, out.toByteArray());
+            assertEquals(20000, stats.getPosition());
+            assertEquals(80, stats.getRequests());
+        } finally {
+            source.delete();
+        }
+    }
+
+    private static void awaitPosition(final FileTransfer transfer, final long position) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            final FileTransfer.Statistics stats = transfer.getStatistics();
+            if (stats != null && stats.getPosition() == position)
+                return;
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Position " + position + " was not reached");
+    }
+
+    private static File tempFile(final byte[] content) throws Exception {
+        final File file = File.createTempFile("fileTransferTest", ".bin");
+        Files.write(file.toPath(), content);
+        return file;
+    }
+}
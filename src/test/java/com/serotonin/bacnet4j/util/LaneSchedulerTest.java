@@ -0,0 +1,209 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.TestUtils;
+import com.serotonin.bacnet4j.type.enumerated.ObjectType;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.util.LaneScheduler.Lane;
+import com.serotonin.bacnet4j.util.LaneScheduler.LaneStats;
+import com.serotonin.bacnet4j.util.sero.ThreadUtils;
+
+import lohbihler.warp.WarpClock;
+import lohbihler.warp.WarpScheduledExecutorService;
+
+public class LaneSchedulerTest {
+    private final WarpClock clock = new WarpClock();
+    private final WarpScheduledExecutorService timer = new WarpScheduledExecutorService(clock);
+    private final LaneScheduler scheduler = new LaneScheduler(clock, timer, 4);
+
+    @After
+    public void after() {
+        timer.shutdown();
+        scheduler.shutdown();
+    }
+
+    /**
+     * A blocked IO task does not delay a timer that is due at the same time.
+     */
+    @Test
+    public void timerNotBlockedByIo() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger ioRuns = new AtomicInteger();
+        final AtomicInteger timerRuns = new AtomicInteger();
+
+        scheduler.schedule(Lane.IO, null, () -> {
+            ioRuns.incrementAndGet();
+            try {
+                release.await();
+            } catch (@SuppressWarnings("unused") final InterruptedException e) {
+                // no op
+            }
+        }, 1, TimeUnit.SECONDS);
+        scheduler.schedule(Lane.TIMER, null, timerRuns::incrementAndGet, 1, TimeUnit.SECONDS);
+
+        clock.plusSeconds(1);
+        TestUtils.await(() -> timerRuns.get() == 1, 2000);
+        TestUtils.await(() -> ioRuns.get() == 1, 2000);
+        release.countDown();
+    }
+
+    /**
+     * IO work that occupies all IO threads and has more queued behind it does not delay the triggers of TIMER work.
+     */
+    @Test
+    public void saturatedIo() throws Exception {
+        final LaneScheduler small = new LaneScheduler(clock, timer, 2, 2);
+        try {
+            final CountDownLatch release = new CountDownLatch(1);
+            final AtomicInteger ioRuns = new AtomicInteger();
+            for (int i = 0; i < 10; i++) {
+                small.execute(Lane.IO, null, () -> {
+                    ioRuns.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (@SuppressWarnings("unused") final InterruptedException e) {
+                        // no op
+                    }
+                });
+            }
+            TestUtils.await(() -> ioRuns.get() == 2, 2000);
+            assertEquals(8, small.getStats(Lane.IO).getQueueDepth());
+
+            // Periodic and one-off timers still run when they are due.
+            final AtomicInteger periodic = new AtomicInteger();
+            final AtomicInteger once = new AtomicInteger();
+            small.scheduleAtFixedRate(Lane.TIMER, null, periodic::incrementAndGet, 100, 100, TimeUnit.MILLISECONDS);
+            small.schedule(Lane.TIMER, null, once::incrementAndGet, 250, TimeUnit.MILLISECONDS);
+            for (int i = 1; i <= 3; i++) {
+                clock.plusMillis(100);
+                final int expected = i;
+                TestUtils.await(() -> periodic.get() == expected, 2000);
+            }
+            TestUtils.await(() -> once.get() == 1, 2000);
+            assertEquals(0, small.getStats(Lane.TIMER).getSkippedCount());
+            assertEquals(2, ioRuns.get());
+
+            release.countDown();
+            TestUtils.await(() -> ioRuns.get() == 10, 2000);
+        } finally {
+            small.shutdown();
+        }
+    }
+
+    /**
+     * Timers with the same key run in order on the same thread.
+     */
+    @Test
+    public void sameKey() {
+        final ObjectIdentifier key = new ObjectIdentifier(ObjectType.analogValue, 1);
+        final List<Integer> order = new CopyOnWriteArrayList<>();
+        final List<Thread> threads = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final int n = i;
+            scheduler.schedule(Lane.TIMER, key, () -> {
+                order.add(n);
+                threads.add(Thread.currentThread());
+            }, 100 + i, TimeUnit.MILLISECONDS);
+        }
+
+        clock.plusMillis(100);
+        for (int i = 0; i < 20; i++) {
+            final int expected = i + 1;
+            TestUtils.await(() -> order.size() == expected, 2000);
+            clock.plusMillis(1);
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, order.get(i).intValue());
+            assertTrue(threads.get(i) == threads.get(0));
+        }
+    }
+
+    @Test
+    public void fixedDelayAndCancel() {
+        final AtomicInteger runs = new AtomicInteger();
+        final ScheduledFuture<?> future = scheduler.scheduleWithFixedDelay(Lane.TIMER, null, runs::incrementAndGet,
+                1, 1, TimeUnit.SECONDS);
+
+        for (int i = 1; i <= 3; i++) {
+            clock.plusSeconds(1);
+            final int expected = i;
+            TestUtils.await(() -> runs.get() == expected, 2000);
+        }
+
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        clock.plusSeconds(1);
+        ThreadUtils.sleep(50);
+        assertEquals(3, runs.get());
+    }
+
+    /**
+     * A cancelled timer does not run, even if its trigger already fired.
+     */
+    @Test
+    public void cancelBeforeRun() throws Exception {
+        final ObjectIdentifier key = new ObjectIdentifier(ObjectType.analogValue, 2);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger runs = new AtomicInteger();
+
+        // Occupy the shard of the key so that the next timer waits in its queue.
+        scheduler.schedule(Lane.TIMER, key, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (@SuppressWarnings("unused") final InterruptedException e) {
+                // no op
+            }
+        }, 1, TimeUnit.SECONDS);
+        final ScheduledFuture<?> future = scheduler.schedule(Lane.TIMER, key, runs::incrementAndGet, 2,
+                TimeUnit.SECONDS);
+
+        clock.plusSeconds(1);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        clock.plusSeconds(1);
+        TestUtils.await(() -> scheduler.getStats(Lane.TIMER).getQueueDepth() == 1, 2000);
+        future.cancel(false);
+        release.countDown();
+        TestUtils.await(() -> scheduler.getStats(Lane.TIMER).getQueueDepth() == 0, 2000);
+        ThreadUtils.sleep(50);
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void stats() {
+        final AtomicInteger runs = new AtomicInteger();
+        scheduler.schedule(Lane.TIMER, null, runs::incrementAndGet, 1, TimeUnit.SECONDS);
+        scheduler.schedule(Lane.IO, null, runs::incrementAndGet, 2, TimeUnit.SECONDS);
+
+        // The clock jumps past both, so they start late.
+        clock.plusSeconds(5);
+        TestUtils.await(() -> runs.get() == 2, 2000);
+
+        final LaneStats timerStats = scheduler.getStats(Lane.TIMER);
+        assertEquals(1, timerStats.getStartedCount());
+        assertEquals(4000, timerStats.getMaxLateness());
+        assertEquals(0, timerStats.getQueueDepth());
+
+        final LaneStats ioStats = scheduler.getStats(Lane.IO);
+        assertEquals(1, ioStats.getStartedCount());
+        assertEquals(3000, ioStats.getMaxLateness());
+        assertEquals(3000, ioStats.getAverageLateness(), 0.1);
+
+        ioStats.reset();
+        assertEquals(0, ioStats.getStartedCount());
+        assertEquals(0, ioStats.getMaxLateness());
+    }
+}
@@ -0,0 +1,149 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.AbstractTest;
+import com.serotonin.bacnet4j.TestUtils;
+import com.serotonin.bacnet4j.exception.BACnetServiceException;
+import com.serotonin.bacnet4j.obj.AnalogValueObject;
+import com.serotonin.bacnet4j.type.Encodable;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.constructed.StatusFlags;
+import com.serotonin.bacnet4j.type.enumerated.EngineeringUnits;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.primitive.Real;
+import com.serotonin.bacnet4j.util.PointSubscriptionService.Point;
+import com.serotonin.bacnet4j.util.PointSubscriptionService.PointMode;
+
+public class PointSubscriptionServiceTest extends AbstractTest {
+    @Test
+    public void cov() throws Exception {
+        final AnalogValueObject av = new AnalogValueObject(d2, 1, "av1", 1, EngineeringUnits.noUnits, false)
+                .supportCovReporting(1);
+        final PointSubscriptionService service = d1.getPointSubscriptionService();
+
+        final List<Encodable> values = new CopyOnWriteArrayList<>();
+        final List<Encodable> flags = new CopyOnWriteArrayList<>();
+        final Point pv = service.subscribe(2, av.getId(), PropertyIdentifier.presentValue,
+                (point, value) -> values.add(value));
+        final Point sf = service.subscribe(2, av.getId(), PropertyIdentifier.statusFlags,
+                (point, value) -> flags.add(value));
+
+        // The initial notification provides the values.
+        TestUtils.await(() -> pv.getMode() == PointMode.COV, 2000);
+        TestUtils.await(() -> values.size() == 1 && flags.size() == 1, 2000);
+        assertEquals(new Real(1), values.get(0));
+        assertEquals(new StatusFlags(false, false, false, false), flags.get(0));
+        assertEquals(PointMode.COV, sf.getMode());
+
+        // Both points share one subscription, and nothing is polled.
+        assertEquals(1, getSubscriptionCount());
+        assertEquals(0, d1.getPollingEngine().getTickCount());
+
+        av.writePropertyInternal(PropertyIdentifier.presentValue, new Real(5));
+        TestUtils.await(() -> values.size() == 2, 2000);
+        assertEquals(new Real(5), values.get(1));
+        assertEquals(new Real(5), pv.getValue());
+
+        // Cancelling the points cancels the subscription.
+        pv.cancel();
+        assertEquals(1, getSubscriptionCount());
+        sf.cancel();
+        TestUtils.await(() -> getSubscriptionCount() == 0, 2000);
+    }
+
+    @Test
+    public void joinNotifiedSubscription() throws Exception {
+        final AnalogValueObject av = new AnalogValueObject(d2, 1, "av1", 1, EngineeringUnits.noUnits, false)
+                .supportCovReporting(1);
+        final PointSubscriptionService service = d1.getPointSubscriptionService();
+
+        final List<Encodable> values = new CopyOnWriteArrayList<>();
+        service.subscribe(2, av.getId(), PropertyIdentifier.presentValue, (point, value) -> values.add(value));
+        TestUtils.assertSize(values, 1, 2000);
+
+        // The point joins after the initial notification, and gets the last notified value.
+        final List<Encodable> flags = new CopyOnWriteArrayList<>();
+        final Point sf = service.subscribe(2, av.getId(), PropertyIdentifier.statusFlags,
+                (point, value) -> flags.add(value));
+        assertEquals(PointMode.COV, sf.getMode());
+        TestUtils.assertSize(flags, 1, 2000);
+        assertEquals(new StatusFlags(false, false, false, false), flags.get(0));
+        assertEquals(1, getSubscriptionCount());
+    }
+
+    @Test
+    public void fallbackToPolling() throws Exception {
+        // Does not support COV reporting.
+        final AnalogValueObject av = new AnalogValueObject(d2, 1, "av1", 1, EngineeringUnits.noUnits, false);
+        final PointSubscriptionService service = d1.getPointSubscriptionService();
+        service.setPollPeriod(10000);
+
+        final List<Encodable> values = new CopyOnWriteArrayList<>();
+        final Point point = service.subscribe(2, av.getId(), PropertyIdentifier.presentValue,
+                (p, value) -> values.add(value));
+
+        TestUtils.await(() -> point.getMode() == PointMode.POLLED, 2000);
+        TestUtils.await(() -> values.size() == 1, 2000);
+        assertEquals(new Real(1), values.get(0));
+        assertEquals(1, d1.getPollingEngine().getTickCount());
+
+        av.writePropertyInternal(PropertyIdentifier.presentValue, new Real(2));
+        clock.plusMillis(10000);
+        TestUtils.await(() -> values.size() == 2, 2000);
+        assertEquals(new Real(2), values.get(1));
+
+        point.cancel();
+        assertEquals(0, d1.getPollingEngine().getTickCount());
+    }
+
+    /**
+     * A subscription that cannot be renewed falls back to polling, and returns to COV when the retry succeeds.
+     */
+    @Test
+    public void staleRenewal() throws Exception {
+        AnalogValueObject av = new AnalogValueObject(d2, 1, "av1", 1, EngineeringUnits.noUnits, false)
+                .supportCovReporting(1);
+        final PointSubscriptionService service = d1.getPointSubscriptionService();
+        service.setLifetime(60);
+        service.setPollPeriod(10000);
+        service.setRetryInterval(120000);
+
+        final List<Encodable> values = new CopyOnWriteArrayList<>();
+        final Point point = service.subscribe(2, av.getId(), PropertyIdentifier.presentValue,
+                (p, value) -> values.add(value));
+        TestUtils.await(() -> point.getMode() == PointMode.COV, 2000);
+
+        // Replace the object with one that does not support COV.
+        d2.removeObject(av.getId());
+        av = new AnalogValueObject(d2, 1, "av1", 3, EngineeringUnits.noUnits, false);
+
+        // The renewal at half the lifetime fails.
+        clock.plusSeconds(30);
+        TestUtils.await(() -> point.getMode() == PointMode.POLLED, 2000);
+        TestUtils.await(() -> new Real(3).equals(point.getValue()), 2000);
+
+        // COV is supported again by the time of the retry.
+        d2.removeObject(av.getId());
+        av = new AnalogValueObject(d2, 1, "av1", 4, EngineeringUnits.noUnits, false).supportCovReporting(1);
+        clock.plusSeconds(120);
+        TestUtils.await(() -> point.getMode() == PointMode.COV, 2000);
+        TestUtils.await(() -> new Real(4).equals(point.getValue()), 2000);
+        assertEquals(0, d1.getPollingEngine().getTickCount());
+    }
+
+    private int getSubscriptionCount() {
+        try {
+            final SequenceOf<?> subscriptions = d2.getObject(d2.getId())
+                    .readProperty(PropertyIdentifier.activeCovSubscriptions);
+            return subscriptions.getCount();
+        } catch (final BACnetServiceException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.AbstractTest;
+import com.serotonin.bacnet4j.TestUtils;
+import com.serotonin.bacnet4j.obj.AnalogValueObject;
+import com.serotonin.bacnet4j.type.enumerated.EngineeringUnits;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.primitive.Real;
+import com.serotonin.bacnet4j.util.PollingEngine.Subscription;
+import com.serotonin.bacnet4j.util.sero.ThreadUtils;
+
+public class PollingEngineTest extends AbstractTest {
+    private AnalogValueObject av1;
+    private AnalogValueObject av2;
+    private AnalogValueObject av3;
+
+    @Override
+    public void afterInit() throws Exception {
+        av1 = new AnalogValueObject(d2, 1, "av1", 1, EngineeringUnits.noUnits, false);
+        av2 = new AnalogValueObject(d2, 2, "av2", 2, EngineeringUnits.noUnits, false);
+        av3 = new AnalogValueObject(d3, 3, "av3", 3, EngineeringUnits.noUnits, false);
+    }
+
+    @Test
+    public void sharedTicks() {
+        final PollingEngine engine = d1.getPollingEngine();
+        final List<Real> values1 = new CopyOnWriteArrayList<>();
+        final List<Real> values2 = new CopyOnWriteArrayList<>();
+        final List<Real> values3 = new CopyOnWriteArrayList<>();
+
+        final Subscription s1 = engine.subscribe(refs(2, av1), 10, 10, TimeUnit.SECONDS,
+                (time, values) -> values1.add((Real) values.get(2, av1.getId(), PropertyIdentifier.presentValue)));
+        final Subscription s2 = engine.subscribe(refs(2, av2), 10, 10, TimeUnit.SECONDS,
+                (time, values) -> values2.add((Real) values.get(2, av2.getId(), PropertyIdentifier.presentValue)));
+        // Due at the same times as the others, so it shares their tick.
+        final Subscription s3 = engine.subscribe(refs(3, av3), 20, 10, TimeUnit.SECONDS,
+                (time, values) -> values3.add((Real) values.get(3, av3.getId(), PropertyIdentifier.presentValue)));
+        assertEquals(1, engine.getTickCount());
+
+        clock.plusSeconds(10);
+        TestUtils.assertSize(values1, 1, 1000);
+        TestUtils.assertSize(values2, 1, 1000);
+        ThreadUtils.sleep(50);
+        assertEquals(0, values3.size());
+        assertEquals(new Real(1), values1.get(0));
+        assertEquals(new Real(2), values2.get(0));
+
+        av1.writePropertyInternal(PropertyIdentifier.presentValue, new Real(11));
+        clock.plusSeconds(10);
+        TestUtils.assertSize(values1, 2, 1000);
+        TestUtils.assertSize(values2, 2, 1000);
+        TestUtils.assertSize(values3, 1, 1000);
+        assertEquals(new Real(11), values1.get(1));
+        assertEquals(new Real(3), values3.get(0));
+
+        // A different period has its own tick.
+        final Subscription s4 = engine.subscribe(refs(2, av1), 0, 15, TimeUnit.SECONDS, (time, values) -> {
+            // no op
+        });
+        assertEquals(2, engine.getTickCount());
+
+        s1.cancel();
+        s2.cancel();
+        s4.cancel();
+        assertEquals(1, engine.getTickCount());
+        s3.cancel();
+        assertEquals(0, engine.getTickCount());
+
+        clock.plusSeconds(10);
+        ThreadUtils.sleep(50);
+        assertEquals(2, values1.size());
+        assertEquals(1, values3.size());
+    }
+
+    /**
+     * A subscription that joins a tick which is next due after its first poll gets that poll separately.
+     */
+    @Test
+    public void firstPollBeforeTick() {
+        final PollingEngine engine = d1.getPollingEngine();
+        final List<Long> times1 = new CopyOnWriteArrayList<>();
+        final List<Long> times2 = new CopyOnWriteArrayList<>();
+
+        final long start = clock.millis();
+        engine.subscribe(refs(2, av1), 10, 10, TimeUnit.SECONDS, (time, values) -> times1.add(time));
+        engine.subscribe(refs(2, av2), 0, 10, TimeUnit.SECONDS, (time, values) -> times2.add(time));
+        assertEquals(1, engine.getTickCount());
+
+        TestUtils.assertSize(times2, 1, 1000);
+        assertEquals(start, times2.get(0).longValue());
+        assertEquals(0, times1.size());
+
+        clock.plusSeconds(10);
+        TestUtils.assertSize(times1, 1, 1000);
+        TestUtils.assertSize(times2, 2, 1000);
+        assertEquals(start + 10000, times1.get(0).longValue());
+        assertEquals(start + 10000, times2.get(1).longValue());
+    }
+
+    @Test
+    public void jitter() {
+        final PollingEngine engine = d1.getPollingEngine();
+        engine.setMaxJitter(1000);
+        final long offset2 = PollingEngine.offset(2, 1000);
+        final long offset3 = PollingEngine.offset(3, 1000);
+        assertTrue(offset2 != offset3);
+
+        final List<DeviceObjectPropertyValues> results = new CopyOnWriteArrayList<>();
+        final DeviceObjectPropertyReferences refs = refs(2, av1);
+        refs.add(3, av3.getId(), PropertyIdentifier.presentValue);
+        engine.subscribe(refs, 10, 10, TimeUnit.SECONDS, (time, values) -> results.add(values));
+
+        // The values are provided once both devices have been read.
+        clock.plusSeconds(10);
+        ThreadUtils.sleep(50);
+        assertEquals(0, results.size());
+        clock.plusMillis(Math.max(offset2, offset3));
+        TestUtils.assertSize(results, 1, 1000);
+        assertEquals(new Real(1), results.get(0).get(2, av1.getId(), PropertyIdentifier.presentValue));
+        assertEquals(new Real(3), results.get(0).get(3, av3.getId(), PropertyIdentifier.presentValue));
+    }
+
+    private static DeviceObjectPropertyReferences refs(final int deviceId, final AnalogValueObject av) {
+        return new DeviceObjectPropertyReferences().add(deviceId, av.getId(), PropertyIdentifier.presentValue);
+    }
+}
@@ -0,0 +1,98 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.AbstractTest;
+import com.serotonin.bacnet4j.TestUtils;
+import com.serotonin.bacnet4j.obj.AnalogInputObject;
+import com.serotonin.bacnet4j.obj.AnalogValueObject;
+import com.serotonin.bacnet4j.obj.BACnetObject;
+import com.serotonin.bacnet4j.type.constructed.DeviceObjectPropertyReference;
+import com.serotonin.bacnet4j.type.enumerated.EngineeringUnits;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.primitive.Real;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+import com.serotonin.bacnet4j.util.PropertyWriteFanOut.WriteStatus;
+
+public class PropertyWriteFanOutTest extends AbstractTest {
+    @Test
+    public void multipleWithNonContiguousObjects() throws Exception {
+        final AnalogValueObject av = new AnalogValueObject(d2, 0, "av0", 0, EngineeringUnits.amperes, false)
+                .supportCommandable(0);
+        // The present value of an analog input that is in service cannot be written.
+        final AnalogInputObject ai = new AnalogInputObject(d2, 0, "ai0", 0, EngineeringUnits.amperes, false);
+
+        // The request groups the references by object, so the analog input is written last.
+        final DeviceObjectPropertyReference avPv = ref(av, PropertyIdentifier.presentValue, null);
+        final DeviceObjectPropertyReference aiPv = ref(ai, PropertyIdentifier.presentValue, null);
+        final DeviceObjectPropertyReference avRd = ref(av, PropertyIdentifier.relinquishDefault, null);
+
+        final PropertyWriteFanOut fanOut = new PropertyWriteFanOut(d1);
+        final Map<DeviceObjectPropertyReference, WriteStatus> results = awaitResults(
+                fanOut.write(Arrays.asList(avPv, aiPv, avRd), new Real(3), new UnsignedInteger(8)));
+
+        assertEquals(WriteStatus.SUCCEEDED, results.get(avPv));
+        assertEquals(WriteStatus.SUCCEEDED, results.get(avRd));
+        assertEquals(WriteStatus.FAILED, results.get(aiPv));
+        assertEquals(new Real(3), av.get(PropertyIdentifier.relinquishDefault));
+    }
+
+    @Test
+    public void multipleWithArrayIndex() throws Exception {
+        final AnalogValueObject av = new AnalogValueObject(d2, 0, "av0", 0, EngineeringUnits.amperes, false)
+                .supportCommandable(0);
+
+        // The same property, but with an array index, which fails because the property is not an array.
+        final DeviceObjectPropertyReference pv = ref(av, PropertyIdentifier.presentValue, null);
+        final DeviceObjectPropertyReference pvIndex = ref(av, PropertyIdentifier.presentValue, 3);
+
+        final PropertyWriteFanOut fanOut = new PropertyWriteFanOut(d1);
+        final Map<DeviceObjectPropertyReference, WriteStatus> results = awaitResults(
+                fanOut.write(Arrays.asList(pv, pvIndex), new Real(3), new UnsignedInteger(8)));
+
+        assertEquals(WriteStatus.SUCCEEDED, results.get(pv));
+        assertEquals(WriteStatus.FAILED, results.get(pvIndex));
+    }
+
+    @Test
+    public void doneWhenNoneIsPending() throws Exception {
+        final AnalogValueObject av = new AnalogValueObject(d2, 0, "av0", 0, EngineeringUnits.amperes, false)
+                .supportCommandable(0);
+        final DeviceObjectPropertyReference pv = ref(av, PropertyIdentifier.presentValue, null);
+        final DeviceObjectPropertyReference pvIndex = ref(av, PropertyIdentifier.presentValue, 3);
+
+        final PropertyWriteFanOut fanOut = new PropertyWriteFanOut(d1);
+        final CompletableFuture<Map<DeviceObjectPropertyReference, WriteStatus>> done = new CompletableFuture<>();
+        fanOut.write(Arrays.asList(pv, pvIndex), new Real(3), new UnsignedInteger(8), done::complete);
+
+        final Map<DeviceObjectPropertyReference, WriteStatus> results = done.get(5, TimeUnit.SECONDS);
+        assertEquals(WriteStatus.SUCCEEDED, results.get(pv));
+        assertEquals(WriteStatus.FAILED, results.get(pvIndex));
+
+        // A write to no references is done at once.
+        final CompletableFuture<Map<DeviceObjectPropertyReference, WriteStatus>> none = new CompletableFuture<>();
+        fanOut.write(Collections.emptyList(), new Real(4), new UnsignedInteger(8), none::complete);
+        assertTrue(none.isDone());
+    }
+
+    private static DeviceObjectPropertyReference ref(final BACnetObject bo,
+            final PropertyIdentifier pid, final Integer index) {
+        return new DeviceObjectPropertyReference(bo.getId(), pid, index == null ? null : new UnsignedInteger(index),
+                bo.getLocalDevice().getId());
+    }
+
+    private static Map<DeviceObjectPropertyReference, WriteStatus> awaitResults(
+            final Map<DeviceObjectPropertyReference, WriteStatus> results) {
+        TestUtils.await(() -> !results.containsValue(WriteStatus.PENDING), 5000);
+        return results;
+    }
+}
@@ -0,0 +1,128 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.type.constructed.PropertyReference;
+import com.serotonin.bacnet4j.type.enumerated.ObjectType;
+import com.serotonin.bacnet4j.type.enumerated.PropertyIdentifier;
+import com.serotonin.bacnet4j.type.primitive.CharacterString;
+import com.serotonin.bacnet4j.type.primitive.Real;
+
+public class ReadPropertyMultiplePackerTest {
+    @Test
+    public void unlimited() {
+        final ReadPropertyMultiplePacker packer = new ReadPropertyMultiplePacker();
+        final List<PropertyReferences> partitions = packer.partition(refs(100, PropertyIdentifier.presentValue), 30,
+                Integer.MAX_VALUE);
+        assertEquals(4, partitions.size());
+        assertEquals(30, partitions.get(0).size());
+        assertEquals(10, partitions.get(3).size());
+    }
+
+    @Test
+    public void packedBySize() {
+        final ReadPropertyMultiplePacker packer = new ReadPropertyMultiplePacker();
+
+        // A REAL present value is estimated at 5 bytes, plus 4 for the result and 7 for the object.
+        final PropertyReference pv = new PropertyReference(PropertyIdentifier.presentValue);
+        assertEquals(9, packer.estimate(ObjectType.analogInput, pv));
+        PropertyReferences refs = refs(100, PropertyIdentifier.presentValue);
+        assertEquals(3 + 100 * 16, packer.estimate(refs));
+
+        List<PropertyReferences> partitions = packer.partition(refs, 200, 480);
+        assertEquals(4, partitions.size());
+        for (final PropertyReferences partition : partitions)
+            assertTrue(packer.estimate(partition) <= 480);
+        assertEquals(29, partitions.get(0).size());
+
+        // Descriptions are estimated larger.
+        refs = refs(100, PropertyIdentifier.description);
+        partitions = packer.partition(refs, 200, 480);
+        assertEquals(6, partitions.get(0).size());
+    }
+
+    @Test
+    public void learning() {
+        final ReadPropertyMultiplePacker packer = new ReadPropertyMultiplePacker();
+        final PropertyReference ref = new PropertyReference(PropertyIdentifier.description);
+        assertEquals(68, packer.estimate(ObjectType.analogInput, ref));
+
+        // Learn short descriptions. The encoded value is a tag, the encoding and 3 characters.
+        packer.learn(ObjectType.analogInput, PropertyIdentifier.description, null, new CharacterString("abc"));
+        assertEquals(4 + 5, packer.estimate(ObjectType.analogInput, ref));
+        // ... for analog inputs only.
+        assertEquals(68, packer.estimate(ObjectType.analogValue, ref));
+
+        final List<PropertyReferences> partitions = packer.partition(refs(100, PropertyIdentifier.description), 200,
+                480);
+        assertEquals(29, partitions.get(0).size());
+
+        // A longer value is learned immediately.
+        packer.learn(ObjectType.analogInput, PropertyIdentifier.description, null, new CharacterString("abcdefghij"));
+        assertEquals(4 + 13, packer.estimate(ObjectType.analogInput, ref));
+
+        // A shorter one slowly.
+        packer.learn(ObjectType.analogInput, PropertyIdentifier.description, null, new CharacterString("a"));
+        assertEquals(4 + 12, packer.estimate(ObjectType.analogInput, ref));
+
+        packer.learn(ObjectType.analogInput, PropertyIdentifier.presentValue, null, new Real(1));
+        final PropertyReference pv = new PropertyReference(PropertyIdentifier.presentValue);
+        assertEquals(9, packer.estimate(ObjectType.analogInput, pv));
+    }
+
+    @Test
+    public void unknownSizes() {
+        final ReadPropertyMultiplePacker packer = new ReadPropertyMultiplePacker();
+
+        // References of unknown size are each sent on their own, whether on the same or different objects.
+        final PropertyReferences refs = refs(4, PropertyIdentifier.all);
+        refs.add(ObjectType.analogInput, 3, PropertyIdentifier.required);
+        refs.add(ObjectType.analogInput, 3, PropertyIdentifier.optional);
+        refs.add(ObjectType.analogInput, 4, PropertyIdentifier.presentValue);
+        refs.add(ObjectType.analogInput, 4, PropertyIdentifier.all);
+        refs.add(ObjectType.analogInput, 5, PropertyIdentifier.presentValue);
+        refs.add(ObjectType.analogInput, 6, PropertyIdentifier.presentValue);
+
+        final List<PropertyReferences> partitions = packer.partition(refs, 200, 480);
+        assertEquals(9, partitions.size());
+        for (int i = 0; i < 8; i++)
+            assertEquals(1, partitions.get(i).size());
+        for (final int i : new int[] { 0, 1, 2, 3, 4, 5, 7 })
+            assertTrue(packer.estimate(partitions.get(i)) >= ReadPropertyMultiplePacker.UNKNOWN_SIZE);
+        // Known sizes are packed together.
+        assertEquals(3 + 16, packer.estimate(partitions.get(6)));
+        assertEquals(2, partitions.get(8).size());
+        assertEquals(3 + 2 * 16, packer.estimate(partitions.get(8)));
+        assertEquals(Integer.MAX_VALUE, packer.estimate(refs));
+
+        // A rejected request of unknown size does not reduce the limit.
+        packer.tooBig(packer.estimate(partitions.get(0)));
+        assertEquals(477, packer.getResponseBudget(480));
+    }
+
+    @Test
+    public void tooBig() {
+        final ReadPropertyMultiplePacker packer = new ReadPropertyMultiplePacker();
+        assertEquals(477, packer.getResponseBudget(480));
+
+        packer.tooBig(400);
+        assertEquals(297, packer.getResponseBudget(480));
+
+        // The limit grows back, but not to the size that failed.
+        for (int i = 0; i < 100; i++)
+            packer.succeeded();
+        assertEquals(396, packer.getResponseBudget(480));
+    }
+
+    private static PropertyReferences refs(final int count, final PropertyIdentifier pid) {
+        final PropertyReferences refs = new PropertyReferences();
+        for (int i = 0; i < count; i++)
+            refs.add(ObjectType.analogInput, i, pid);
+        return refs;
+    }
+}
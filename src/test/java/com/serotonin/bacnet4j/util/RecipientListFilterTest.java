@@ -0,0 +1,124 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.enums.DayOfWeek;
+import com.serotonin.bacnet4j.enums.Month;
+import com.serotonin.bacnet4j.type.constructed.DateTime;
+import com.serotonin.bacnet4j.type.constructed.DaysOfWeek;
+import com.serotonin.bacnet4j.type.constructed.Destination;
+import com.serotonin.bacnet4j.type.constructed.EventTransitionBits;
+import com.serotonin.bacnet4j.type.constructed.Recipient;
+import com.serotonin.bacnet4j.type.constructed.SequenceOf;
+import com.serotonin.bacnet4j.type.constructed.TimeStamp;
+import com.serotonin.bacnet4j.type.enumerated.EventState;
+import com.serotonin.bacnet4j.type.enumerated.ObjectType;
+import com.serotonin.bacnet4j.type.primitive.Boolean;
+import com.serotonin.bacnet4j.type.primitive.Date;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.type.primitive.Time;
+import com.serotonin.bacnet4j.type.primitive.UnsignedInteger;
+
+public class RecipientListFilterTest {
+    private static final EventState[] STATES = { EventState.normal, EventState.fault, EventState.offnormal,
+            EventState.highLimit, EventState.lowLimit };
+
+    /**
+     * The compiled filter matches the same destinations as Destination.isSuitableForEvent.
+     */
+    @Test
+    public void sameAsDestination() {
+        final Random random = new Random(1);
+        final SequenceOf<Destination> list = new SequenceOf<>();
+        for (int i = 0; i < 200; i++) {
+            final DaysOfWeek days = new DaysOfWeek();
+            for (int d = 0; d < 7; d++)
+                days.setValue(d + 1, random.nextBoolean());
+            final Time from = random.nextInt(10) == 0 ? new Time(8, Time.UNSPECIFIC, 0, 0) : randomTime(random);
+            final Time to = randomTime(random);
+            // Use a unique process id so that no destinations are merged.
+            list.add(new Destination(days, from, to, new Recipient(new ObjectIdentifier(ObjectType.device, i % 10)),
+                    new UnsignedInteger(i), Boolean.FALSE, new EventTransitionBits(random.nextBoolean(),
+                            random.nextBoolean(), random.nextBoolean())));
+        }
+
+        final RecipientListFilter filter = new RecipientListFilter(list);
+        for (int i = 0; i < 500; i++) {
+            final TimeStamp ts;
+            if (random.nextInt(10) == 0)
+                ts = new TimeStamp(new UnsignedInteger(i));
+            else
+                ts = new TimeStamp(new DateTime(new Date(2017, Month.MAY, 1 + random.nextInt(28),
+                        DayOfWeek.valueOf(1 + random.nextInt(7))), randomTime(random)));
+            final EventState toState = STATES[random.nextInt(STATES.length)];
+
+            final Set<Destination> expected = new HashSet<>();
+            for (final Destination destination : list) {
+                if (destination.isSuitableForEvent(ts, toState))
+                    expected.add(destination);
+            }
+
+            final Set<Destination> actual = new HashSet<>();
+            for (final RecipientListFilter.Match match : filter.match(ts, toState)) {
+                for (final Destination destination : match.getDestinations()) {
+                    assertEquals(match.getRecipient(), destination.getRecipient());
+                    actual.add(destination);
+                }
+            }
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void grouped() {
+        final Recipient r1 = new Recipient(new ObjectIdentifier(ObjectType.device, 1));
+        final Recipient r2 = new Recipient(new ObjectIdentifier(ObjectType.device, 2));
+        final EventTransitionBits all = new EventTransitionBits(true, true, true);
+        final SequenceOf<Destination> list = new SequenceOf<>( //
+                new Destination(r1, new UnsignedInteger(1), Boolean.FALSE, all), //
+                new Destination(r2, new UnsignedInteger(1), Boolean.FALSE, all), //
+                // A different process, so a separate notification.
+                new Destination(r1, new UnsignedInteger(2), Boolean.FALSE, all), //
+                // The same notification as the first.
+                new Destination(new DaysOfWeek(true), new Time(0, 0, 0, 0), new Time(12, 0, 0, 0), r1,
+                        new UnsignedInteger(1), Boolean.FALSE, all));
+
+        final List<RecipientListFilter.Match> matches = new RecipientListFilter(list)
+                .match(new TimeStamp(new UnsignedInteger(1)), EventState.offnormal);
+
+        assertEquals(2, matches.size());
+        assertEquals(r1, matches.get(0).getRecipient());
+        assertEquals(2, matches.get(0).getDestinations().size());
+        assertEquals(r2, matches.get(1).getRecipient());
+        assertEquals(1, matches.get(1).getDestinations().size());
+    }
+
+    @Test
+    public void forList() {
+        final SequenceOf<Destination> list = new SequenceOf<>();
+        final RecipientListFilter filter = RecipientListFilter.forList(null, list);
+        assertSame(filter, RecipientListFilter.forList(filter, list));
+
+        // Changed in place
+        list.add(new Destination(new Recipient(new ObjectIdentifier(ObjectType.device, 1)), UnsignedInteger.ZERO,
+                Boolean.FALSE, new EventTransitionBits(true, true, true)));
+        final RecipientListFilter filter2 = RecipientListFilter.forList(filter, list);
+        assertTrue(filter != filter2);
+
+        // Replaced
+        assertTrue(filter2 != RecipientListFilter.forList(filter2, new SequenceOf<>(list.getValues())));
+    }
+
+    private static Time randomTime(final Random random) {
+        return new Time(random.nextInt(24), random.nextInt(60), random.nextInt(60), random.nextInt(100));
+    }
+}
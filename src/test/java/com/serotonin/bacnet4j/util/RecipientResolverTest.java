@@ -0,0 +1,132 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.serotonin.bacnet4j.LocalDevice;
+import com.serotonin.bacnet4j.npdu.test.TestNetwork;
+import com.serotonin.bacnet4j.npdu.test.TestNetworkMap;
+import com.serotonin.bacnet4j.npdu.test.TestNetworkUtils;
+import com.serotonin.bacnet4j.transport.DefaultTransport;
+import com.serotonin.bacnet4j.type.constructed.Address;
+import com.serotonin.bacnet4j.type.constructed.Recipient;
+import com.serotonin.bacnet4j.type.enumerated.ObjectType;
+import com.serotonin.bacnet4j.type.primitive.ObjectIdentifier;
+import com.serotonin.bacnet4j.util.sero.ThreadUtils;
+
+import lohbihler.warp.WarpClock;
+
+public class RecipientResolverTest {
+    private final TestNetworkMap map = new TestNetworkMap();
+    private final WarpClock clock = new WarpClock();
+    private LocalDevice d1;
+    private LocalDevice d2;
+
+    @Before
+    public void before() throws Exception {
+        d1 = new LocalDevice(1, new DefaultTransport(new TestNetwork(map, 1, 0))).withClock(clock).initialize();
+    }
+
+    @After
+    public void after() {
+        d1.terminate();
+        if (d2 != null)
+            d2.terminate();
+    }
+
+    @Test
+    public void address() {
+        final RecipientResolver resolver = d1.getRecipientResolver();
+        final List<Address> sent = new CopyOnWriteArrayList<>();
+        final Address address = TestNetworkUtils.toAddress(5);
+        resolver.send(new Recipient(address), sent::add);
+
+        // Sent in the calling thread.
+        assertEquals(1, sent.size());
+        assertEquals(address, sent.get(0));
+    }
+
+    @Test
+    public void flushedOnIAm() throws Exception {
+        final RecipientResolver resolver = d1.getRecipientResolver();
+        final Recipient recipient = new Recipient(new ObjectIdentifier(ObjectType.device, 2));
+        final List<Address> sent = new CopyOnWriteArrayList<>();
+
+        // The device does not exist yet, so the sends are queued without blocking.
+        resolver.send(recipient, sent::add);
+        resolver.send(recipient, sent::add);
+        assertEquals(0, sent.size());
+        assertEquals(2, resolver.getPendingCount(2));
+
+        // The device starts up and announces itself.
+        d2 = new LocalDevice(2, new DefaultTransport(new TestNetwork(map, 2, 0))).withClock(clock).initialize();
+        d2.sendGlobalBroadcast(d2.getIAm());
+        awaitSize(sent, 2);
+        assertEquals(TestNetworkUtils.toAddress(2), sent.get(0));
+        assertEquals(TestNetworkUtils.toAddress(2), sent.get(1));
+        assertEquals(0, resolver.getPendingCount(2));
+
+        // Now that the address is known, sends are immediate.
+        resolver.send(recipient, sent::add);
+        assertEquals(3, sent.size());
+
+        // The cached address is kept current.
+        final Address moved = TestNetworkUtils.toAddress(22);
+        d1.updateRemoteDevice(2, moved);
+        resolver.send(recipient, sent::add);
+        assertEquals(4, sent.size());
+        assertEquals(moved, sent.get(3));
+    }
+
+    @Test
+    public void bounded() {
+        final RecipientResolver resolver = d1.getRecipientResolver();
+        resolver.setMaxPendingPerDevice(10);
+        final Recipient recipient = new Recipient(new ObjectIdentifier(ObjectType.device, 3));
+        final List<Integer> sent = new CopyOnWriteArrayList<>();
+
+        for (int i = 0; i < 15; i++) {
+            final int n = i;
+            resolver.send(recipient, (address) -> sent.add(n));
+        }
+        assertEquals(10, resolver.getPendingCount(3));
+
+        // The oldest sends were discarded.
+        d1.updateRemoteDevice(3, TestNetworkUtils.toAddress(3));
+        awaitSize(sent, 10);
+        assertEquals(5, sent.get(0).intValue());
+        assertEquals(14, sent.get(9).intValue());
+    }
+
+    @Test
+    public void expired() {
+        final RecipientResolver resolver = d1.getRecipientResolver();
+        resolver.setPendingTimeout(10000);
+        final Recipient recipient = new Recipient(new ObjectIdentifier(ObjectType.device, 4));
+        final List<Integer> sent = new CopyOnWriteArrayList<>();
+
+        resolver.send(recipient, (address) -> sent.add(1));
+        clock.plusSeconds(15);
+        resolver.send(recipient, (address) -> sent.add(2));
+
+        // Only the send that has not expired is flushed.
+        d1.updateRemoteDevice(4, TestNetworkUtils.toAddress(4));
+        awaitSize(sent, 1);
+        ThreadUtils.sleep(50);
+        assertEquals(1, sent.size());
+        assertEquals(2, sent.get(0).intValue());
+    }
+
+    private static void awaitSize(final List<?> list, final int size) {
+        for (int i = 0; i < 100 && list.size() < size; i++)
+            ThreadUtils.sleep(10);
+        assertTrue(list.size() >= size);
+    }
+}
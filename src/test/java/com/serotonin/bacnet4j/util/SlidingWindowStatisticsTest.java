@@ -0,0 +1,131 @@
+package com.serotonin.bacnet4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SlidingWindowStatisticsTest {
+    @Test
+    public void empty() {
+        final SlidingWindowStatistics<Integer> stats = new SlidingWindowStatistics<>(3);
+        assertEquals(Float.POSITIVE_INFINITY, stats.getMinimum(), 0);
+        assertNull(stats.getMinimumTimestamp());
+        assertEquals(Float.NEGATIVE_INFINITY, stats.getMaximum(), 0);
+        assertNull(stats.getMaximumTimestamp());
+        assertEquals(Float.NaN, stats.getAverage(), 0);
+        assertEquals(0, stats.getSampleCount());
+        assertEquals(0, stats.getValidCount());
+    }
+
+    @Test
+    public void window() {
+        final SlidingWindowStatistics<Integer> stats = new SlidingWindowStatistics<>(3);
+
+        stats.add(5, 1);
+        stats.add(2, 2);
+        stats.add(5, 3);
+        assertEquals(2, stats.getMinimum(), 0);
+        assertEquals(Integer.valueOf(2), stats.getMinimumTimestamp());
+        // The oldest of equal values is reported.
+        assertEquals(5, stats.getMaximum(), 0);
+        assertEquals(Integer.valueOf(1), stats.getMaximumTimestamp());
+        assertEquals(4, stats.getAverage(), 0);
+
+        // Drop the first 5
+        stats.add(1, 4);
+        assertEquals(1, stats.getMinimum(), 0);
+        assertEquals(Integer.valueOf(4), stats.getMinimumTimestamp());
+        assertEquals(5, stats.getMaximum(), 0);
+        assertEquals(Integer.valueOf(3), stats.getMaximumTimestamp());
+        assertEquals(8F / 3, stats.getAverage(), 0.00001);
+
+        // Invalid samples take a slot, but are not included.
+        stats.addInvalid();
+        stats.addInvalid();
+        assertEquals(3, stats.getSampleCount());
+        assertEquals(1, stats.getValidCount());
+        assertEquals(1, stats.getMinimum(), 0);
+        assertEquals(1, stats.getMaximum(), 0);
+        assertEquals(1, stats.getAverage(), 0);
+
+        stats.addInvalid();
+        assertEquals(0, stats.getValidCount());
+        assertEquals(Float.POSITIVE_INFINITY, stats.getMinimum(), 0);
+        assertEquals(Float.NaN, stats.getAverage(), 0);
+
+        stats.clear();
+        assertEquals(0, stats.getSampleCount());
+        stats.add(7, 5);
+        assertEquals(7, stats.getAverage(), 0);
+    }
+
+    @Test
+    public void nonFinite() {
+        final SlidingWindowStatistics<Integer> stats = new SlidingWindowStatistics<>(2);
+        stats.add(Float.NaN, 1);
+        stats.add(3, 2);
+        assertEquals(Float.NaN, stats.getAverage(), 0);
+        assertEquals(3, stats.getMinimum(), 0);
+
+        // The average recovers once the NaN is dropped.
+        stats.add(5, 3);
+        assertEquals(4, stats.getAverage(), 0);
+
+        stats.add(Float.POSITIVE_INFINITY, 4);
+        assertEquals(Float.POSITIVE_INFINITY, stats.getAverage(), 0);
+        assertEquals(Float.POSITIVE_INFINITY, stats.getMaximum(), 0);
+        stats.add(1, 5);
+        stats.add(2, 6);
+        assertEquals(1.5F, stats.getAverage(), 0);
+    }
+
+    /**
+     * Compares the results against a scan of the window.
+     */
+    @Test
+    public void randomAgainstScan() {
+        final Random random = new Random(1234);
+        for (final int windowSize : new int[] { 1, 2, 7, 100 }) {
+            final SlidingWindowStatistics<Integer> stats = new SlidingWindowStatistics<>(windowSize);
+            final List<Float> buffer = new ArrayList<>();
+
+            for (int i = 0; i < 2000; i++) {
+                final Float value = random.nextInt(10) == 0 ? null : (float) random.nextInt(20);
+                if (buffer.size() >= windowSize)
+                    buffer.remove(0);
+                buffer.add(value);
+                if (value == null)
+                    stats.addInvalid();
+                else
+                    stats.add(value, i);
+
+                float min = Float.POSITIVE_INFINITY;
+                float max = Float.NEGATIVE_INFINITY;
+                float sum = 0;
+                int valid = 0;
+                for (final Float f : buffer) {
+                    if (f != null) {
+                        min = Math.min(min, f);
+                        max = Math.max(max, f);
+                        sum += f;
+                        valid++;
+                    }
+                }
+
+                assertEquals(buffer.size(), stats.getSampleCount());
+                assertEquals(valid, stats.getValidCount());
+                assertEquals(min, stats.getMinimum(), 0);
+                assertEquals(max, stats.getMaximum(), 0);
+                if (valid == 0)
+                    assertEquals(Float.NaN, stats.getAverage(), 0);
+                else
+                    assertEquals(sum / valid, stats.getAverage(), 0.0001);
+            }
+        }
+    }
+}